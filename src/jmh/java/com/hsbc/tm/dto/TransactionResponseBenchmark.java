@@ -0,0 +1,133 @@
+package com.hsbc.tm.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.hsbc.tm.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易响应构造和DTO的JSON编解码的JMH微基准测试
+ * ObjectMapper的配置与应用一致：自动注册模块，日期写为ISO字符串
+ * 描述长度通过参数descriptionLength指定
+ * 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.args="TransactionResponseBenchmark -prof gc"
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionResponseBenchmark {
+
+    @Param({"16", "256"})
+    private int descriptionLength;
+
+    private ObjectMapper objectMapper;
+    private Transaction transaction;
+    private TransactionResponse response;
+    private byte[] responseJson;
+    private byte[] requestJson;
+
+    /**
+     * 准备交易、响应及其JSON编码
+     *
+     * @author 薛鹏
+     * @throws IOException 当编码失败时抛出异常
+     */
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        transaction = new Transaction(new BigDecimal("1234.56"), "x".repeat(descriptionLength), "DEPOSIT", "USD");
+        transaction.setTimestamp(LocalDateTime.of(2025, 1, 1, 12, 30, 45));
+        response = new TransactionResponse(transaction);
+        responseJson = objectMapper.writeValueAsBytes(response);
+
+        TransactionRequest request = new TransactionRequest();
+        request.setAmount(transaction.getAmount());
+        request.setDescription(transaction.getDescription());
+        request.setType(transaction.getType());
+        request.setCurrency(transaction.getCurrency());
+        requestJson = objectMapper.writeValueAsBytes(request);
+    }
+
+    /**
+     * 由交易构造响应对象
+     *
+     * @author 薛鹏
+     * @return 返回响应对象
+     */
+    @Benchmark
+    public TransactionResponse constructResponse() {
+        return new TransactionResponse(transaction);
+    }
+
+    /**
+     * 将响应编码为JSON字节
+     *
+     * @author 薛鹏
+     * @return 返回JSON字节
+     * @throws IOException 当编码失败时抛出异常
+     */
+    @Benchmark
+    public byte[] encodeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * 由交易构造响应并编码，对应未缓存JSON时按ID查询的序列化路径
+     *
+     * @author 薛鹏
+     * @return 返回JSON字节
+     * @throws IOException 当编码失败时抛出异常
+     */
+    @Benchmark
+    public byte[] constructAndEncodeResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(new TransactionResponse(transaction));
+    }
+
+    /**
+     * 从JSON字节解码响应
+     *
+     * @author 薛鹏
+     * @return 返回响应对象
+     * @throws IOException 当解码失败时抛出异常
+     */
+    @Benchmark
+    public TransactionResponse decodeResponse() throws IOException {
+        return objectMapper.readValue(responseJson, TransactionResponse.class);
+    }
+
+    /**
+     * 从JSON字节解码创建请求
+     *
+     * @author 薛鹏
+     * @return 返回请求对象
+     * @throws IOException 当解码失败时抛出异常
+     */
+    @Benchmark
+    public TransactionRequest decodeRequest() throws IOException {
+        return objectMapper.readValue(requestJson, TransactionRequest.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存交易仓库的JMH微基准测试
+ * 在预先写入size笔交易的仓库上测量保存、按ID查询和按时间倒序分页查询的吞吐量和延迟
+ * 每轮迭代前重建仓库，保存测试在一轮内写入的交易不会累积到下一轮
+ * 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.args="InMemoryTransactionRepositoryBenchmark -prof gc"
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryTransactionRepositoryBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "HKD"};
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private Transaction[] transactions;
+    private String[] ids;
+    private InMemoryTransactionRepository repository;
+
+    /**
+     * 生成测试数据
+     *
+     * @author 薛鹏
+     */
+    @Setup(Level.Trial)
+    public void createTransactions() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        transactions = new Transaction[size];
+        ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = new Transaction(BigDecimal.valueOf(i % 10_000, 2), "benchmark transaction " + i,
+                    "DEPOSIT", CURRENCIES[i % CURRENCIES.length]);
+            transaction.setTimestamp(base.plusSeconds(i));
+            transactions[i] = transaction;
+            ids[i] = transaction.getId();
+        }
+    }
+
+    /**
+     * 以测试数据重建仓库
+     *
+     * @author 薛鹏
+     */
+    @Setup(Level.Iteration)
+    public void createRepository() {
+        repository = new InMemoryTransactionRepository();
+        repository.saveAll(Arrays.asList(transactions));
+    }
+
+    /**
+     * 保存一笔新交易，包括生成交易ID
+     *
+     * @author 薛鹏
+     * @return 返回保存的交易
+     */
+    @Benchmark
+    public Transaction save() {
+        return repository.save(new Transaction(new BigDecimal("10.00"), "benchmark save", "DEPOSIT", "USD"));
+    }
+
+    /**
+     * 以字符串ID查询一笔随机的已有交易
+     *
+     * @author 薛鹏
+     * @return 返回查询结果
+     */
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(ids[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    /**
+     * 查询随机的一页交易
+     *
+     * @author 薛鹏
+     * @return 返回该页的交易
+     */
+    @Benchmark
+    public List<Transaction> findAllPage() {
+        return repository.findAll(ThreadLocalRandom.current().nextInt(size / PAGE_SIZE), PAGE_SIZE);
+    }
+}
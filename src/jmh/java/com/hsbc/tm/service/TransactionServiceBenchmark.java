@@ -0,0 +1,183 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.TmApplication;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交易服务的JMH微基准测试
+ * 启动不含Web层的应用上下文，caching=false时以spring.cache.type=none关闭全部缓存，
+ * 对比有无缓存时按ID查询、查询JSON字节、创建和分页查询的吞吐量和延迟
+ * 按ID查询只访问前HOT_IDS笔交易，使热点数据能够放入默认容量的交易缓存
+ * 每轮迭代结束时删除创建测试写入的交易，仓库始终保持size笔交易
+ * 运行方式：mvn -Pjmh test-compile exec:exec -Djmh.args="TransactionServiceBenchmark -prof gc"
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "HKD"};
+    private static final int HOT_IDS = 256;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"true", "false"})
+    private boolean caching;
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private TransactionRepository transactionRepository;
+    private String[] hotIds;
+    private Set<String> seededIds;
+    private TransactionRequest request;
+
+    /**
+     * 启动应用上下文并写入测试数据
+     *
+     * @author 薛鹏
+     */
+    @Setup(Level.Trial)
+    public void startContext() {
+        // 以命令行参数传入，优先于application.properties中的配置
+        context = new SpringApplicationBuilder(TmApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.cache.type=" + (caching ? "caffeine" : "none"),
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.com.hsbc.tm=WARN");
+        transactionService = context.getBean(TransactionService.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(size);
+        seededIds = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = new Transaction(BigDecimal.valueOf(i % 10_000, 2), "benchmark transaction " + i,
+                    "DEPOSIT", CURRENCIES[i % CURRENCIES.length]);
+            transaction.setTimestamp(base.plusSeconds(i));
+            transactions.add(transaction);
+            seededIds.add(transaction.getId());
+        }
+        transactionRepository.saveAll(transactions);
+        hotIds = new String[Math.min(HOT_IDS, size)];
+        for (int i = 0; i < hotIds.length; i++) {
+            hotIds[i] = transactions.get(i).getId();
+        }
+
+        request = new TransactionRequest();
+        request.setAmount(new BigDecimal("10.00"));
+        request.setDescription("benchmark create");
+        request.setType("DEPOSIT");
+        request.setCurrency("USD");
+    }
+
+    /**
+     * 删除本轮迭代中创建的交易
+     *
+     * @author 薛鹏
+     */
+    @TearDown(Level.Iteration)
+    public void removeCreated() {
+        if (transactionRepository.count() > size) {
+            for (Transaction transaction : transactionRepository.findAll()) {
+                if (!seededIds.contains(transaction.getId())) {
+                    transactionService.deleteTransaction(transaction.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭应用上下文
+     *
+     * @author 薛鹏
+     */
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    /**
+     * 按ID查询热点交易
+     *
+     * @author 薛鹏
+     * @return 返回交易响应
+     */
+    @Benchmark
+    public TransactionResponse getTransaction() {
+        return transactionService.getTransaction(hotId());
+    }
+
+    /**
+     * 按ID查询热点交易的JSON字节
+     *
+     * @author 薛鹏
+     * @return 返回交易的JSON编码
+     */
+    @Benchmark
+    public TransactionJson getTransactionJson() {
+        return transactionService.getTransactionJson(hotId());
+    }
+
+    /**
+     * 创建一笔交易，包括验证、保存和更新统计
+     *
+     * @author 薛鹏
+     * @return 返回交易响应
+     */
+    @Benchmark
+    public TransactionResponse createTransaction() {
+        return transactionService.createTransaction(request);
+    }
+
+    /**
+     * 查询随机的一页交易
+     *
+     * @author 薛鹏
+     * @return 返回该页的交易响应
+     */
+    @Benchmark
+    public List<TransactionResponse> getAllTransactionsPage() {
+        return transactionService.getAllTransactions(ThreadLocalRandom.current().nextInt(size / PAGE_SIZE), PAGE_SIZE);
+    }
+
+    private String hotId() {
+        return hotIds[ThreadLocalRandom.current().nextInt(hotIds.length)];
+    }
+}
@@ -0,0 +1,201 @@
+package com.hsbc.tm.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.exception.TransactionException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 访问集群中其他节点的分区内部接口的HTTP客户端
+ * 请求和响应以JSON编码，使用与HTTP响应相同配置的ObjectMapper；连接在请求之间复用；
+ * 每个请求携带集群密钥，对端据此拒绝集群之外的访问
+ * 对端返回4xx时以{@link TransactionException.RemoteTransactionException}保留其错误代码和状态，
+ * 返回其他错误状态时抛出IllegalStateException，无法连接时抛出UncheckedIOException
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ClusterClient {
+
+    /**
+     * 节点内部接口的路径前缀，该前缀下的请求只访问接收节点自己的分区
+     */
+    public static final String INTERNAL_PATH = "/internal/transactions";
+
+    /**
+     * 携带集群密钥的请求头
+     */
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final String secret;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param objectMapper JSON序列化器
+     * @param timeout 连接和单次请求的超时时间
+     * @param secret 集群中所有节点共享的密钥
+     */
+    public ClusterClient(ObjectMapper objectMapper, Duration timeout, String secret) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.secret = secret;
+    }
+
+    /**
+     * 异步发送GET请求
+     *
+     * @author 薛鹏
+     * @param node 节点地址
+     * @param path 内部接口下的路径和查询参数
+     * @param type 响应体的类型
+     * @param <T> 响应体的类型
+     * @return 返回解析后的响应体
+     */
+    public <T> CompletableFuture<T> getAsync(String node, String path, TypeReference<T> type) {
+        return send(node, request(node, path).GET().build(), type);
+    }
+
+    /**
+     * 发送GET请求
+     *
+     * @author 薛鹏
+     * @param node 节点地址
+     * @param path 内部接口下的路径和查询参数
+     * @param type 响应体的类型
+     * @param <T> 响应体的类型
+     * @return 返回解析后的响应体
+     */
+    public <T> T get(String node, String path, TypeReference<T> type) {
+        return join(getAsync(node, path, type));
+    }
+
+    /**
+     * 发送带JSON请求体的POST请求
+     *
+     * @author 薛鹏
+     * @param node 节点地址
+     * @param path 内部接口下的路径和查询参数
+     * @param body 请求体
+     * @param type 响应体的类型
+     * @param <T> 响应体的类型
+     * @return 返回解析后的响应体
+     */
+    public <T> T post(String node, String path, Object body, TypeReference<T> type) {
+        return join(send(node, withBody(node, path, "POST", body), type));
+    }
+
+    /**
+     * 发送带JSON请求体的PUT请求
+     *
+     * @author 薛鹏
+     * @param node 节点地址
+     * @param path 内部接口下的路径和查询参数
+     * @param body 请求体
+     * @param type 响应体的类型
+     * @param <T> 响应体的类型
+     * @return 返回解析后的响应体
+     */
+    public <T> T put(String node, String path, Object body, TypeReference<T> type) {
+        return join(send(node, withBody(node, path, "PUT", body), type));
+    }
+
+    /**
+     * 发送DELETE请求
+     *
+     * @author 薛鹏
+     * @param node 节点地址
+     * @param path 内部接口下的路径
+     */
+    public void delete(String node, String path) {
+        join(send(node, request(node, path).DELETE().build(), null));
+    }
+
+    private HttpRequest withBody(String node, String path, String method, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode request for cluster node " + node, e);
+        }
+        return request(node, path)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String node, String path) {
+        return HttpRequest.newBuilder(URI.create(node + INTERNAL_PATH + path))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header(SECRET_HEADER, secret);
+    }
+
+    private <T> CompletableFuture<T> send(String node, HttpRequest request, TypeReference<T> type) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    throw new UncheckedIOException("Failed to reach cluster node " + node,
+                            cause instanceof IOException io ? io : new IOException(cause));
+                })
+                .thenApply(response -> read(node, response, type));
+    }
+
+    /**
+     * 解析响应
+     * 2xx时按类型解析响应体，4xx时还原对端的业务异常，其他状态视为对端故障
+     */
+    private <T> T read(String node, HttpResponse<byte[]> response, TypeReference<T> type) {
+        int status = response.statusCode();
+        try {
+            if (status >= 200 && status < 300) {
+                return type == null || response.body().length == 0 ? null : objectMapper.readValue(response.body(), type);
+            }
+            if (status >= 400 && status < 500) {
+                JsonNode error = objectMapper.readTree(response.body());
+                throw new TransactionException.RemoteTransactionException(
+                        error.path("code").asText("TRX_INVALID"), error.path("message").asText(), status);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode response from cluster node " + node, e);
+        }
+        throw new IllegalStateException("Cluster node " + node + " returned HTTP " + status);
+    }
+
+    /**
+     * 等待异步请求完成，并原样抛出请求中的异常
+     *
+     * @author 薛鹏
+     * @param future 异步请求
+     * @param <T> 结果的类型
+     * @return 返回请求的结果
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
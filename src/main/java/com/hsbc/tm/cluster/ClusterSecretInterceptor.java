@@ -0,0 +1,51 @@
+package com.hsbc.tm.cluster;
+
+import com.hsbc.tm.exception.TransactionException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 集群内部接口的访问检查
+ * 内部接口不做权限校验地读写本节点的分区，只允许携带集群密钥的请求访问；
+ * 密钥以常量时间比较，不匹配或缺失时抛出{@link TransactionException.ClusterAccessDeniedException}
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ClusterSecretInterceptor implements HandlerInterceptor {
+
+    private final byte[] secret;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param secret 集群中所有节点共享的密钥
+     */
+    public ClusterSecretInterceptor(String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 检查请求是否携带正确的集群密钥
+     *
+     * @author 薛鹏
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @param handler 处理请求的控制器方法
+     * @return 密钥正确时返回true
+     * @throws TransactionException.ClusterAccessDeniedException 当密钥缺失或不正确时抛出异常
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String provided = request.getHeader(ClusterClient.SECRET_HEADER);
+        if (provided == null || !MessageDigest.isEqual(secret, provided.getBytes(StandardCharsets.UTF_8))) {
+            throw new TransactionException.ClusterAccessDeniedException(request.getRequestURI());
+        }
+        return true;
+    }
+}
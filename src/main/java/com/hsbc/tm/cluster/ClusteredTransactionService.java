@@ -0,0 +1,502 @@
+package com.hsbc.tm.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.dto.TransactionBatchResponse;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionRollupPoint;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.dto.TransactionStatsGroup;
+import com.hsbc.tm.dto.TransactionStatsResponse;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.model.TransactionId;
+import com.hsbc.tm.service.TransactionService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 集群模式下的交易服务
+ * 交易ID按一致性哈希环划分给各节点，本节点只保存自己负责的分区：
+ * 按ID查询、更新和删除由负责该ID的节点处理，ID归属本节点时直接调用本地服务，否则通过内部接口转发；
+ * 创建和导入使用只生成本节点所拥有ID的生成器，总是在本地完成；
+ * 带幂等键的创建按幂等键的哈希路由到负责该键的节点，同一幂等键的重试无论落在哪个节点都在同一节点上去重，
+ * 交易由该节点创建并归属该节点
+ * 列表、游标分页、计数、统计和时间序列并行分发到所有节点，再合并各分区的结果：
+ * 列表按时间倒序归并，第page页需要每个节点提供前(page + 1) × size条；计数、统计和时间序列按分组求和
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ClusteredTransactionService implements TransactionService {
+
+    /**
+     * 导出时每次从集群读取的交易数
+     */
+    static final int EXPORT_PAGE_SIZE = 1_000;
+
+    private static final TypeReference<TransactionResponse> RESPONSE = new TypeReference<>() { };
+    private static final TypeReference<List<TransactionResponse>> RESPONSES = new TypeReference<>() { };
+    private static final TypeReference<TransactionPageResponse> PAGE = new TypeReference<>() { };
+    private static final TypeReference<Map<String, Long>> COUNT = new TypeReference<>() { };
+    private static final TypeReference<TransactionStatsResponse> STATS = new TypeReference<>() { };
+    private static final TypeReference<TransactionRollupResponse> ROLLUPS = new TypeReference<>() { };
+
+    // 按纪元微秒的时间倒序，微秒相同时按ID排序，与仓库的时间索引和游标的顺序一致；
+    // 按纳秒比较时同一微秒内的顺序与游标不同，以归并结果的最后一条生成的游标会跳过其他节点上的交易
+    private static final Comparator<TransactionResponse> NEWEST_FIRST = Comparator
+            .comparingLong((TransactionResponse response) -> TransactionCursor.toMicros(response.getTimestamp()))
+            .reversed()
+            .thenComparing(response -> TransactionId.parse(response.getId()));
+
+    private final TransactionService local;
+    private final ConsistentHashRing ring;
+    private final String self;
+    private final ClusterClient client;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param local 只访问本节点分区的交易服务
+     * @param ring 集群的一致性哈希环
+     * @param self 本节点的地址
+     * @param client 访问其他节点的客户端
+     * @param objectMapper 与HTTP响应相同配置的JSON序列化器，用于编码转发得到的交易
+     */
+    public ClusteredTransactionService(TransactionService local, ConsistentHashRing ring, String self,
+                                       ClusterClient client, ObjectMapper objectMapper) {
+        this.local = local;
+        this.ring = ring;
+        this.self = self;
+        this.client = client;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 在本节点创建交易，交易ID归属本节点
+     *
+     * @author 薛鹏
+     * @param request 包含交易详情的请求对象
+     * @return 返回创建的交易响应
+     */
+    @Override
+    public TransactionResponse createTransaction(TransactionRequest request) {
+        return local.createTransaction(request);
+    }
+
+    /**
+     * 在负责幂等键的节点上按幂等键创建交易
+     *
+     * @author 薛鹏
+     * @param request 包含交易详情的请求对象
+     * @param idempotencyKey 客户端提供的幂等键，在负责该键的节点上去重
+     * @return 返回创建的交易响应
+     */
+    @Override
+    public TransactionResponse createTransaction(TransactionRequest request, String idempotencyKey) {
+        String owner = ring.owner(idempotencyKey);
+        return owner.equals(self)
+                ? local.createTransaction(request, idempotencyKey)
+                : client.post(owner, "?idempotencyKey=" + encode(idempotencyKey), request, RESPONSE);
+    }
+
+    /**
+     * 在本节点批量创建交易
+     *
+     * @author 薛鹏
+     * @param requests 交易请求列表
+     * @return 返回按请求顺序排列的逐条结果
+     */
+    @Override
+    public TransactionBatchResponse createTransactions(List<TransactionRequest> requests) {
+        return local.createTransactions(requests);
+    }
+
+    /**
+     * 从负责该ID的节点获取交易
+     *
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @return 返回交易详情
+     */
+    @Override
+    public TransactionResponse getTransaction(String id) {
+        String owner = owner(id);
+        return owner.equals(self) ? local.getTransaction(id) : client.get(owner, "/" + encode(id), RESPONSE);
+    }
+
+    /**
+     * 从负责该ID的节点获取交易编码后的JSON
+     * 其他节点负责的交易以本节点的序列化器重新编码
+     *
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @return 返回交易的版本号和JSON字节
+     */
+    @Override
+    public TransactionJson getTransactionJson(String id) {
+        String owner = owner(id);
+        if (owner.equals(self)) {
+            return local.getTransactionJson(id);
+        }
+        TransactionResponse response = client.get(owner, "/" + encode(id), RESPONSE);
+        try {
+            return new TransactionJson(response.getVersion(), objectMapper.writeValueAsBytes(response));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode transaction " + id, e);
+        }
+    }
+
+    /**
+     * 获取所有节点上的全部交易
+     * 与导出相同以全集群的游标分页分批读取，任何一个节点都不会一次返回自己的全部分区；
+     * 结果仍全部保存在调用方的内存中，大量数据应使用{@link #exportTransactions(Consumer)}逐条处理
+     *
+     * @author 薛鹏
+     * @return 返回所有交易的列表，按时间倒序排列
+     */
+    @Override
+    public List<TransactionResponse> getAllTransactions() {
+        List<TransactionResponse> result = new ArrayList<>();
+        exportTransactions(result::add);
+        return result;
+    }
+
+    /**
+     * 获取全集群按时间倒序的一页交易
+     *
+     * @author 薛鹏
+     * @param page 页码，从0开始
+     * @param size 每页的交易数量
+     * @return 返回指定页的交易列表
+     * @throws IllegalArgumentException 当页码或大小参数无效时抛出异常
+     */
+    @Override
+    public List<TransactionResponse> getAllTransactions(int page, int size) {
+        int limit = limit(page, size);
+        return merge(gather(() -> local.getAllTransactions(0, limit), "?page=0&size=" + limit, RESPONSES),
+                (long) page * size, size);
+    }
+
+    /**
+     * 获取全集群满足过滤条件的一页交易
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @param page 页码，从0开始
+     * @param size 每页的交易数量
+     * @return 返回指定页的交易列表
+     * @throws IllegalArgumentException 当页码或大小参数无效时抛出异常
+     */
+    @Override
+    public List<TransactionResponse> getTransactions(TransactionFilter filter, int page, int size) {
+        int limit = limit(page, size);
+        return merge(gather(() -> local.getTransactions(filter, 0, limit),
+                "?page=0&size=" + limit + query(filter), RESPONSES), (long) page * size, size);
+    }
+
+    /**
+     * 按游标获取全集群的交易
+     * 每个节点返回游标之后的size条，归并后取前size条，并以最后一条生成下一页游标
+     *
+     * @author 薛鹏
+     * @param cursor 上一页返回的游标，为空时从第一条开始
+     * @param size 每页的交易数量
+     * @return 返回当前页的交易以及下一页的游标
+     */
+    @Override
+    public TransactionPageResponse getTransactionsAfter(String cursor, int size) {
+        String position = cursor == null ? "" : cursor;
+        List<List<TransactionResponse>> parts = new ArrayList<>();
+        for (TransactionPageResponse page : gather(() -> local.getTransactionsAfter(position, size),
+                "?cursor=" + encode(position) + "&size=" + size, PAGE)) {
+            parts.add(page.getTransactions());
+        }
+        List<TransactionResponse> transactions = merge(parts, 0, size);
+        String nextCursor = null;
+        if (transactions.size() == size) {
+            TransactionResponse last = transactions.get(size - 1);
+            nextCursor = new TransactionCursor(TransactionCursor.toMicros(last.getTimestamp()), last.getId()).encode();
+        }
+        return new TransactionPageResponse(transactions, nextCursor);
+    }
+
+    /**
+     * 按时间倒序逐条导出全集群的交易
+     * 以全集群的游标分页分批读取，内存中最多只保留每个节点的一页交易
+     *
+     * @author 薛鹏
+     * @param consumer 接收每条交易的回调
+     * @return 返回导出的交易数
+     */
+    @Override
+    public long exportTransactions(Consumer<TransactionResponse> consumer) {
+        long exported = 0;
+        String cursor = "";
+        while (true) {
+            TransactionPageResponse page = getTransactionsAfter(cursor, EXPORT_PAGE_SIZE);
+            page.getTransactions().forEach(consumer);
+            exported += page.getTransactions().size();
+            if (page.getNextCursor() == null) {
+                return exported;
+            }
+            cursor = page.getNextCursor();
+        }
+    }
+
+    /**
+     * 在负责该ID的节点上更新交易
+     *
+     * @author 薛鹏
+     * @param id 要更新的交易ID
+     * @param request 包含更新信息的请求对象
+     * @return 返回更新后的交易响应
+     */
+    @Override
+    public TransactionResponse updateTransaction(String id, TransactionRequest request) {
+        String owner = owner(id);
+        return owner.equals(self)
+                ? local.updateTransaction(id, request)
+                : client.put(owner, "/" + encode(id), request, RESPONSE);
+    }
+
+    /**
+     * 仅当交易仍为指定版本时，在负责该ID的节点上更新交易
+     *
+     * @author 薛鹏
+     * @param id 要更新的交易ID
+     * @param request 包含更新信息的请求对象
+     * @param expectedVersion 客户端读取时的交易版本号
+     * @return 返回更新后的交易响应
+     */
+    @Override
+    public TransactionResponse updateTransaction(String id, TransactionRequest request, long expectedVersion) {
+        String owner = owner(id);
+        return owner.equals(self)
+                ? local.updateTransaction(id, request, expectedVersion)
+                : client.put(owner, "/" + encode(id) + "?expectedVersion=" + expectedVersion, request, RESPONSE);
+    }
+
+    /**
+     * 在负责该ID的节点上删除交易
+     *
+     * @author 薛鹏
+     * @param id 要删除的交易ID
+     */
+    @Override
+    public void deleteTransaction(String id) {
+        String owner = owner(id);
+        if (owner.equals(self)) {
+            local.deleteTransaction(id);
+        } else {
+            client.delete(owner, "/" + encode(id));
+        }
+    }
+
+    /**
+     * 获取全集群的交易总数
+     *
+     * @author 薛鹏
+     * @return 返回各节点交易数之和
+     */
+    @Override
+    public long countTransactions() {
+        return sum(gather(() -> Map.of("count", local.countTransactions()), "/count", COUNT));
+    }
+
+    /**
+     * 获取全集群满足过滤条件的交易数
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回各节点满足条件的交易数之和
+     */
+    @Override
+    public long countTransactions(TransactionFilter filter) {
+        String query = query(filter);
+        return sum(gather(() -> Map.of("count", local.countTransactions(filter)),
+                "/count" + (query.isEmpty() ? "" : "?" + query.substring(1)), COUNT));
+    }
+
+    /**
+     * 获取全集群按货币、类型和状态分组的交易统计
+     *
+     * @author 薛鹏
+     * @return 返回各节点统计按分组求和的结果
+     */
+    @Override
+    public TransactionStatsResponse getStatistics() {
+        Map<List<String>, TransactionStatsGroup> groups = new LinkedHashMap<>();
+        for (TransactionStatsResponse stats : gather(local::getStatistics, "/stats", STATS)) {
+            for (TransactionStatsGroup group : stats.getGroups()) {
+                groups.merge(List.of(Objects.toString(group.getCurrency(), ""), Objects.toString(group.getType(), ""),
+                                Objects.toString(group.getStatus(), "")), group,
+                        (a, b) -> new TransactionStatsGroup(a.getCurrency(), a.getType(), a.getStatus(),
+                                a.getCount() + b.getCount(), add(a.getTotal(), b.getTotal())));
+            }
+        }
+        List<TransactionStatsGroup> result = new ArrayList<>(groups.values());
+        result.sort(Comparator.comparing(TransactionStatsGroup::getCurrency, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(TransactionStatsGroup::getType, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(TransactionStatsGroup::getStatus, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return new TransactionStatsResponse(result);
+    }
+
+    /**
+     * 获取全集群按货币划分的时间序列
+     * 各节点同一时间桶和货币的数据点求和；保留期取各节点中最晚的起点，早于该时间的桶可能只包含部分节点的数据
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     * @param currency 货币代码，为空时返回所有货币
+     * @param from ISO-8601格式的起始时间（UTC），包含
+     * @param to ISO-8601格式的结束时间（UTC），不包含
+     * @return 返回时间范围内各时间桶的笔数和金额合计
+     */
+    @Override
+    public TransactionRollupResponse getRollups(String granularity, String currency, String from, String to) {
+        String path = "/rollups?granularity=" + encode(granularity) + "&from=" + encode(from) + "&to=" + encode(to)
+                + (currency == null ? "" : "&currency=" + encode(currency));
+        List<TransactionRollupResponse> parts = gather(() -> local.getRollups(granularity, currency, from, to),
+                path, ROLLUPS);
+        Map<List<Object>, TransactionRollupPoint> points = new LinkedHashMap<>();
+        LocalDateTime retainedFrom = null;
+        for (TransactionRollupResponse part : parts) {
+            if (part.getRetainedFrom() != null
+                    && (retainedFrom == null || part.getRetainedFrom().isAfter(retainedFrom))) {
+                retainedFrom = part.getRetainedFrom();
+            }
+            for (TransactionRollupPoint point : part.getPoints()) {
+                points.merge(List.of(point.getStart(), Objects.toString(point.getCurrency(), "")), point,
+                        (a, b) -> new TransactionRollupPoint(a.getStart(), a.getCurrency(),
+                                a.getCount() + b.getCount(), add(a.getTotal(), b.getTotal())));
+            }
+        }
+        List<TransactionRollupPoint> merged = new ArrayList<>(points.values());
+        merged.sort(Comparator.comparing(TransactionRollupPoint::getStart)
+                .thenComparing(TransactionRollupPoint::getCurrency, Comparator.nullsFirst(Comparator.naturalOrder())));
+        TransactionRollupResponse first = parts.get(0);
+        return new TransactionRollupResponse(first.getGranularity(), first.getFrom(), first.getTo(), retainedFrom,
+                merged);
+    }
+
+    /**
+     * 并行地在本节点和其他所有节点上执行同一查询
+     * 先发出对其他节点的异步请求，再在调用线程上执行本地查询，最后等待全部结果
+     *
+     * @author 薛鹏
+     * @param localQuery 本节点分区上的查询
+     * @param path 其他节点内部接口下的路径和查询参数
+     * @param type 结果的类型
+     * @param <T> 结果的类型
+     * @return 返回各节点的结果，本节点的结果在前
+     */
+    private <T> List<T> gather(Supplier<T> localQuery, String path, TypeReference<T> type) {
+        List<CompletableFuture<T>> remote = new ArrayList<>();
+        for (String node : ring.getNodes()) {
+            if (!node.equals(self)) {
+                remote.add(client.getAsync(node, path, type));
+            }
+        }
+        List<T> results = new ArrayList<>(remote.size() + 1);
+        try {
+            results.add(localQuery.get());
+        } catch (RuntimeException e) {
+            remote.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        for (CompletableFuture<T> future : remote) {
+            results.add(ClusterClient.join(future));
+        }
+        return results;
+    }
+
+    private String owner(String id) {
+        TransactionId key = TransactionId.tryParse(id);
+        if (key == null) {
+            throw new TransactionException.TransactionNotFoundException(id);
+        }
+        return ring.owner(key);
+    }
+
+    /**
+     * 按时间倒序归并各节点已排好序的结果，并截取指定的一段
+     */
+    private static List<TransactionResponse> merge(List<List<TransactionResponse>> parts, long offset, int limit) {
+        List<TransactionResponse> all = new ArrayList<>();
+        parts.forEach(all::addAll);
+        if (offset >= all.size()) {
+            return new ArrayList<>();
+        }
+        all.sort(NEWEST_FIRST);
+        return new ArrayList<>(all.subList((int) offset, (int) Math.min(all.size(), offset + limit)));
+    }
+
+    private static int limit(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Invalid page or size parameters");
+        }
+        return (int) Math.min(Integer.MAX_VALUE, ((long) page + 1) * size);
+    }
+
+    private static long sum(List<Map<String, Long>> counts) {
+        return counts.stream().mapToLong(count -> count.get("count")).sum();
+    }
+
+    private static BigDecimal add(BigDecimal a, BigDecimal b) {
+        return a == null ? b : b == null ? a : a.add(b);
+    }
+
+    /**
+     * 将过滤条件编码为查询参数，每个参数以&开头
+     */
+    private static String query(TransactionFilter filter) {
+        StringBuilder query = new StringBuilder();
+        append(query, "type", filter.getTypes());
+        append(query, "currency", filter.getCurrencies());
+        append(query, "status", filter.getStatuses());
+        if (filter.getMinAmount() != null) {
+            query.append("&minAmount=").append(filter.getMinAmount().toPlainString());
+        }
+        if (filter.getMaxAmount() != null) {
+            query.append("&maxAmount=").append(filter.getMaxAmount().toPlainString());
+        }
+        if (filter.getQuery() != null) {
+            query.append("&q=").append(encode(filter.getQuery()));
+        }
+        return query.toString();
+    }
+
+    private static void append(StringBuilder query, String name, Collection<String> values) {
+        if (values != null) {
+            for (String value : values) {
+                query.append('&').append(name).append('=').append(encode(value));
+            }
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+package com.hsbc.tm.cluster;
+
+import com.hsbc.tm.model.TransactionId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 交易ID到集群节点的一致性哈希环
+ * 每个节点以若干个虚拟节点分布在64位哈希环上，虚拟节点的位置取"节点地址#序号"的MD5前8字节，
+ * 与JVM和启动顺序无关，各节点以相同的节点列表构造出完全相同的环；
+ * 交易ID按哈希落在环上，由顺时针方向的第一个虚拟节点所属的节点负责
+ * 加入或移除一个节点时只有相邻区间的ID改变归属，其余ID的归属不变
+ * 不可变，线程安全
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ConsistentHashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param nodes 节点地址，顺序不影响归属
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @throws IllegalArgumentException 当节点为空或虚拟节点数小于1时抛出异常
+     */
+    public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(nodes));
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("Cluster must contain at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual node count must be at least 1");
+        }
+        this.nodes = Collections.unmodifiableList(distinct);
+
+        long[][] entries = new long[distinct.size() * virtualNodes][];
+        int index = 0;
+        for (int node = 0; node < distinct.size(); node++) {
+            for (int i = 0; i < virtualNodes; i++) {
+                entries[index++] = new long[]{point(distinct.get(node) + "#" + i), node};
+            }
+        }
+        // 位置相同时按节点序号排序，极少出现的冲突也有确定的结果
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = distinct.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * 获取负责交易ID的节点
+     *
+     * @author 薛鹏
+     * @param id 交易ID
+     * @return 返回节点地址
+     */
+    public String owner(TransactionId id) {
+        return owner(id.getHigh(), id.getLow());
+    }
+
+    /**
+     * 获取负责交易ID的节点
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @return 返回节点地址
+     */
+    public String owner(long high, long low) {
+        int index = Arrays.binarySearch(points, hash(high, low));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 获取负责任意字符串键（例如幂等键）的节点
+     * 键取UTF-8编码的MD5作为128位的位置，与JVM无关，各节点对同一键得到同一节点
+     *
+     * @author 薛鹏
+     * @param key 字符串键
+     * @return 返回节点地址
+     */
+    public String owner(String key) {
+        ByteBuffer digest = ByteBuffer.wrap(md5(key));
+        return owner(digest.getLong(), digest.getLong());
+    }
+
+    /**
+     * 获取环中的节点
+     *
+     * @author 薛鹏
+     * @return 返回去重后的节点地址
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 计算交易ID在环上的位置
+     * 使用SplitMix64的混合函数，与主存储和仓库分片所用的哈希不同，
+     * 同一节点拥有的ID在节点内部的分片和分段上仍均匀分布
+     */
+    private static long hash(long high, long low) {
+        long h = high ^ Long.rotateLeft(low, 31);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static long point(String key) {
+        return ByteBuffer.wrap(md5(key)).getLong();
+    }
+
+    private static byte[] md5(String key) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
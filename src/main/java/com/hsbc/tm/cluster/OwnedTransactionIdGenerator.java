@@ -0,0 +1,50 @@
+package com.hsbc.tm.cluster;
+
+import com.hsbc.tm.model.TransactionId;
+import com.hsbc.tm.service.TransactionIdGenerator;
+
+/**
+ * 只生成由本节点负责的交易ID的生成器
+ * 反复生成随机ID直到其在哈希环上归属本节点，期望的尝试次数为集群的节点数，
+ * 因此创建和导入总是在接收请求的节点本地完成，不需要转发
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class OwnedTransactionIdGenerator extends TransactionIdGenerator {
+
+    private final ConsistentHashRing ring;
+    private final String self;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param ring 集群的一致性哈希环
+     * @param self 本节点的地址，必须是环中的节点
+     * @throws IllegalArgumentException 当本节点不在环中时抛出异常
+     */
+    public OwnedTransactionIdGenerator(ConsistentHashRing ring, String self) {
+        if (!ring.getNodes().contains(self)) {
+            throw new IllegalArgumentException("Node " + self + " is not a member of the cluster " + ring.getNodes());
+        }
+        this.ring = ring;
+        this.self = self;
+    }
+
+    /**
+     * 生成由本节点负责的交易ID
+     *
+     * @author 薛鹏
+     * @return 返回新的交易ID
+     */
+    @Override
+    public TransactionId next() {
+        while (true) {
+            TransactionId id = TransactionId.random();
+            if (self.equals(ring.owner(id))) {
+                return id;
+            }
+        }
+    }
+}
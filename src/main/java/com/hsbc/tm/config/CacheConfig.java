@@ -1,17 +1,157 @@
 package com.hsbc.tm.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
+/**
+ * 缓存配置
+ * 缓存管理器由Spring Boot按spring.cache.caffeine.spec自动创建，交易缓存因此受配置中的容量和过期时间限制；
+ * spec中的recordStats使命中、未命中和淘汰次数通过actuator的cache.*指标导出
+ *
+ * 另外注册一个短期的负缓存，记录最近查询过但不存在的交易ID，
+ * 重复查询不存在的ID时不再访问仓库；交易ID由服务端随机生成，新交易不会与负缓存中的ID冲突
+ *
+ * 以及交易响应编码后的JSON字节缓存，tm.cache.json.enabled=true时按ID查询直接写出缓存的字节；
+ * 缓存总是注册，使更新和删除时的失效操作在关闭该功能时同样有效
+ *
+ * 以及按Idempotency-Key保存创建结果的幂等存储，客户端重试创建请求时直接返回首次的响应；
+ * 存储按估计的字节数限定容量，写入后经过存活时间淘汰
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /**
+     * 交易详情缓存
+     */
+    public static final String TRANSACTION_CACHE = "transaction";
+
+    /**
+     * 不存在的交易ID的负缓存
+     */
+    public static final String MISSING_TRANSACTION_CACHE = "transaction-missing";
+
+    /**
+     * 交易响应编码后的JSON字节缓存
+     */
+    public static final String TRANSACTION_JSON_CACHE = "transaction-json";
+
+    /**
+     * 按幂等键保存创建结果的幂等存储
+     */
+    public static final String IDEMPOTENCY_CACHE = "transaction-idempotency";
+
+    // 每个幂等条目除键和描述外的估计开销：缓存节点、键的String对象，以及交易响应及其ID、金额、类型、货币和时间戳对象
+    private static final int IDEMPOTENCY_ENTRY_OVERHEAD_BYTES = 64 + 40 + 400;
+
+    /**
+     * 向自动配置的Caffeine缓存管理器注册负缓存
+     * 负缓存的过期时间与交易缓存无关，单独配置
+     *
+     * @author 薛鹏
+     * @param ttl 负缓存条目的存活时间
+     * @param maximumSize 负缓存的最大条目数
+     * @return 返回缓存管理器定制器
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> missingTransactionCache(
+            @Value("${tm.cache.missing.ttl:30s}") Duration ttl,
+            @Value("${tm.cache.missing.maximum-size:10000}") long maximumSize) {
+        return cacheManager -> cacheManager.registerCustomCache(MISSING_TRANSACTION_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * 向自动配置的Caffeine缓存管理器注册JSON字节缓存
+     * 按编码后的字节数限制总大小，不同交易的描述长度不同，按条目数限制无法约束内存
+     *
+     * @author 薛鹏
+     * @param maximumBytes 缓存的JSON字节总数上限
+     * @return 返回缓存管理器定制器
+     */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("transaction");
+    public CacheManagerCustomizer<CaffeineCacheManager> transactionJsonCache(
+            @Value("${tm.cache.json.maximum-bytes:16777216}") long maximumBytes) {
+        return cacheManager -> cacheManager.registerCustomCache(TRANSACTION_JSON_CACHE, Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Object key, Object value) -> ((TransactionJson) value).getJson().length)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * 向自动配置的Caffeine缓存管理器注册幂等存储
+     * 命中和未命中次数由Spring Boot以cache.gets指标导出
+     *
+     * @author 薛鹏
+     * @param ttl 幂等键的保留时间，应覆盖客户端的最长重试窗口
+     * @param maximumBytes 存储的估计字节总数上限
+     * @return 返回缓存管理器定制器
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> idempotencyCache(
+            @Value("${tm.idempotency.ttl:10m}") Duration ttl,
+            @Value("${tm.idempotency.maximum-bytes:8388608}") long maximumBytes) {
+        return cacheManager -> cacheManager.registerCustomCache(IDEMPOTENCY_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maximumBytes)
+                .weigher(CacheConfig::idempotencyEntryBytes)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * 导出幂等存储的命中率和估计内存
+     *
+     * @author 薛鹏
+     * @param cacheManager 缓存管理器
+     * @return 返回指标绑定器
+     */
+    @Bean
+    public MeterBinder idempotencyMetrics(CacheManager cacheManager) {
+        return registry -> {
+            Cache cache = cacheManager.getCache(IDEMPOTENCY_CACHE);
+            if (!(cache instanceof CaffeineCache caffeineCache)) {
+                return;
+            }
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> store = caffeineCache.getNativeCache();
+            Gauge.builder("tm.idempotency.hit.ratio", store, nativeCache -> nativeCache.stats().hitRate())
+                    .description("Share of create requests answered from the idempotency store")
+                    .register(registry);
+            Gauge.builder("tm.idempotency.size", store, nativeCache -> nativeCache.policy().eviction()
+                            .map(eviction -> eviction.weightedSize().orElse(0))
+                            .orElse(0L))
+                    .description("Estimated heap used by the idempotency store")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    private static int idempotencyEntryBytes(Object key, Object value) {
+        int bytes = IDEMPOTENCY_ENTRY_OVERHEAD_BYTES + key.toString().length();
+        if (value instanceof TransactionResponse response && response.getDescription() != null) {
+            bytes += response.getDescription().length();
+        }
+        return bytes;
     }
-} 
\ No newline at end of file
+}
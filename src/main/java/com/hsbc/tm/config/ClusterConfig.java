@@ -0,0 +1,138 @@
+package com.hsbc.tm.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.cluster.ClusterClient;
+import com.hsbc.tm.cluster.ClusterSecretInterceptor;
+import com.hsbc.tm.cluster.ClusteredTransactionService;
+import com.hsbc.tm.cluster.ConsistentHashRing;
+import com.hsbc.tm.cluster.OwnedTransactionIdGenerator;
+import com.hsbc.tm.service.TransactionIdGenerator;
+import com.hsbc.tm.service.TransactionService;
+import com.hsbc.tm.service.TransactionServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 集群模式配置
+ * 当tm.cluster.enabled=true时，各节点以相同的tm.cluster.nodes构造一致性哈希环，按交易ID划分数据：
+ * 本节点只生成自己负责的ID，控制器和响应式接口使用的交易服务替换为按ID路由、按查询分发的集群服务，
+ * 本地的交易服务只通过内部接口对其他节点开放，内部接口只接受携带tm.cluster.secret的请求
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "tm.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /**
+     * 创建集群的一致性哈希环
+     *
+     * @author 薛鹏
+     * @param nodes 所有节点的地址，例如http://10.0.0.1:8080，各节点的配置必须相同
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @return 返回一致性哈希环
+     */
+    @Bean
+    public ConsistentHashRing consistentHashRing(
+            @Value("${tm.cluster.nodes}") List<String> nodes,
+            @Value("${tm.cluster.virtual-nodes:128}") int virtualNodes) {
+        return new ConsistentHashRing(nodes.stream().map(ClusterConfig::normalize).toList(), virtualNodes);
+    }
+
+    /**
+     * 创建只生成本节点所负责ID的生成器
+     *
+     * @author 薛鹏
+     * @param ring 集群的一致性哈希环
+     * @param self 本节点的地址，必须出现在tm.cluster.nodes中
+     * @return 返回交易ID生成器
+     */
+    @Bean
+    @Primary
+    public TransactionIdGenerator ownedTransactionIdGenerator(
+            ConsistentHashRing ring,
+            @Value("${tm.cluster.self}") String self) {
+        return new OwnedTransactionIdGenerator(ring, normalize(self));
+    }
+
+    /**
+     * 创建访问其他节点的客户端
+     *
+     * @author 薛鹏
+     * @param objectMapper 应用的JSON序列化器
+     * @param timeout 连接和单次请求的超时时间
+     * @param secret 集群中所有节点共享的密钥
+     * @return 返回集群客户端
+     */
+    @Bean
+    public ClusterClient clusterClient(
+            ObjectMapper objectMapper,
+            @Value("${tm.cluster.timeout:5s}") Duration timeout,
+            @Value("${tm.cluster.secret:}") String secret) {
+        return new ClusterClient(objectMapper, timeout, requireSecret(secret));
+    }
+
+    /**
+     * 只允许携带集群密钥的请求访问内部接口
+     *
+     * @author 薛鹏
+     * @param secret 集群中所有节点共享的密钥
+     * @return 返回注册内部接口访问检查的配置
+     */
+    @Bean
+    public WebMvcConfigurer clusterSecretConfigurer(@Value("${tm.cluster.secret:}") String secret) {
+        ClusterSecretInterceptor interceptor = new ClusterSecretInterceptor(requireSecret(secret));
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns(ClusterClient.INTERNAL_PATH + "/**",
+                        ClusterClient.INTERNAL_PATH);
+            }
+        };
+    }
+
+    /**
+     * 创建集群交易服务，作为注入TransactionService时的首选实现
+     *
+     * @author 薛鹏
+     * @param local 只访问本节点分区的交易服务
+     * @param ring 集群的一致性哈希环
+     * @param self 本节点的地址
+     * @param client 集群客户端
+     * @param objectMapper 应用的JSON序列化器
+     * @return 返回集群交易服务
+     */
+    @Bean
+    @Primary
+    public TransactionService clusteredTransactionService(
+            TransactionServiceImpl local,
+            ConsistentHashRing ring,
+            @Value("${tm.cluster.self}") String self,
+            ClusterClient client,
+            ObjectMapper objectMapper) {
+        return new ClusteredTransactionService(local, ring, normalize(self), client, objectMapper);
+    }
+
+    // 内部接口可以不经校验地读写分区，不允许以空密钥启动集群
+    private static String requireSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("tm.cluster.secret must be set when tm.cluster.enabled=true");
+        }
+        return secret;
+    }
+
+    // 去掉末尾的斜杠，使节点列表和本节点地址的写法一致
+    private static String normalize(String node) {
+        String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
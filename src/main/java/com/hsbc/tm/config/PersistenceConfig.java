@@ -0,0 +1,90 @@
+package com.hsbc.tm.config;
+
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import com.hsbc.tm.repository.persistence.RecoveryStats;
+import com.hsbc.tm.repository.persistence.TransactionSnapshot;
+import com.hsbc.tm.repository.persistence.WriteAheadLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 持久化配置
+ * 当tm.wal.enabled=true时为内存仓库启用预写日志，
+ * 当tm.snapshot.enabled=true时额外启用快照以缩短启动恢复时间
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "tm.wal.enabled", havingValue = "true")
+public class PersistenceConfig {
+
+    /**
+     * 创建预写日志
+     *
+     * @author 薛鹏
+     * @param directory 数据目录，日志段文件位于其下的wal子目录
+     * @param flushPolicy 刷盘策略：PER_WRITE、INTERVAL或BYTES
+     * @param flushIntervalMillis INTERVAL策略下的刷盘间隔（毫秒）
+     * @param flushBytes BYTES策略下触发刷盘的缓冲字节数
+     * @return 返回预写日志实例
+     * @throws IOException 当日志目录无法创建时抛出异常
+     */
+    @Bean(destroyMethod = "close")
+    public WriteAheadLog writeAheadLog(
+            @Value("${tm.wal.directory:data}") String directory,
+            @Value("${tm.wal.flush-policy:PER_WRITE}") WriteAheadLog.FlushPolicy flushPolicy,
+            @Value("${tm.wal.flush-interval-ms:10}") long flushIntervalMillis,
+            @Value("${tm.wal.flush-bytes:65536}") int flushBytes) throws IOException {
+        return new WriteAheadLog(Path.of(directory, "wal"), flushPolicy, flushIntervalMillis, flushBytes);
+    }
+
+    /**
+     * 创建快照文件
+     *
+     * @author 薛鹏
+     * @param directory 数据目录
+     * @return 返回快照实例
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tm.snapshot.enabled", havingValue = "true")
+    public TransactionSnapshot transactionSnapshot(@Value("${tm.wal.directory:data}") String directory) {
+        return new TransactionSnapshot(Path.of(directory, "transactions.snapshot"));
+    }
+
+    /**
+     * 导出启动恢复指标
+     * 包括快照加载和日志回放的记录数与耗时
+     *
+     * @author 薛鹏
+     * @param repository 内存交易仓库
+     * @return 返回指标绑定器
+     */
+    @Bean
+    public MeterBinder recoveryMetrics(InMemoryTransactionRepository repository) {
+        RecoveryStats stats = repository.getRecoveryStats();
+        return registry -> {
+            Gauge.builder("tm.recovery.snapshot.records", stats, RecoveryStats::getSnapshotRecords)
+                    .description("Transactions loaded from the snapshot at startup")
+                    .register(registry);
+            Gauge.builder("tm.recovery.snapshot.duration", stats, RecoveryStats::getSnapshotMillis)
+                    .description("Time spent loading the snapshot at startup")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            Gauge.builder("tm.recovery.log.records", stats, RecoveryStats::getLogRecords)
+                    .description("Write-ahead log records replayed at startup")
+                    .register(registry);
+            Gauge.builder("tm.recovery.log.duration", stats, RecoveryStats::getLogMillis)
+                    .description("Time spent replaying the write-ahead log at startup")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.hsbc.tm.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.controller.ReactiveTransactionHandler;
+import com.hsbc.tm.service.TransactionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * 响应式接口配置
+ * 当tm.reactive.enabled=true时，在tm.reactive.port上另外启动一个Reactor Netty服务器，
+ * 以非阻塞的函数式端点提供交易接口；Servlet接口不受影响，两者共享同一个交易服务、缓存和仓库
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "tm.reactive.enabled", havingValue = "true")
+public class ReactiveServerConfig {
+
+    /**
+     * 创建响应式处理函数
+     *
+     * @author 薛鹏
+     * @param transactionService 交易服务
+     * @param jsonCacheEnabled 按ID查询时是否直接写出缓存的JSON字节
+     * @param clusterEnabled 是否启用集群模式，启用时查询可能转发到其他节点，不在事件循环上执行
+     * @return 返回响应式处理函数
+     */
+    @Bean
+    public ReactiveTransactionHandler reactiveTransactionHandler(
+            TransactionService transactionService,
+            @Value("${tm.cache.json.enabled:false}") boolean jsonCacheEnabled,
+            @Value("${tm.cluster.enabled:false}") boolean clusterEnabled) {
+        return new ReactiveTransactionHandler(transactionService, jsonCacheEnabled, clusterEnabled);
+    }
+
+    /**
+     * 启动承载响应式接口的服务器
+     * JSON编解码使用应用的ObjectMapper，日期格式与Servlet接口一致
+     *
+     * @author 薛鹏
+     * @param handler 响应式处理函数
+     * @param objectMapper 应用的JSON序列化器
+     * @param port 监听端口，为0时使用随机端口
+     * @return 返回已绑定端口的服务器
+     */
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveTransactionServer(
+            ReactiveTransactionHandler handler,
+            ObjectMapper objectMapper,
+            @Value("${tm.reactive.port:9997}") int port) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        return HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+    }
+}
@@ -0,0 +1,48 @@
+package com.hsbc.tm.config;
+
+import com.hsbc.tm.service.TransactionStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 时间序列压缩定时任务
+ * 周期性地删除超过保留期的分钟桶和小时桶，其数据已包含在更粗粒度的桶中
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Component
+@EnableScheduling
+public class RollupCompactionScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupCompactionScheduler.class);
+
+    private final TransactionStatistics transactionStatistics;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param transactionStatistics 增量维护的交易统计
+     */
+    public RollupCompactionScheduler(TransactionStatistics transactionStatistics) {
+        this.transactionStatistics = transactionStatistics;
+    }
+
+    /**
+     * 执行一次压缩
+     *
+     * @author 薛鹏
+     */
+    @Scheduled(initialDelayString = "${tm.rollup.compaction-interval-ms:60000}",
+            fixedDelayString = "${tm.rollup.compaction-interval-ms:60000}")
+    public void compact() {
+        int removed = transactionStatistics.getRollups().compact();
+        if (removed > 0) {
+            log.debug("Compacted {} expired rollup buckets", removed);
+        }
+    }
+}
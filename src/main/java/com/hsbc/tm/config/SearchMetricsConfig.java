@@ -0,0 +1,65 @@
+package com.hsbc.tm.config;
+
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import com.hsbc.tm.repository.column.TransactionColumnStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 交易描述检索的指标配置
+ * 导出描述倒排索引的词条数、估计内存以及平均每笔交易的索引内存，
+ * 用于评估是否启用三元组索引（tm.search.ngrams）
+ * 仓库分片时各项为全部分片之和，同一词条在多个分片中各计一次
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Configuration
+public class SearchMetricsConfig {
+
+    /**
+     * 导出描述索引指标
+     *
+     * @author 薛鹏
+     * @param repository 内存交易仓库
+     * @return 返回指标绑定器
+     */
+    @Bean
+    public MeterBinder searchIndexMetrics(InMemoryTransactionRepository repository) {
+        List<TransactionColumnStore> columnStores = repository.getColumnStores();
+        return registry -> {
+            Gauge.builder("tm.search.index.terms", columnStores,
+                            stores -> sum(stores, TransactionColumnStore::getDescriptionTermCount))
+                    .description("Distinct tokens and n-grams in the description index")
+                    .register(registry);
+            Gauge.builder("tm.search.index.size", columnStores,
+                            stores -> sum(stores, TransactionColumnStore::getDescriptionIndexBytes))
+                    .description("Estimated heap used by the description index")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("tm.search.index.size.per.transaction", columnStores, SearchMetricsConfig::bytesPerTransaction)
+                    .description("Estimated description index heap per stored transaction")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    private static double bytesPerTransaction(List<TransactionColumnStore> columnStores) {
+        double size = sum(columnStores, TransactionColumnStore::size);
+        return size == 0 ? 0 : sum(columnStores, TransactionColumnStore::getDescriptionIndexBytes) / size;
+    }
+
+    private static double sum(List<TransactionColumnStore> columnStores,
+                              ToDoubleFunction<TransactionColumnStore> metric) {
+        double total = 0;
+        for (TransactionColumnStore columnStore : columnStores) {
+            total += metric.applyAsDouble(columnStore);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,53 @@
+package com.hsbc.tm.config;
+
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 快照定时任务
+ * 在调度线程上周期性地写入仓库快照，写操作不会因此暂停
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = {"tm.wal.enabled", "tm.snapshot.enabled"}, havingValue = "true")
+public class SnapshotScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+    private final InMemoryTransactionRepository repository;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param repository 内存交易仓库
+     */
+    public SnapshotScheduler(InMemoryTransactionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * 写入一次快照
+     * 失败时只记录日志，下一个周期会重试
+     *
+     * @author 薛鹏
+     */
+    @Scheduled(initialDelayString = "${tm.snapshot.interval-ms:300000}", fixedDelayString = "${tm.snapshot.interval-ms:300000}")
+    public void writeSnapshot() {
+        try {
+            long start = System.currentTimeMillis();
+            long written = repository.writeSnapshot();
+            log.info("Snapshot of {} transactions completed in {} ms", written, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Snapshot failed", e);
+        }
+    }
+}
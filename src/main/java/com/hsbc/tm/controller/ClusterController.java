@@ -0,0 +1,230 @@
+package com.hsbc.tm.controller;
+
+import com.hsbc.tm.cluster.ClusterClient;
+import com.hsbc.tm.dto.TransactionPageResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.dto.TransactionStatsResponse;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.service.TransactionServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群节点之间的内部接口
+ * 只访问接收节点自己的分区，不再转发或分发，由集群中的其他节点在路由和分发查询时调用
+ * 错误响应与公开接口相同，调用方据此还原业务异常；只接受携带集群密钥的请求，见{@link ClusterClient#SECRET_HEADER}
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@RestController
+@RequestMapping(ClusterClient.INTERNAL_PATH)
+@ConditionalOnProperty(name = "tm.cluster.enabled", havingValue = "true")
+public class ClusterController {
+
+    private final TransactionServiceImpl transactionService;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param transactionService 只访问本节点分区的交易服务
+     */
+    @Autowired
+    public ClusterController(TransactionServiceImpl transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    /**
+     * 按幂等键在本节点创建交易，由接收请求的节点转发幂等键归属本节点的创建
+     * HTTP POST /internal/transactions?idempotencyKey=...
+     *
+     * @author 薛鹏
+     * @param request 包含交易详情的请求体
+     * @param idempotencyKey 客户端提供的幂等键
+     * @return 返回创建的交易详情
+     */
+    @PostMapping
+    public ResponseEntity<TransactionResponse> createTransaction(
+            @RequestBody TransactionRequest request,
+            @RequestParam String idempotencyKey) {
+        TransactionResponse response = transactionService.createTransaction(request, idempotencyKey);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * 获取本节点的交易
+     * HTTP GET /internal/transactions/{id}
+     *
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @return 返回交易详情
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<TransactionResponse> getTransaction(@PathVariable String id) {
+        return ResponseEntity.ok(transactionService.getTransaction(id));
+    }
+
+    /**
+     * 更新本节点的交易
+     * HTTP PUT /internal/transactions/{id}?expectedVersion=3
+     *
+     * @author 薛鹏
+     * @param id 要更新的交易ID
+     * @param request 包含更新信息的请求体
+     * @param expectedVersion 客户端读取时的交易版本号，可选
+     * @return 返回更新后的交易详情
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<TransactionResponse> updateTransaction(
+            @PathVariable String id,
+            @RequestBody TransactionRequest request,
+            @RequestParam(required = false) Long expectedVersion) {
+        TransactionResponse response = expectedVersion == null
+                ? transactionService.updateTransaction(id, request)
+                : transactionService.updateTransaction(id, request, expectedVersion);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 删除本节点的交易
+     * HTTP DELETE /internal/transactions/{id}
+     *
+     * @author 薛鹏
+     * @param id 要删除的交易ID
+     * @return 返回删除成功的消息
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, String>> deleteTransaction(@PathVariable String id) {
+        transactionService.deleteTransaction(id);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Transaction deleted successfully");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取本节点按时间倒序的一页交易，支持与公开接口相同的过滤参数
+     * HTTP GET /internal/transactions?page=0&size=10&type=DEPOSIT
+     *
+     * @author 薛鹏
+     * @param page 页码，从0开始
+     * @param size 每页数量
+     * @param type 交易类型，可选
+     * @param currency 货币代码，可选
+     * @param status 交易状态，可选
+     * @param minAmount 金额下限（包含），可选
+     * @param maxAmount 金额上限（包含），可选
+     * @param q 描述检索文本，可选
+     * @return 返回交易列表
+     */
+    @GetMapping
+    public ResponseEntity<List<TransactionResponse>> getTransactions(
+            @RequestParam int page,
+            @RequestParam int size,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) List<String> currency,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String q) {
+        TransactionFilter filter = filter(type, currency, status, minAmount, maxAmount, q);
+        List<TransactionResponse> transactions = filter.isEmpty()
+                ? transactionService.getAllTransactions(page, size)
+                : transactionService.getTransactions(filter, page, size);
+        return ResponseEntity.ok(transactions);
+    }
+
+    /**
+     * 按游标获取本节点的交易
+     * HTTP GET /internal/transactions?cursor=&size=10
+     *
+     * @author 薛鹏
+     * @param cursor 游标，为空时从第一条开始
+     * @param size 每页数量
+     * @return 返回当前页的交易以及本节点的下一页游标
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<TransactionPageResponse> getTransactionsByCursor(
+            @RequestParam String cursor,
+            @RequestParam int size) {
+        return ResponseEntity.ok(transactionService.getTransactionsAfter(cursor, size));
+    }
+
+    /**
+     * 获取本节点的交易数
+     * HTTP GET /internal/transactions/count?type=DEPOSIT
+     *
+     * @author 薛鹏
+     * @param type 交易类型，可选
+     * @param currency 货币代码，可选
+     * @param status 交易状态，可选
+     * @param minAmount 金额下限（包含），可选
+     * @param maxAmount 金额上限（包含），可选
+     * @param q 描述检索文本，可选
+     * @return 返回满足条件的交易数
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Long>> countTransactions(
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) List<String> currency,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String q) {
+        TransactionFilter filter = filter(type, currency, status, minAmount, maxAmount, q);
+        long count = filter.isEmpty()
+                ? transactionService.countTransactions()
+                : transactionService.countTransactions(filter);
+        Map<String, Long> response = new HashMap<>();
+        response.put("count", count);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取本节点的交易统计
+     * HTTP GET /internal/transactions/stats
+     *
+     * @author 薛鹏
+     * @return 返回本节点各分组的笔数和金额合计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<TransactionStatsResponse> getStatistics() {
+        return ResponseEntity.ok(transactionService.getStatistics());
+    }
+
+    /**
+     * 获取本节点的时间序列
+     * HTTP GET /internal/transactions/rollups?granularity=HOUR&from=...&to=...
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     * @param from ISO-8601格式的起始时间（UTC），包含
+     * @param to ISO-8601格式的结束时间（UTC），不包含
+     * @param currency 货币代码，可选
+     * @return 返回本节点各时间桶的笔数和金额合计
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<TransactionRollupResponse> getRollups(
+            @RequestParam String granularity,
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String currency) {
+        return ResponseEntity.ok(transactionService.getRollups(granularity, currency, from, to));
+    }
+
+    private static TransactionFilter filter(List<String> types, List<String> currencies, List<String> statuses,
+                                            BigDecimal minAmount, BigDecimal maxAmount, String query) {
+        return new TransactionFilter().types(types).currencies(currencies).statuses(statuses)
+                .minAmount(minAmount).maxAmount(maxAmount).query(query);
+    }
+}
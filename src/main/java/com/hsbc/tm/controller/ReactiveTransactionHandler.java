@@ -0,0 +1,378 @@
+package com.hsbc.tm.controller;
+
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.exception.GlobalExceptionHandler;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.service.TransactionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * 交易管理的响应式处理函数
+ * 以非阻塞的函数式端点提供与{@link TransactionController}相同的接口（批量导入除外），由独立的Reactor Netty服务器承载，
+ * 连接不占用线程，读取缓慢的客户端只占用连接本身的缓冲区
+ *
+ * 查询直接在事件循环上调用服务：数据全部在内存中，只在分段锁内短暂停留；
+ * 集群模式下查询可能转发到其他节点并等待其响应，此时查询同样切换到有界弹性线程池执行，一个缓慢的节点不会阻塞事件循环上的其他连接；
+ * 创建、批量创建、更新和删除在启用预写日志时需要等待落盘，切换到有界弹性线程池执行，避免阻塞事件循环
+ * 列表以JSON数组逐条流式写出，导出按游标分页向服务拉取，下游请求更多数据时才查询下一页，写出速度受客户端读取速度约束
+ * 错误响应的状态码和响应体与{@link GlobalExceptionHandler}一致
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ReactiveTransactionHandler {
+
+    /**
+     * 导出时每次向服务拉取的交易数
+     */
+    static final int EXPORT_PAGE_SIZE = 1000;
+
+    private final TransactionService transactionService;
+    private final boolean jsonCacheEnabled;
+    private final boolean remoteReads;
+    private final Scheduler blockingScheduler;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param transactionService 交易服务接口的实现
+     * @param jsonCacheEnabled 按ID查询时是否直接写出缓存的JSON字节
+     */
+    public ReactiveTransactionHandler(TransactionService transactionService, boolean jsonCacheEnabled) {
+        this(transactionService, jsonCacheEnabled, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param transactionService 交易服务接口的实现
+     * @param jsonCacheEnabled 按ID查询时是否直接写出缓存的JSON字节
+     * @param remoteReads 查询是否可能访问其他节点，为true时查询也在有界弹性线程池上执行
+     */
+    public ReactiveTransactionHandler(TransactionService transactionService, boolean jsonCacheEnabled,
+                                      boolean remoteReads) {
+        this.transactionService = transactionService;
+        this.jsonCacheEnabled = jsonCacheEnabled;
+        this.remoteReads = remoteReads;
+        this.blockingScheduler = Schedulers.boundedElastic();
+    }
+
+    /**
+     * 构造路由，路径与{@link TransactionController}相同，未捕获的异常转换为错误响应
+     *
+     * @author 薛鹏
+     * @return 返回路由函数
+     */
+    public RouterFunction<ServerResponse> routes() {
+        return route()
+                .path("/api/transactions", builder -> builder
+                        .POST("/batch", this::createTransactions)
+                        .GET("/export", this::exportTransactions)
+                        .GET("/count", this::countTransactions)
+                        .GET("/stats", this::getStatistics)
+                        .GET("/rollups", this::getRollups)
+                        .GET("/{id}", this::getTransaction)
+                        .PUT("/{id}", this::updateTransaction)
+                        .DELETE("/{id}", this::deleteTransaction)
+                        .GET("", queryParam("cursor", cursor -> true), this::getTransactionsByCursor)
+                        .GET("", this::getAllTransactions)
+                        .POST("", this::createTransaction))
+                .onError(Exception.class, (ex, request) -> error(ex))
+                .build();
+    }
+
+    /**
+     * 创建新交易
+     * HTTP POST /api/transactions，支持Idempotency-Key请求头
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回201状态码和创建的交易详情
+     */
+    Mono<ServerResponse> createTransaction(ServerRequest request) {
+        String idempotencyKey = request.headers().firstHeader(TransactionController.IDEMPOTENCY_KEY);
+        return request.bodyToMono(TransactionRequest.class)
+                .flatMap(body -> blocking(() -> idempotencyKey == null
+                        ? transactionService.createTransaction(body)
+                        : transactionService.createTransaction(body, idempotencyKey)))
+                .flatMap(response -> ServerResponse.status(HttpStatus.CREATED)
+                        .eTag(TransactionController.eTag(response.getVersion()))
+                        .bodyValue(response));
+    }
+
+    /**
+     * 批量创建交易
+     * HTTP POST /api/transactions/batch
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回逐条的创建结果，存在失败条目时状态码为207
+     */
+    Mono<ServerResponse> createTransactions(ServerRequest request) {
+        return request.bodyToFlux(TransactionRequest.class)
+                .collectList()
+                .flatMap(requests -> blocking(() -> transactionService.createTransactions(requests)))
+                .flatMap(response -> ServerResponse
+                        .status(response.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                        .bodyValue(response));
+    }
+
+    /**
+     * 根据ID获取单个交易
+     * HTTP GET /api/transactions/{id}，If-None-Match与当前版本相同时返回304
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回交易详情
+     */
+    Mono<ServerResponse> getTransaction(ServerRequest request) {
+        String id = request.pathVariable("id");
+        if (jsonCacheEnabled) {
+            return read(() -> transactionService.getTransactionJson(id))
+                    .flatMap(json -> notModifiedOr(request, json.getVersion(), ServerResponse.ok()
+                            .eTag(TransactionController.eTag(json.getVersion()))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(json.getJson())));
+        }
+        return read(() -> transactionService.getTransaction(id))
+                .flatMap(response -> notModifiedOr(request, response.getVersion(), ServerResponse.ok()
+                        .eTag(TransactionController.eTag(response.getVersion()))
+                        .bodyValue(response)));
+    }
+
+    private static Mono<ServerResponse> notModifiedOr(ServerRequest request, long version, Mono<ServerResponse> response) {
+        return request.checkNotModified(TransactionController.eTag(version)).switchIfEmpty(response);
+    }
+
+    /**
+     * 获取交易列表，支持分页和过滤，参数与{@link TransactionController#getAllTransactions}相同
+     * HTTP GET /api/transactions?page=0&size=10
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回逐条写出的交易数组
+     */
+    Mono<ServerResponse> getAllTransactions(ServerRequest request) {
+        int page = intParam(request, "page", 0);
+        int size = intParam(request, "size", 10);
+        TransactionFilter filter = filter(request);
+        Flux<TransactionResponse> transactions = read(() -> filter.isEmpty()
+                ? transactionService.getAllTransactions(page, size)
+                : transactionService.getTransactions(filter, page, size))
+                .flatMapIterable(list -> list);
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(transactions, TransactionResponse.class);
+    }
+
+    /**
+     * 按游标获取交易
+     * HTTP GET /api/transactions?cursor=&size=10
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回当前页的交易以及下一页的游标
+     */
+    Mono<ServerResponse> getTransactionsByCursor(ServerRequest request) {
+        String cursor = request.queryParam("cursor").orElse("");
+        int size = intParam(request, "size", 10);
+        return read(() -> transactionService.getTransactionsAfter(cursor, size))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    /**
+     * 以换行分隔的JSON流式导出全部交易，按时间倒序排列
+     * HTTP GET /api/transactions/export
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回逐条写出的交易流
+     */
+    Mono<ServerResponse> exportTransactions(ServerRequest request) {
+        Flux<TransactionResponse> transactions = read(
+                        () -> transactionService.getTransactionsAfter("", EXPORT_PAGE_SIZE))
+                .expand(page -> page.getNextCursor() == null
+                        ? Mono.empty()
+                        : read(() -> transactionService.getTransactionsAfter(page.getNextCursor(),
+                                EXPORT_PAGE_SIZE)))
+                .concatMapIterable(TransactionPageResponse::getTransactions);
+        return ServerResponse.ok().contentType(TransactionController.NDJSON)
+                .body(transactions, TransactionResponse.class);
+    }
+
+    /**
+     * 更新现有交易
+     * HTTP PUT /api/transactions/{id}，If-Match的处理与{@link TransactionController#updateTransaction}相同
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回更新后的交易详情及其新的ETag
+     */
+    Mono<ServerResponse> updateTransaction(ServerRequest request) {
+        String id = request.pathVariable("id");
+        String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        return request.bodyToMono(TransactionRequest.class)
+                .flatMap(body -> blocking(() -> {
+                    if (ifMatch == null || ifMatch.trim().equals("*")) {
+                        return transactionService.updateTransaction(id, body);
+                    }
+                    Long version = TransactionController.parseETag(ifMatch);
+                    if (version == null) {
+                        throw new TransactionException.PreconditionFailedException(id, ifMatch);
+                    }
+                    return transactionService.updateTransaction(id, body, version);
+                }))
+                .flatMap(response -> ServerResponse.ok()
+                        .eTag(TransactionController.eTag(response.getVersion()))
+                        .bodyValue(response));
+    }
+
+    /**
+     * 删除交易
+     * HTTP DELETE /api/transactions/{id}
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回删除成功的消息
+     */
+    Mono<ServerResponse> deleteTransaction(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return blocking(() -> {
+            transactionService.deleteTransaction(id);
+            return Map.of("message", "Transaction deleted successfully");
+        }).flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    /**
+     * 获取交易总数，支持与列表相同的过滤参数
+     * HTTP GET /api/transactions/count
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回满足条件的交易数
+     */
+    Mono<ServerResponse> countTransactions(ServerRequest request) {
+        TransactionFilter filter = filter(request);
+        return read(() -> filter.isEmpty()
+                        ? transactionService.countTransactions()
+                        : transactionService.countTransactions(filter))
+                .flatMap(count -> ServerResponse.ok().bodyValue(Map.of("count", count)));
+    }
+
+    /**
+     * 获取按货币、类型和状态分组的交易统计
+     * HTTP GET /api/transactions/stats
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回交易统计
+     */
+    Mono<ServerResponse> getStatistics(ServerRequest request) {
+        return read(transactionService::getStatistics)
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    /**
+     * 获取按货币划分的时间序列
+     * HTTP GET /api/transactions/rollups?granularity=HOUR&from=...&to=...
+     *
+     * @author 薛鹏
+     * @param request 请求
+     * @return 返回时间范围内各时间桶的笔数和金额合计
+     */
+    Mono<ServerResponse> getRollups(ServerRequest request) {
+        String granularity = request.queryParam("granularity").orElse("HOUR");
+        String currency = request.queryParam("currency").orElse(null);
+        return read(() -> transactionService.getRollups(granularity, currency,
+                        requiredParam(request, "from"), requiredParam(request, "to")))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(blockingScheduler);
+    }
+
+    /**
+     * 执行查询，只访问本地内存时直接在事件循环上执行，可能访问其他节点时切换到有界弹性线程池
+     */
+    private <T> Mono<T> read(Callable<T> call) {
+        return remoteReads ? blocking(call) : Mono.fromCallable(call);
+    }
+
+    private static Mono<ServerResponse> error(Throwable ex) {
+        if (ex instanceof TransactionException transactionException) {
+            return ServerResponse.status(GlobalExceptionHandler.status(transactionException))
+                    .bodyValue(GlobalExceptionHandler.errorBody(transactionException.getCode(), ex.getMessage()));
+        }
+        return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .bodyValue(GlobalExceptionHandler.errorBody(GlobalExceptionHandler.INTERNAL_ERROR, ex.getMessage()));
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).filter(value -> !value.isEmpty()).map(Integer::parseInt).orElse(defaultValue);
+    }
+
+    private static String requiredParam(ServerRequest request, String name) {
+        return request.queryParam(name)
+                .orElseThrow(() -> new IllegalArgumentException("Required parameter '" + name + "' is not present"));
+    }
+
+    /**
+     * 从查询参数构造过滤条件
+     * 同一参数的多个取值可以重复出现或以逗号分隔，与Spring MVC绑定List参数的方式相同
+     */
+    private static TransactionFilter filter(ServerRequest request) {
+        String minAmount = request.queryParam("minAmount").orElse(null);
+        String maxAmount = request.queryParam("maxAmount").orElse(null);
+        return new TransactionFilter()
+                .types(values(request, "type"))
+                .currencies(values(request, "currency"))
+                .statuses(values(request, "status"))
+                .minAmount(minAmount == null ? null : new BigDecimal(minAmount))
+                .maxAmount(maxAmount == null ? null : new BigDecimal(maxAmount))
+                .query(request.queryParam("q").orElse(null));
+    }
+
+    private static List<String> values(ServerRequest request, String name) {
+        List<String> raw = request.queryParams().get(name);
+        if (raw == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (String value : raw) {
+            for (String part : value.split(",")) {
+                if (!part.isEmpty()) {
+                    values.add(part);
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -1,13 +1,34 @@
 package com.hsbc.tm.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hsbc.tm.dto.TransactionBatchResponse;
+import com.hsbc.tm.dto.TransactionImportResponse;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
 import com.hsbc.tm.dto.TransactionRequest;
 import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.dto.TransactionStatsResponse;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.service.TransactionImportService;
 import com.hsbc.tm.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +36,8 @@ import java.util.Map;
 /**
  * 交易管理的REST控制器
  * 提供交易相关的所有HTTP端点
+ * 单个交易的响应以交易版本号作为强ETag：GET请求的If-None-Match与当前版本相同时返回304且没有响应体，
+ * PUT请求可以通过If-Match指定读取时的版本，版本已变化时返回412
  * 
  * @author 薛鹏
  * @version 1.0
@@ -23,79 +46,274 @@ import java.util.Map;
 @RequestMapping("/api/transactions")
 public class TransactionController {
 
+    /**
+     * 换行分隔JSON的媒体类型
+     */
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * 客户端重试创建请求时携带的幂等键请求头
+     */
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final TransactionService transactionService;
+    private final TransactionImportService transactionImportService;
+    private final ObjectMapper objectMapper;
+    private final boolean jsonCacheEnabled;
 
     /**
      * 构造函数，通过依赖注入获取TransactionService实例
      * 
      * @author 薛鹏
      * @param transactionService 交易服务接口的实现
+     * @param transactionImportService 交易批量导入服务接口的实现
+     * @param objectMapper 用于流式导出的JSON序列化器
+     * @param jsonCacheEnabled 按ID查询时是否直接写出缓存的JSON字节
      */
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 TransactionImportService transactionImportService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${tm.cache.json.enabled:false}") boolean jsonCacheEnabled) {
         this.transactionService = transactionService;
+        this.transactionImportService = transactionImportService;
+        this.objectMapper = objectMapper;
+        this.jsonCacheEnabled = jsonCacheEnabled;
     }
 
     /**
      * 创建新交易
      * HTTP POST /api/transactions
+     * 携带Idempotency-Key请求头时，保留期内相同幂等键的重试返回首次创建的交易，不再重复创建
      * 
      * @author 薛鹏
      * @param request 包含交易详情的请求体
+     * @param idempotencyKey 可选的幂等键
      * @return 返回201状态码和创建的交易详情
      */
     @PostMapping
-    public ResponseEntity<TransactionResponse> createTransaction(@RequestBody TransactionRequest request) {
-        TransactionResponse response = transactionService.createTransaction(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    public ResponseEntity<TransactionResponse> createTransaction(
+            @RequestBody TransactionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        TransactionResponse response = idempotencyKey == null
+                ? transactionService.createTransaction(request)
+                : transactionService.createTransaction(request, idempotencyKey);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(eTag(response.getVersion())).body(response);
+    }
+
+    /**
+     * 批量创建交易
+     * HTTP POST /api/transactions/batch
+     * 全部条目创建成功时返回201，存在失败条目时返回207并在逐条结果中给出错误代码
+     * 
+     * @author 薛鹏
+     * @param requests 交易请求数组
+     * @return 返回逐条的创建结果
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<TransactionBatchResponse> createTransactions(@RequestBody List<TransactionRequest> requests) {
+        TransactionBatchResponse response = transactionService.createTransactions(requests);
+        HttpStatus status = response.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * 从换行分隔的JSON流式导入交易
+     * HTTP POST /api/transactions/import
+     * 请求体边读取边处理，不在内存中缓冲完整的上传内容
+     * 
+     * @author 薛鹏
+     * @param body 请求体输入流，每行一个交易对象
+     * @return 返回导入结果汇总
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<TransactionImportResponse> importNdjson(InputStream body) {
+        return ResponseEntity.ok(transactionImportService.importTransactions(body, TransactionImportService.Format.NDJSON));
+    }
+
+    /**
+     * 从CSV流式导入交易
+     * HTTP POST /api/transactions/import
+     * 第一行为表头，必须包含amount、type和currency列
+     * 
+     * @author 薛鹏
+     * @param body 请求体输入流
+     * @return 返回导入结果汇总
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<TransactionImportResponse> importCsv(InputStream body) {
+        return ResponseEntity.ok(transactionImportService.importTransactions(body, TransactionImportService.Format.CSV));
     }
 
     /**
      * 根据ID获取单个交易
      * HTTP GET /api/transactions/{id}
+     * 启用JSON字节缓存时直接写出缓存的编码结果，响应内容与经Jackson序列化的结果相同
+     * 响应带有ETag，Spring MVC在If-None-Match与之匹配时改为返回304，不写出响应体
      * 
      * @author 薛鹏
      * @param id 交易的唯一标识符
      * @return 返回交易详情
      */
     @GetMapping("/{id}")
-    public ResponseEntity<TransactionResponse> getTransaction(@PathVariable String id) {
+    public ResponseEntity<?> getTransaction(@PathVariable String id) {
+        if (jsonCacheEnabled) {
+            TransactionJson json = transactionService.getTransactionJson(id);
+            return ResponseEntity.ok()
+                    .eTag(eTag(json.getVersion()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(json.getJson());
+        }
         TransactionResponse response = transactionService.getTransaction(id);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(eTag(response.getVersion())).body(response);
     }
 
     /**
-     * 获取所有交易，支持分页
-     * HTTP GET /api/transactions?page=0&size=10
+     * 获取所有交易，支持分页和过滤
+     * HTTP GET /api/transactions?page=0&size=10&type=DEPOSIT,TRANSFER&currency=USD&status=COMPLETED&minAmount=10000&q=acme
+     * 同一参数的多个取值（逗号分隔或重复参数）之间为OR关系，不同参数之间为AND关系
+     * q按描述检索，不区分大小写，其中每个词都必须出现在描述中，可以是词的片段；结果同样按时间倒序排列
      * 
      * @author 薛鹏
      * @param page 页码，从0开始，默认为0
      * @param size 每页数量，默认为10
+     * @param type 交易类型，可选
+     * @param currency 货币代码，可选
+     * @param status 交易状态，可选
+     * @param minAmount 金额下限（包含），可选
+     * @param maxAmount 金额上限（包含），可选
+     * @param q 描述检索文本，可选
      * @return 返回交易列表
      */
     @GetMapping
     public ResponseEntity<List<TransactionResponse>> getAllTransactions(
             @RequestParam(required = false, defaultValue = "0") int page,
-            @RequestParam(required = false, defaultValue = "10") int size) {
-        List<TransactionResponse> transactions = transactionService.getAllTransactions(page, size);
+            @RequestParam(required = false, defaultValue = "10") int size,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) List<String> currency,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String q) {
+        TransactionFilter filter = filter(type, currency, status, minAmount, maxAmount, q);
+        List<TransactionResponse> transactions = filter.isEmpty()
+                ? transactionService.getAllTransactions(page, size)
+                : transactionService.getTransactions(filter, page, size);
         return ResponseEntity.ok(transactions);
     }
 
+    /**
+     * 按游标获取交易，按时间倒序排列
+     * HTTP GET /api/transactions?cursor=&size=10
+     * 首次请求传入空游标，之后传入上一页响应中的nextCursor，直到nextCursor为null
+     * 
+     * @author 薛鹏
+     * @param cursor 上一页返回的游标，为空时从第一条开始
+     * @param size 每页数量，默认为10
+     * @return 返回当前页的交易以及下一页的游标
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<TransactionPageResponse> getTransactionsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(required = false, defaultValue = "10") int size) {
+        TransactionPageResponse response = transactionService.getTransactionsAfter(cursor, size);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 以换行分隔的JSON流式导出全部交易，按时间倒序排列
+     * HTTP GET /api/transactions/export
+     * 每行一条交易，边读取边写出，不在服务端缓冲完整结果；
+     * 输出流写满时阻塞，客户端读取缓慢时自然形成背压
+     * 
+     * @author 薛鹏
+     * @return 返回流式响应体
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions() {
+        StreamingResponseBody body = out -> {
+            long exported;
+            try (SequenceWriter writer = objectMapper.writerFor(TransactionResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                exported = transactionService.exportTransactions(response -> {
+                    try {
+                        writer.write(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (exported > 0) {
+                out.write('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     /**
      * 更新现有交易
      * HTTP PUT /api/transactions/{id}
+     * If-Match为读取时的ETag时，交易已被其他请求更新则返回412；为*时只要求交易存在；
+     * 请求体中的version与当前版本不同时返回409
      * 
      * @author 薛鹏
      * @param id 要更新的交易ID
      * @param request 包含更新信息的请求体
-     * @return 返回更新后的交易详情
+     * @param ifMatch 可选的If-Match请求头
+     * @return 返回更新后的交易详情及其新的ETag
      */
     @PutMapping("/{id}")
     public ResponseEntity<TransactionResponse> updateTransaction(
             @PathVariable String id,
-            @RequestBody TransactionRequest request) {
-        TransactionResponse response = transactionService.updateTransaction(id, request);
-        return ResponseEntity.ok(response);
+            @RequestBody TransactionRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TransactionResponse response;
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            response = transactionService.updateTransaction(id, request);
+        } else {
+            Long version = parseETag(ifMatch);
+            if (version == null) {
+                throw new TransactionException.PreconditionFailedException(id, ifMatch);
+            }
+            response = transactionService.updateTransaction(id, request, version);
+        }
+        return ResponseEntity.ok().eTag(eTag(response.getVersion())).body(response);
+    }
+
+    /**
+     * 由交易版本号生成强ETag
+     * 
+     * @author 薛鹏
+     * @param version 交易版本号
+     * @return 返回带引号的ETag
+     */
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * 从If-Match请求头解析交易版本号
+     * 只接受本控制器生成的单个强ETag，弱ETag和无法识别的值都不可能与当前版本匹配
+     * 
+     * @author 薛鹏
+     * @param header 请求头的值
+     * @return 返回版本号，无法解析时返回null
+     */
+    static Long parseETag(String header) {
+        String value = header.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     /**
@@ -115,17 +333,70 @@ public class TransactionController {
     }
 
     /**
-     * 获取交易总数
-     * HTTP GET /api/transactions/count
+     * 获取交易总数，支持与列表相同的过滤参数
+     * HTTP GET /api/transactions/count?type=DEPOSIT&currency=USD
      * 
      * @author 薛鹏
-     * @return 返回交易总数
+     * @param type 交易类型，可选
+     * @param currency 货币代码，可选
+     * @param status 交易状态，可选
+     * @param minAmount 金额下限（包含），可选
+     * @param maxAmount 金额上限（包含），可选
+     * @param q 描述检索文本，可选
+     * @return 返回满足条件的交易数
      */
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Long>> countTransactions() {
-        long count = transactionService.countTransactions();
+    public ResponseEntity<Map<String, Long>> countTransactions(
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) List<String> currency,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String q) {
+        TransactionFilter filter = filter(type, currency, status, minAmount, maxAmount, q);
+        long count = filter.isEmpty()
+                ? transactionService.countTransactions()
+                : transactionService.countTransactions(filter);
         Map<String, Long> response = new HashMap<>();
         response.put("count", count);
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取按货币、类型和状态分组的交易统计
+     * HTTP GET /api/transactions/stats
+     * 
+     * @author 薛鹏
+     * @return 返回交易总笔数以及各分组的笔数和金额合计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<TransactionStatsResponse> getStatistics() {
+        return ResponseEntity.ok(transactionService.getStatistics());
+    }
+
+    /**
+     * 获取按货币划分的时间序列，供成交量图表使用
+     * HTTP GET /api/transactions/rollups?granularity=HOUR&from=2025-01-01T00:00:00&to=2025-01-02T00:00:00
+     * 
+     * @author 薛鹏
+     * @param granularity 时间桶粒度：MINUTE、HOUR或DAY，默认为HOUR
+     * @param from ISO-8601格式的起始时间（UTC），包含
+     * @param to ISO-8601格式的结束时间（UTC），不包含
+     * @param currency 货币代码，为空时返回所有货币
+     * @return 返回时间范围内各时间桶的笔数和金额合计
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<TransactionRollupResponse> getRollups(
+            @RequestParam(required = false, defaultValue = "HOUR") String granularity,
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) String currency) {
+        return ResponseEntity.ok(transactionService.getRollups(granularity, currency, from, to));
+    }
+
+    private static TransactionFilter filter(List<String> types, List<String> currencies, List<String> statuses,
+                                            BigDecimal minAmount, BigDecimal maxAmount, String query) {
+        return new TransactionFilter().types(types).currencies(currencies).statuses(statuses)
+                .minAmount(minAmount).maxAmount(maxAmount).query(query);
+    }
+}
\ No newline at end of file
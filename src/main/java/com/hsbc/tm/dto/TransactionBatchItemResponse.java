@@ -0,0 +1,191 @@
+package com.hsbc.tm.dto;
+
+/**
+ * 批量创建中单个条目的结果
+ * 成功时包含创建的交易，失败时包含错误代码和消息
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionBatchItemResponse {
+    /**
+     * 条目创建成功
+     */
+    public static final String CREATED = "CREATED";
+
+    /**
+     * 条目创建失败
+     */
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 条目在请求数组中的下标，从0开始
+     */
+    private int index;
+
+    /**
+     * 条目的处理状态
+     * CREATED或FAILED
+     */
+    private String status;
+
+    /**
+     * 创建的交易
+     * 失败时为null
+     */
+    private TransactionResponse transaction;
+
+    /**
+     * 错误代码
+     * 成功时为null
+     */
+    private String code;
+
+    /**
+     * 错误消息
+     * 成功时为null
+     */
+    private String message;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionBatchItemResponse() {
+    }
+
+    /**
+     * 创建成功条目的结果
+     *
+     * @author 薛鹏
+     * @param index 条目下标
+     * @param transaction 创建的交易
+     * @return 返回条目结果
+     */
+    public static TransactionBatchItemResponse created(int index, TransactionResponse transaction) {
+        TransactionBatchItemResponse item = new TransactionBatchItemResponse();
+        item.index = index;
+        item.status = CREATED;
+        item.transaction = transaction;
+        return item;
+    }
+
+    /**
+     * 创建失败条目的结果
+     *
+     * @author 薛鹏
+     * @param index 条目下标
+     * @param code 错误代码
+     * @param message 错误消息
+     * @return 返回条目结果
+     */
+    public static TransactionBatchItemResponse failed(int index, String code, String message) {
+        TransactionBatchItemResponse item = new TransactionBatchItemResponse();
+        item.index = index;
+        item.status = FAILED;
+        item.code = code;
+        item.message = message;
+        return item;
+    }
+
+    /**
+     * 获取条目下标
+     *
+     * @author 薛鹏
+     * @return 返回条目下标
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 设置条目下标
+     *
+     * @author 薛鹏
+     * @param index 条目下标
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * 获取处理状态
+     *
+     * @author 薛鹏
+     * @return 返回CREATED或FAILED
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 设置处理状态
+     *
+     * @author 薛鹏
+     * @param status 处理状态
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * 获取创建的交易
+     *
+     * @author 薛鹏
+     * @return 返回创建的交易，失败时为null
+     */
+    public TransactionResponse getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * 设置创建的交易
+     *
+     * @author 薛鹏
+     * @param transaction 创建的交易
+     */
+    public void setTransaction(TransactionResponse transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * 获取错误代码
+     *
+     * @author 薛鹏
+     * @return 返回错误代码，成功时为null
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 设置错误代码
+     *
+     * @author 薛鹏
+     * @param code 错误代码
+     */
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    /**
+     * 获取错误消息
+     *
+     * @author 薛鹏
+     * @return 返回错误消息，成功时为null
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 设置错误消息
+     *
+     * @author 薛鹏
+     * @param message 错误消息
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
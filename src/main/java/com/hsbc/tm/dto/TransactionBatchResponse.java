@@ -0,0 +1,112 @@
+package com.hsbc.tm.dto;
+
+import java.util.List;
+
+/**
+ * 批量创建响应数据传输对象
+ * 包含成功和失败的条目数以及按请求顺序排列的逐条结果
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionBatchResponse {
+    /**
+     * 成功创建的条目数
+     */
+    private int created;
+
+    /**
+     * 失败的条目数
+     */
+    private int failed;
+
+    /**
+     * 逐条结果，顺序与请求数组一致
+     */
+    private List<TransactionBatchItemResponse> results;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionBatchResponse() {
+    }
+
+    /**
+     * 构造函数，根据逐条结果统计成功和失败的条目数
+     *
+     * @author 薛鹏
+     * @param results 逐条结果
+     */
+    public TransactionBatchResponse(List<TransactionBatchItemResponse> results) {
+        this.results = results;
+        for (TransactionBatchItemResponse result : results) {
+            if (TransactionBatchItemResponse.CREATED.equals(result.getStatus())) {
+                created++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    /**
+     * 获取成功创建的条目数
+     *
+     * @author 薛鹏
+     * @return 返回成功创建的条目数
+     */
+    public int getCreated() {
+        return created;
+    }
+
+    /**
+     * 设置成功创建的条目数
+     *
+     * @author 薛鹏
+     * @param created 成功创建的条目数
+     */
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    /**
+     * 获取失败的条目数
+     *
+     * @author 薛鹏
+     * @return 返回失败的条目数
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * 设置失败的条目数
+     *
+     * @author 薛鹏
+     * @param failed 失败的条目数
+     */
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * 获取逐条结果
+     *
+     * @author 薛鹏
+     * @return 返回逐条结果
+     */
+    public List<TransactionBatchItemResponse> getResults() {
+        return results;
+    }
+
+    /**
+     * 设置逐条结果
+     *
+     * @author 薛鹏
+     * @param results 逐条结果
+     */
+    public void setResults(List<TransactionBatchItemResponse> results) {
+        this.results = results;
+    }
+}
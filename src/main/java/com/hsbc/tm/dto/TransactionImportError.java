@@ -0,0 +1,106 @@
+package com.hsbc.tm.dto;
+
+/**
+ * 导入时被拒绝的单条记录
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionImportError {
+    /**
+     * 记录所在的行号，从1开始，CSV的表头为第1行
+     */
+    private long line;
+
+    /**
+     * 错误代码
+     */
+    private String code;
+
+    /**
+     * 错误消息
+     */
+    private String message;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionImportError() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param line 行号
+     * @param code 错误代码
+     * @param message 错误消息
+     */
+    public TransactionImportError(long line, String code, String message) {
+        this.line = line;
+        this.code = code;
+        this.message = message;
+    }
+
+    /**
+     * 获取行号
+     *
+     * @author 薛鹏
+     * @return 返回行号
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * 设置行号
+     *
+     * @author 薛鹏
+     * @param line 行号
+     */
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    /**
+     * 获取错误代码
+     *
+     * @author 薛鹏
+     * @return 返回错误代码
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * 设置错误代码
+     *
+     * @author 薛鹏
+     * @param code 错误代码
+     */
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    /**
+     * 获取错误消息
+     *
+     * @author 薛鹏
+     * @return 返回错误消息
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * 设置错误消息
+     *
+     * @author 薛鹏
+     * @param message 错误消息
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
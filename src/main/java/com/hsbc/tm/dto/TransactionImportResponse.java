@@ -0,0 +1,175 @@
+package com.hsbc.tm.dto;
+
+import java.util.List;
+
+/**
+ * 导入结果汇总数据传输对象
+ * 包含处理、导入和拒绝的记录数，耗时，以及前若干条被拒绝记录的详情
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionImportResponse {
+    /**
+     * 读取的记录数，不含空行和CSV表头
+     */
+    private long processed;
+
+    /**
+     * 成功导入的记录数
+     */
+    private long imported;
+
+    /**
+     * 被拒绝的记录数
+     */
+    private long failed;
+
+    /**
+     * 导入耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 被拒绝记录的详情
+     * 最多保留前100条
+     */
+    private List<TransactionImportError> errors;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionImportResponse() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param processed 读取的记录数
+     * @param imported 成功导入的记录数
+     * @param failed 被拒绝的记录数
+     * @param durationMillis 导入耗时（毫秒）
+     * @param errors 被拒绝记录的详情
+     */
+    public TransactionImportResponse(long processed, long imported, long failed, long durationMillis,
+                                     List<TransactionImportError> errors) {
+        this.processed = processed;
+        this.imported = imported;
+        this.failed = failed;
+        this.durationMillis = durationMillis;
+        this.errors = errors;
+    }
+
+    /**
+     * 获取读取的记录数
+     *
+     * @author 薛鹏
+     * @return 返回读取的记录数
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * 设置读取的记录数
+     *
+     * @author 薛鹏
+     * @param processed 读取的记录数
+     */
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    /**
+     * 获取成功导入的记录数
+     *
+     * @author 薛鹏
+     * @return 返回成功导入的记录数
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * 设置成功导入的记录数
+     *
+     * @author 薛鹏
+     * @param imported 成功导入的记录数
+     */
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    /**
+     * 获取被拒绝的记录数
+     *
+     * @author 薛鹏
+     * @return 返回被拒绝的记录数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * 设置被拒绝的记录数
+     *
+     * @author 薛鹏
+     * @param failed 被拒绝的记录数
+     */
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * 获取导入耗时
+     *
+     * @author 薛鹏
+     * @return 返回导入耗时（毫秒）
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * 设置导入耗时
+     *
+     * @author 薛鹏
+     * @param durationMillis 导入耗时（毫秒）
+     */
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * 获取每秒导入的记录数
+     *
+     * @author 薛鹏
+     * @return 返回每秒导入的记录数
+     */
+    public long getRowsPerSecond() {
+        return durationMillis == 0 ? imported : imported * 1000 / durationMillis;
+    }
+
+    /**
+     * 获取被拒绝记录的详情
+     *
+     * @author 薛鹏
+     * @return 返回被拒绝记录的详情
+     */
+    public List<TransactionImportError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * 设置被拒绝记录的详情
+     *
+     * @author 薛鹏
+     * @param errors 被拒绝记录的详情
+     */
+    public void setErrors(List<TransactionImportError> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,52 @@
+package com.hsbc.tm.dto;
+
+/**
+ * 交易响应编码后的JSON及其对应的交易版本号
+ * 控制器以版本号生成ETag，并直接写出编码结果
+ * 
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionJson {
+    /**
+     * 编码时交易的版本号
+     */
+    private final long version;
+
+    /**
+     * 交易响应的UTF-8编码JSON
+     */
+    private final byte[] json;
+
+    /**
+     * 构造函数
+     * 
+     * @author 薛鹏
+     * @param version 编码时交易的版本号
+     * @param json 交易响应的UTF-8编码JSON
+     */
+    public TransactionJson(long version, byte[] json) {
+        this.version = version;
+        this.json = json;
+    }
+
+    /**
+     * 获取编码时交易的版本号
+     * 
+     * @author 薛鹏
+     * @return 返回版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取交易响应的UTF-8编码JSON
+     * 
+     * @author 薛鹏
+     * @return 返回编码结果，调用方不能修改
+     */
+    public byte[] getJson() {
+        return json;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hsbc.tm.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页响应数据传输对象
+ * 包含当前页的交易以及用于获取下一页的游标
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionPageResponse {
+    /**
+     * 当前页的交易列表
+     */
+    private List<TransactionResponse> transactions;
+
+    /**
+     * 下一页的游标
+     * 为null时表示已经没有更多数据
+     */
+    private String nextCursor;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionPageResponse() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param transactions 当前页的交易列表
+     * @param nextCursor 下一页的游标，没有更多数据时为null
+     */
+    public TransactionPageResponse(List<TransactionResponse> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 获取当前页的交易列表
+     *
+     * @author 薛鹏
+     * @return 返回交易列表
+     */
+    public List<TransactionResponse> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * 设置当前页的交易列表
+     *
+     * @author 薛鹏
+     * @param transactions 交易列表
+     */
+    public void setTransactions(List<TransactionResponse> transactions) {
+        this.transactions = transactions;
+    }
+
+    /**
+     * 获取下一页的游标
+     *
+     * @author 薛鹏
+     * @return 返回下一页的游标，没有更多数据时为null
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * 设置下一页的游标
+     *
+     * @author 薛鹏
+     * @param nextCursor 下一页的游标
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -36,6 +36,12 @@ public class TransactionRequest {
      */
     private String currency;
 
+    /**
+     * 客户端读取时的交易版本号
+     * 可选字段，仅用于更新；提供时只有当前版本与之相同才执行更新
+     */
+    private Long version;
+
     // Getters and Setters
     /**
      * 获取交易金额
@@ -116,4 +122,24 @@ public class TransactionRequest {
     public void setCurrency(String currency) {
         this.currency = currency;
     }
+
+    /**
+     * 获取客户端读取时的交易版本号
+     * 
+     * @author 薛鹏
+     * @return 返回版本号，未提供时返回null
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * 设置客户端读取时的交易版本号
+     * 
+     * @author 薛鹏
+     * @param version 版本号
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 } 
\ No newline at end of file
@@ -50,6 +50,12 @@ public class TransactionResponse {
      */
     private String status;
 
+    /**
+     * 交易版本号
+     * 更新时可作为请求中的version或If-Match的ETag提交
+     */
+    private long version;
+
     /**
      * 默认构造函数
      * 
@@ -72,6 +78,7 @@ public class TransactionResponse {
         this.timestamp = transaction.getTimestamp();
         this.currency = transaction.getCurrency();
         this.status = transaction.getStatus();
+        this.version = transaction.getVersion();
     }
 
     /**
@@ -213,4 +220,24 @@ public class TransactionResponse {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    /**
+     * 获取交易版本号
+     * 
+     * @author 薛鹏
+     * @return 返回交易版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 设置交易版本号
+     * 
+     * @author 薛鹏
+     * @param version 交易版本号
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
 } 
\ No newline at end of file
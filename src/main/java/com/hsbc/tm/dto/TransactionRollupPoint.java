@@ -0,0 +1,137 @@
+package com.hsbc.tm.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 时间序列数据点数据传输对象
+ * 一个时间桶内某种货币的交易笔数和金额合计
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionRollupPoint {
+    /**
+     * 时间桶的起始时间（UTC），包含
+     */
+    private LocalDateTime start;
+
+    /**
+     * 货币代码
+     */
+    private String currency;
+
+    /**
+     * 交易笔数
+     */
+    private long count;
+
+    /**
+     * 金额合计，精确到货币的最小单位
+     */
+    private BigDecimal total;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionRollupPoint() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param start 时间桶的起始时间
+     * @param currency 货币代码
+     * @param count 交易笔数
+     * @param total 金额合计
+     */
+    public TransactionRollupPoint(LocalDateTime start, String currency, long count, BigDecimal total) {
+        this.start = start;
+        this.currency = currency;
+        this.count = count;
+        this.total = total;
+    }
+
+    /**
+     * 获取时间桶的起始时间
+     *
+     * @author 薛鹏
+     * @return 返回时间桶的起始时间
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * 设置时间桶的起始时间
+     *
+     * @author 薛鹏
+     * @param start 时间桶的起始时间
+     */
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    /**
+     * 获取货币代码
+     *
+     * @author 薛鹏
+     * @return 返回货币代码
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * 设置货币代码
+     *
+     * @author 薛鹏
+     * @param currency 货币代码
+     */
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    /**
+     * 获取交易笔数
+     *
+     * @author 薛鹏
+     * @return 返回交易笔数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 设置交易笔数
+     *
+     * @author 薛鹏
+     * @param count 交易笔数
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * 获取金额合计
+     *
+     * @author 薛鹏
+     * @return 返回金额合计
+     */
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    /**
+     * 设置金额合计
+     *
+     * @author 薛鹏
+     * @param total 金额合计
+     */
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
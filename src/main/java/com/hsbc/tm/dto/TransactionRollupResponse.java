@@ -0,0 +1,166 @@
+package com.hsbc.tm.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 时间序列查询响应数据传输对象
+ * 包含查询的粒度、时间范围以及按时间和货币排序的数据点
+ * 没有交易的时间桶不出现在结果中
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionRollupResponse {
+    /**
+     * 时间桶粒度：MINUTE、HOUR或DAY
+     */
+    private String granularity;
+
+    /**
+     * 查询的起始时间（UTC），按粒度向下取整，包含
+     */
+    private LocalDateTime from;
+
+    /**
+     * 查询的结束时间（UTC），不包含
+     */
+    private LocalDateTime to;
+
+    /**
+     * 该粒度仍保留数据的最早时间；早于此时间的桶已被压缩到更粗的粒度，为null表示不过期
+     */
+    private LocalDateTime retainedFrom;
+
+    /**
+     * 数据点，按时间桶起始时间和货币排序
+     */
+    private List<TransactionRollupPoint> points;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionRollupResponse() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     * @param from 查询的起始时间
+     * @param to 查询的结束时间
+     * @param retainedFrom 该粒度仍保留数据的最早时间
+     * @param points 数据点
+     */
+    public TransactionRollupResponse(String granularity, LocalDateTime from, LocalDateTime to,
+                                     LocalDateTime retainedFrom, List<TransactionRollupPoint> points) {
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+        this.retainedFrom = retainedFrom;
+        this.points = points;
+    }
+
+    /**
+     * 获取时间桶粒度
+     *
+     * @author 薛鹏
+     * @return 返回时间桶粒度
+     */
+    public String getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * 设置时间桶粒度
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     */
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    /**
+     * 获取查询的起始时间
+     *
+     * @author 薛鹏
+     * @return 返回查询的起始时间
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * 设置查询的起始时间
+     *
+     * @author 薛鹏
+     * @param from 查询的起始时间
+     */
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    /**
+     * 获取查询的结束时间
+     *
+     * @author 薛鹏
+     * @return 返回查询的结束时间
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    /**
+     * 设置查询的结束时间
+     *
+     * @author 薛鹏
+     * @param to 查询的结束时间
+     */
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    /**
+     * 获取该粒度仍保留数据的最早时间
+     *
+     * @author 薛鹏
+     * @return 返回最早时间，为null表示不过期
+     */
+    public LocalDateTime getRetainedFrom() {
+        return retainedFrom;
+    }
+
+    /**
+     * 设置该粒度仍保留数据的最早时间
+     *
+     * @author 薛鹏
+     * @param retainedFrom 最早时间
+     */
+    public void setRetainedFrom(LocalDateTime retainedFrom) {
+        this.retainedFrom = retainedFrom;
+    }
+
+    /**
+     * 获取数据点
+     *
+     * @author 薛鹏
+     * @return 返回数据点
+     */
+    public List<TransactionRollupPoint> getPoints() {
+        return points;
+    }
+
+    /**
+     * 设置数据点
+     *
+     * @author 薛鹏
+     * @param points 数据点
+     */
+    public void setPoints(List<TransactionRollupPoint> points) {
+        this.points = points;
+    }
+}
@@ -0,0 +1,163 @@
+package com.hsbc.tm.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 交易统计分组数据传输对象
+ * 一个(货币, 类型, 状态)组合下的交易笔数和金额合计
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionStatsGroup {
+    /**
+     * 货币代码
+     */
+    private String currency;
+
+    /**
+     * 交易类型
+     */
+    private String type;
+
+    /**
+     * 交易状态
+     */
+    private String status;
+
+    /**
+     * 交易笔数
+     */
+    private long count;
+
+    /**
+     * 金额合计，精确到货币的最小单位
+     */
+    private BigDecimal total;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionStatsGroup() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param currency 货币代码
+     * @param type 交易类型
+     * @param status 交易状态
+     * @param count 交易笔数
+     * @param total 金额合计
+     */
+    public TransactionStatsGroup(String currency, String type, String status, long count, BigDecimal total) {
+        this.currency = currency;
+        this.type = type;
+        this.status = status;
+        this.count = count;
+        this.total = total;
+    }
+
+    /**
+     * 获取货币代码
+     *
+     * @author 薛鹏
+     * @return 返回货币代码
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * 设置货币代码
+     *
+     * @author 薛鹏
+     * @param currency 货币代码
+     */
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    /**
+     * 获取交易类型
+     *
+     * @author 薛鹏
+     * @return 返回交易类型
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * 设置交易类型
+     *
+     * @author 薛鹏
+     * @param type 交易类型
+     */
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * 获取交易状态
+     *
+     * @author 薛鹏
+     * @return 返回交易状态
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 设置交易状态
+     *
+     * @author 薛鹏
+     * @param status 交易状态
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * 获取交易笔数
+     *
+     * @author 薛鹏
+     * @return 返回交易笔数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 设置交易笔数
+     *
+     * @author 薛鹏
+     * @param count 交易笔数
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * 获取金额合计
+     *
+     * @author 薛鹏
+     * @return 返回金额合计
+     */
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    /**
+     * 设置金额合计
+     *
+     * @author 薛鹏
+     * @param total 金额合计
+     */
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+}
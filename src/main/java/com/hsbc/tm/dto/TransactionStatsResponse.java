@@ -0,0 +1,82 @@
+package com.hsbc.tm.dto;
+
+import java.util.List;
+
+/**
+ * 交易统计响应数据传输对象
+ * 包含交易总笔数以及按(货币, 类型, 状态)分组的笔数和金额合计
+ * 不同货币的金额不能直接相加，需要跨类型或状态汇总时由调用方在同一货币内累加
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionStatsResponse {
+    /**
+     * 交易总笔数，等于各分组笔数之和
+     */
+    private long count;
+
+    /**
+     * 各分组的统计，按货币、类型、状态排序
+     */
+    private List<TransactionStatsGroup> groups;
+
+    /**
+     * 默认构造函数
+     *
+     * @author 薛鹏
+     */
+    public TransactionStatsResponse() {
+    }
+
+    /**
+     * 构造函数，根据分组统计计算总笔数
+     *
+     * @author 薛鹏
+     * @param groups 各分组的统计
+     */
+    public TransactionStatsResponse(List<TransactionStatsGroup> groups) {
+        this.groups = groups;
+        this.count = groups.stream().mapToLong(TransactionStatsGroup::getCount).sum();
+    }
+
+    /**
+     * 获取交易总笔数
+     *
+     * @author 薛鹏
+     * @return 返回交易总笔数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 设置交易总笔数
+     *
+     * @author 薛鹏
+     * @param count 交易总笔数
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * 获取各分组的统计
+     *
+     * @author 薛鹏
+     * @return 返回各分组的统计
+     */
+    public List<TransactionStatsGroup> getGroups() {
+        return groups;
+    }
+
+    /**
+     * 设置各分组的统计
+     *
+     * @author 薛鹏
+     * @param groups 各分组的统计
+     */
+    public void setGroups(List<TransactionStatsGroup> groups) {
+        this.groups = groups;
+    }
+}
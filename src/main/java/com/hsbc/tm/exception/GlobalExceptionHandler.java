@@ -19,6 +19,11 @@ import java.util.Map;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * 非交易异常的错误代码
+     */
+    public static final String INTERNAL_ERROR = "INTERNAL_ERROR";
+
     /**
      * 处理交易相关异常
      * 根据异常类型设置相应的HTTP状态码
@@ -29,21 +34,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(TransactionException.class)
     public ResponseEntity<Map<String, Object>> handleTransactionException(TransactionException ex) {
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("timestamp", LocalDateTime.now());
-        errorResponse.put("code", ex.getCode());
-        errorResponse.put("message", ex.getMessage());
-
-        HttpStatus status;
-        if (ex instanceof TransactionException.TransactionNotFoundException) {
-            status = HttpStatus.NOT_FOUND;
-        } else if (ex instanceof TransactionException.DuplicateTransactionException) {
-            status = HttpStatus.CONFLICT;
-        } else {
-            status = HttpStatus.BAD_REQUEST;
-        }
-
-        return new ResponseEntity<>(errorResponse, status);
+        return new ResponseEntity<>(errorBody(ex.getCode(), ex.getMessage()), status(ex));
     }
 
     /**
@@ -56,11 +47,46 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
+        return new ResponseEntity<>(errorBody(INTERNAL_ERROR, ex.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * 获取交易异常对应的HTTP状态码
+     * 响应式接口使用同一映射，两套接口对同一错误返回相同的状态码
+     * 
+     * @author 薛鹏
+     * @param ex 交易异常
+     * @return 返回HTTP状态码
+     */
+    public static HttpStatus status(TransactionException ex) {
+        if (ex instanceof TransactionException.TransactionNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        } else if (ex instanceof TransactionException.DuplicateTransactionException
+                || ex instanceof TransactionException.VersionConflictException) {
+            return HttpStatus.CONFLICT;
+        } else if (ex instanceof TransactionException.PreconditionFailedException) {
+            return HttpStatus.PRECONDITION_FAILED;
+        } else if (ex instanceof TransactionException.ClusterAccessDeniedException) {
+            return HttpStatus.FORBIDDEN;
+        } else if (ex instanceof TransactionException.RemoteTransactionException remote) {
+            return HttpStatus.valueOf(remote.getStatus());
+        }
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    /**
+     * 构造错误响应体
+     * 
+     * @author 薛鹏
+     * @param code 错误代码
+     * @param message 错误信息
+     * @return 返回包含时间、错误代码和错误信息的响应体
+     */
+    public static Map<String, Object> errorBody(String code, String message) {
         Map<String, Object> errorResponse = new HashMap<>();
         errorResponse.put("timestamp", LocalDateTime.now());
-        errorResponse.put("code", "INTERNAL_ERROR");
-        errorResponse.put("message", ex.getMessage());
-
-        return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        errorResponse.put("code", code);
+        errorResponse.put("message", message);
+        return errorResponse;
     }
 } 
\ No newline at end of file
@@ -68,6 +68,45 @@ public class TransactionException extends RuntimeException {
         }
     }
 
+    /**
+     * 交易版本冲突异常
+     * 当更新请求中的版本号与交易的当前版本号不同时抛出，说明交易在客户端读取后已被修改
+     * 
+     * @author 薛鹏
+     */
+    public static class VersionConflictException extends TransactionException {
+        /**
+         * 构造函数
+         * 
+         * @author 薛鹏
+         * @param id 交易ID
+         * @param expected 请求中的版本号
+         * @param actual 交易的当前版本号
+         */
+        public VersionConflictException(String id, long expected, long actual) {
+            super("TRX_VERSION_CONFLICT", "Transaction with id " + id + " is at version " + actual + ", not " + expected);
+        }
+    }
+
+    /**
+     * 前置条件不满足异常
+     * 当If-Match请求头中的ETag与交易的当前版本不匹配时抛出
+     * 
+     * @author 薛鹏
+     */
+    public static class PreconditionFailedException extends TransactionException {
+        /**
+         * 构造函数
+         * 
+         * @author 薛鹏
+         * @param id 交易ID
+         * @param ifMatch If-Match请求头的值
+         */
+        public PreconditionFailedException(String id, String ifMatch) {
+            super("TRX_PRECONDITION_FAILED", "Transaction with id " + id + " does not match " + ifMatch);
+        }
+    }
+
     /**
      * 交易无效异常
      * 当交易数据不符合业务规则时抛出
@@ -85,4 +124,55 @@ public class TransactionException extends RuntimeException {
             super("TRX_INVALID", message);
         }
     }
+
+    /**
+     * 集群内部接口拒绝访问异常
+     * 当内部接口的请求没有携带正确的集群密钥时抛出
+     * 
+     * @author 薛鹏
+     */
+    public static class ClusterAccessDeniedException extends TransactionException {
+        /**
+         * 构造函数
+         * 
+         * @author 薛鹏
+         * @param path 被拒绝的请求路径
+         */
+        public ClusterAccessDeniedException(String path) {
+            super("TRX_FORBIDDEN", "Access to " + path + " requires the cluster secret");
+        }
+    }
+
+    /**
+     * 集群中其他节点返回的业务异常
+     * 保留对端的错误代码、错误信息和HTTP状态，使转发的请求与在本节点处理时的响应相同
+     * 
+     * @author 薛鹏
+     */
+    public static class RemoteTransactionException extends TransactionException {
+        private final int status;
+
+        /**
+         * 构造函数
+         * 
+         * @author 薛鹏
+         * @param code 对端返回的错误代码
+         * @param message 对端返回的错误信息
+         * @param status 对端返回的HTTP状态码
+         */
+        public RemoteTransactionException(String code, String message, int status) {
+            super(code, message);
+            this.status = status;
+        }
+
+        /**
+         * 获取对端返回的HTTP状态码
+         * 
+         * @author 薛鹏
+         * @return 返回HTTP状态码
+         */
+        public int getStatus() {
+            return status;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.hsbc.tm.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * 金额与货币最小单位之间的换算
+ * 供需要以long累加金额的统计结构共用，小数位数取ISO 4217货币的默认位数
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public final class CurrencyUnits {
+
+    /**
+     * 未知货币代码使用的小数位数
+     */
+    public static final int DEFAULT_FRACTION_DIGITS = 2;
+
+    private CurrencyUnits() {
+    }
+
+    /**
+     * 获取货币最小单位的小数位数
+     *
+     * @author 薛鹏
+     * @param currency 货币代码，可以为null
+     * @return 返回小数位数；null或非ISO 4217货币代码返回默认位数
+     */
+    public static int fractionDigits(String currency) {
+        if (currency == null) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+        try {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            return digits >= 0 ? digits : DEFAULT_FRACTION_DIGITS;
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_FRACTION_DIGITS;
+        }
+    }
+
+    /**
+     * 将金额转换为货币最小单位
+     * 超出最小单位的精度按银行家舍入法舍入，超出long范围的金额截断到边界值
+     *
+     * @author 薛鹏
+     * @param amount 金额，null视为0
+     * @param fractionDigits 小数位数
+     * @return 返回最小单位表示的金额
+     */
+    public static long toMinorUnits(BigDecimal amount, int fractionDigits) {
+        return toMinorUnits(amount, fractionDigits, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * 按指定舍入方式将金额转换为货币最小单位
+     * 金额范围查询以向下和向上取整的结果分别确定候选范围和确定满足条件的范围
+     *
+     * @author 薛鹏
+     * @param amount 金额，null视为0
+     * @param fractionDigits 小数位数
+     * @param roundingMode 超出最小单位精度时的舍入方式
+     * @return 返回最小单位表示的金额，超出long范围时截断到边界值
+     */
+    public static long toMinorUnits(BigDecimal amount, int fractionDigits, RoundingMode roundingMode) {
+        if (amount == null) {
+            return 0;
+        }
+        BigInteger minor = amount.movePointRight(fractionDigits).setScale(0, roundingMode).unscaledValue();
+        if (minor.bitLength() > 63) {
+            return minor.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return minor.longValue();
+    }
+
+    /**
+     * 将货币最小单位转换为金额
+     *
+     * @author 薛鹏
+     * @param minor 最小单位表示的金额
+     * @param fractionDigits 小数位数
+     * @return 返回金额
+     */
+    public static BigDecimal fromMinorUnits(long minor, int fractionDigits) {
+        return BigDecimal.valueOf(minor, fractionDigits);
+    }
+}
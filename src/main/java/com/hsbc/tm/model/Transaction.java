@@ -2,17 +2,17 @@ package com.hsbc.tm.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 public class Transaction {
     /**
      *
      * 交易的唯一标识符
-     * 自动使用UUID生成
+     * 自动使用UUID生成，以高低两个long保存，只在需要字符串形式时格式化
      * 用于查询、更新和删除操作
      *
      */
-    private String id;
+    private long idHigh;
+    private long idLow;
     /**
      * 交易金额
      */
@@ -55,26 +55,75 @@ public class Transaction {
      */
     private String status; // 例如："PENDING", "COMPLETED", "FAILED"
 
+    /**
+     * 交易版本号
+     * 创建时为1，每次更新加1；更新以新的交易对象替换旧对象，已存储的交易不再被修改
+     * 用于乐观并发控制和HTTP的ETag
+     *
+     */
+    private long version = 1;
+
     public Transaction() {
-        this.id = UUID.randomUUID().toString();
+        TransactionId id = TransactionId.random();
+        this.idHigh = id.getHigh();
+        this.idLow = id.getLow();
         this.timestamp = LocalDateTime.now();
         this.status = "COMPLETED"; // 默认状态
     }
 
     public Transaction(BigDecimal amount, String description, String type, String currency) {
-        this();
+        this(TransactionId.random(), amount, description, type, currency);
+    }
+
+    /**
+     * 以指定的ID创建新交易，时间戳为当前时间
+     */
+    public Transaction(TransactionId id, BigDecimal amount, String description, String type, String currency) {
+        this.idHigh = id.getHigh();
+        this.idLow = id.getLow();
+        this.timestamp = LocalDateTime.now();
+        this.status = "COMPLETED"; // 默认状态
+        this.amount = amount;
+        this.description = description;
+        this.type = type;
+        this.currency = currency;
+    }
+
+    /**
+     * 以已知的全部字段重建交易，用于从快照或日志恢复
+     * 不生成新的ID和时间戳
+     */
+    public Transaction(String id, BigDecimal amount, String description, String type,
+                       LocalDateTime timestamp, String currency, String status) {
+        setId(id);
         this.amount = amount;
         this.description = description;
         this.type = type;
+        this.timestamp = timestamp;
         this.currency = currency;
+        this.status = status;
     }
 
     public String getId() {
-        return id;
+        return TransactionId.format(idHigh, idLow);
     }
 
+    /**
+     * 设置交易ID
+     * ID必须是标准UUID字符串形式，否则抛出IllegalArgumentException
+     */
     public void setId(String id) {
-        this.id = id;
+        TransactionId parsed = TransactionId.parse(id);
+        this.idHigh = parsed.getHigh();
+        this.idLow = parsed.getLow();
+    }
+
+    public long getIdHigh() {
+        return idHigh;
+    }
+
+    public long getIdLow() {
+        return idLow;
     }
 
     public BigDecimal getAmount() {
@@ -125,16 +174,24 @@ public class Transaction {
         this.status = status;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Transaction that = (Transaction) o;
-        return id.equals(that.id);
+        return idHigh == that.idHigh && idLow == that.idLow;
     }
 
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return Long.hashCode(idHigh) * 31 + Long.hashCode(idLow);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.hsbc.tm.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * 交易游标
+ * 记录按时间倒序遍历时最后一条交易的(时间戳, ID)位置，
+ * 下一页从该位置之后直接继续，不受新插入交易的影响
+ * 对客户端而言游标是不透明的字符串
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public final class TransactionCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 时间戳，以UTC纪元微秒表示
+     */
+    private final long timestampMicros;
+
+    /**
+     * 交易ID
+     */
+    private final TransactionId id;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param timestampMicros 时间戳的纪元微秒数
+     * @param id 交易ID
+     * @throws IllegalArgumentException 当交易ID为空或格式无效时抛出异常
+     */
+    public TransactionCursor(long timestampMicros, String id) {
+        this(timestampMicros, TransactionId.parse(id));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param timestampMicros 时间戳的纪元微秒数
+     * @param id 交易ID
+     */
+    public TransactionCursor(long timestampMicros, TransactionId id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Cursor id cannot be null");
+        }
+        this.timestampMicros = timestampMicros;
+        this.id = id;
+    }
+
+    /**
+     * 以指定交易的位置创建游标
+     *
+     * @author 薛鹏
+     * @param transaction 游标指向的交易
+     * @return 返回新的游标
+     */
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(toMicros(transaction.getTimestamp()),
+                new TransactionId(transaction.getIdHigh(), transaction.getIdLow()));
+    }
+
+    /**
+     * 将时间戳转换为UTC纪元微秒数
+     *
+     * @author 薛鹏
+     * @param timestamp 交易时间戳
+     * @return 返回自纪元起的微秒数
+     */
+    public static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    /**
+     * 将游标编码为不透明字符串
+     *
+     * @author 薛鹏
+     * @return 返回URL安全的Base64编码
+     */
+    public String encode() {
+        String raw = timestampMicros + ":" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 从不透明字符串解码游标
+     *
+     * @author 薛鹏
+     * @param encoded 由encode()生成的字符串
+     * @return 返回解码后的游标
+     * @throws IllegalArgumentException 当字符串格式无效时抛出异常
+     */
+    public static TransactionCursor decode(String encoded) {
+        String raw = new String(DECODER.decode(encoded), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator <= 0 || separator == raw.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new TransactionCursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+    }
+
+    public long getTimestampMicros() {
+        return timestampMicros;
+    }
+
+    public String getId() {
+        return id.toString();
+    }
+
+    public TransactionId getTransactionId() {
+        return id;
+    }
+}
@@ -0,0 +1,189 @@
+package com.hsbc.tm.model;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 交易列表和计数查询的过滤条件
+ * 同一字段的多个取值之间为OR关系，不同字段之间为AND关系，未设置的字段不参与过滤
+ * 金额范围的上下限都包含在内，按各交易所用货币的最小单位比较
+ * 描述检索不区分大小写，查询中的每个词元都必须出现在描述中
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionFilter {
+
+    private final Set<String> types = new LinkedHashSet<>();
+    private final Set<String> currencies = new LinkedHashSet<>();
+    private final Set<String> statuses = new LinkedHashSet<>();
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String query;
+
+    /**
+     * 限定交易类型
+     *
+     * @author 薛鹏
+     * @param values 允许的交易类型，为null或空时不限定
+     * @return 返回当前过滤条件
+     */
+    public TransactionFilter types(Collection<String> values) {
+        addAll(types, values);
+        return this;
+    }
+
+    /**
+     * 限定交易货币
+     *
+     * @author 薛鹏
+     * @param values 允许的货币代码，为null或空时不限定
+     * @return 返回当前过滤条件
+     */
+    public TransactionFilter currencies(Collection<String> values) {
+        addAll(currencies, values);
+        return this;
+    }
+
+    /**
+     * 限定交易状态
+     *
+     * @author 薛鹏
+     * @param values 允许的交易状态，为null或空时不限定
+     * @return 返回当前过滤条件
+     */
+    public TransactionFilter statuses(Collection<String> values) {
+        addAll(statuses, values);
+        return this;
+    }
+
+    /**
+     * 限定金额下限
+     *
+     * @author 薛鹏
+     * @param value 金额下限（包含），为null时不限定
+     * @return 返回当前过滤条件
+     */
+    public TransactionFilter minAmount(BigDecimal value) {
+        this.minAmount = value;
+        return this;
+    }
+
+    /**
+     * 限定金额上限
+     *
+     * @author 薛鹏
+     * @param value 金额上限（包含），为null时不限定
+     * @return 返回当前过滤条件
+     */
+    public TransactionFilter maxAmount(BigDecimal value) {
+        this.maxAmount = value;
+        return this;
+    }
+
+    /**
+     * 限定描述中包含的文本
+     *
+     * @author 薛鹏
+     * @param value 检索文本，为null或空白时不限定
+     * @return 返回当前过滤条件
+     */
+    public TransactionFilter query(String value) {
+        this.query = value == null || value.isBlank() ? null : value.trim();
+        return this;
+    }
+
+    private static void addAll(Set<String> target, Collection<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                target.add(value.trim());
+            }
+        }
+    }
+
+    /**
+     * 判断是否未设置任何条件
+     *
+     * @author 薛鹏
+     * @return 如果未设置任何条件返回true，否则返回false
+     */
+    public boolean isEmpty() {
+        return types.isEmpty() && currencies.isEmpty() && statuses.isEmpty() && !hasAmountRange() && query == null;
+    }
+
+    /**
+     * 判断是否限定了金额范围
+     *
+     * @author 薛鹏
+     * @return 如果设置了金额下限或上限返回true，否则返回false
+     */
+    public boolean hasAmountRange() {
+        return minAmount != null || maxAmount != null;
+    }
+
+    /**
+     * 获取允许的交易类型
+     *
+     * @author 薛鹏
+     * @return 返回只读集合，为空表示不限定
+     */
+    public Set<String> getTypes() {
+        return Collections.unmodifiableSet(types);
+    }
+
+    /**
+     * 获取允许的货币代码
+     *
+     * @author 薛鹏
+     * @return 返回只读集合，为空表示不限定
+     */
+    public Set<String> getCurrencies() {
+        return Collections.unmodifiableSet(currencies);
+    }
+
+    /**
+     * 获取允许的交易状态
+     *
+     * @author 薛鹏
+     * @return 返回只读集合，为空表示不限定
+     */
+    public Set<String> getStatuses() {
+        return Collections.unmodifiableSet(statuses);
+    }
+
+    /**
+     * 获取金额下限
+     *
+     * @author 薛鹏
+     * @return 返回金额下限，为null表示不限定
+     */
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    /**
+     * 获取金额上限
+     *
+     * @author 薛鹏
+     * @return 返回金额上限，为null表示不限定
+     */
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    /**
+     * 获取描述检索文本
+     *
+     * @author 薛鹏
+     * @return 返回检索文本，为null表示不限定
+     */
+    public String getQuery() {
+        return query;
+    }
+}
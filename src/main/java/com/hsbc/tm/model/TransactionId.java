@@ -0,0 +1,184 @@
+package com.hsbc.tm.model;
+
+import java.util.UUID;
+
+/**
+ * 交易ID的128位紧凑表示
+ * 对外仍使用标准UUID字符串形式（8-4-4-4-12位小写十六进制），
+ * 内部以高低两个long保存，避免每条交易携带36个字符的字符串
+ * 按无符号数比较高低两部分的顺序与比较小写字符串形式的顺序一致
+ * 解析只接受格式化输出的小写形式，每个交易只有一种合法的字符串形式，可以直接用作缓存等以字符串为键的结构的键
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public final class TransactionId implements Comparable<TransactionId> {
+
+    private static final int LENGTH = 36;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long high;
+    private final long low;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param high 高64位
+     * @param low 低64位
+     */
+    public TransactionId(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * 生成随机的交易ID
+     *
+     * @author 薛鹏
+     * @return 返回新的交易ID
+     */
+    public static TransactionId random() {
+        UUID uuid = UUID.randomUUID();
+        return new TransactionId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * 解析标准UUID字符串形式的交易ID
+     *
+     * @author 薛鹏
+     * @param value 交易ID字符串
+     * @return 返回交易ID
+     * @throws IllegalArgumentException 当字符串不是标准UUID形式时抛出异常
+     */
+    public static TransactionId parse(String value) {
+        TransactionId id = tryParse(value);
+        if (id == null) {
+            throw new IllegalArgumentException("Invalid transaction ID: " + value);
+        }
+        return id;
+    }
+
+    /**
+     * 尝试解析标准UUID字符串形式的交易ID
+     * 十六进制位只接受ASCII的0-9和小写a-f，大写字母和其他Unicode数字均视为无效
+     *
+     * @author 薛鹏
+     * @param value 交易ID字符串，可以为null
+     * @return 返回交易ID；字符串不是标准UUID形式时返回null
+     */
+    public static TransactionId tryParse(String value) {
+        if (value == null || value.length() != LENGTH
+                || value.charAt(8) != '-' || value.charAt(13) != '-'
+                || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return null;
+        }
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = hexDigit(value.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            if (digits++ < 16) {
+                high = (high << 4) | digit;
+            } else {
+                low = (low << 4) | digit;
+            }
+        }
+        return new TransactionId(high, low);
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * 将高低两部分格式化为标准UUID字符串
+     *
+     * @author 薛鹏
+     * @param high 高64位
+     * @param low 低64位
+     * @return 返回小写的UUID字符串
+     */
+    public static String format(long high, long low) {
+        char[] chars = new char[LENGTH];
+        int position = 0;
+        for (int i = 0; i < 32; i++) {
+            if (i == 8 || i == 12 || i == 16 || i == 20) {
+                chars[position++] = '-';
+            }
+            long bits = i < 16 ? high : low;
+            chars[position++] = HEX[(int) (bits >>> (60 - (i & 15) * 4)) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 比较两个交易ID的顺序，与比较其字符串形式的结果一致
+     *
+     * @author 薛鹏
+     * @param high 第一个ID的高64位
+     * @param low 第一个ID的低64位
+     * @param otherHigh 第二个ID的高64位
+     * @param otherLow 第二个ID的低64位
+     * @return 返回负数、0或正数
+     */
+    public static int compare(long high, long low, long otherHigh, long otherLow) {
+        int c = Long.compareUnsigned(high, otherHigh);
+        return c != 0 ? c : Long.compareUnsigned(low, otherLow);
+    }
+
+    /**
+     * 获取高64位
+     *
+     * @author 薛鹏
+     * @return 返回高64位
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * 获取低64位
+     *
+     * @author 薛鹏
+     * @return 返回低64位
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public int compareTo(TransactionId other) {
+        return compare(high, low, other.high, other.low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransactionId that = (TransactionId) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
+    }
+
+    @Override
+    public String toString() {
+        return format(high, low);
+    }
+}
@@ -2,27 +2,274 @@ package com.hsbc.tm.repository;
 
 import com.hsbc.tm.exception.TransactionException;
 import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.model.TransactionId;
+import com.hsbc.tm.repository.column.TransactionColumnStore;
+import com.hsbc.tm.repository.persistence.RecoveryStats;
+import com.hsbc.tm.repository.persistence.TransactionSnapshot;
+import com.hsbc.tm.repository.persistence.WriteAheadLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
 
 /**
  * 交易仓库接口的内存实现
  * 使用内存数据结构存储交易数据，适用于开发和测试环境
+ * 主存储以128位交易ID为键，ID只在仓库边界与字符串形式相互转换
+ * 除主存储外还维护按(时间戳, ID)排序的二级索引，用于稳定的倒序分页
+ * 以及同步更新的列式存储，用于扫描和聚合分析
+ * 启用预写日志时，每次写操作都会追加到日志，启动时通过回放日志恢复数据
+ * 启用快照时，启动时先加载最近的快照，再只回放快照之后的日志
+ * 更新以新的交易对象整体替换旧对象，已存储的交易对象不会被修改，读取方总是看到某个完整的版本
+ * 每次保存、更新和删除都是主存储上的一次原子计算：存在性检查、日志追加、二级索引、计数和写入
+ * 在该ID所在分段的写锁内完成，不存在先检查后执行的竞态；计数在同一临界区内修改，count()与存储的条目数一致；
+ * 日志最先追加，日志已关闭或写入失败时操作整体失败，不会留下只存在于索引或计数中的交易
+ *
+ * 数据按交易ID的哈希划分为若干个独立的分片，每个分片有各自的主存储、时间索引和列式存储，
+ * 写操作只锁定所属分片的结构，不同分片的写入互不争用；预写日志和交易总数的计数器仍由全部分片共享，
+ * 计数器在所属分片的临界区内修改，多分片时count()同样与存储的条目数一致
+ * 全量扫描、过滤查询和计数在ForkJoin公共池上并行访问各分片，再按时间倒序多路归并各分片的结果，
+ * 归并在取得offset + size条后停止；无过滤条件的分页按需从各分片的时间索引分批读取，
+ * 代价为O((page × size + size) × log 分片数)，过滤查询仍由每个分片各自选出前page × size + size条，
+ * 游标分页仍与已遍历的页数无关
  * 
  * @author 薛鹏
  * @version 1.0
  */
 @Repository
 public class InMemoryTransactionRepository implements TransactionRepository {
-    private final Map<String, Transaction> transactionStore = new ConcurrentHashMap<>();
+
+    // 时间倒序，时间相同时按ID排序，与时间索引和列式存储的顺序一致
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparingLong((Transaction transaction) -> TransactionCursor.toMicros(transaction.getTimestamp()))
+            .reversed()
+            .thenComparing((a, b) -> TransactionId.compare(a.getIdHigh(), a.getIdLow(), b.getIdHigh(), b.getIdLow()));
+
+    // 多分片分页时每次从一个分片的时间索引读取的最少交易数
+    private static final int MERGE_BATCH = 256;
+
+    private final Shard[] shards;
     private final AtomicLong counter = new AtomicLong(0);
+    private final WriteAheadLog writeAheadLog;
+    private final TransactionSnapshot snapshot;
+    private final RecoveryStats recoveryStats = new RecoveryStats();
+
+    /**
+     * 构造函数，创建不带持久化的纯内存仓库
+     * 
+     * @author 薛鹏
+     */
+    public InMemoryTransactionRepository() {
+        this(1);
+    }
+
+    /**
+     * 构造函数，创建指定分片数的纯内存仓库
+     * 
+     * @author 薛鹏
+     * @param shards 分片数
+     */
+    public InMemoryTransactionRepository(int shards) {
+        this((WriteAheadLog) null, null, true, shards);
+    }
+
+    /**
+     * 构造函数，通过依赖注入获取可选的预写日志和快照
+     * 未配置预写日志时退化为纯内存仓库
+     * 
+     * @author 薛鹏
+     * @param writeAheadLog 预写日志的提供者
+     * @param snapshot 快照的提供者
+     * @param descriptionNgrams 是否为交易描述建立三元组索引以支持片段检索
+     * @param shards 分片数
+     */
+    @Autowired
+    public InMemoryTransactionRepository(ObjectProvider<WriteAheadLog> writeAheadLog,
+                                         ObjectProvider<TransactionSnapshot> snapshot,
+                                         @Value("${tm.search.ngrams:true}") boolean descriptionNgrams,
+                                         @Value("${tm.repository.shards:1}") int shards) {
+        this(writeAheadLog.getIfAvailable(), snapshot.getIfAvailable(), descriptionNgrams, shards);
+    }
+
+    /**
+     * 构造函数，使用指定的预写日志并回放其中的记录以恢复数据
+     * 
+     * @author 薛鹏
+     * @param writeAheadLog 预写日志，为null时不做持久化
+     */
+    public InMemoryTransactionRepository(WriteAheadLog writeAheadLog) {
+        this(writeAheadLog, null);
+    }
+
+    /**
+     * 构造函数，先加载快照，再回放快照之后的日志以恢复数据
+     * 
+     * @author 薛鹏
+     * @param writeAheadLog 预写日志，为null时不做持久化
+     * @param snapshot 快照，为null时从头回放日志
+     */
+    public InMemoryTransactionRepository(WriteAheadLog writeAheadLog, TransactionSnapshot snapshot) {
+        this(writeAheadLog, snapshot, true);
+    }
+
+    /**
+     * 构造函数，先加载快照，再回放快照之后的日志以恢复数据
+     * 
+     * @author 薛鹏
+     * @param writeAheadLog 预写日志，为null时不做持久化
+     * @param snapshot 快照，为null时从头回放日志
+     * @param descriptionNgrams 是否为交易描述建立三元组索引以支持片段检索
+     */
+    public InMemoryTransactionRepository(WriteAheadLog writeAheadLog, TransactionSnapshot snapshot,
+                                         boolean descriptionNgrams) {
+        this(writeAheadLog, snapshot, descriptionNgrams, 1);
+    }
+
+    /**
+     * 构造函数，创建指定分片数的仓库，先加载快照，再回放快照之后的日志以恢复数据
+     * 
+     * @author 薛鹏
+     * @param writeAheadLog 预写日志，为null时不做持久化
+     * @param snapshot 快照，为null时从头回放日志
+     * @param descriptionNgrams 是否为交易描述建立三元组索引以支持片段检索
+     * @param shards 分片数
+     * @throws IllegalArgumentException 当分片数小于1时抛出异常
+     */
+    public InMemoryTransactionRepository(WriteAheadLog writeAheadLog, TransactionSnapshot snapshot,
+                                         boolean descriptionNgrams, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.writeAheadLog = writeAheadLog;
+        this.snapshot = snapshot;
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(descriptionNgrams);
+        }
+        if (writeAheadLog != null) {
+            recover();
+        }
+    }
+
+    /**
+     * 从快照和日志恢复数据并记录恢复耗时
+     * 
+     * @author 薛鹏
+     */
+    private void recover() {
+        try {
+            long logPosition = 0;
+            if (snapshot != null) {
+                long start = System.nanoTime();
+                long position = snapshot.load(transaction -> {
+                    Shard shard = shardFor(transaction.getIdHigh(), transaction.getIdLow());
+                    shard.indexPut(shard.store(transaction), transaction);
+                });
+                logPosition = Math.max(0, position);
+                recoveryStats.recordSnapshot(size(), (System.nanoTime() - start) / 1_000_000);
+            }
+
+            long start = System.nanoTime();
+            long records = writeAheadLog.replay(logPosition, new WriteAheadLog.ReplayHandler() {
+                @Override
+                public void put(Transaction transaction) {
+                    Shard shard = shardFor(transaction.getIdHigh(), transaction.getIdLow());
+                    shard.indexPut(shard.store(transaction), transaction);
+                }
+
+                @Override
+                public void delete(String id) {
+                    TransactionId key = TransactionId.tryParse(id);
+                    if (key != null) {
+                        shardFor(key.getHigh(), key.getLow()).remove(key);
+                    }
+                }
+            });
+            recoveryStats.recordLog(records, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover transactions", e);
+        }
+        long recovered = 0;
+        for (Shard shard : shards) {
+            recovered += shard.transactionStore.size();
+        }
+        counter.set(recovered);
+    }
+
+    /**
+     * 写入时间点快照并删除已被快照覆盖的日志段
+     * 先切换日志段，此前的所有修改都已进入内存存储；之后在不阻塞写操作的情况下遍历存储并写入快照
+     * 
+     * @author 薛鹏
+     * @return 返回写入快照的交易数
+     * @throws IllegalStateException 当未启用预写日志或快照时抛出异常
+     */
+    public synchronized long writeSnapshot() {
+        if (writeAheadLog == null || snapshot == null) {
+            throw new IllegalStateException("Snapshots require both the write-ahead log and a snapshot file");
+        }
+        try {
+            long boundary = writeAheadLog.rotate();
+            long written = snapshot.write(boundary, iterator());
+            writeAheadLog.pruneBefore(boundary);
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot", e);
+        }
+    }
+
+    /**
+     * 依次遍历各分片主存储中的交易
+     * 
+     * @author 薛鹏
+     * @return 返回交易的迭代器
+     */
+    private Iterator<Transaction> iterator() {
+        return Arrays.stream(shards)
+                .flatMap(shard -> StreamSupport.stream(shard.transactionStore.spliterator(), false))
+                .iterator();
+    }
+
+    /**
+     * 获取各分片主存储的条目数之和
+     * 
+     * @author 薛鹏
+     * @return 返回条目数
+     */
+    private long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.transactionStore.size();
+        }
+        return size;
+    }
+
+    /**
+     * 获取启动恢复统计
+     * 
+     * @author 薛鹏
+     * @return 返回快照加载和日志回放的记录数与耗时
+     */
+    public RecoveryStats getRecoveryStats() {
+        return recoveryStats;
+    }
 
     /**
      * 保存交易到内存存储
@@ -30,24 +277,82 @@ public class InMemoryTransactionRepository implements TransactionRepository {
      * @author 薛鹏
      * @param transaction 要保存的交易实体
      * @return 返回保存后的交易实体
-     * @throws IllegalArgumentException 当交易ID为空时抛出异常
+     * @throws IllegalArgumentException 当交易时间戳为空时抛出异常
      * @throws TransactionException.DuplicateTransactionException 当已存在相同ID的交易时抛出异常
      */
     @Override
     public Transaction save(Transaction transaction) {
-        if (transaction.getId() == null) {
-            throw new IllegalArgumentException("Transaction ID cannot be null");
+        if (transaction.getTimestamp() == null) {
+            throw new IllegalArgumentException("Transaction timestamp cannot be null");
         }
-        
-        if (existsById(transaction.getId())) {
+
+        Shard shard = shardFor(transaction.getIdHigh(), transaction.getIdLow());
+        boolean[] inserted = {false};
+        long[] logPosition = {-1};
+        shard.transactionStore.compute(transaction.getIdHigh(), transaction.getIdLow(), current -> {
+            if (current != null) {
+                return current;
+            }
+            // 先追加日志，日志已关闭或写入失败时抛出异常，存储、索引和计数都保持不变
+            if (writeAheadLog != null) {
+                logPosition[0] = writeAheadLog.appendPut(transaction);
+            }
+            shard.indexPut(null, transaction);
+            counter.incrementAndGet();
+            inserted[0] = true;
+            return transaction;
+        });
+        if (!inserted[0]) {
             throw new TransactionException.DuplicateTransactionException(transaction.getId());
         }
-        
-        transactionStore.put(transaction.getId(), transaction);
-        counter.incrementAndGet();
+        awaitCommit(logPosition[0]);
         return transaction;
     }
 
+    /**
+     * 批量保存交易到内存存储
+     * 每条交易与{@link #save}相同，在所属分片主存储的同一次映射操作中追加日志、登记二级索引、计数并写入，
+     * 按ID可见的交易一定已在索引中，同一ID的日志顺序与存储顺序一致；
+     * 全部追加后只等待一次提交，PER_WRITE策略下整批只等待一次落盘
+     * 
+     * @author 薛鹏
+     * @param transactions 要保存的交易实体列表
+     * @return 返回实际保存的交易实体，ID已存在的交易被跳过
+     * @throws IllegalArgumentException 当任一交易时间戳为空时抛出异常，此时不保存任何交易
+     */
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            if (transaction.getTimestamp() == null) {
+                throw new IllegalArgumentException("Transaction timestamp cannot be null");
+            }
+        }
+
+        List<Transaction> saved = new ArrayList<>(transactions.size());
+        long[] logPosition = {-1};
+        for (Transaction transaction : transactions) {
+            Shard shard = shardFor(transaction.getIdHigh(), transaction.getIdLow());
+            boolean[] inserted = {false};
+            shard.transactionStore.compute(transaction.getIdHigh(), transaction.getIdLow(), current -> {
+                if (current != null) {
+                    return current;
+                }
+                if (writeAheadLog != null) {
+                    logPosition[0] = Math.max(logPosition[0], writeAheadLog.appendPut(transaction));
+                }
+                shard.indexPut(null, transaction);
+                counter.incrementAndGet();
+                inserted[0] = true;
+                return transaction;
+            });
+            if (inserted[0]) {
+                saved.add(transaction);
+            }
+        }
+        awaitCommit(logPosition[0]);
+        return saved;
+    }
+
     /**
      * 根据ID查找交易
      * 
@@ -57,22 +362,37 @@ public class InMemoryTransactionRepository implements TransactionRepository {
      */
     @Override
     public Optional<Transaction> findById(String id) {
-        return Optional.ofNullable(transactionStore.get(id));
+        TransactionId key = TransactionId.tryParse(id);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shardFor(key.getHigh(), key.getLow()).transactionStore.get(key.getHigh(), key.getLow()));
     }
 
     /**
      * 查找所有交易
+     * 各分片并行收集后依次拼接
      * 
      * @author 薛鹏
      * @return 返回所有交易的列表
      */
     @Override
     public List<Transaction> findAll() {
-        return new ArrayList<>(transactionStore.values());
+        List<List<Transaction>> parts = eachShard(shard -> {
+            List<Transaction> part = new ArrayList<>(shard.transactionStore.size());
+            shard.transactionStore.forEach(part::add);
+            return part;
+        });
+        List<Transaction> result = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(result::addAll);
+        return result;
     }
 
     /**
      * 查找分页的交易列表
+     * 结果按时间倒序（最新的在前）排列，单分片时通过时间索引直接定位到页首，
+     * 代价为O(log n + size)，与页码无关；多分片时从各分片的时间索引分批读取并多路归并，
+     * 所有分片合计只读取归并实际经过的page × size + size条，以及每个分片最多一批的余量
      * 
      * @author 薛鹏
      * @param page 页码，从0开始
@@ -86,11 +406,63 @@ public class InMemoryTransactionRepository implements TransactionRepository {
             throw new IllegalArgumentException("Invalid page or size parameters");
         }
         
-        int skip = page * size;
-        return transactionStore.values().stream()
-                .skip(skip)
-                .limit(size)
-                .collect(Collectors.toList());
+        long skip = (long) page * size;
+        if (shards.length == 1) {
+            return shards[0].timeIndex.range(skip, size);
+        }
+        int batch = (int) Math.min(limit(skip, size), Math.max(size, MERGE_BATCH));
+        return merge(eachShard(shard -> new MergeSource(shard.timeIndex.range(0, batch), batch,
+                cursor -> shard.timeIndex.after(cursor, batch))), skip, size);
+    }
+
+    /**
+     * 获取满足过滤条件的分页交易列表
+     * 通过列式存储中按取值维护的位图索引求出匹配的行，不扫描交易；
+     * 多分片时各分片并行选出前page × size + size条，再多路归并到取得所需的条目为止
+     * 
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @param page 页码，从0开始
+     * @param size 每页的交易数量
+     * @return 返回指定页的交易列表
+     * @throws IllegalArgumentException 当页码或大小参数无效时抛出异常
+     */
+    @Override
+    public List<Transaction> findAll(TransactionFilter filter, int page, int size) {
+        if (filter.isEmpty()) {
+            return findAll(page, size);
+        }
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Invalid page or size parameters");
+        }
+        long skip = (long) page * size;
+        if (shards.length == 1) {
+            return shards[0].columnStore.find(filter, skip, size);
+        }
+        int limit = limit(skip, size);
+        return merge(eachShard(shard -> new MergeSource(shard.columnStore.find(filter, 0, limit))), skip, size);
+    }
+
+    /**
+     * 查找游标位置之后的交易列表
+     * 通过时间索引直接定位到游标之后的位置，每页代价为O(log n + size)，
+     * 并发插入的新交易排在游标之前，不会导致后续页面重复或遗漏；多分片时各分片取游标之后的size条再合并
+     * 
+     * @author 薛鹏
+     * @param cursor 上一页最后一条交易的位置，为null时从第一条开始
+     * @param size 最多返回的交易数量
+     * @return 返回游标之后的交易列表
+     * @throws IllegalArgumentException 当大小参数无效时抛出异常
+     */
+    @Override
+    public List<Transaction> findAfter(TransactionCursor cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid size parameter");
+        }
+        if (shards.length == 1) {
+            return shards[0].timeIndex.after(cursor, size);
+        }
+        return merge(eachShard(shard -> new MergeSource(shard.timeIndex.after(cursor, size))), 0, size);
     }
 
     /**
@@ -102,7 +474,9 @@ public class InMemoryTransactionRepository implements TransactionRepository {
      */
     @Override
     public boolean existsById(String id) {
-        return transactionStore.containsKey(id);
+        TransactionId key = TransactionId.tryParse(id);
+        return key != null
+                && shardFor(key.getHigh(), key.getLow()).transactionStore.containsKey(key.getHigh(), key.getLow());
     }
 
     /**
@@ -110,15 +484,35 @@ public class InMemoryTransactionRepository implements TransactionRepository {
      * 
      * @author 薛鹏
      * @param id 要删除的交易ID
+     * @return 返回在同一次映射操作中被移除的交易
      * @throws TransactionException.TransactionNotFoundException 当指定ID的交易不存在时抛出异常
      */
     @Override
-    public void deleteById(String id) {
-        if (!existsById(id)) {
+    public Transaction deleteById(String id) {
+        TransactionId key = TransactionId.tryParse(id);
+        if (key == null) {
+            throw new TransactionException.TransactionNotFoundException(id);
+        }
+        Shard shard = shardFor(key.getHigh(), key.getLow());
+        Transaction[] removed = {null};
+        long[] logPosition = {-1};
+        shard.transactionStore.compute(key.getHigh(), key.getLow(), current -> {
+            if (current == null) {
+                return null;
+            }
+            if (writeAheadLog != null) {
+                logPosition[0] = writeAheadLog.appendDelete(current.getId());
+            }
+            shard.indexRemove(current);
+            counter.decrementAndGet();
+            removed[0] = current;
+            return null;
+        });
+        if (removed[0] == null) {
             throw new TransactionException.TransactionNotFoundException(id);
         }
-        transactionStore.remove(id);
-        counter.decrementAndGet();
+        awaitCommit(logPosition[0]);
+        return removed[0];
     }
 
     /**
@@ -130,14 +524,106 @@ public class InMemoryTransactionRepository implements TransactionRepository {
      */
     @Override
     public void update(Transaction transaction) {
-        if (!existsById(transaction.getId())) {
+        if (!replaceIf(transaction, current -> true)) {
             throw new TransactionException.TransactionNotFoundException(transaction.getId());
         }
-        transactionStore.put(transaction.getId(), transaction);
+    }
+
+    /**
+     * 以比较并交换的方式替换交易
+     * 
+     * @author 薛鹏
+     * @param expected 之前读取的交易对象，按引用比较
+     * @param replacement 新的交易对象，ID与expected相同
+     * @return 替换成功返回true；交易已被其他更新替换或已删除时返回false
+     */
+    @Override
+    public boolean replace(Transaction expected, Transaction replacement) {
+        return replaceIf(replacement, current -> current == expected);
+    }
+
+    /**
+     * 在主存储中原子地替换满足条件的已有交易
+     * 条件判断、写入、二级索引更新和日志追加都在该ID所在分段的写锁内完成，
+     * 同一交易的并发更新因此在存储、索引和日志中的顺序一致；释放锁后再等待日志落盘
+     * 
+     * @author 薛鹏
+     * @param replacement 新的交易对象
+     * @param condition 对当前交易的条件
+     * @return 替换成功返回true；交易不存在或不满足条件时返回false
+     */
+    private boolean replaceIf(Transaction replacement, Predicate<Transaction> condition) {
+        Shard shard = shardFor(replacement.getIdHigh(), replacement.getIdLow());
+        boolean[] replaced = {false};
+        long[] logPosition = {-1};
+        shard.transactionStore.compute(replacement.getIdHigh(), replacement.getIdLow(), current -> {
+            if (current == null || !condition.test(current)) {
+                return current;
+            }
+            if (writeAheadLog != null) {
+                logPosition[0] = writeAheadLog.appendPut(replacement);
+            }
+            shard.indexPut(current, replacement);
+            replaced[0] = true;
+            return replacement;
+        });
+        awaitCommit(logPosition[0]);
+        return replaced[0];
+    }
+
+    /**
+     * 在释放主存储的锁之后等待日志提交
+     * 
+     * @author 薛鹏
+     * @param logPosition 追加的记录结束处的日志位置，未追加时为-1
+     */
+    private void awaitCommit(long logPosition) {
+        if (logPosition >= 0) {
+            writeAheadLog.awaitCommit(logPosition);
+        }
+    }
+
+    /**
+     * 获取与主存储同步的列式存储
+     * 
+     * @author 薛鹏
+     * @return 返回列式存储
+     * @throws IllegalStateException 当仓库有多个分片时抛出异常，此时应使用{@link #getColumnStores()}
+     */
+    public TransactionColumnStore getColumnStore() {
+        if (shards.length != 1) {
+            throw new IllegalStateException("Repository has " + shards.length + " column stores, one per shard");
+        }
+        return shards[0].columnStore;
+    }
+
+    /**
+     * 获取各分片的列式存储
+     * 
+     * @author 薛鹏
+     * @return 返回按分片顺序排列的列式存储
+     */
+    public List<TransactionColumnStore> getColumnStores() {
+        List<TransactionColumnStore> columnStores = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            columnStores.add(shard.columnStore);
+        }
+        return Collections.unmodifiableList(columnStores);
+    }
+
+    /**
+     * 获取分片数
+     * 
+     * @author 薛鹏
+     * @return 返回分片数
+     */
+    public int getShardCount() {
+        return shards.length;
     }
 
     /**
      * 获取交易总数
+     * 全部分片共享的计数器在各分片写入的临界区内修改，读取一次即为存储的条目数，不需要汇总各分片
      * 
      * @author 薛鹏
      * @return 返回系统中的交易总数
@@ -146,4 +632,210 @@ public class InMemoryTransactionRepository implements TransactionRepository {
     public long count() {
         return counter.get();
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取满足过滤条件的交易数
+     * 只计算位图索引运算结果的基数，不访问任何交易对象；多分片时各分片并行计算后求和
+     * 
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回满足条件的交易数
+     */
+    @Override
+    public long count(TransactionFilter filter) {
+        if (filter.isEmpty()) {
+            return count();
+        }
+        return eachShard(shard -> shard.columnStore.count(filter)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 按ID的哈希选择分片
+     * 哈希与主存储内部选择分段的哈希不同，每个分片的交易仍均匀分布在其主存储的全部分段上
+     * 
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @return 返回分片下标
+     */
+    private int shardIndex(long high, long low) {
+        return shards.length == 1 ? 0 : Math.floorMod(Long.hashCode(high * 0x9E3779B97F4A7C15L ^ low), shards.length);
+    }
+
+    private Shard shardFor(long high, long low) {
+        return shards[shardIndex(high, low)];
+    }
+
+    /**
+     * 在每个分片上执行任务
+     * 多分片时以并行流在ForkJoin公共池上执行，调用线程也参与执行
+     * 
+     * @author 薛鹏
+     * @param task 分片上的任务
+     * @param <R> 任务结果的类型
+     * @return 返回按分片顺序排列的结果
+     */
+    private <R> List<R> eachShard(Function<Shard, R> task) {
+        if (shards.length == 1) {
+            return List.of(task.apply(shards[0]));
+        }
+        return Arrays.stream(shards).parallel().map(task).toList();
+    }
+
+    /**
+     * 按时间倒序多路归并各分片已排好序的结果，并截取指定的一段
+     * 以各分片当前的首条交易组成小顶堆，每次取出最新的一条，经过offset + limit条后停止，
+     * 其余分片中更旧的交易不被访问
+     * 
+     * @author 薛鹏
+     * @param sources 各分片按时间倒序排列的结果
+     * @param offset 跳过的交易数
+     * @param limit 最多返回的交易数
+     * @return 返回合并后的交易列表
+     */
+    private static List<Transaction> merge(List<MergeSource> sources, long offset, int limit) {
+        PriorityQueue<MergeSource> heads = new PriorityQueue<>(sources.size(),
+                (a, b) -> NEWEST_FIRST.compare(a.head(), b.head()));
+        for (MergeSource source : sources) {
+            if (source.head() != null) {
+                heads.add(source);
+            }
+        }
+        List<Transaction> result = new ArrayList<>();
+        long skipped = 0;
+        while (result.size() < limit && !heads.isEmpty()) {
+            MergeSource source = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(source.head());
+            }
+            if (source.advance()) {
+                heads.add(source);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算每个分片需要提供的条目数
+     * 
+     * @author 薛鹏
+     * @param offset 跳过的交易数
+     * @param size 每页的交易数量
+     * @return 返回offset + size，超出int范围时取Integer.MAX_VALUE
+     */
+    private static int limit(long offset, int size) {
+        return (int) Math.min(Integer.MAX_VALUE, offset + size);
+    }
+
+    /**
+     * 多路归并中一个分片的读取位置
+     * 一批读完且该批是满的时，以最后一条的位置为游标向分片取下一批；没有后续读取方式时只遍历已取得的结果
+     */
+    private static final class MergeSource {
+        private final int batch;
+        private final Function<TransactionCursor, List<Transaction>> next;
+        private List<Transaction> buffer;
+        private int position;
+
+        MergeSource(List<Transaction> transactions) {
+            this(transactions, Integer.MAX_VALUE, null);
+        }
+
+        MergeSource(List<Transaction> first, int batch, Function<TransactionCursor, List<Transaction>> next) {
+            this.buffer = first;
+            this.batch = batch;
+            this.next = next;
+        }
+
+        /**
+         * 获取当前位置的交易
+         * 
+         * @author 薛鹏
+         * @return 返回当前的交易，已读完时返回null
+         */
+        Transaction head() {
+            return position < buffer.size() ? buffer.get(position) : null;
+        }
+
+        /**
+         * 移动到下一条交易，当前批次读完时读取下一批
+         * 
+         * @author 薛鹏
+         * @return 还有交易时返回true
+         */
+        boolean advance() {
+            position++;
+            if (position == buffer.size() && next != null && buffer.size() == batch) {
+                buffer = next.apply(TransactionCursor.of(buffer.get(position - 1)));
+                position = 0;
+            }
+            return position < buffer.size();
+        }
+    }
+
+    /**
+     * 仓库的一个分片
+     * 持有以交易ID为键的主存储、时间索引和列式存储，与其他分片互不共享
+     */
+    private static final class Shard {
+        final TransactionIdTable<Transaction> transactionStore = new TransactionIdTable<>();
+        final TransactionTimeIndex timeIndex = new TransactionTimeIndex();
+        final TransactionColumnStore columnStore;
+
+        Shard(boolean descriptionNgrams) {
+            this.columnStore = new TransactionColumnStore(descriptionNgrams);
+        }
+
+        /**
+         * 以交易ID的高低两部分为键写入主存储
+         * 
+         * @author 薛鹏
+         * @param transaction 要写入的交易
+         * @return 返回被替换的旧交易，不存在时返回null
+         */
+        Transaction store(Transaction transaction) {
+            return transactionStore.put(transaction.getIdHigh(), transaction.getIdLow(), transaction);
+        }
+
+        /**
+         * 从主存储和二级索引中删除交易
+         * 
+         * @author 薛鹏
+         * @param key 交易ID
+         */
+        void remove(TransactionId key) {
+            Transaction removed = transactionStore.remove(key.getHigh(), key.getLow());
+            if (removed != null) {
+                indexRemove(removed);
+            }
+        }
+
+        /**
+         * 在二级索引中登记新增或替换的交易
+         * 
+         * @author 薛鹏
+         * @param previous 被替换的旧交易，新增时为null
+         * @param current 当前的交易
+         */
+        void indexPut(Transaction previous, Transaction current) {
+            if (previous != null && previous != current) {
+                timeIndex.remove(previous);
+            }
+            timeIndex.put(current);
+            columnStore.upsert(current);
+        }
+
+        /**
+         * 从二级索引中移除已删除的交易
+         * 
+         * @author 薛鹏
+         * @param removed 已删除的交易
+         */
+        void indexRemove(Transaction removed) {
+            timeIndex.remove(removed);
+            columnStore.remove(removed);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.hsbc.tm.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 以128位交易ID为键的并发开放寻址哈希表
+ * 键以高低两个long直接存放在原始类型数组中，不需要字符串键，也不为每个条目分配节点对象
+ *
+ * 表按哈希值的高位划分为固定数量的分段，每个分段是独立的线性探测表，由各自的StampedLock保护：
+ * 读操作先以乐观读方式探测，校验失败时再获取读锁重试；写操作持有分段的写锁
+ * 删除时将后续条目向前移动（backward shift），因此表中不存在墓碑，查找不受历史删除的影响
+ * {@link #compute}在分段写锁内执行映射函数，提供与ConcurrentHashMap.compute相同的单键原子读改写
+ *
+ * @author 薛鹏
+ * @version 1.0
+ * @param <V> 值的类型
+ */
+public class TransactionIdTable<V> implements Iterable<V> {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    /**
+     * 构造函数，创建空表
+     *
+     * @author 薛鹏
+     */
+    public TransactionIdTable() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * 查找键对应的值
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @return 返回对应的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long high, long low) {
+        long hash = hash(high, low);
+        return (V) segmentFor(hash).get(high, low, hash);
+    }
+
+    /**
+     * 检查键是否存在
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @return 如果存在返回true，否则返回false
+     */
+    public boolean containsKey(long high, long low) {
+        return get(high, low) != null;
+    }
+
+    /**
+     * 写入键值对
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @param value 值，不能为null
+     * @return 返回被替换的旧值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long high, long low, V value) {
+        long hash = hash(high, low);
+        return (V) segmentFor(hash).put(high, low, hash, requireValue(value), false);
+    }
+
+    /**
+     * 仅在键不存在时写入键值对
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @param value 值，不能为null
+     * @return 返回已存在的值；写入成功时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(long high, long low, V value) {
+        long hash = hash(high, low);
+        return (V) segmentFor(hash).put(high, low, hash, requireValue(value), true);
+    }
+
+    /**
+     * 原子地计算键的新值
+     * 映射函数在键所在分段的写锁内执行，同一键的其他写操作等待其完成；
+     * 函数不能访问本表，且应尽快返回，执行期间同一分段的读操作退化为等待读锁
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @param remapping 映射函数，接收当前值（不存在时为null），返回新值；返回当前值时不修改，返回null时删除
+     * @return 返回计算后的值，删除或不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V compute(long high, long low, UnaryOperator<V> remapping) {
+        long hash = hash(high, low);
+        return (V) segmentFor(hash).compute(high, low, hash, (UnaryOperator<Object>) remapping);
+    }
+
+    /**
+     * 删除键
+     *
+     * @author 薛鹏
+     * @param high ID的高64位
+     * @param low ID的低64位
+     * @return 返回被删除的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long high, long low) {
+        long hash = hash(high, low);
+        return (V) segmentFor(hash).remove(high, low, hash);
+    }
+
+    /**
+     * 获取条目数
+     * 并发修改时为各分段条目数之和的近似值
+     *
+     * @author 薛鹏
+     * @return 返回条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * 获取所有值的迭代器
+     * 逐个分段在读锁下复制其中的值，不会抛出并发修改异常，
+     * 但不保证反映迭代开始后的修改
+     *
+     * @author 薛鹏
+     * @return 返回值的迭代器
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<>() {
+            private int nextSegment;
+            private List<V> batch = new ArrayList<>();
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (position == batch.size()) {
+                    if (nextSegment == SEGMENT_COUNT) {
+                        return false;
+                    }
+                    batch = segments[nextSegment++].values();
+                    position = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(position++);
+            }
+        };
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    private static Object requireValue(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Table values cannot be null");
+        }
+        return value;
+    }
+
+    /**
+     * 计算键的哈希值
+     * 使用MurmurHash3的64位终结混合函数，使高位和低位都均匀分布
+     */
+    private static long hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 分段的存储数组
+     * 键和值数组总是作为一个整体替换，乐观读看到的两个数组长度一定匹配
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity << 1];
+            this.values = new Object[capacity];
+        }
+    }
+
+    /**
+     * 独立加锁的线性探测分段
+     * 槽位i的键存放在keys[2i]和keys[2i + 1]，值为null表示空槽
+     */
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(INITIAL_CAPACITY);
+        private volatile int size;
+
+        Object get(long high, long low, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Object value = find(table, high, low, hash);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, high, low, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * 在表中探测键
+         * 乐观读时表可能正被修改，因此探测次数以容量为上限，结果由调用方校验
+         */
+        private static Object find(Table table, long high, long low, long hash) {
+            Object[] values = table.values;
+            long[] keys = table.keys;
+            int mask = values.length - 1;
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values[slot];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[slot << 1] == high && keys[(slot << 1) + 1] == low) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        Object put(long high, long low, long hash, Object value, boolean onlyIfAbsent) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int mask = current.values.length - 1;
+                int slot = (int) hash & mask;
+                while (current.values[slot] != null) {
+                    if (current.keys[slot << 1] == high && current.keys[(slot << 1) + 1] == low) {
+                        Object previous = current.values[slot];
+                        if (!onlyIfAbsent) {
+                            current.values[slot] = value;
+                        }
+                        return previous;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                current.keys[slot << 1] = high;
+                current.keys[(slot << 1) + 1] = low;
+                current.values[slot] = value;
+                int newSize = size + 1;
+                size = newSize;
+                // 负载因子超过3/4时扩容
+                if (newSize > (current.values.length >>> 2) * 3) {
+                    table = rehash(current);
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Object compute(long high, long low, long hash, UnaryOperator<Object> remapping) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int mask = current.values.length - 1;
+                int slot = (int) hash & mask;
+                while (current.values[slot] != null
+                        && (current.keys[slot << 1] != high || current.keys[(slot << 1) + 1] != low)) {
+                    slot = (slot + 1) & mask;
+                }
+                Object previous = current.values[slot];
+                Object value = remapping.apply(previous);
+                if (value == previous) {
+                    return value;
+                }
+                if (value == null) {
+                    shiftBack(current, slot);
+                    size = size - 1;
+                    return null;
+                }
+                if (previous != null) {
+                    current.values[slot] = value;
+                } else {
+                    current.keys[slot << 1] = high;
+                    current.keys[(slot << 1) + 1] = low;
+                    current.values[slot] = value;
+                    int newSize = size + 1;
+                    size = newSize;
+                    if (newSize > (current.values.length >>> 2) * 3) {
+                        table = rehash(current);
+                    }
+                }
+                return value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Object remove(long high, long low, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                Object[] values = current.values;
+                long[] keys = current.keys;
+                int mask = values.length - 1;
+                int slot = (int) hash & mask;
+                while (values[slot] != null) {
+                    if (keys[slot << 1] == high && keys[(slot << 1) + 1] == low) {
+                        Object removed = values[slot];
+                        shiftBack(current, slot);
+                        size = size - 1;
+                        return removed;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 删除槽位后将同一探测链上的后续条目前移，填补空出的位置
+         */
+        private static void shiftBack(Table table, int hole) {
+            Object[] values = table.values;
+            long[] keys = table.keys;
+            int mask = values.length - 1;
+            int slot = hole;
+            while (true) {
+                slot = (slot + 1) & mask;
+                if (values[slot] == null) {
+                    break;
+                }
+                int home = (int) hash(keys[slot << 1], keys[(slot << 1) + 1]) & mask;
+                // 只有当条目的起始槽位不在(hole, slot]区间内时才能移动到hole
+                boolean movable = hole <= slot ? (home <= hole || home > slot) : (home <= hole && home > slot);
+                if (movable) {
+                    keys[hole << 1] = keys[slot << 1];
+                    keys[(hole << 1) + 1] = keys[(slot << 1) + 1];
+                    values[hole] = values[slot];
+                    hole = slot;
+                }
+            }
+            keys[hole << 1] = 0;
+            keys[(hole << 1) + 1] = 0;
+            values[hole] = null;
+        }
+
+        private static Table rehash(Table old) {
+            Table resized = new Table(old.values.length << 1);
+            int mask = resized.values.length - 1;
+            for (int i = 0; i < old.values.length; i++) {
+                Object value = old.values[i];
+                if (value == null) {
+                    continue;
+                }
+                long high = old.keys[i << 1];
+                long low = old.keys[(i << 1) + 1];
+                int slot = (int) hash(high, low) & mask;
+                while (resized.values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                resized.keys[slot << 1] = high;
+                resized.keys[(slot << 1) + 1] = low;
+                resized.values[slot] = value;
+            }
+            return resized;
+        }
+
+        @SuppressWarnings("unchecked")
+        <V> List<V> values() {
+            long stamp = lock.readLock();
+            try {
+                Object[] values = table.values;
+                List<V> result = new ArrayList<>(size);
+                for (Object value : values) {
+                    if (value != null) {
+                        result.add((V) value);
+                    }
+                }
+                return result;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
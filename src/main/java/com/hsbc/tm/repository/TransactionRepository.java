@@ -1,6 +1,8 @@
 package com.hsbc.tm.repository;
 
 import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +23,16 @@ public interface TransactionRepository {
      * @return 返回保存后的交易实体
      */
     Transaction save(Transaction transaction);
+
+    /**
+     * 批量保存交易
+     * 跳过ID已存在的交易，其余交易作为一批写入，分摊逐条保存的开销
+     * 
+     * @author 薛鹏
+     * @param transactions 要保存的交易实体列表
+     * @return 返回实际保存的交易实体，顺序与参数一致
+     */
+    List<Transaction> saveAll(List<Transaction> transactions);
     
     /**
      * 根据ID查找交易
@@ -48,6 +60,29 @@ public interface TransactionRepository {
      * @return 返回指定页的交易列表
      */
     List<Transaction> findAll(int page, int size);
+
+    /**
+     * 获取满足过滤条件的分页交易列表
+     * 结果按时间倒序排列
+     * 
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @param page 页码，从0开始
+     * @param size 每页的交易数量
+     * @return 返回指定页的交易列表
+     */
+    List<Transaction> findAll(TransactionFilter filter, int page, int size);
+
+    /**
+     * 查找游标位置之后的交易列表
+     * 结果按时间倒序排列，从游标所指交易的下一条开始
+     * 
+     * @author 薛鹏
+     * @param cursor 上一页最后一条交易的位置，为null时从第一条开始
+     * @param size 最多返回的交易数量
+     * @return 返回游标之后的交易列表
+     */
+    List<Transaction> findAfter(TransactionCursor cursor, int size);
     
     /**
      * 检查指定ID的交易是否存在
@@ -63,8 +98,9 @@ public interface TransactionRepository {
      * 
      * @author 薛鹏
      * @param id 要删除的交易ID
+     * @return 返回删除时存储中的交易，即与删除操作原子地读取的最终版本
      */
-    void deleteById(String id);
+    Transaction deleteById(String id);
     
     /**
      * 更新交易信息
@@ -73,6 +109,17 @@ public interface TransactionRepository {
      * @param transaction 包含更新信息的交易实体
      */
     void update(Transaction transaction);
+
+    /**
+     * 以比较并交换的方式替换交易
+     * 仅当存储中的交易仍是之前读取的对象时写入新的交易对象，已存储的交易对象不被修改
+     * 
+     * @author 薛鹏
+     * @param expected 之前读取的交易对象，按引用比较
+     * @param replacement 新的交易对象，ID与expected相同
+     * @return 替换成功返回true；交易已被其他更新替换或已删除时返回false
+     */
+    boolean replace(Transaction expected, Transaction replacement);
     
     /**
      * 获取交易总数
@@ -81,4 +128,13 @@ public interface TransactionRepository {
      * @return 返回系统中的交易总数
      */
     long count();
+
+    /**
+     * 获取满足过滤条件的交易数
+     * 
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回满足条件的交易数
+     */
+    long count(TransactionFilter filter);
 } 
\ No newline at end of file
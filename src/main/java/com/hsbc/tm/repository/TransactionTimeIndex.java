@@ -0,0 +1,275 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按时间排序的交易二级索引
+ * 以(时间戳, ID)为键，按时间倒序（最新的在前）组织交易
+ * 内部使用带子树大小的Treap，支持O(log n)的按名次定位，
+ * 因此分页查询的代价为O(log n + size)，且相同页码始终返回相同的结果
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+class TransactionTimeIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    /**
+     * Treap节点
+     * 键为(时间戳微秒数, ID高64位, ID低64位)，同时记录子树大小用于按名次定位
+     */
+    private static final class Node {
+        final long micros;
+        final long idHigh;
+        final long idLow;
+        final int priority;
+        Transaction value;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(long micros, long idHigh, long idLow, Transaction value) {
+            this.micros = micros;
+            this.idHigh = idHigh;
+            this.idLow = idLow;
+            this.value = value;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    /**
+     * 插入或替换交易
+     * 如果已存在相同(时间戳, ID)的条目，则替换其中保存的交易对象
+     *
+     * @author 薛鹏
+     * @param transaction 要索引的交易
+     */
+    void put(Transaction transaction) {
+        long micros = TransactionCursor.toMicros(transaction.getTimestamp());
+        lock.writeLock().lock();
+        try {
+            root = insert(root, new Node(micros, transaction.getIdHigh(), transaction.getIdLow(), transaction));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除交易
+     *
+     * @author 薛鹏
+     * @param transaction 要移除的交易
+     */
+    void remove(Transaction transaction) {
+        long micros = TransactionCursor.toMicros(transaction.getTimestamp());
+        lock.writeLock().lock();
+        try {
+            root = delete(root, micros, transaction.getIdHigh(), transaction.getIdLow());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按时间倒序获取从指定名次开始的一段交易
+     *
+     * @author 薛鹏
+     * @param offset 起始名次，从0开始
+     * @param limit 最多返回的交易数量
+     * @return 返回按时间倒序排列的交易列表
+     */
+    List<Transaction> range(long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Transaction> result = new ArrayList<>(Math.min(limit, size(root)));
+            if (offset < size(root)) {
+                collect(root, (int) offset, limit, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取游标位置之后的一段交易
+     * 先以O(log n)计算游标的名次，再从该名次开始顺序收集，
+     * 因此每页的代价与已遍历的页数无关
+     *
+     * @author 薛鹏
+     * @param cursor 上一页最后一条交易的位置，为null时从头开始
+     * @param limit 最多返回的交易数量
+     * @return 返回按时间倒序排列的交易列表
+     */
+    List<Transaction> after(TransactionCursor cursor, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = cursor == null ? 0 : rankAfter(root, cursor.getTimestampMicros(),
+                    cursor.getTransactionId().getHigh(), cursor.getTransactionId().getLow());
+            List<Transaction> result = new ArrayList<>(Math.min(limit, size(root) - from));
+            collect(root, from, limit, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取索引中的条目数
+     *
+     * @author 薛鹏
+     * @return 返回条目数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void resize(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    /**
+     * 比较两个键的先后顺序
+     * 时间较新的排在前面，时间相同时按ID排序以保证顺序稳定
+     */
+    private static int compare(long micros, long idHigh, long idLow, Node node) {
+        int c = Long.compare(node.micros, micros);
+        return c != 0 ? c : TransactionId.compare(idHigh, idLow, node.idHigh, node.idLow);
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        int c = compare(fresh.micros, fresh.idHigh, fresh.idLow, node);
+        if (c == 0) {
+            node.value = fresh.value;
+            return node;
+        }
+        if (c < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        resize(node);
+        return node;
+    }
+
+    private static Node delete(Node node, long micros, long idHigh, long idLow) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(micros, idHigh, idLow, node);
+        if (c < 0) {
+            node.left = delete(node.left, micros, idHigh, idLow);
+        } else if (c > 0) {
+            node.right = delete(node.right, micros, idHigh, idLow);
+        } else {
+            return merge(node.left, node.right);
+        }
+        resize(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            resize(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        resize(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        resize(node);
+        resize(pivot);
+        return pivot;
+    }
+
+    /**
+     * 计算排在给定键之前或与之相等的节点数，即键之后第一个节点的名次
+     */
+    private static int rankAfter(Node node, long micros, long idHigh, long idLow) {
+        int rank = 0;
+        while (node != null) {
+            int c = compare(micros, idHigh, idLow, node);
+            if (c < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                if (c == 0) {
+                    break;
+                }
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * 中序收集从第from名开始的最多limit个节点
+     * 先用子树大小跳过from之前的部分，再顺序收集，代价为O(log n + limit)
+     */
+    private static void collect(Node node, int from, int limit, List<Transaction> out) {
+        while (node != null && out.size() < limit) {
+            int leftSize = size(node.left);
+            if (from <= leftSize) {
+                if (from < leftSize) {
+                    collect(node.left, from, limit, out);
+                    if (out.size() >= limit) {
+                        return;
+                    }
+                }
+                out.add(node.value);
+                from = 0;
+            } else {
+                from -= leftSize + 1;
+            }
+            node = node.right;
+        }
+    }
+}
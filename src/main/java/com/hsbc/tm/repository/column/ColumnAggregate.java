@@ -0,0 +1,74 @@
+package com.hsbc.tm.repository.column;
+
+import java.math.BigDecimal;
+
+/**
+ * 列存储聚合结果中的一组
+ * 金额只在同一货币内相加，因此每组都带有货币
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ColumnAggregate {
+
+    private final String key;
+    private final String currency;
+    private final long count;
+    private final BigDecimal total;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param key 分组维度的取值
+     * @param currency 货币
+     * @param count 交易笔数
+     * @param total 金额合计
+     */
+    public ColumnAggregate(String key, String currency, long count, BigDecimal total) {
+        this.key = key;
+        this.currency = currency;
+        this.count = count;
+        this.total = total;
+    }
+
+    /**
+     * 获取分组维度的取值
+     *
+     * @author 薛鹏
+     * @return 返回分组维度的取值
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 获取货币
+     *
+     * @author 薛鹏
+     * @return 返回货币
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * 获取交易笔数
+     *
+     * @author 薛鹏
+     * @return 返回交易笔数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 获取金额合计
+     *
+     * @author 薛鹏
+     * @return 返回金额合计
+     */
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,177 @@
+package com.hsbc.tm.repository.column;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 列存储中单一货币的金额有序索引
+ * 条目为(最小单位金额, 行号)，按金额排序，金额相同时按行号排序，因此每个条目都是唯一的
+ *
+ * 条目分块存放在原始类型数组中，每块最多BLOCK_CAPACITY个条目且块内有序，块之间首尾相接；
+ * 定位时先在块的首条目上二分查找，再在块内二分查找，插入和删除只移动一个块内的条目，
+ * 块满时对半分裂，块空时移除。范围查询的代价为O(log n + k)
+ * 非线程安全，由{@link TransactionColumnStore}的锁保护
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+class ColumnAmountIndex {
+
+    static final int BLOCK_CAPACITY = 512;
+
+    private Block[] blocks = {new Block()};
+    private int blockCount = 1;
+    private int size;
+
+    /**
+     * 加入条目
+     *
+     * @author 薛鹏
+     * @param amount 最小单位金额
+     * @param row 行号
+     */
+    void add(long amount, int row) {
+        int index = blockFor(amount, row);
+        Block block = blocks[index];
+        if (block.size == BLOCK_CAPACITY) {
+            split(index);
+            if (compare(amount, row, blocks[index + 1].amounts[0], blocks[index + 1].rows[0]) >= 0) {
+                block = blocks[index + 1];
+            }
+        }
+        int position = block.lowerBound(amount, row);
+        System.arraycopy(block.amounts, position, block.amounts, position + 1, block.size - position);
+        System.arraycopy(block.rows, position, block.rows, position + 1, block.size - position);
+        block.amounts[position] = amount;
+        block.rows[position] = row;
+        block.size++;
+        size++;
+    }
+
+    /**
+     * 删除条目
+     *
+     * @author 薛鹏
+     * @param amount 最小单位金额
+     * @param row 行号
+     * @return 如果条目存在并被删除返回true，否则返回false
+     */
+    boolean remove(long amount, int row) {
+        int index = blockFor(amount, row);
+        Block block = blocks[index];
+        int position = block.lowerBound(amount, row);
+        if (position == block.size || block.amounts[position] != amount || block.rows[position] != row) {
+            return false;
+        }
+        System.arraycopy(block.amounts, position + 1, block.amounts, position, block.size - position - 1);
+        System.arraycopy(block.rows, position + 1, block.rows, position, block.size - position - 1);
+        block.size--;
+        size--;
+        if (block.size == 0 && blockCount > 1) {
+            System.arraycopy(blocks, index + 1, blocks, index, blockCount - index - 1);
+            blocks[--blockCount] = null;
+        }
+        return true;
+    }
+
+    /**
+     * 按金额顺序遍历金额在[min, max]区间内的行号
+     *
+     * @author 薛鹏
+     * @param min 最小单位金额下限，包含
+     * @param max 最小单位金额上限，包含
+     * @param consumer 接收行号的回调
+     */
+    void forEachInRange(long min, long max, IntConsumer consumer) {
+        if (min > max || size == 0) {
+            return;
+        }
+        // 行号非负，(min, -1)排在所有金额为min的条目之前
+        int index = blockFor(min, -1);
+        int position = blocks[index].lowerBound(min, -1);
+        for (; index < blockCount; index++, position = 0) {
+            Block block = blocks[index];
+            for (; position < block.size; position++) {
+                if (block.amounts[position] > max) {
+                    return;
+                }
+                consumer.accept(block.rows[position]);
+            }
+        }
+    }
+
+    /**
+     * 获取条目数
+     *
+     * @author 薛鹏
+     * @return 返回条目数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 查找条目所属的块，即首条目不大于该条目的最后一块
+     * 条目小于所有块的首条目时返回第一块
+     */
+    private int blockFor(long amount, int row) {
+        int low = 1;
+        int high = blockCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(blocks[mid].amounts[0], blocks[mid].rows[0], amount, row) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private void split(int index) {
+        Block full = blocks[index];
+        Block upper = new Block();
+        int half = full.size >>> 1;
+        upper.size = full.size - half;
+        System.arraycopy(full.amounts, half, upper.amounts, 0, upper.size);
+        System.arraycopy(full.rows, half, upper.rows, 0, upper.size);
+        full.size = half;
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount << 1);
+        }
+        System.arraycopy(blocks, index + 1, blocks, index + 2, blockCount - index - 1);
+        blocks[index + 1] = upper;
+        blockCount++;
+    }
+
+    private static int compare(long amount, int row, long otherAmount, int otherRow) {
+        int c = Long.compare(amount, otherAmount);
+        return c != 0 ? c : Integer.compare(row, otherRow);
+    }
+
+    /**
+     * 有序的条目块
+     */
+    private static final class Block {
+        final long[] amounts = new long[BLOCK_CAPACITY];
+        final int[] rows = new int[BLOCK_CAPACITY];
+        int size;
+
+        /**
+         * 查找第一个不小于给定条目的位置
+         */
+        int lowerBound(long amount, int row) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(amounts[mid], rows[mid], amount, row) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
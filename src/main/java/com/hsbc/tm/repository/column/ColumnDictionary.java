@@ -0,0 +1,74 @@
+package com.hsbc.tm.repository.column;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列存储的字典编码
+ * 将类型、货币、状态等低基数字符串映射为从0开始的连续整数编码，null编码为-1
+ * 非线程安全，由{@link TransactionColumnStore}的锁保护
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+class ColumnDictionary {
+
+    static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * 获取值的编码，不存在时分配新编码
+     *
+     * @author 薛鹏
+     * @param value 字符串值
+     * @return 返回编码
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * 查找值的编码，不分配新编码
+     *
+     * @author 薛鹏
+     * @param value 字符串值
+     * @return 返回编码；值从未出现过时返回null
+     */
+    Integer lookup(String value) {
+        return value == null ? Integer.valueOf(NULL_CODE) : codes.get(value);
+    }
+
+    /**
+     * 将编码还原为字符串
+     *
+     * @author 薛鹏
+     * @param code 编码
+     * @return 返回字符串值
+     */
+    String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    /**
+     * 获取已分配的编码数
+     *
+     * @author 薛鹏
+     * @return 返回编码数
+     */
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,121 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.TransactionCursor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 列存储扫描的过滤条件
+ * 各条件之间为AND关系，未设置的条件不参与过滤
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ColumnFilter {
+
+    private String type;
+    private String currency;
+    private String status;
+    private long fromMicros = Long.MIN_VALUE;
+    private long toMicros = Long.MAX_VALUE;
+
+    /**
+     * 限定交易类型
+     *
+     * @author 薛鹏
+     * @param type 交易类型
+     * @return 返回当前过滤条件
+     */
+    public ColumnFilter type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * 限定交易货币
+     *
+     * @author 薛鹏
+     * @param currency 交易货币
+     * @return 返回当前过滤条件
+     */
+    public ColumnFilter currency(String currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    /**
+     * 限定交易状态
+     *
+     * @author 薛鹏
+     * @param status 交易状态
+     * @return 返回当前过滤条件
+     */
+    public ColumnFilter status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * 限定时间范围，左闭右开
+     *
+     * @author 薛鹏
+     * @param from 起始时间（包含），为null时不限
+     * @param to 结束时间（不包含），为null时不限
+     * @return 返回当前过滤条件
+     */
+    public ColumnFilter between(LocalDateTime from, LocalDateTime to) {
+        this.fromMicros = from == null ? Long.MIN_VALUE : TransactionCursor.toMicros(from);
+        this.toMicros = to == null ? Long.MAX_VALUE : TransactionCursor.toMicros(to);
+        return this;
+    }
+
+    /**
+     * 获取限定的交易类型
+     *
+     * @author 薛鹏
+     * @return 返回限定的交易类型
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * 获取限定的交易货币
+     *
+     * @author 薛鹏
+     * @return 返回限定的交易货币
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * 获取限定的交易状态
+     *
+     * @author 薛鹏
+     * @return 返回限定的交易状态
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * 获取起始时间的纪元微秒
+     *
+     * @author 薛鹏
+     * @return 返回起始时间的纪元微秒
+     */
+    public long getFromMicros() {
+        return fromMicros;
+    }
+
+    /**
+     * 获取结束时间的纪元微秒
+     *
+     * @author 薛鹏
+     * @return 返回结束时间的纪元微秒
+     */
+    public long getToMicros() {
+        return toMicros;
+    }
+}
@@ -0,0 +1,232 @@
+package com.hsbc.tm.repository.column;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 列存储中交易描述的倒排索引
+ * 描述按连续的字母和数字切分为词元并转为小写，每个词元对应一个记录行号的压缩位图（倒排表），
+ * 位图以数组、位图或游程容器存储，稀疏的倒排表每行约占2字节
+ *
+ * 启用n-gram时，长度不小于3的词元还拆分为三元组并单独建立倒排表，用于匹配词元的片段：
+ * 查询片段先对其全部三元组的倒排表求交集得到候选行，再逐行确认描述中确实包含该片段
+ * 不足3个字符的查询词元只匹配完整的词元
+ * 非线程安全，由{@link TransactionColumnStore}的锁保护
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+class ColumnTextIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    // 每个词条除倒排表外的估计开销：HashMap节点、哈希表槽位、String对象及其字节数组头
+    private static final int TERM_OVERHEAD_BYTES = 32 + 8 + 24 + 16;
+
+    private final boolean ngrams;
+    private final Map<String, RoaringBitmap> tokens = new HashMap<>();
+    private final Map<String, RoaringBitmap> grams = new HashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param ngrams 是否为片段匹配建立三元组索引
+     */
+    ColumnTextIndex(boolean ngrams) {
+        this.ngrams = ngrams;
+    }
+
+    /**
+     * 将描述中的词元加入索引
+     *
+     * @author 薛鹏
+     * @param text 描述，可以为null
+     * @param row 行号
+     */
+    void add(String text, int row) {
+        for (String token : tokenize(text)) {
+            tokens.computeIfAbsent(token, key -> new RoaringBitmap()).add(row);
+            if (ngrams) {
+                for (String gram : grams(token)) {
+                    grams.computeIfAbsent(gram, key -> new RoaringBitmap()).add(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从索引中删除描述中的词元
+     *
+     * @author 薛鹏
+     * @param text 加入索引时的描述，可以为null
+     * @param row 行号
+     */
+    void remove(String text, int row) {
+        for (String token : tokenize(text)) {
+            unindex(tokens, token, row);
+            if (ngrams) {
+                for (String gram : grams(token)) {
+                    unindex(grams, gram, row);
+                }
+            }
+        }
+    }
+
+    private static void unindex(Map<String, RoaringBitmap> postings, String term, int row) {
+        RoaringBitmap rows = postings.get(term);
+        if (rows != null) {
+            rows.remove(row);
+            if (rows.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * 查找描述包含查询中全部词元的行
+     *
+     * @author 薛鹏
+     * @param query 查询文本
+     * @param descriptions 按行号排列的描述列，用于确认片段匹配的候选行
+     * @param within 限定查找范围的行，为null时不限定
+     * @return 返回匹配行号的位图，可能是索引中的倒排表本身，调用方不能修改；查询中没有词元时返回空位图
+     */
+    RoaringBitmap search(String query, String[] descriptions, RoaringBitmap within) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return new RoaringBitmap();
+        }
+        // 较长的词通常更有选择性，先处理可以缩小后续片段需要确认的候选行
+        terms.sort(Comparator.comparingInt(String::length).reversed());
+        RoaringBitmap result = within;
+        for (String term : terms) {
+            result = ngrams && term.length() >= GRAM_LENGTH
+                    ? fragment(term, descriptions, result)
+                    : intersect(result, orEmpty(tokens.get(term)));
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在限定范围内通过三元组倒排表查找包含片段的行
+     */
+    private RoaringBitmap fragment(String term, String[] descriptions, RoaringBitmap within) {
+        RoaringBitmap candidates = within;
+        for (String gram : grams(term)) {
+            candidates = intersect(candidates, orEmpty(grams.get(gram)));
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+        }
+        if (term.length() == GRAM_LENGTH) {
+            return candidates;
+        }
+        // 三元组都出现不代表片段连续出现；含有该完整词元的行一定匹配，其余候选行逐行确认
+        RoaringBitmap exact = tokens.get(term);
+        RoaringBitmap confirmed = exact == null ? new RoaringBitmap() : RoaringBitmap.and(candidates, exact);
+        IntIterator iterator = (exact == null ? candidates : RoaringBitmap.andNot(candidates, exact)).getIntIterator();
+        while (iterator.hasNext()) {
+            int row = iterator.next();
+            if (containsIgnoreCase(descriptions[row], term)) {
+                confirmed.add(row);
+            }
+        }
+        return confirmed;
+    }
+
+    private static RoaringBitmap orEmpty(RoaringBitmap rows) {
+        return rows == null ? new RoaringBitmap() : rows;
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap result, RoaringBitmap next) {
+        return result == null ? next : RoaringBitmap.and(result, next);
+    }
+
+    private static boolean containsIgnoreCase(String text, String term) {
+        if (text == null) {
+            return false;
+        }
+        for (int i = 0; i + term.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, term, 0, term.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取词条数，包括词元和三元组
+     *
+     * @author 薛鹏
+     * @return 返回词条数
+     */
+    int termCount() {
+        return tokens.size() + grams.size();
+    }
+
+    /**
+     * 估算索引占用的堆内存
+     * 倒排表取位图的序列化大小，词条按字符串长度加固定开销估算
+     *
+     * @author 薛鹏
+     * @return 返回估计的字节数
+     */
+    long sizeInBytes() {
+        return sizeInBytes(tokens) + sizeInBytes(grams);
+    }
+
+    private static long sizeInBytes(Map<String, RoaringBitmap> postings) {
+        long bytes = 0;
+        for (Map.Entry<String, RoaringBitmap> entry : postings.entrySet()) {
+            bytes += TERM_OVERHEAD_BYTES + entry.getKey().length() + entry.getValue().getLongSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 将文本切分为小写词元
+     * 连续的字母和数字构成一个词元，其余字符作为分隔符
+     *
+     * @author 薛鹏
+     * @param text 文本，可以为null
+     * @return 返回去重后的词元，保持出现顺序
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        if (text == null) {
+            return result;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String token) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+            result.add(token.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,693 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.CurrencyUnits;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.model.TransactionId;
+import com.hsbc.tm.repository.TransactionIdTable;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 交易的列式分析存储
+ * 与主存储并列维护，每次写操作同步更新，每个字段各占一个原始类型数组：
+ * 金额为货币最小单位的long，类型、货币、状态为字典编码的int，时间戳为纪元微秒的long
+ * 扫描和聚合只顺序读取所需的列，不再逐个访问交易对象及其BigDecimal、String、LocalDateTime字段
+ *
+ * 类型、货币、状态的每个取值还维护一个压缩位图（Roaring Bitmap），记录取该值的行号，
+ * 过滤查询通过位图的并集和交集得到匹配的行，不需要扫描；计数查询只计算位图的基数
+ * 每种货币另有一个按最小单位金额排序的索引，金额范围查询通过二分查找定位，代价为O(log n + k)
+ * 交易描述建立倒排索引，描述列保存加入索引时的描述，替换或删除行时不需要旧版本的交易对象即可删除旧的词元
+ *
+ * 删除的行加入空闲列表，由后续新增的交易复用，行号因此保持紧凑
+ * 写操作持有写锁，扫描持有读锁，扫描期间看到的是一致的数据
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TransactionIdTable<Integer> rowsById = new TransactionIdTable<>();
+    private final ColumnDictionary types = new ColumnDictionary();
+    private final ColumnDictionary currencies = new ColumnDictionary();
+    private final ColumnDictionary statuses = new ColumnDictionary();
+
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] typeCodes = new int[INITIAL_CAPACITY];
+    private int[] currencyCodes = new int[INITIAL_CAPACITY];
+    private int[] statusCodes = new int[INITIAL_CAPACITY];
+    private long[] live = new long[INITIAL_CAPACITY >>> 6];
+    private Transaction[] transactions = new Transaction[INITIAL_CAPACITY];
+    private final List<RoaringBitmap> typeRows = new ArrayList<>();
+    private final List<RoaringBitmap> currencyRows = new ArrayList<>();
+    private final List<RoaringBitmap> statusRows = new ArrayList<>();
+    // 按货币编码 + 1排列，第0个对应货币为null的交易
+    private final List<ColumnAmountIndex> amountIndexes = new ArrayList<>();
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private final ColumnTextIndex descriptionIndex;
+    private int[] fractionDigits = new int[16];
+
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int rowLimit;
+
+    /**
+     * 构造函数，描述索引支持片段匹配
+     *
+     * @author 薛鹏
+     */
+    public TransactionColumnStore() {
+        this(true);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param descriptionNgrams 是否为描述建立三元组索引以支持片段匹配；关闭时只匹配完整的词元，索引占用更少内存
+     */
+    public TransactionColumnStore(boolean descriptionNgrams) {
+        this.descriptionIndex = new ColumnTextIndex(descriptionNgrams);
+    }
+
+    /**
+     * 新增或替换交易对应的行
+     *
+     * @author 薛鹏
+     * @param transaction 交易
+     */
+    public void upsert(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            write(transaction);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量新增或替换交易对应的行
+     * 整批只获取一次写锁
+     *
+     * @author 薛鹏
+     * @param transactions 交易
+     */
+    public void upsertAll(List<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions) {
+                write(transaction);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在写锁下写入一行
+     *
+     * @author 薛鹏
+     * @param transaction 交易
+     */
+    private void write(Transaction transaction) {
+        Integer existing = rowsById.get(transaction.getIdHigh(), transaction.getIdLow());
+        int row;
+        if (existing != null) {
+            row = existing;
+        } else {
+            row = allocateRow();
+            rowsById.put(transaction.getIdHigh(), transaction.getIdLow(), row);
+        }
+        int type = types.encode(transaction.getType());
+        int currency = currencies.encode(transaction.getCurrency());
+        registerFractionDigits(currency);
+        int status = statuses.encode(transaction.getStatus());
+        long amount = toMinorUnits(transaction.getAmount(), currency);
+        if (existing == null) {
+            index(typeRows, type, row);
+            index(currencyRows, currency, row);
+            index(statusRows, status, row);
+            amountIndex(currency).add(amount, row);
+            descriptionIndex.add(transaction.getDescription(), row);
+        } else {
+            reindex(typeRows, typeCodes[row], type, row);
+            reindex(currencyRows, currencyCodes[row], currency, row);
+            reindex(statusRows, statusCodes[row], status, row);
+            if (amounts[row] != amount || currencyCodes[row] != currency) {
+                amountIndex(currencyCodes[row]).remove(amounts[row], row);
+                amountIndex(currency).add(amount, row);
+            }
+            if (!Objects.equals(descriptions[row], transaction.getDescription())) {
+                descriptionIndex.remove(descriptions[row], row);
+                descriptionIndex.add(transaction.getDescription(), row);
+            }
+        }
+        amounts[row] = amount;
+        timestamps[row] = TransactionCursor.toMicros(transaction.getTimestamp());
+        typeCodes[row] = type;
+        currencyCodes[row] = currency;
+        statusCodes[row] = status;
+        transactions[row] = transaction;
+        descriptions[row] = transaction.getDescription();
+        live[row >>> 6] |= 1L << row;
+    }
+
+    /**
+     * 将行号加入取值对应的位图
+     * null取值不建立位图
+     *
+     * @author 薛鹏
+     * @param bitmaps 按字典编码排列的位图
+     * @param code 取值的字典编码
+     * @param row 行号
+     */
+    private static void index(List<RoaringBitmap> bitmaps, int code, int row) {
+        if (code == ColumnDictionary.NULL_CODE) {
+            return;
+        }
+        while (bitmaps.size() <= code) {
+            bitmaps.add(new RoaringBitmap());
+        }
+        bitmaps.get(code).add(row);
+    }
+
+    private static void unindex(List<RoaringBitmap> bitmaps, int code, int row) {
+        if (code != ColumnDictionary.NULL_CODE && code < bitmaps.size()) {
+            bitmaps.get(code).remove(row);
+        }
+    }
+
+    private static void reindex(List<RoaringBitmap> bitmaps, int previous, int code, int row) {
+        if (previous != code) {
+            unindex(bitmaps, previous, row);
+            index(bitmaps, code, row);
+        }
+    }
+
+    /**
+     * 获取货币对应的金额索引，不存在时创建
+     *
+     * @author 薛鹏
+     * @param currency 货币编码
+     * @return 返回金额索引
+     */
+    private ColumnAmountIndex amountIndex(int currency) {
+        while (amountIndexes.size() <= currency + 1) {
+            amountIndexes.add(new ColumnAmountIndex());
+        }
+        return amountIndexes.get(currency + 1);
+    }
+
+    /**
+     * 删除交易对应的行
+     *
+     * @author 薛鹏
+     * @param transaction 交易
+     */
+    public void remove(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowsById.remove(transaction.getIdHigh(), transaction.getIdLow());
+            if (row == null) {
+                return;
+            }
+            live[row >>> 6] &= ~(1L << row);
+            unindex(typeRows, typeCodes[row], row);
+            unindex(currencyRows, currencyCodes[row], row);
+            unindex(statusRows, statusCodes[row], row);
+            amountIndex(currencyCodes[row]).remove(amounts[row], row);
+            descriptionIndex.remove(descriptions[row], row);
+            transactions[row] = null;
+            descriptions[row] = null;
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount << 1);
+            }
+            freeRows[freeCount++] = row;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取存储的交易数
+     *
+     * @author 薛鹏
+     * @return 返回交易数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取描述索引的词条数，包括词元和三元组
+     *
+     * @author 薛鹏
+     * @return 返回词条数
+     */
+    public int getDescriptionTermCount() {
+        lock.readLock().lock();
+        try {
+            return descriptionIndex.termCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算描述索引占用的堆内存，包括倒排表、词条和描述列的引用
+     *
+     * @author 薛鹏
+     * @return 返回估计的字节数
+     */
+    public long getDescriptionIndexBytes() {
+        lock.readLock().lock();
+        try {
+            return descriptionIndex.sizeInBytes() + (long) descriptions.length * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计满足条件的交易数
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回交易数
+     */
+    public long count(ColumnFilter filter) {
+        lock.readLock().lock();
+        try {
+            Scan scan = new Scan(filter);
+            if (scan.empty) {
+                return 0;
+            }
+            long count = 0;
+            for (int row = 0; row < rowLimit; row++) {
+                if (scan.matches(row)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 通过位图索引统计满足过滤条件的交易数
+     * 只计算位图运算结果的基数，不访问任何交易对象
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回交易数
+     */
+    public long count(TransactionFilter filter) {
+        lock.readLock().lock();
+        try {
+            return select(filter).getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 通过位图索引查找满足过滤条件的交易，按时间倒序排列
+     * 在匹配的行中按时间戳列选出前offset + limit行，只有最终返回的行才访问交易对象；
+     * 时间相同时按ID排序，与时间索引的顺序一致
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @param offset 跳过的交易数
+     * @param limit 最多返回的交易数
+     * @return 返回匹配的交易
+     */
+    public List<Transaction> find(TransactionFilter filter, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap rows = select(filter);
+            long cardinality = rows.getLongCardinality();
+            if (offset >= cardinality || limit <= 0) {
+                return new ArrayList<>();
+            }
+            int keep = (int) Math.min(cardinality, offset + limit);
+            Comparator<Integer> newestFirst = this::compareRows;
+            // 堆顶是已保留的行中排在最后的一行
+            PriorityQueue<Integer> top = new PriorityQueue<>(keep, newestFirst.reversed());
+            IntIterator iterator = rows.getIntIterator();
+            while (iterator.hasNext()) {
+                int row = iterator.next();
+                if (top.size() < keep) {
+                    top.add(row);
+                } else if (compareRows(row, top.peek()) < 0) {
+                    top.poll();
+                    top.add(row);
+                }
+            }
+            Integer[] ordered = top.toArray(new Integer[0]);
+            Arrays.sort(ordered, newestFirst);
+            List<Transaction> result = new ArrayList<>(Math.min(limit, ordered.length));
+            for (int i = (int) offset; i < ordered.length; i++) {
+                result.add(transactions[ordered[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int compareRows(int row, int other) {
+        int c = Long.compare(timestamps[other], timestamps[row]);
+        if (c != 0) {
+            return c;
+        }
+        Transaction a = transactions[row];
+        Transaction b = transactions[other];
+        return TransactionId.compare(a.getIdHigh(), a.getIdLow(), b.getIdHigh(), b.getIdLow());
+    }
+
+    /**
+     * 计算满足过滤条件的行
+     * 同一字段的多个取值求并集，不同字段的结果求交集；未出现过的取值对应空集
+     * 限定金额范围时只查找所选货币的金额索引，结果已满足货币条件，不再与货币位图求交集
+     * 描述检索最后进行，片段匹配只需确认已满足其他条件的候选行
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回匹配行号的位图，可能是索引中的位图本身，调用方不能修改
+     */
+    private RoaringBitmap select(TransactionFilter filter) {
+        RoaringBitmap result = null;
+        if (filter.hasAmountRange()) {
+            result = amountRange(filter);
+        } else {
+            result = intersect(result, union(currencies, currencyRows, filter.getCurrencies()));
+        }
+        result = intersect(result, union(types, typeRows, filter.getTypes()));
+        result = intersect(result, union(statuses, statusRows, filter.getStatuses()));
+        if (filter.getQuery() != null) {
+            result = descriptionIndex.search(filter.getQuery(), descriptions, result);
+        }
+        if (result != null) {
+            return result;
+        }
+        RoaringBitmap all = new RoaringBitmap();
+        for (int row = 0; row < rowLimit; row++) {
+            if ((live[row >>> 6] & (1L << row)) != 0) {
+                all.add(row);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * 通过金额索引查找金额在过滤范围内的行
+     * 存储的金额已按该货币的最小单位舍入，舍入后的值与实际金额最多相差半个最小单位：
+     * 索引按下限向下取整、上限向上取整的范围查找候选行，严格落在两个边界单位之间的行一定满足条件，
+     * 落在边界单位上的行再与交易对象的实际金额比较，超出最小单位精度的金额也能得到准确的结果
+     *
+     * @author 薛鹏
+     * @param filter 过滤条件
+     * @return 返回匹配行号的位图
+     */
+    private RoaringBitmap amountRange(TransactionFilter filter) {
+        List<Integer> codes = new ArrayList<>();
+        if (filter.getCurrencies().isEmpty()) {
+            for (int currency = ColumnDictionary.NULL_CODE; currency < currencies.size(); currency++) {
+                codes.add(currency);
+            }
+        } else {
+            for (String value : filter.getCurrencies()) {
+                Integer code = currencies.lookup(value);
+                if (code != null) {
+                    codes.add(code);
+                }
+            }
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        int[] buffer = new int[1024];
+        int[] filled = new int[1];
+        for (int currency : codes) {
+            if (currency + 1 >= amountIndexes.size()) {
+                continue;
+            }
+            int digits = fractionDigits(currency);
+            BigDecimal minAmount = filter.getMinAmount();
+            BigDecimal maxAmount = filter.getMaxAmount();
+            long min = minAmount == null ? Long.MIN_VALUE
+                    : CurrencyUnits.toMinorUnits(minAmount, digits, RoundingMode.FLOOR);
+            long max = maxAmount == null ? Long.MAX_VALUE
+                    : CurrencyUnits.toMinorUnits(maxAmount, digits, RoundingMode.CEILING);
+            // 大于minExact且小于maxExact的最小单位金额不可能由超出范围的实际金额舍入得到
+            long minExact = minAmount == null ? Long.MIN_VALUE
+                    : CurrencyUnits.toMinorUnits(minAmount, digits, RoundingMode.CEILING);
+            long maxExact = maxAmount == null ? Long.MAX_VALUE
+                    : CurrencyUnits.toMinorUnits(maxAmount, digits, RoundingMode.FLOOR);
+            amountIndexes.get(currency + 1).forEachInRange(min, max, row -> {
+                if ((amounts[row] <= minExact || amounts[row] >= maxExact)
+                        && !inRange(transactions[row].getAmount(), minAmount, maxAmount)) {
+                    return;
+                }
+                if (filled[0] == buffer.length) {
+                    result.addN(buffer, 0, filled[0]);
+                    filled[0] = 0;
+                }
+                buffer[filled[0]++] = row;
+            });
+        }
+        result.addN(buffer, 0, filled[0]);
+        return result;
+    }
+
+    private static boolean inRange(BigDecimal amount, BigDecimal min, BigDecimal max) {
+        return amount != null
+                && (min == null || amount.compareTo(min) >= 0)
+                && (max == null || amount.compareTo(max) <= 0);
+    }
+
+    private static RoaringBitmap union(ColumnDictionary dictionary, List<RoaringBitmap> bitmaps, Set<String> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        List<RoaringBitmap> matching = new ArrayList<>(values.size());
+        for (String value : values) {
+            Integer code = dictionary.lookup(value);
+            if (code != null && code < bitmaps.size()) {
+                matching.add(bitmaps.get(code));
+            }
+        }
+        return matching.isEmpty() ? new RoaringBitmap() : FastAggregation.or(matching.iterator());
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap result, RoaringBitmap next) {
+        if (next == null) {
+            return result;
+        }
+        return result == null ? next : RoaringBitmap.and(result, next);
+    }
+
+    /**
+     * 按维度分组统计满足条件的交易笔数和金额合计
+     * 不同货币的金额不能直接相加，因此结果按(维度取值, 货币)分组；按货币分组时两者相同
+     *
+     * @author 薛鹏
+     * @param groupBy 分组维度
+     * @param filter 过滤条件
+     * @return 返回各分组的聚合结果，按维度取值和货币的编码顺序排列
+     */
+    public List<ColumnAggregate> aggregate(Dimension groupBy, ColumnFilter filter) {
+        lock.readLock().lock();
+        try {
+            Scan scan = new Scan(filter);
+            if (scan.empty) {
+                return new ArrayList<>();
+            }
+            ColumnDictionary dictionary = dictionary(groupBy);
+            int[] keyCodes = codes(groupBy);
+            // 编码-1（null）映射到第0组，其余编码依次后移
+            int currencySlots = currencies.size() + 1;
+            int groups = groupBy == Dimension.CURRENCY ? currencySlots : (dictionary.size() + 1) * currencySlots;
+            long[] counts = new long[groups];
+            long[] sums = new long[groups];
+            for (int row = 0; row < rowLimit; row++) {
+                if (scan.matches(row)) {
+                    int currency = currencyCodes[row] + 1;
+                    int group = groupBy == Dimension.CURRENCY ? currency : (keyCodes[row] + 1) * currencySlots + currency;
+                    counts[group]++;
+                    sums[group] += amounts[row];
+                }
+            }
+
+            List<ColumnAggregate> result = new ArrayList<>();
+            for (int group = 0; group < groups; group++) {
+                if (counts[group] == 0) {
+                    continue;
+                }
+                int currency = group % currencySlots - 1;
+                int key = groupBy == Dimension.CURRENCY ? currency : group / currencySlots - 1;
+                result.add(new ColumnAggregate(dictionary.decode(key), currencies.decode(currency), counts[group],
+                        fromMinorUnits(sums[group], currency)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long toMinorUnits(BigDecimal amount, int currency) {
+        return CurrencyUnits.toMinorUnits(amount, fractionDigits(currency));
+    }
+
+    private BigDecimal fromMinorUnits(long minor, int currency) {
+        return CurrencyUnits.fromMinorUnits(minor, fractionDigits(currency));
+    }
+
+    /**
+     * 在写锁下记录货币的最小单位位数
+     * 货币编码只在写入时产生，因此每个编码在被读取之前都已记录；读取路径只读该数组，可以在读锁下并发执行
+     *
+     * @author 薛鹏
+     * @param currency 货币编码
+     */
+    private void registerFractionDigits(int currency) {
+        if (currency == ColumnDictionary.NULL_CODE) {
+            return;
+        }
+        if (currency >= fractionDigits.length) {
+            fractionDigits = Arrays.copyOf(fractionDigits, Math.max(currency + 1, fractionDigits.length << 1));
+        }
+        if (fractionDigits[currency] == 0) {
+            // 以取反存储，使0保留为未初始化
+            fractionDigits[currency] = ~CurrencyUnits.fractionDigits(currencies.decode(currency));
+        }
+    }
+
+    /**
+     * 获取货币的最小单位位数
+     * 未知货币代码按两位小数处理
+     *
+     * @author 薛鹏
+     * @param currency 货币编码，必须已由{@link #registerFractionDigits}记录
+     * @return 返回小数位数
+     */
+    private int fractionDigits(int currency) {
+        if (currency == ColumnDictionary.NULL_CODE) {
+            return CurrencyUnits.DEFAULT_FRACTION_DIGITS;
+        }
+        return ~fractionDigits[currency];
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowLimit == amounts.length) {
+            int capacity = amounts.length << 1;
+            amounts = Arrays.copyOf(amounts, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+            statusCodes = Arrays.copyOf(statusCodes, capacity);
+            live = Arrays.copyOf(live, capacity >>> 6);
+            transactions = Arrays.copyOf(transactions, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        return rowLimit++;
+    }
+
+    private ColumnDictionary dictionary(Dimension dimension) {
+        switch (dimension) {
+            case TYPE:
+                return types;
+            case CURRENCY:
+                return currencies;
+            default:
+                return statuses;
+        }
+    }
+
+    private int[] codes(Dimension dimension) {
+        switch (dimension) {
+            case TYPE:
+                return typeCodes;
+            case CURRENCY:
+                return currencyCodes;
+            default:
+                return statusCodes;
+        }
+    }
+
+    /**
+     * 聚合的分组维度
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    public enum Dimension {
+        TYPE,
+        CURRENCY,
+        STATUS
+    }
+
+    /**
+     * 单次扫描的过滤状态
+     * 将过滤条件中的字符串预先转换为字典编码，扫描时只比较整数
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    private final class Scan {
+
+        private static final int ANY = Integer.MIN_VALUE;
+
+        private final int type;
+        private final int currency;
+        private final int status;
+        private final long from;
+        private final long to;
+        private final boolean empty;
+
+        private Scan(ColumnFilter filter) {
+            Integer typeCode = filter.getType() == null ? Integer.valueOf(ANY) : types.lookup(filter.getType());
+            Integer currencyCode = filter.getCurrency() == null ? Integer.valueOf(ANY) : currencies.lookup(filter.getCurrency());
+            Integer statusCode = filter.getStatus() == null ? Integer.valueOf(ANY) : statuses.lookup(filter.getStatus());
+            this.empty = typeCode == null || currencyCode == null || statusCode == null
+                    || filter.getFromMicros() >= filter.getToMicros();
+            this.type = typeCode == null ? ANY : typeCode;
+            this.currency = currencyCode == null ? ANY : currencyCode;
+            this.status = statusCode == null ? ANY : statusCode;
+            this.from = filter.getFromMicros();
+            this.to = filter.getToMicros();
+        }
+
+        private boolean matches(int row) {
+            return (live[row >>> 6] & (1L << row)) != 0
+                    && timestamps[row] >= from && timestamps[row] < to
+                    && (type == ANY || typeCodes[row] == type)
+                    && (currency == ANY || currencyCodes[row] == currency)
+                    && (status == ANY || statusCodes[row] == status);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.hsbc.tm.repository.persistence;
+
+/**
+ * 启动恢复统计
+ * 记录加载快照和回放日志各自的记录数与耗时，用于导出启动指标
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class RecoveryStats {
+
+    private volatile long snapshotRecords;
+    private volatile long snapshotMillis;
+    private volatile long logRecords;
+    private volatile long logMillis;
+
+    /**
+     * 记录快照加载结果
+     *
+     * @author 薛鹏
+     * @param records 加载的交易数
+     * @param millis 耗时（毫秒）
+     */
+    public void recordSnapshot(long records, long millis) {
+        this.snapshotRecords = records;
+        this.snapshotMillis = millis;
+    }
+
+    /**
+     * 记录日志回放结果
+     *
+     * @author 薛鹏
+     * @param records 回放的记录数
+     * @param millis 耗时（毫秒）
+     */
+    public void recordLog(long records, long millis) {
+        this.logRecords = records;
+        this.logMillis = millis;
+    }
+
+    public long getSnapshotRecords() {
+        return snapshotRecords;
+    }
+
+    public long getSnapshotMillis() {
+        return snapshotMillis;
+    }
+
+    public long getLogRecords() {
+        return logRecords;
+    }
+
+    public long getLogMillis() {
+        return logMillis;
+    }
+
+    public long getTotalMillis() {
+        return snapshotMillis + logMillis;
+    }
+}
@@ -0,0 +1,185 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 交易的紧凑二进制编解码器
+ * 供预写日志和快照共用，字段依次为：
+ * ID、金额（非标度值字节 + 标度）、描述、类型、时间戳（纪元秒 + 纳秒）、货币、状态、版本号
+ * 字符串以长度前缀的UTF-8编码，长度为-1表示null
+ * 版本号位于记录末尾，读取没有版本号的旧记录时版本号为1
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public final class TransactionCodec {
+
+    private TransactionCodec() {
+    }
+
+    /**
+     * 将交易编码为字节数组
+     *
+     * @author 薛鹏
+     * @param transaction 要编码的交易
+     * @return 返回编码后的字节
+     */
+    public static byte[] encode(Transaction transaction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, transaction);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 将交易写入数据输出流
+     *
+     * @author 薛鹏
+     * @param out 数据输出流
+     * @param transaction 要编码的交易
+     * @throws IOException 当写入失败时抛出异常
+     */
+    public static void write(DataOutputStream out, Transaction transaction) throws IOException {
+        writeString(out, transaction.getId());
+        BigDecimal amount = transaction.getAmount();
+        if (amount == null) {
+            out.writeShort(-1);
+        } else {
+            byte[] unscaled = amount.unscaledValue().toByteArray();
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+            out.writeInt(amount.scale());
+        }
+        writeString(out, transaction.getDescription());
+        writeString(out, transaction.getType());
+        LocalDateTime timestamp = transaction.getTimestamp();
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+        writeString(out, transaction.getCurrency());
+        writeString(out, transaction.getStatus());
+        out.writeLong(transaction.getVersion());
+    }
+
+    /**
+     * 从数据输入流读取交易
+     *
+     * @author 薛鹏
+     * @param in 数据输入流，只包含一条记录，用于判断记录末尾是否有版本号
+     * @return 返回解码后的交易
+     * @throws IOException 当读取失败或数据不完整时抛出异常
+     */
+    public static Transaction read(DataInputStream in) throws IOException {
+        String id = readString(in);
+        BigDecimal amount = null;
+        int unscaledLength = in.readShort();
+        if (unscaledLength >= 0) {
+            byte[] unscaled = new byte[unscaledLength];
+            in.readFully(unscaled);
+            amount = new BigDecimal(new BigInteger(unscaled), in.readInt());
+        }
+        String description = readString(in);
+        String type = readString(in);
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        String currency = readString(in);
+        String status = readString(in);
+        Transaction transaction = new Transaction(id, amount, description, type, timestamp, currency, status);
+        if (in.available() >= Long.BYTES) {
+            transaction.setVersion(in.readLong());
+        }
+        return transaction;
+    }
+
+    /**
+     * 从字节缓冲区读取交易
+     * 用于直接解码内存映射的快照文件，避免额外的流包装和拷贝
+     *
+     * @author 薛鹏
+     * @param in 字节缓冲区，界限为记录末尾，读取后位置移动到记录末尾
+     * @return 返回解码后的交易
+     */
+    public static Transaction read(ByteBuffer in) {
+        String id = readString(in);
+        BigDecimal amount = null;
+        int unscaledLength = in.getShort();
+        if (unscaledLength >= 0) {
+            byte[] unscaled = new byte[unscaledLength];
+            in.get(unscaled);
+            amount = new BigDecimal(new BigInteger(unscaled), in.getInt());
+        }
+        String description = readString(in);
+        String type = readString(in);
+        long epochSecond = in.getLong();
+        int nano = in.getInt();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        String currency = readString(in);
+        String status = readString(in);
+        Transaction transaction = new Transaction(id, amount, description, type, timestamp, currency, status);
+        if (in.remaining() >= Long.BYTES) {
+            transaction.setVersion(in.getLong());
+        }
+        return transaction;
+    }
+
+    /**
+     * 写入长度前缀的字符串
+     *
+     * @author 薛鹏
+     * @param out 数据输出流
+     * @param value 字符串，可以为null
+     * @throws IOException 当写入失败时抛出异常
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取长度前缀的字符串
+     *
+     * @author 薛鹏
+     * @param in 数据输入流
+     * @return 返回字符串，可能为null
+     * @throws IOException 当读取失败时抛出异常
+     */
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
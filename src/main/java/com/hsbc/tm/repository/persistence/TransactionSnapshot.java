@@ -0,0 +1,190 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 交易仓库的时间点快照
+ * 快照记录了生成时对应的预写日志位置，恢复时先加载快照，再只回放该位置之后的日志
+ *
+ * 文件格式：
+ * [int 魔数][int 版本][long 日志位置]
+ * 若干条 [int 记录长度][记录内容]，记录内容由{@link TransactionCodec}编码
+ * [int 0 结束标记][long 记录数][int 全部记录字节的CRC32]
+ *
+ * 写入时先写临时文件并落盘，再原子替换正式文件，因此任何时刻磁盘上都有一份完整的快照
+ * 加载时通过内存映射读取，避免逐块拷贝到堆中
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionSnapshot.class);
+
+    private static final int MAGIC = 0x544D534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final long MAX_MAPPING_BYTES = 1L << 30;
+
+    private final Path file;
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param file 快照文件路径
+     */
+    public TransactionSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 获取快照文件路径
+     *
+     * @author 薛鹏
+     * @return 返回快照文件路径
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * 写入快照
+     * 遍历过程中不加锁，写操作可以继续进行；遍历期间发生的修改都位于日志位置之后，恢复时会被回放
+     *
+     * @author 薛鹏
+     * @param logPosition 快照对应的日志位置，此前的所有修改都已反映在交易集合中
+     * @param transactions 要写入的交易
+     * @return 返回写入的交易数
+     * @throws IOException 当写入失败时抛出异常
+     */
+    public long write(long logPosition, Iterator<Transaction> transactions) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long count = 0;
+        try (OutputStream fileOut = Files.newOutputStream(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream header = new DataOutputStream(fileOut);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeLong(logPosition);
+
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            while (transactions.hasNext()) {
+                byte[] record = TransactionCodec.encode(transactions.next());
+                out.writeInt(record.length);
+                out.write(record);
+                count++;
+            }
+            out.flush();
+            long crc = checked.getChecksum().getValue();
+
+            DataOutputStream trailer = new DataOutputStream(new BufferedOutputStream(fileOut));
+            trailer.writeInt(0);
+            trailer.writeLong(count);
+            trailer.writeInt((int) crc);
+            trailer.flush();
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote snapshot of {} transactions at log position {} to {}", count, logPosition, file);
+        return count;
+    }
+
+    /**
+     * 通过内存映射加载快照
+     *
+     * @author 薛鹏
+     * @param consumer 接收每条交易的回调
+     * @return 返回快照对应的日志位置；快照不存在时返回-1
+     * @throws IOException 当快照不完整或校验失败时抛出异常
+     */
+    public long load(Consumer<Transaction> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Snapshot " + file + " has an unknown format");
+            }
+            long logPosition = header.getLong();
+
+            CRC32 crc = new CRC32();
+            long count = 0;
+            long offset = HEADER_BYTES;
+            MappedByteBuffer region = null;
+            long regionStart = 0;
+            while (true) {
+                if (region == null || offset + Integer.BYTES > regionStart + region.limit()) {
+                    regionStart = offset;
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAX_MAPPING_BYTES, size - offset));
+                }
+                region.position((int) (offset - regionStart));
+                if (region.remaining() < Integer.BYTES) {
+                    throw new IOException("Snapshot " + file + " is truncated");
+                }
+                int length = region.getInt();
+                if (length == 0) {
+                    offset += Integer.BYTES;
+                    break;
+                }
+                if (length < 0 || offset + Integer.BYTES + length > size) {
+                    throw new IOException("Snapshot " + file + " is corrupt at offset " + offset);
+                }
+                if (region.remaining() < length) {
+                    regionStart = offset;
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAX_MAPPING_BYTES, size - offset));
+                    region.position(Integer.BYTES);
+                }
+                ByteBuffer record = region.slice(region.position(), length);
+                crc.update(region.slice(region.position() - Integer.BYTES, Integer.BYTES + length));
+                Transaction transaction;
+                try {
+                    transaction = TransactionCodec.read(record);
+                } catch (RuntimeException e) {
+                    throw new IOException("Snapshot " + file + " is corrupt at offset " + offset, e);
+                }
+                consumer.accept(transaction);
+                offset += Integer.BYTES + length;
+                count++;
+            }
+
+            if (size - offset < Long.BYTES + Integer.BYTES) {
+                throw new IOException("Snapshot " + file + " is missing its trailer");
+            }
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, offset, Long.BYTES + Integer.BYTES);
+            if (trailer.getLong() != count || trailer.getInt() != (int) crc.getValue()) {
+                throw new IOException("Snapshot " + file + " failed its integrity check");
+            }
+            return logPosition;
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 交易仓库的预写日志
+ * 每次写操作以紧凑的二进制记录追加到日志文件，重启时按顺序回放即可恢复仓库状态
+ * 并发写入的记录先进入共享缓冲区，由单独的刷盘线程一次写入并一次fsync（组提交），
+ * 刷盘时机由{@link FlushPolicy}决定
+ *
+ * 记录格式：[int 记录体长度][int 记录体CRC32][记录体]，记录体的首字节为操作类型
+ * 回放时遇到不完整或校验失败的记录即视为崩溃时未写完的尾部，将其截断
+ *
+ * 日志由多个段文件组成，文件名中的数字为该段在整个日志中的起始位置，
+ * 快照完成后通过{@link #rotate()}切换到新段，并用{@link #pruneBefore(long)}删除已被快照覆盖的旧段
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * 刷盘策略
+     */
+    public enum FlushPolicy {
+        /**
+         * 每次写入都等待记录落盘后才返回，同一时间到达的写入共享一次fsync
+         */
+        PER_WRITE,
+        /**
+         * 每隔固定毫秒数刷盘一次，写入不等待落盘
+         */
+        INTERVAL,
+        /**
+         * 缓冲的数据达到固定字节数时刷盘，写入不等待落盘
+         */
+        BYTES
+    }
+
+    /**
+     * 日志回放处理器
+     * 按日志顺序接收每条记录
+     */
+    public interface ReplayHandler {
+        /**
+         * 回放一条保存或更新记录
+         *
+         * @author 薛鹏
+         * @param transaction 交易的完整内容
+         */
+        void put(Transaction transaction);
+
+        /**
+         * 回放一条删除记录
+         *
+         * @author 薛鹏
+         * @param id 被删除的交易ID
+         */
+        void delete(String id);
+    }
+
+    private final Path directory;
+    private final FlushPolicy flushPolicy;
+    private final long flushIntervalMillis;
+    private final int flushBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition flushCompleted = lock.newCondition();
+    private final Condition rotationCompleted = lock.newCondition();
+    private FileChannel channel;
+    private Path segment;
+    private ByteBuffer activeBuffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private ByteBuffer flushingBuffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private long appendedPosition;
+    private long durablePosition;
+    private boolean closed;
+    private boolean rotateRequested;
+    private long rotationBoundary;
+    private IOException failure;
+    private Thread flusher;
+
+    /**
+     * 构造函数，必要时创建日志目录
+     * 创建后需先调用{@link #replay(long, ReplayHandler)}，之后才能追加记录
+     *
+     * @author 薛鹏
+     * @param directory 日志段文件所在目录
+     * @param flushPolicy 刷盘策略
+     * @param flushIntervalMillis INTERVAL策略下的刷盘间隔（毫秒）
+     * @param flushBytes BYTES策略下触发刷盘的缓冲字节数
+     * @throws IOException 当日志目录无法创建时抛出异常
+     */
+    public WriteAheadLog(Path directory, FlushPolicy flushPolicy, long flushIntervalMillis, int flushBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.flushPolicy = flushPolicy;
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.flushBytes = Math.max(1, flushBytes);
+    }
+
+    /**
+     * 按顺序回放日志中的全部记录
+     *
+     * @author 薛鹏
+     * @param handler 接收记录的处理器
+     * @return 返回回放的记录数
+     * @throws IOException 当日志读取失败时抛出异常
+     */
+    public long replay(ReplayHandler handler) throws IOException {
+        return replay(0, handler);
+    }
+
+    /**
+     * 从指定位置开始按顺序回放日志记录，截断最后一段中损坏的尾部，并启动刷盘线程
+     *
+     * @author 薛鹏
+     * @param fromPosition 起始位置，通常为快照所覆盖的日志位置
+     * @param handler 接收记录的处理器
+     * @return 返回回放的记录数
+     * @throws IOException 当日志读取失败或中间段损坏时抛出异常
+     */
+    public synchronized long replay(long fromPosition, ReplayHandler handler) throws IOException {
+        if (flusher != null) {
+            throw new IllegalStateException("Write-ahead log has already been opened for appends");
+        }
+        List<Long> starts = listSegments();
+        long records = 0;
+        long endPosition = fromPosition;
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            boolean last = i == starts.size() - 1;
+            if (!last && starts.get(i + 1) <= fromPosition) {
+                continue;
+            }
+            Path path = segmentPath(start);
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long offset = Math.max(0, fromPosition - start);
+                long[] counted = new long[1];
+                long valid = readSegment(in, offset, handler, counted);
+                records += counted[0];
+                if (valid < in.size()) {
+                    if (!last) {
+                        throw new IOException("Write-ahead log segment " + path + " is corrupt at offset " + valid);
+                    }
+                    log.warn("Truncating {} bytes of incomplete records at the end of {}", in.size() - valid, path);
+                    in.truncate(valid);
+                    in.force(true);
+                }
+                endPosition = Math.max(endPosition, start + valid);
+            }
+        }
+
+        if (!starts.isEmpty() && starts.get(starts.size() - 1) + Files.size(segmentPath(starts.get(starts.size() - 1))) == endPosition) {
+            openSegment(starts.get(starts.size() - 1));
+        } else {
+            openSegment(endPosition);
+        }
+        channel.position(channel.size());
+        appendedPosition = endPosition;
+        durablePosition = endPosition;
+
+        flusher = new Thread(this::flushLoop, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Replayed {} records from {} starting at position {}", records, directory, fromPosition);
+        return records;
+    }
+
+    /**
+     * 读取一个段文件中从指定偏移开始的全部有效记录
+     *
+     * @return 返回最后一条有效记录结束处的偏移
+     */
+    private static long readSegment(FileChannel in, long offset, ReplayHandler handler, long[] records) throws IOException {
+        long valid = offset;
+        in.position(offset);
+        DataInputStream stream = new DataInputStream(new BufferedInputStream(Channels.newInputStream(in), 1 << 16));
+        CRC32 crc = new CRC32();
+        try {
+            while (true) {
+                int length = stream.readInt();
+                int checksum = stream.readInt();
+                if (length <= 0) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                stream.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(body, handler);
+                valid += HEADER_BYTES + length;
+                records[0]++;
+            }
+        } catch (EOFException e) {
+            // 到达文件末尾或遇到未写完的尾部记录
+        }
+        return valid;
+    }
+
+    /**
+     * 切换到新的日志段
+     * 当前缓冲区中的记录先写入旧段并落盘，之后到达的记录写入新段
+     *
+     * @author 薛鹏
+     * @return 返回新段的起始位置，此前的所有记录都位于旧段中且已落盘
+     */
+    public long rotate() {
+        lock.lock();
+        try {
+            ensureOpen();
+            rotateRequested = true;
+            flushRequested.signal();
+            while (rotateRequested) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log " + directory + " failed", failure);
+                }
+                rotationCompleted.awaitUninterruptibly();
+            }
+            return rotationBoundary;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除完全位于指定位置之前的旧日志段
+     *
+     * @author 薛鹏
+     * @param position 段边界位置，通常为{@link #rotate()}的返回值
+     * @throws IOException 当删除文件失败时抛出异常
+     */
+    public void pruneBefore(long position) throws IOException {
+        Path current;
+        lock.lock();
+        try {
+            current = segment;
+        } finally {
+            lock.unlock();
+        }
+        for (long start : listSegments()) {
+            Path path = segmentPath(start);
+            if (start < position && !path.equals(current)) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * 记录一次保存或更新
+     * 在PER_WRITE策略下阻塞到记录落盘
+     *
+     * @author 薛鹏
+     * @param transaction 交易的完整内容
+     */
+    public void logPut(Transaction transaction) {
+        commit(append(OP_PUT, List.of(TransactionCodec.encode(transaction))));
+    }
+
+    /**
+     * 追加一次保存或更新记录，不等待落盘
+     * 供需要在持有其他锁时确定记录顺序的调用方使用，释放锁后再调用{@link #awaitCommit(long)}完成提交
+     *
+     * @author 薛鹏
+     * @param transaction 交易的完整内容
+     * @return 返回记录结束处的日志位置
+     */
+    public long appendPut(Transaction transaction) {
+        return append(OP_PUT, List.of(TransactionCodec.encode(transaction)));
+    }
+
+    /**
+     * 按刷盘策略完成{@link #appendPut(Transaction)}或{@link #appendDelete(String)}追加的记录的提交
+     * 在PER_WRITE策略下阻塞到记录落盘
+     *
+     * @author 薛鹏
+     * @param position 记录结束处的日志位置
+     */
+    public void awaitCommit(long position) {
+        commit(position);
+    }
+
+    /**
+     * 记录一次删除
+     * 在PER_WRITE策略下阻塞到记录落盘
+     *
+     * @author 薛鹏
+     * @param id 被删除的交易ID
+     */
+    public void logDelete(String id) {
+        commit(appendDelete(id));
+    }
+
+    /**
+     * 追加一次删除记录，不等待落盘
+     * 与{@link #appendPut(Transaction)}相同，释放调用方的锁后再调用{@link #awaitCommit(long)}完成提交
+     *
+     * @author 薛鹏
+     * @param id 被删除的交易ID
+     * @return 返回记录结束处的日志位置
+     */
+    public long appendDelete(String id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            TransactionCodec.writeString(out, id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return append(OP_DELETE, List.of(bytes.toByteArray()));
+    }
+
+    /**
+     * 获取刷盘策略
+     *
+     * @author 薛鹏
+     * @return 返回刷盘策略
+     */
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    /**
+     * 获取已确认落盘的日志位置
+     *
+     * @author 薛鹏
+     * @return 返回已落盘记录结束处的日志位置
+     */
+    public long getDurablePosition() {
+        lock.lock();
+        try {
+            return durablePosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 将记录追加到共享缓冲区
+     * 记录体在锁外编码和计算校验，锁内只做内存拷贝
+     *
+     * @author 薛鹏
+     * @param op 操作类型
+     * @param payloads 记录内容，依次追加为相邻的记录
+     * @return 返回最后一条记录结束处的日志位置
+     */
+    private long append(byte op, List<byte[]> payloads) {
+        int[] checksums = new int[payloads.size()];
+        int total = 0;
+        for (int i = 0; i < checksums.length; i++) {
+            byte[] payload = payloads.get(i);
+            CRC32 crc = new CRC32();
+            crc.update(op);
+            crc.update(payload);
+            checksums[i] = (int) crc.getValue();
+            total += HEADER_BYTES + payload.length + 1;
+        }
+
+        lock.lock();
+        try {
+            ensureOpen();
+            if (activeBuffer.remaining() < total) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(activeBuffer.capacity() * 2, activeBuffer.position() + total));
+                activeBuffer.flip();
+                larger.put(activeBuffer);
+                activeBuffer = larger;
+            }
+            for (int i = 0; i < checksums.length; i++) {
+                byte[] payload = payloads.get(i);
+                activeBuffer.putInt(payload.length + 1).putInt(checksums[i]).put(op).put(payload);
+            }
+            appendedPosition += total;
+            if (flushPolicy == FlushPolicy.PER_WRITE
+                    || (flushPolicy == FlushPolicy.BYTES && activeBuffer.position() >= flushBytes)) {
+                flushRequested.signal();
+            }
+            return appendedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按刷盘策略完成提交
+     * PER_WRITE策略下等待日志落盘位置越过本条记录
+     *
+     * @author 薛鹏
+     * @param position 记录结束处的日志位置
+     */
+    private void commit(long position) {
+        if (flushPolicy != FlushPolicy.PER_WRITE) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log " + directory + " failed", failure);
+                }
+                flushCompleted.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log " + directory + " failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log " + directory + " is closed");
+        }
+    }
+
+    /**
+     * 刷盘线程主循环
+     * 交换活动缓冲区与刷盘缓冲区，在锁外写入并fsync，期间到达的写入进入新的活动缓冲区
+     * 如果有段切换请求，则在本批记录落盘后打开新段
+     */
+    private void flushLoop() {
+        while (true) {
+            long target;
+            boolean rotate;
+            lock.lock();
+            try {
+                if (flushPolicy == FlushPolicy.INTERVAL) {
+                    if (!closed && !rotateRequested) {
+                        flushRequested.awaitNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+                    }
+                } else {
+                    while (!closed && !rotateRequested && !flushDue()) {
+                        flushRequested.awaitUninterruptibly();
+                    }
+                }
+                rotate = rotateRequested;
+                if (activeBuffer.position() == 0 && !rotate) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                ByteBuffer swap = flushingBuffer;
+                flushingBuffer = activeBuffer;
+                activeBuffer = swap;
+                activeBuffer.clear();
+                target = appendedPosition;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                flushingBuffer.flip();
+                while (flushingBuffer.hasRemaining()) {
+                    channel.write(flushingBuffer);
+                }
+                channel.force(false);
+                if (rotate) {
+                    FileChannel previous = channel;
+                    openSegment(target);
+                    previous.close();
+                }
+            } catch (IOException e) {
+                error = e;
+                log.error("Failed to flush write-ahead log {}", directory, e);
+            }
+            flushingBuffer.clear();
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durablePosition = target;
+                }
+                if (rotate) {
+                    rotateRequested = false;
+                    rotationBoundary = target;
+                    rotationCompleted.signalAll();
+                }
+                flushCompleted.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean flushDue() {
+        if (flushPolicy == FlushPolicy.BYTES) {
+            return activeBuffer.position() >= flushBytes;
+        }
+        return activeBuffer.position() > 0;
+    }
+
+    /**
+     * 打开（必要时创建）指定起始位置的段文件作为当前追加目标
+     */
+    private void openSegment(long start) throws IOException {
+        Path path = segmentPath(start);
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        channel = opened;
+        segment = path;
+    }
+
+    private Path segmentPath(long start) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 列出目录中所有段文件的起始位置，按位置升序排列
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> starts.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        starts.sort(null);
+        return starts;
+    }
+
+    /**
+     * 解析一条记录体并交给回放处理器
+     */
+    private static void apply(byte[] body, ReplayHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte op = in.readByte();
+        if (op == OP_PUT) {
+            handler.put(TransactionCodec.read(in));
+        } else if (op == OP_DELETE) {
+            handler.delete(TransactionCodec.readString(in));
+        } else {
+            throw new IOException("Unknown write-ahead log record type " + op);
+        }
+    }
+
+    /**
+     * 关闭日志
+     * 先将缓冲区中剩余的记录刷盘，再关闭当前段文件
+     *
+     * @author 薛鹏
+     * @throws IOException 当关闭文件失败时抛出异常
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushRequested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
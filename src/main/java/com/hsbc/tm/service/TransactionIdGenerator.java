@@ -0,0 +1,26 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.model.TransactionId;
+import org.springframework.stereotype.Component;
+
+/**
+ * 新交易ID的生成器
+ * 默认生成随机的交易ID；集群模式下由只生成本节点所拥有ID的子类替代，
+ * 使在本节点创建和导入的交易总是保存在负责该ID的节点上
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Component
+public class TransactionIdGenerator {
+
+    /**
+     * 生成新的交易ID
+     *
+     * @author 薛鹏
+     * @return 返回新的交易ID
+     */
+    public TransactionId next() {
+        return TransactionId.random();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.dto.TransactionImportResponse;
+
+import java.io.InputStream;
+
+/**
+ * 交易批量导入服务接口
+ * 定义从流式数据源导入历史交易的操作
+ * 
+ * @author 薛鹏
+ * @version 1.0
+ */
+public interface TransactionImportService {
+
+    /**
+     * 导入数据的格式
+     * 
+     * @author 薛鹏
+     */
+    enum Format {
+        /**
+         * 换行分隔的JSON，每行一个交易对象
+         */
+        NDJSON,
+        /**
+         * 带表头的CSV，每行一条交易
+         */
+        CSV
+    }
+
+    /**
+     * 从输入流导入交易
+     * 无效的记录单独计入失败，不影响其他记录的导入
+     * 
+     * @author 薛鹏
+     * @param in 数据输入流，UTF-8编码
+     * @param format 数据格式
+     * @return 返回导入结果汇总
+     */
+    TransactionImportResponse importTransactions(InputStream in, Format format);
+}
@@ -0,0 +1,413 @@
+package com.hsbc.tm.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hsbc.tm.dto.TransactionImportError;
+import com.hsbc.tm.dto.TransactionImportResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 交易批量导入服务的实现类
+ * 读取线程逐行读取输入流，按批次将原始行交给有界的工作线程池解析和验证，
+ * 每个批次验证通过的交易通过仓库的批量保存一次写入
+ * 线程池的任务队列有界，队列满时由读取线程自己处理批次，从而暂停读取，
+ * 因此内存中同时存在的行数不超过 批次大小 × (工作线程数 × 2 + 1)，与输入的总行数无关
+ * 
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Service
+public class TransactionImportServiceImpl implements TransactionImportService {
+
+    /**
+     * 结果中最多保留的被拒绝记录详情数
+     */
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionStatistics transactionStatistics;
+    private final ObjectReader recordReader;
+    private final int workers;
+    private final int batchSize;
+    private final TransactionIdGenerator idGenerator;
+
+    /**
+     * 构造函数，使用随机的交易ID
+     * 
+     * @author 薛鹏
+     * @param transactionRepository 交易数据访问层接口的实现
+     * @param transactionStatistics 增量维护的交易统计
+     * @param objectMapper JSON解析器
+     * @param workers 解析和验证的工作线程数，小于等于0时使用CPU核数
+     * @param batchSize 每个批次的行数
+     */
+    public TransactionImportServiceImpl(TransactionRepository transactionRepository,
+                                        TransactionStatistics transactionStatistics,
+                                        ObjectMapper objectMapper,
+                                        int workers,
+                                        int batchSize) {
+        this(transactionRepository, transactionStatistics, objectMapper, new TransactionIdGenerator(), workers,
+                batchSize);
+    }
+
+    /**
+     * 构造函数，通过依赖注入获取仓库、JSON解析器和导入配置
+     * 
+     * @author 薛鹏
+     * @param transactionRepository 交易数据访问层接口的实现
+     * @param transactionStatistics 增量维护的交易统计
+     * @param objectMapper JSON解析器
+     * @param idGenerator 新交易ID的生成器
+     * @param workers 解析和验证的工作线程数，小于等于0时使用CPU核数
+     * @param batchSize 每个批次的行数
+     */
+    @Autowired
+    public TransactionImportServiceImpl(TransactionRepository transactionRepository,
+                                        TransactionStatistics transactionStatistics,
+                                        ObjectMapper objectMapper,
+                                        TransactionIdGenerator idGenerator,
+                                        @Value("${tm.import.workers:0}") int workers,
+                                        @Value("${tm.import.batch-size:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Import batch size must be positive");
+        }
+        this.transactionRepository = transactionRepository;
+        this.transactionStatistics = transactionStatistics;
+        this.recordReader = objectMapper.readerFor(ImportRecord.class);
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * 从输入流导入交易
+     * 
+     * @author 薛鹏
+     * @param in 数据输入流，UTF-8编码
+     * @param format 数据格式
+     * @return 返回导入结果汇总
+     * @throws TransactionException.InvalidTransactionException 当CSV表头缺少必需的列时抛出异常
+     * @throws UncheckedIOException 当读取输入流失败时抛出异常
+     */
+    @Override
+    public TransactionImportResponse importTransactions(InputStream in, Format format) {
+        long start = System.nanoTime();
+        ImportRun run = new ImportRun();
+        ThreadPoolExecutor pool = newPool();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            Map<String, Integer> columns = null;
+            Batch batch = new Batch(batchSize);
+            long lineNumber = 0;
+            String line;
+            while (run.failure.get() == null && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (format == Format.CSV && columns == null) {
+                    columns = parseHeader(line);
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(lineNumber, line);
+                if (batch.size() == batchSize) {
+                    submit(pool, batch, format, columns, run);
+                    batch = new Batch(batchSize);
+                }
+            }
+            if (batch.size() > 0) {
+                submit(pool, batch, format, columns, run);
+            }
+        } catch (IOException e) {
+            run.failure.compareAndSet(null, new UncheckedIOException("Failed to read import stream", e));
+        } finally {
+            awaitCompletion(pool);
+        }
+
+        if (run.failure.get() != null) {
+            throw run.failure.get();
+        }
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        // 各批次并行处理，错误的记录顺序不确定，按行号排序后返回
+        run.errors.sort(Comparator.comparingLong(TransactionImportError::getLine));
+        return new TransactionImportResponse(run.processed.sum(), run.imported.sum(), run.failed.sum(),
+                durationMillis, run.errors);
+    }
+
+    private ThreadPoolExecutor newPool() {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tm-import-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.prestartAllCoreThreads();
+        return pool;
+    }
+
+    private void submit(ThreadPoolExecutor pool, Batch batch, Format format, Map<String, Integer> columns, ImportRun run) {
+        pool.execute(() -> {
+            if (run.failure.get() != null) {
+                return;
+            }
+            try {
+                process(batch, format, columns, run);
+            } catch (RuntimeException e) {
+                run.failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    private static void awaitCompletion(ThreadPoolExecutor pool) {
+        pool.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 解析并验证一个批次，将有效的交易批量写入仓库
+     * 
+     * @author 薛鹏
+     * @param batch 原始行及其行号
+     * @param format 数据格式
+     * @param columns CSV的列名到列下标的映射，NDJSON时为null
+     * @param run 本次导入的统计
+     */
+    private void process(Batch batch, Format format, Map<String, Integer> columns, ImportRun run) {
+        List<Transaction> valid = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                ImportRecord record = format == Format.CSV
+                        ? parseCsv(batch.lines.get(i), columns)
+                        : recordReader.readValue(batch.lines.get(i));
+                valid.add(record.toTransaction(idGenerator));
+            } catch (TransactionException e) {
+                run.reject(batch.lineNumbers[i], e.getCode(), e.getMessage());
+            } catch (JsonProcessingException e) {
+                run.reject(batch.lineNumbers[i], "TRX_INVALID", "Malformed record: " + e.getOriginalMessage());
+            } catch (NumberFormatException | DateTimeParseException e) {
+                run.reject(batch.lineNumbers[i], "TRX_INVALID", "Malformed record: " + e.getMessage());
+            }
+        }
+        run.processed.add(batch.size());
+
+        List<Transaction> saved = transactionRepository.saveAll(valid);
+        for (Transaction transaction : saved) {
+            transactionStatistics.add(transaction);
+        }
+        run.imported.add(saved.size());
+        if (saved.size() < valid.size()) {
+            run.failed.add(valid.size() - saved.size());
+        }
+    }
+
+    /**
+     * 解析CSV表头
+     * 列名不区分大小写，必须包含amount、type和currency，
+     * 可选description、timestamp和status，其他列被忽略
+     * 
+     * @author 薛鹏
+     * @param header 表头行
+     * @return 返回列名到列下标的映射
+     * @throws TransactionException.InvalidTransactionException 当缺少必需的列时抛出异常
+     */
+    static Map<String, Integer> parseHeader(String header) {
+        List<String> names = splitCsv(header.startsWith("﻿") ? header.substring(1) : header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[]{"amount", "type", "currency"}) {
+            if (!columns.containsKey(required)) {
+                throw new TransactionException.InvalidTransactionException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static ImportRecord parseCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(line);
+        ImportRecord record = new ImportRecord();
+        String amount = field(fields, columns, "amount");
+        record.amount = amount == null ? null : new BigDecimal(amount.trim());
+        record.description = field(fields, columns, "description");
+        record.type = field(fields, columns, "type");
+        record.currency = field(fields, columns, "currency");
+        String timestamp = field(fields, columns, "timestamp");
+        record.timestamp = timestamp == null ? null : LocalDateTime.parse(timestamp.trim());
+        record.status = field(fields, columns, "status");
+        return record;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 拆分一行CSV
+     * 支持双引号包围的字段以及以两个双引号表示的引号，不支持跨行的字段
+     * 
+     * @author 薛鹏
+     * @param line CSV行
+     * @return 返回字段列表
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 一个批次的原始行及其行号
+     */
+    private static final class Batch {
+        private final List<String> lines;
+        private final long[] lineNumbers;
+
+        Batch(int capacity) {
+            this.lines = new ArrayList<>(capacity);
+            this.lineNumbers = new long[capacity];
+        }
+
+        void add(long lineNumber, String line) {
+            lineNumbers[lines.size()] = lineNumber;
+            lines.add(line);
+        }
+
+        int size() {
+            return lines.size();
+        }
+    }
+
+    /**
+     * 一次导入的统计，由读取线程和工作线程共同更新
+     */
+    private static final class ImportRun {
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final List<TransactionImportError> errors = new ArrayList<>();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        void reject(long line, String code, String message) {
+            failed.increment();
+            synchronized (errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new TransactionImportError(line, code, message));
+                }
+            }
+        }
+    }
+
+    /**
+     * 导入的单条记录
+     * 除请求中的字段外，还可以携带历史交易的时间戳和状态
+     */
+    static final class ImportRecord {
+        public BigDecimal amount;
+        public String description;
+        public String type;
+        public String currency;
+        public LocalDateTime timestamp;
+        public String status;
+
+        /**
+         * 验证记录并转换为交易
+         * 未提供时间戳时使用当前时间，未提供状态时使用默认状态
+         * 
+         * @author 薛鹏
+         * @param idGenerator 新交易ID的生成器
+         * @return 返回新的交易
+         * @throws TransactionException.InvalidTransactionException 当记录无效时抛出异常
+         */
+        Transaction toTransaction(TransactionIdGenerator idGenerator) {
+            TransactionRequest request = new TransactionRequest();
+            request.setAmount(amount);
+            request.setDescription(description);
+            request.setType(type);
+            request.setCurrency(currency);
+            TransactionValidator.validate(request);
+
+            Transaction transaction = new Transaction(idGenerator.next(), amount, description, type, currency);
+            if (timestamp != null) {
+                transaction.setTimestamp(timestamp);
+            }
+            if (status != null && !status.isBlank()) {
+                transaction.setStatus(status);
+            }
+            return transaction;
+        }
+    }
+}
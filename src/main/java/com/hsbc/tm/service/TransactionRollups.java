@@ -0,0 +1,317 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.dto.TransactionRollupPoint;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.model.CurrencyUnits;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按货币和时间桶增量维护的交易时间序列
+ * 每次写入同时累加分钟、小时和天三个粒度的桶，查询只读取时间范围内的桶，耗时与交易数无关
+ *
+ * 细粒度的桶只保留最近一段时间：超过保留期的分钟桶和小时桶由{@link #compact()}删除，
+ * 其中的数据已经包含在更粗粒度的桶中，因此内存占用只随时间跨度增长，不随交易数增长
+ * 时间戳早于某个粒度保留期的写入不再更新该粒度的桶
+ *
+ * 交易时间戳是不带时区的本地时间（由LocalDateTime.now()按系统默认时区生成），先按时钟的时区换算为时刻，
+ * 再按UTC划分时间桶并与时钟的当前时刻比较保留期；每个桶的笔数和金额各是一个LongAdder，金额以货币最小单位累加
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionRollups {
+
+    /**
+     * 默认的分钟桶保留期
+     */
+    public static final Duration DEFAULT_MINUTE_RETENTION = Duration.ofDays(2);
+
+    /**
+     * 默认的小时桶保留期
+     */
+    public static final Duration DEFAULT_HOUR_RETENTION = Duration.ofDays(90);
+
+    /**
+     * ConcurrentHashMap不允许null键，货币为null的交易使用此键
+     */
+    private static final String NULL_CURRENCY = "";
+
+    private static final Granularity[] GRANULARITIES = Granularity.values();
+
+    private final ConcurrentMap<String, Series> series = new ConcurrentHashMap<>();
+    private final long[] retentionSeconds;
+    private final Clock clock;
+    private final ZoneId zone;
+
+    /**
+     * 构造函数，使用默认的保留期和系统默认时区的时钟
+     *
+     * @author 薛鹏
+     */
+    public TransactionRollups() {
+        this(DEFAULT_MINUTE_RETENTION, DEFAULT_HOUR_RETENTION, Clock.systemDefaultZone());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param minuteRetention 分钟桶的保留期
+     * @param hourRetention 小时桶的保留期
+     * @param clock 判断保留期使用的时钟，其时区须与生成交易时间戳的时区一致
+     */
+    public TransactionRollups(Duration minuteRetention, Duration hourRetention, Clock clock) {
+        if (minuteRetention.isNegative() || hourRetention.compareTo(minuteRetention) < 0) {
+            throw new IllegalArgumentException("Hour retention must not be shorter than minute retention");
+        }
+        this.retentionSeconds = new long[]{minuteRetention.getSeconds(), hourRetention.getSeconds(), Long.MAX_VALUE};
+        this.clock = clock;
+        this.zone = clock.getZone();
+    }
+
+    /**
+     * 时间桶的粒度
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    public enum Granularity {
+        MINUTE(60),
+        HOUR(3_600),
+        DAY(86_400);
+
+        private final long seconds;
+
+        Granularity(long seconds) {
+            this.seconds = seconds;
+        }
+
+        /**
+         * 将纪元秒数向下取整到桶的起始时间
+         *
+         * @author 薛鹏
+         * @param epochSecond 纪元秒数
+         * @return 返回桶起始时间的纪元秒数
+         */
+        long floor(long epochSecond) {
+            return Math.floorDiv(epochSecond, seconds) * seconds;
+        }
+    }
+
+    /**
+     * 计入一笔交易
+     *
+     * @author 薛鹏
+     * @param currency 货币代码
+     * @param timestamp 交易时间戳
+     * @param amount 交易金额
+     */
+    public void add(String currency, LocalDateTime timestamp, BigDecimal amount) {
+        Series target = series(currency);
+        adjust(target, timestamp, 1, target.toMinorUnits(amount));
+    }
+
+    /**
+     * 移出一笔交易
+     *
+     * @author 薛鹏
+     * @param currency 货币代码
+     * @param timestamp 交易时间戳
+     * @param amount 交易金额
+     */
+    public void remove(String currency, LocalDateTime timestamp, BigDecimal amount) {
+        Series target = series(currency);
+        adjust(target, timestamp, -1, -target.toMinorUnits(amount));
+    }
+
+    /**
+     * 调整一笔交易的金额，笔数不变
+     *
+     * @author 薛鹏
+     * @param currency 货币代码
+     * @param timestamp 交易时间戳
+     * @param before 原金额
+     * @param after 新金额
+     */
+    public void changeAmount(String currency, LocalDateTime timestamp, BigDecimal before, BigDecimal after) {
+        Series target = series(currency);
+        long delta = target.toMinorUnits(after) - target.toMinorUnits(before);
+        if (delta != 0) {
+            adjust(target, timestamp, 0, delta);
+        }
+    }
+
+    private void adjust(Series target, LocalDateTime timestamp, int count, long minorUnits) {
+        if (timestamp == null) {
+            return;
+        }
+        long epochSecond = timestamp.atZone(zone).toEpochSecond();
+        long now = clock.instant().getEpochSecond();
+        for (Granularity granularity : GRANULARITIES) {
+            if (epochSecond < retainedFrom(granularity, now)) {
+                continue;
+            }
+            Bucket bucket = target.bucket(granularity, granularity.floor(epochSecond));
+            if (count != 0) {
+                bucket.count.add(count);
+            }
+            bucket.minorUnits.add(minorUnits);
+        }
+    }
+
+    /**
+     * 查询时间范围内的数据点
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     * @param currency 货币代码，为null时返回所有货币
+     * @param from 起始时间（UTC），按粒度向下取整，包含
+     * @param to 结束时间（UTC），不包含
+     * @return 返回查询结果
+     */
+    public TransactionRollupResponse query(Granularity granularity, String currency, LocalDateTime from, LocalDateTime to) {
+        long start = granularity.floor(from.toEpochSecond(ZoneOffset.UTC));
+        long end = to.toEpochSecond(ZoneOffset.UTC);
+        List<TransactionRollupPoint> points = new ArrayList<>();
+        if (start < end) {
+            if (currency != null) {
+                Series target = series.get(currency);
+                if (target != null) {
+                    collect(target, granularity, start, end, points);
+                }
+            } else {
+                for (Series target : series.values()) {
+                    collect(target, granularity, start, end, points);
+                }
+                points.sort(Comparator.comparing(TransactionRollupPoint::getStart)
+                        .thenComparing(TransactionRollupPoint::getCurrency, Comparator.nullsFirst(Comparator.naturalOrder())));
+            }
+        }
+        long retained = retainedFrom(granularity, clock.instant().getEpochSecond());
+        return new TransactionRollupResponse(granularity.name(), toDateTime(start), to,
+                retained == Long.MIN_VALUE ? null : toDateTime(retained), points);
+    }
+
+    private static void collect(Series target, Granularity granularity, long start, long end,
+                                List<TransactionRollupPoint> points) {
+        for (Map.Entry<Long, Bucket> entry : target.levels[granularity.ordinal()].subMap(start, end).entrySet()) {
+            long count = entry.getValue().count.sum();
+            if (count != 0) {
+                points.add(new TransactionRollupPoint(toDateTime(entry.getKey()), target.currency, count,
+                        CurrencyUnits.fromMinorUnits(entry.getValue().minorUnits.sum(), target.fractionDigits)));
+            }
+        }
+    }
+
+    /**
+     * 删除超过保留期的分钟桶和小时桶
+     *
+     * @author 薛鹏
+     * @return 返回删除的桶数
+     */
+    public int compact() {
+        long now = clock.instant().getEpochSecond();
+        int removed = 0;
+        for (Granularity granularity : GRANULARITIES) {
+            long cutoff = retainedFrom(granularity, now);
+            if (cutoff == Long.MIN_VALUE) {
+                continue;
+            }
+            for (Series target : series.values()) {
+                ConcurrentNavigableMap<Long, Bucket> expired = target.levels[granularity.ordinal()].headMap(cutoff);
+                removed += expired.size();
+                expired.clear();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 获取各粒度当前保存的桶数
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     * @return 返回所有货币的桶数之和
+     */
+    public int bucketCount(Granularity granularity) {
+        int count = 0;
+        for (Series target : series.values()) {
+            count += target.levels[granularity.ordinal()].size();
+        }
+        return count;
+    }
+
+    /**
+     * 计算某个粒度仍保留数据的最早时间
+     *
+     * @author 薛鹏
+     * @param granularity 时间桶粒度
+     * @param now 当前的纪元秒数
+     * @return 返回桶起始时间的纪元秒数；不过期时返回Long.MIN_VALUE
+     */
+    private long retainedFrom(Granularity granularity, long now) {
+        long retention = retentionSeconds[granularity.ordinal()];
+        return retention == Long.MAX_VALUE ? Long.MIN_VALUE : granularity.floor(now - retention);
+    }
+
+    private Series series(String currency) {
+        String key = currency == null ? NULL_CURRENCY : currency;
+        Series target = series.get(key);
+        return target != null ? target : series.computeIfAbsent(key, k -> new Series(currency));
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 一种货币在各粒度上的时间桶，以桶起始时间的纪元秒数为键
+     */
+    private static final class Series {
+        private final String currency;
+        private final int fractionDigits;
+        @SuppressWarnings("unchecked")
+        private final ConcurrentSkipListMap<Long, Bucket>[] levels = new ConcurrentSkipListMap[GRANULARITIES.length];
+
+        Series(String currency) {
+            this.currency = currency;
+            this.fractionDigits = CurrencyUnits.fractionDigits(currency);
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new ConcurrentSkipListMap<>();
+            }
+        }
+
+        Bucket bucket(Granularity granularity, long start) {
+            ConcurrentSkipListMap<Long, Bucket> level = levels[granularity.ordinal()];
+            Bucket bucket = level.get(start);
+            return bucket != null ? bucket : level.computeIfAbsent(start, k -> new Bucket());
+        }
+
+        long toMinorUnits(BigDecimal amount) {
+            return CurrencyUnits.toMinorUnits(amount, fractionDigits);
+        }
+    }
+
+    /**
+     * 一个时间桶的计数器
+     */
+    private static final class Bucket {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder minorUnits = new LongAdder();
+    }
+}
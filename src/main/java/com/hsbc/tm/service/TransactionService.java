@@ -1,10 +1,17 @@
 package com.hsbc.tm.service;
 
+import com.hsbc.tm.dto.TransactionBatchResponse;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
 import com.hsbc.tm.dto.TransactionRequest;
 import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.dto.TransactionStatsResponse;
+import com.hsbc.tm.model.TransactionFilter;
 import com.hsbc.tm.model.Transaction;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 交易服务接口
@@ -22,6 +29,28 @@ public interface TransactionService {
      * @return 返回创建的交易响应
      */
     TransactionResponse createTransaction(TransactionRequest request);
+
+    /**
+     * 按幂等键创建新交易
+     * 幂等键在保留期内已成功创建过交易时直接返回首次的响应，不再验证和保存；
+     * 同一幂等键的并发请求只执行一次创建，其余请求等待并返回同一响应；创建失败时不保留幂等键
+     * 
+     * @author 薛鹏
+     * @param request 包含交易详情的请求对象
+     * @param idempotencyKey 客户端提供的幂等键
+     * @return 返回创建的交易响应
+     */
+    TransactionResponse createTransaction(TransactionRequest request, String idempotencyKey);
+
+    /**
+     * 批量创建交易
+     * 无效的条目单独记录错误，不影响其他条目的创建
+     * 
+     * @author 薛鹏
+     * @param requests 交易请求列表
+     * @return 返回按请求顺序排列的逐条结果
+     */
+    TransactionBatchResponse createTransactions(List<TransactionRequest> requests);
     
     /**
      * 根据ID获取交易
@@ -31,6 +60,16 @@ public interface TransactionService {
      * @return 返回找到的交易响应
      */
     TransactionResponse getTransaction(String id);
+
+    /**
+     * 根据ID获取交易序列化后的JSON
+     * 编码结果按交易及其版本缓存，交易更新后旧版本的编码不再被使用，重复读取不再经过Jackson序列化
+     * 
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @return 返回交易响应的UTF-8编码JSON及其版本号
+     */
+    TransactionJson getTransactionJson(String id);
     
     /**
      * 获取所有交易
@@ -49,6 +88,36 @@ public interface TransactionService {
      * @return 返回指定页的交易列表
      */
     List<TransactionResponse> getAllTransactions(int page, int size);
+
+    /**
+     * 获取满足过滤条件的分页交易列表，按时间倒序排列
+     * 
+     * @author 薛鹏
+     * @param filter 按类型、货币、状态、金额范围和描述过滤的条件
+     * @param page 页码，从0开始
+     * @param size 每页的交易数量
+     * @return 返回指定页的交易列表
+     */
+    List<TransactionResponse> getTransactions(TransactionFilter filter, int page, int size);
+
+    /**
+     * 按游标获取交易列表
+     * 
+     * @author 薛鹏
+     * @param cursor 上一页返回的游标，为空时从第一条开始
+     * @param size 每页的交易数量
+     * @return 返回当前页的交易以及下一页的游标
+     */
+    TransactionPageResponse getTransactionsAfter(String cursor, int size);
+
+    /**
+     * 按时间倒序逐条导出全部交易
+     * 
+     * @author 薛鹏
+     * @param consumer 接收每条交易的回调
+     * @return 返回导出的交易数
+     */
+    long exportTransactions(Consumer<TransactionResponse> consumer);
     
     /**
      * 更新现有交易
@@ -59,6 +128,18 @@ public interface TransactionService {
      * @return 返回更新后的交易响应
      */
     TransactionResponse updateTransaction(String id, TransactionRequest request);
+
+    /**
+     * 仅当交易仍为指定版本时更新交易
+     * 对应HTTP的If-Match条件请求
+     * 
+     * @author 薛鹏
+     * @param id 要更新的交易ID
+     * @param request 包含更新信息的请求对象
+     * @param expectedVersion 客户端读取时的交易版本号
+     * @return 返回更新后的交易响应
+     */
+    TransactionResponse updateTransaction(String id, TransactionRequest request, long expectedVersion);
     
     /**
      * 删除交易
@@ -75,4 +156,33 @@ public interface TransactionService {
      * @return 返回系统中的交易总数
      */
     long countTransactions();
+
+    /**
+     * 获取满足过滤条件的交易数
+     * 
+     * @author 薛鹏
+     * @param filter 按类型、货币、状态、金额范围和描述过滤的条件
+     * @return 返回满足条件的交易数
+     */
+    long countTransactions(TransactionFilter filter);
+
+    /**
+     * 获取按货币、类型和状态分组的交易笔数和金额合计
+     * 
+     * @author 薛鹏
+     * @return 返回交易统计
+     */
+    TransactionStatsResponse getStatistics();
+
+    /**
+     * 获取按货币划分的时间序列
+     * 
+     * @author 薛鹏
+     * @param granularity 时间桶粒度：MINUTE、HOUR或DAY，不区分大小写
+     * @param currency 货币代码，为空时返回所有货币
+     * @param from ISO-8601格式的起始时间（UTC），包含
+     * @param to ISO-8601格式的结束时间（UTC），不包含
+     * @return 返回时间范围内各时间桶的笔数和金额合计
+     */
+    TransactionRollupResponse getRollups(String granularity, String currency, String from, String to);
 } 
\ No newline at end of file
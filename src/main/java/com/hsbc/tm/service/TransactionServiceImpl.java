@@ -1,16 +1,37 @@
 package com.hsbc.tm.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.config.CacheConfig;
+import com.hsbc.tm.dto.TransactionBatchItemResponse;
+import com.hsbc.tm.dto.TransactionBatchResponse;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
 import com.hsbc.tm.dto.TransactionRequest;
 import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.dto.TransactionStatsResponse;
 import com.hsbc.tm.exception.TransactionException;
 import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
 import com.hsbc.tm.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,17 +44,70 @@ import java.util.stream.Collectors;
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
+    /**
+     * 单次批量创建允许的最大条目数
+     */
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    /**
+     * 导出时每次从仓库读取的交易数
+     */
+    static final int EXPORT_PAGE_SIZE = 1_000;
+
+    /**
+     * 幂等键的最大长度
+     */
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final TransactionRepository transactionRepository;
+    private final TransactionStatistics transactionStatistics;
+    private final Cache missingTransactions;
+    private final Cache idempotentCreates;
+    private final Cache transactions;
+    private final Cache transactionJson;
+    private final ObjectMapper objectMapper;
+    private final TransactionIdGenerator idGenerator;
     
+    /**
+     * 构造函数，使用随机的交易ID
+     * 
+     * @author 薛鹏
+     * @param transactionRepository 交易数据访问层接口的实现
+     * @param transactionStatistics 增量维护的交易统计
+     * @param cacheManager 缓存管理器，未配置负缓存时不缓存不存在的交易ID，未配置幂等存储时忽略幂等键
+     * @param objectMapper 与HTTP响应相同配置的JSON序列化器
+     */
+    public TransactionServiceImpl(TransactionRepository transactionRepository,
+                                  TransactionStatistics transactionStatistics,
+                                  CacheManager cacheManager,
+                                  ObjectMapper objectMapper) {
+        this(transactionRepository, transactionStatistics, cacheManager, objectMapper, new TransactionIdGenerator());
+    }
+
     /**
      * 构造函数，通过依赖注入获取TransactionRepository实例
      * 
      * @author 薛鹏
      * @param transactionRepository 交易数据访问层接口的实现
+     * @param transactionStatistics 增量维护的交易统计
+     * @param cacheManager 缓存管理器，未配置负缓存时不缓存不存在的交易ID，未配置幂等存储时忽略幂等键
+     * @param objectMapper 与HTTP响应相同配置的JSON序列化器
+     * @param idGenerator 新交易ID的生成器
      */
     @Autowired
-    public TransactionServiceImpl(TransactionRepository transactionRepository) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository,
+                                  TransactionStatistics transactionStatistics,
+                                  CacheManager cacheManager,
+                                  ObjectMapper objectMapper,
+                                  TransactionIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
         this.transactionRepository = transactionRepository;
+        this.transactionStatistics = transactionStatistics;
+        this.missingTransactions = cacheManager.getCache(CacheConfig.MISSING_TRANSACTION_CACHE);
+        this.idempotentCreates = cacheManager.getCache(CacheConfig.IDEMPOTENCY_CACHE);
+        this.transactions = cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+        this.transactionJson = cacheManager.getCache(CacheConfig.TRANSACTION_JSON_CACHE);
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -47,9 +121,10 @@ public class TransactionServiceImpl implements TransactionService {
      */
     @Override
     public TransactionResponse createTransaction(TransactionRequest request) {
-        validateTransactionRequest(request);
+        TransactionValidator.validate(request);
         
         Transaction transaction = new Transaction(
+                idGenerator.next(),
                 request.getAmount(),
                 request.getDescription(),
                 request.getType(),
@@ -57,12 +132,105 @@ public class TransactionServiceImpl implements TransactionService {
         );
         
         Transaction savedTransaction = transactionRepository.save(transaction);
+        transactionStatistics.add(savedTransaction);
         return new TransactionResponse(savedTransaction);
     }
 
+    /**
+     * 按幂等键创建新交易
+     * 通过幂等存储的原子加载保证同一幂等键只执行一次创建，创建抛出的异常原样传递给所有等待的请求
+     * 
+     * @author 薛鹏
+     * @param request 包含交易详情的请求对象
+     * @param idempotencyKey 客户端提供的幂等键
+     * @return 返回创建的交易响应
+     * @throws TransactionException.InvalidTransactionException 当幂等键或请求数据无效时抛出异常
+     */
+    @Override
+    public TransactionResponse createTransaction(TransactionRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new TransactionException.InvalidTransactionException(
+                    "Idempotency key must be between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        if (idempotentCreates == null) {
+            return createTransaction(request);
+        }
+        try {
+            return idempotentCreates.get(idempotencyKey, () -> createTransaction(request));
+        } catch (Cache.ValueRetrievalException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 批量创建交易
+     * 先一次遍历验证全部条目，再通过仓库的批量保存一次写入所有有效条目
+     * 
+     * @author 薛鹏
+     * @param requests 交易请求列表
+     * @return 返回按请求顺序排列的逐条结果
+     * @throws TransactionException.InvalidTransactionException 当批次为空或超过最大条目数时抛出异常
+     */
+    @Override
+    public TransactionBatchResponse createTransactions(List<TransactionRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new TransactionException.InvalidTransactionException("Batch must contain at least one transaction");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new TransactionException.InvalidTransactionException(
+                    "Batch size must not exceed " + MAX_BATCH_SIZE);
+        }
+
+        TransactionBatchItemResponse[] results = new TransactionBatchItemResponse[requests.size()];
+        List<Transaction> pending = new ArrayList<>(requests.size());
+        List<Integer> positions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new TransactionException.InvalidTransactionException("Transaction request is required");
+                }
+                TransactionValidator.validate(request);
+            } catch (TransactionException e) {
+                results[i] = TransactionBatchItemResponse.failed(i, e.getCode(), e.getMessage());
+                continue;
+            }
+            pending.add(new Transaction(
+                    idGenerator.next(),
+                    request.getAmount(),
+                    request.getDescription(),
+                    request.getType(),
+                    request.getCurrency()
+            ));
+            positions.add(i);
+        }
+
+        List<Transaction> saved = transactionRepository.saveAll(pending);
+        for (Transaction transaction : saved) {
+            transactionStatistics.add(transaction);
+        }
+        Set<Transaction> savedSet = saved.size() == pending.size() ? null : new HashSet<>(saved);
+        for (int i = 0; i < pending.size(); i++) {
+            Transaction transaction = pending.get(i);
+            int position = positions.get(i);
+            if (savedSet == null || savedSet.contains(transaction)) {
+                results[position] = TransactionBatchItemResponse.created(position, new TransactionResponse(transaction));
+            } else {
+                TransactionException duplicate = new TransactionException.DuplicateTransactionException(transaction.getId());
+                results[position] = TransactionBatchItemResponse.failed(position, duplicate.getCode(), duplicate.getMessage());
+            }
+        }
+        return new TransactionBatchResponse(List.of(results));
+    }
+
     /**
      * 根据ID获取交易
-     * 使用Spring缓存机制减少数据库访问
+     * 缓存交易响应对象，命中时直接返回，不访问仓库；不存在的ID在负缓存中短期保留，重复查询时直接返回不存在
+     * 更新成功后以新版本写穿缓存，缓存中总是保留版本较高的条目，并发更新的写入顺序不影响结果；
+     * 未命中时写入读取到的版本后再确认仓库中仍是该版本，与并发的更新或删除交错时撤回写入的旧版本
      * 
      * @author 薛鹏
      * @param id 交易的唯一标识符
@@ -70,12 +238,104 @@ public class TransactionServiceImpl implements TransactionService {
      * @throws TransactionException.TransactionNotFoundException 当交易不存在时抛出异常
      */
     @Override
-    @Cacheable(value = "transaction", key = "#id")
     public TransactionResponse getTransaction(String id) {
-        Transaction transaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new TransactionException.TransactionNotFoundException(id));
-        
-        return new TransactionResponse(transaction);
+        TransactionResponse cached = transactions == null ? null : transactions.get(id, TransactionResponse.class);
+        if (cached != null) {
+            return cached;
+        }
+        TransactionResponse response = new TransactionResponse(findExisting(id));
+        if (transactions != null) {
+            putLoaded(transactions, id, response, response.getVersion());
+        }
+        return response;
+    }
+
+    /**
+     * 根据ID获取交易序列化后的JSON
+     * 缓存的是编码后的字节，命中时控制器直接写出，不再经过Jackson，也不访问仓库；
+     * 更新成功后移除旧版本的编码，未命中时与交易响应缓存相同，写入后确认仓库中仍是该版本
+     * 
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @return 返回交易响应的UTF-8编码JSON及其版本号
+     * @throws TransactionException.TransactionNotFoundException 当交易不存在时抛出异常
+     */
+    @Override
+    public TransactionJson getTransactionJson(String id) {
+        TransactionJson cached = transactionJson == null ? null : transactionJson.get(id, TransactionJson.class);
+        if (cached != null) {
+            return cached;
+        }
+        Transaction transaction = findExisting(id);
+        TransactionJson encoded;
+        try {
+            encoded = new TransactionJson(transaction.getVersion(),
+                    objectMapper.writeValueAsBytes(new TransactionResponse(transaction)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize transaction " + id, e);
+        }
+        if (transactionJson != null) {
+            putLoaded(transactionJson, id, encoded, encoded.getVersion());
+        }
+        return encoded;
+    }
+
+    /**
+     * 写入从仓库读取的条目
+     * 读取之后、写入之前交易可能已被更新或删除，而更新和删除对缓存的修改可能早于这次写入；
+     * 写入后再读一次仓库，交易已不存在或已不是该版本时只撤回这次写入的条目，不影响更新写入的新版本
+     * 
+     * @author 薛鹏
+     * @param cache 缓存
+     * @param id 交易的唯一标识符
+     * @param value 要写入的条目
+     * @param version 条目对应的交易版本
+     */
+    private void putLoaded(Cache cache, String id, Object value, long version) {
+        ConcurrentMap<Object, Object> entries = asMap(cache);
+        entries.putIfAbsent(id, value);
+        Transaction current = transactionRepository.findById(id).orElse(null);
+        if (current == null || current.getVersion() != version) {
+            entries.remove(id, value);
+        }
+    }
+
+    /**
+     * 获取缓存底层的并发映射，用于Spring缓存接口不支持的条件写入和条件删除
+     * 
+     * @author 薛鹏
+     * @param cache 缓存
+     * @return 返回缓存条目的并发映射
+     */
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Object, Object> asMap(Cache cache) {
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return (ConcurrentMap<Object, Object>) caffeine.asMap();
+        }
+        return (ConcurrentMap<Object, Object>) nativeCache;
+    }
+
+    /**
+     * 从仓库查找交易，不存在的ID记入负缓存
+     * 
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @return 返回找到的交易
+     * @throws TransactionException.TransactionNotFoundException 当交易不存在时抛出异常
+     */
+    private Transaction findExisting(String id) {
+        if (missingTransactions != null && missingTransactions.get(id) != null) {
+            throw new TransactionException.TransactionNotFoundException(id);
+        }
+        Transaction transaction = transactionRepository.findById(id).orElse(null);
+        if (transaction == null) {
+            if (missingTransactions != null) {
+                missingTransactions.put(id, Boolean.TRUE);
+            }
+            throw new TransactionException.TransactionNotFoundException(id);
+        }
+        return transaction;
     }
 
     /**
@@ -106,9 +366,87 @@ public class TransactionServiceImpl implements TransactionService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 获取满足过滤条件的分页交易列表
+     * 
+     * @author 薛鹏
+     * @param filter 按类型、货币、状态、金额范围和描述过滤的条件
+     * @param page 页码，从0开始
+     * @param size 每页的交易数量
+     * @return 返回指定页的交易列表
+     * @throws TransactionException.InvalidTransactionException 当金额下限大于上限时抛出异常
+     */
+    @Override
+    public List<TransactionResponse> getTransactions(TransactionFilter filter, int page, int size) {
+        validateAmountRange(filter);
+        return transactionRepository.findAll(filter, page, size).stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按游标获取交易列表
+     * 当返回的交易数量等于页大小时，以最后一条交易的位置生成下一页游标
+     * 
+     * @author 薛鹏
+     * @param cursor 上一页返回的游标，为空时从第一条开始
+     * @param size 每页的交易数量
+     * @return 返回当前页的交易以及下一页的游标
+     * @throws TransactionException.InvalidTransactionException 当游标无效时抛出异常
+     */
+    @Override
+    public TransactionPageResponse getTransactionsAfter(String cursor, int size) {
+        TransactionCursor position = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                position = TransactionCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new TransactionException.InvalidTransactionException("Invalid cursor: " + cursor);
+            }
+        }
+
+        List<Transaction> transactions = transactionRepository.findAfter(position, size);
+        String nextCursor = transactions.size() < size
+                ? null
+                : TransactionCursor.of(transactions.get(transactions.size() - 1)).encode();
+
+        List<TransactionResponse> responses = transactions.stream()
+                .map(TransactionResponse::new)
+                .collect(Collectors.toList());
+        return new TransactionPageResponse(responses, nextCursor);
+    }
+
+    /**
+     * 按时间倒序逐条导出全部交易
+     * 以游标分页的方式分批读取，内存中最多只保留一页交易，
+     * 回调阻塞时（例如客户端读取缓慢）不会继续读取下一页
+     * 导出开始后新插入的交易排在游标之前，不会被导出，也不会导致重复或遗漏
+     * 
+     * @author 薛鹏
+     * @param consumer 接收每条交易的回调
+     * @return 返回导出的交易数
+     */
+    @Override
+    public long exportTransactions(Consumer<TransactionResponse> consumer) {
+        long exported = 0;
+        TransactionCursor cursor = null;
+        while (true) {
+            List<Transaction> page = transactionRepository.findAfter(cursor, EXPORT_PAGE_SIZE);
+            for (Transaction transaction : page) {
+                consumer.accept(new TransactionResponse(transaction));
+            }
+            exported += page.size();
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                return exported;
+            }
+            cursor = TransactionCursor.of(page.get(page.size() - 1));
+        }
+    }
+
     /**
      * 更新现有交易
-     * 验证更新数据的有效性，并在成功时清除缓存
+     * 验证更新数据的有效性，成功时以更新后的交易刷新缓存，之后的读取不会未命中；编码后的JSON随之失效
+     * 请求中带有版本号时，只有交易的当前版本与之相同才执行更新
      * 
      * @author 薛鹏
      * @param id 要更新的交易ID
@@ -116,36 +454,110 @@ public class TransactionServiceImpl implements TransactionService {
      * @return 返回更新后的交易响应
      * @throws TransactionException.TransactionNotFoundException 当交易不存在时抛出异常
      * @throws TransactionException.InvalidTransactionException 当请求数据无效时抛出异常
+     * @throws TransactionException.VersionConflictException 当请求中的版本号不是交易的当前版本时抛出异常
      */
     @Override
-    @CacheEvict(value = "transaction", key = "#id")
     public TransactionResponse updateTransaction(String id, TransactionRequest request) {
-        validateTransactionRequest(request);
-        
-        Transaction existingTransaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new TransactionException.TransactionNotFoundException(id));
-        
-        existingTransaction.setAmount(request.getAmount());
-        existingTransaction.setDescription(request.getDescription());
-        existingTransaction.setType(request.getType());
-        existingTransaction.setCurrency(request.getCurrency());
-        
-        transactionRepository.update(existingTransaction);
-        
-        return new TransactionResponse(existingTransaction);
+        return update(id, request, null);
+    }
+
+    /**
+     * 仅当交易仍为指定版本时更新交易
+     * 
+     * @author 薛鹏
+     * @param id 要更新的交易ID
+     * @param request 包含更新信息的请求对象
+     * @param expectedVersion 客户端读取时的交易版本号
+     * @return 返回更新后的交易响应
+     * @throws TransactionException.TransactionNotFoundException 当交易不存在时抛出异常
+     * @throws TransactionException.InvalidTransactionException 当请求数据无效时抛出异常
+     * @throws TransactionException.PreconditionFailedException 当交易的当前版本不是指定版本时抛出异常
+     * @throws TransactionException.VersionConflictException 当请求中的版本号不是交易的当前版本时抛出异常
+     */
+    @Override
+    public TransactionResponse updateTransaction(String id, TransactionRequest request, long expectedVersion) {
+        return update(id, request, expectedVersion);
+    }
+
+    /**
+     * 以比较并交换的方式更新交易
+     * 读取当前版本，构造版本号加1的新交易对象，仅当仓库中仍是读取到的对象时替换；
+     * 替换失败说明交易已被并发更新，重新读取后再次检查版本条件，无条件的更新重试直到成功
+     * 已存储的交易对象从不被修改，并发的读取和缓存不会看到更新了一半的交易；
+     * 替换成功后才写入缓存，并发的更新以任意顺序写入时缓存中都保留版本较高的一个
+     * 
+     * @author 薛鹏
+     * @param id 要更新的交易ID
+     * @param request 包含更新信息的请求对象
+     * @param ifMatchVersion If-Match条件中的版本号，为null时不检查
+     * @return 返回更新后的交易响应
+     */
+    private TransactionResponse update(String id, TransactionRequest request, Long ifMatchVersion) {
+        TransactionValidator.validate(request);
+
+        while (true) {
+            Transaction current = transactionRepository.findById(id)
+                    .orElseThrow(() -> new TransactionException.TransactionNotFoundException(id));
+            if (ifMatchVersion != null && current.getVersion() != ifMatchVersion) {
+                throw new TransactionException.PreconditionFailedException(id, "\"" + ifMatchVersion + "\"");
+            }
+            if (request.getVersion() != null && current.getVersion() != request.getVersion()) {
+                throw new TransactionException.VersionConflictException(id, request.getVersion(), current.getVersion());
+            }
+
+            Transaction replacement = new Transaction(current.getId(), request.getAmount(), request.getDescription(),
+                    request.getType(), current.getTimestamp(), request.getCurrency(), current.getStatus());
+            replacement.setVersion(current.getVersion() + 1);
+            if (transactionRepository.replace(current, replacement)) {
+                transactionStatistics.replace(TransactionStatistics.Entry.of(current), replacement);
+                TransactionResponse response = new TransactionResponse(replacement);
+                cacheUpdated(id, response);
+                return response;
+            }
+        }
+    }
+
+    /**
+     * 以更新后的版本刷新缓存
+     * 交易响应缓存保留版本较高的条目，JSON缓存移除版本较低的编码，并发更新的写入顺序不影响结果；
+     * 替换之后交易可能已被删除且删除已清除了缓存，此时撤回写入的条目
+     * 
+     * @author 薛鹏
+     * @param id 交易的唯一标识符
+     * @param response 更新后的交易响应
+     */
+    private void cacheUpdated(String id, TransactionResponse response) {
+        if (transactions != null) {
+            ConcurrentMap<Object, Object> entries = asMap(transactions);
+            entries.merge(id, response, (cached, updated) ->
+                    ((TransactionResponse) cached).getVersion() >= response.getVersion() ? cached : updated);
+            if (!transactionRepository.existsById(id)) {
+                entries.remove(id, response);
+            }
+        }
+        if (transactionJson != null) {
+            asMap(transactionJson).computeIfPresent(id, (key, cached) ->
+                    ((TransactionJson) cached).getVersion() < response.getVersion() ? null : cached);
+        }
     }
 
     /**
      * 删除交易
-     * 删除后清除交易缓存
+     * 删除后清除交易缓存和编码后的JSON
      * 
      * @author 薛鹏
      * @param id 要删除的交易ID
+     * @throws TransactionException.TransactionNotFoundException 当交易不存在时抛出异常
      */
     @Override
-    @CacheEvict(value = "transaction", key = "#id")
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.TRANSACTION_CACHE, key = "#id"),
+            @CacheEvict(value = CacheConfig.TRANSACTION_JSON_CACHE, key = "#id")
+    })
     public void deleteTransaction(String id) {
-        transactionRepository.deleteById(id);
+        // 统计扣除的必须是删除时的最终版本，先读取再删除时中间的并发更新会使统计扣除旧的金额
+        Transaction removed = transactionRepository.deleteById(id);
+        transactionStatistics.remove(removed);
     }
 
     /**
@@ -158,26 +570,74 @@ public class TransactionServiceImpl implements TransactionService {
     public long countTransactions() {
         return transactionRepository.count();
     }
-    
+
     /**
-     * 验证交易请求数据的有效性
-     * 检查金额、类型和货币是否有效
+     * 获取满足过滤条件的交易数
      * 
      * @author 薛鹏
-     * @param request 要验证的交易请求
-     * @throws TransactionException.InvalidTransactionException 当验证失败时抛出异常
+     * @param filter 按类型、货币、状态、金额范围和描述过滤的条件
+     * @return 返回满足条件的交易数
+     * @throws TransactionException.InvalidTransactionException 当金额下限大于上限时抛出异常
      */
-    private void validateTransactionRequest(TransactionRequest request) {
-        if (request.getAmount() == null || request.getAmount().doubleValue() <= 0) {
-            throw new TransactionException.InvalidTransactionException("Transaction amount must be positive");
+    @Override
+    public long countTransactions(TransactionFilter filter) {
+        validateAmountRange(filter);
+        return transactionRepository.count(filter);
+    }
+
+    private static void validateAmountRange(TransactionFilter filter) {
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null
+                && filter.getMinAmount().compareTo(filter.getMaxAmount()) > 0) {
+            throw new TransactionException.InvalidTransactionException("Minimum amount must not exceed maximum amount");
         }
-        
-        if (request.getType() == null || request.getType().trim().isEmpty()) {
-            throw new TransactionException.InvalidTransactionException("Transaction type is required");
+    }
+
+    /**
+     * 获取按货币、类型和状态分组的交易笔数和金额合计
+     * 由增量维护的计数器直接生成，耗时只与分组数有关
+     * 
+     * @author 薛鹏
+     * @return 返回交易统计
+     */
+    @Override
+    public TransactionStatsResponse getStatistics() {
+        return transactionStatistics.snapshot();
+    }
+
+    /**
+     * 获取按货币划分的时间序列
+     * 由增量维护的时间桶直接生成，耗时只与时间范围内的桶数有关
+     * 
+     * @author 薛鹏
+     * @param granularity 时间桶粒度：MINUTE、HOUR或DAY，不区分大小写
+     * @param currency 货币代码，为空时返回所有货币
+     * @param from ISO-8601格式的起始时间（UTC），包含
+     * @param to ISO-8601格式的结束时间（UTC），不包含
+     * @return 返回时间范围内各时间桶的笔数和金额合计
+     * @throws TransactionException.InvalidTransactionException 当粒度或时间范围无效时抛出异常
+     */
+    @Override
+    public TransactionRollupResponse getRollups(String granularity, String currency, String from, String to) {
+        TransactionRollups.Granularity bucket;
+        try {
+            bucket = TransactionRollups.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new TransactionException.InvalidTransactionException("Invalid granularity: " + granularity);
         }
-        
-        if (request.getCurrency() == null || request.getCurrency().trim().isEmpty()) {
-            throw new TransactionException.InvalidTransactionException("Transaction currency is required");
+        LocalDateTime start = parseTime(from);
+        LocalDateTime end = parseTime(to);
+        if (!start.isBefore(end)) {
+            throw new TransactionException.InvalidTransactionException("Time range start must be before its end");
+        }
+        return transactionStatistics.getRollups()
+                .query(bucket, currency == null || currency.isEmpty() ? null : currency, start, end);
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new TransactionException.InvalidTransactionException("Invalid time: " + value);
         }
     }
 } 
\ No newline at end of file
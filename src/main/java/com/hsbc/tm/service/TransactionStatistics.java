@@ -0,0 +1,252 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.dto.TransactionStatsGroup;
+import com.hsbc.tm.dto.TransactionStatsResponse;
+import com.hsbc.tm.model.CurrencyUnits;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按(货币, 类型, 状态)分组增量维护的交易统计
+ * 每次创建、更新和删除时由服务层调整对应分组的笔数和金额合计，以及按货币划分的时间序列，
+ * 查询时只需遍历分组，耗时与存储的交易数无关
+ *
+ * 计数器使用分段的LongAdder，并发写入不会争用同一个缓存行；
+ * 金额以货币最小单位的long累加，与列式存储的换算规则一致；服务层拒绝小数位数超过最小单位的金额，
+ * 因此换算不会舍入，合计与存储的金额一致（仓库中不经过服务层验证的旧交易仍按银行家舍入法换算）
+ * 读取各分组时不加锁，并发写入期间读到的是各计数器在读取时刻的值
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Component
+public class TransactionStatistics {
+
+    private static final int SEED_PAGE_SIZE = 1_000;
+
+    private final ConcurrentMap<GroupKey, Group> groups = new ConcurrentHashMap<>();
+    private final TransactionRollups rollups;
+
+    /**
+     * 构造函数，创建空的统计，时间序列使用默认的保留期
+     *
+     * @author 薛鹏
+     */
+    public TransactionStatistics() {
+        this.rollups = new TransactionRollups();
+    }
+
+    /**
+     * 构造函数，以仓库中已有的交易初始化统计
+     * 仓库在启动时可能已从快照和预写日志恢复了交易，这些交易不经过服务层
+     *
+     * @author 薛鹏
+     * @param transactionRepository 交易数据访问层接口的实现
+     * @param minuteRetention 分钟桶的保留期
+     * @param hourRetention 小时桶的保留期
+     */
+    @Autowired
+    public TransactionStatistics(TransactionRepository transactionRepository,
+                                 @Value("${tm.rollup.minute-retention:2d}") Duration minuteRetention,
+                                 @Value("${tm.rollup.hour-retention:90d}") Duration hourRetention) {
+        this.rollups = new TransactionRollups(minuteRetention, hourRetention, Clock.systemDefaultZone());
+        TransactionCursor cursor = null;
+        while (true) {
+            List<Transaction> page = transactionRepository.findAfter(cursor, SEED_PAGE_SIZE);
+            for (Transaction transaction : page) {
+                add(transaction);
+            }
+            if (page.size() < SEED_PAGE_SIZE) {
+                return;
+            }
+            cursor = TransactionCursor.of(page.get(page.size() - 1));
+        }
+    }
+
+    /**
+     * 记录新增的交易
+     *
+     * @author 薛鹏
+     * @param transaction 新增的交易
+     */
+    public void add(Transaction transaction) {
+        Entry entry = Entry.of(transaction);
+        apply(entry, 1);
+        rollups.add(entry.key.currency, entry.timestamp, entry.amount);
+    }
+
+    /**
+     * 记录删除的交易
+     *
+     * @author 薛鹏
+     * @param transaction 被删除的交易
+     */
+    public void remove(Transaction transaction) {
+        Entry entry = Entry.of(transaction);
+        apply(entry, -1);
+        rollups.remove(entry.key.currency, entry.timestamp, entry.amount);
+    }
+
+    /**
+     * 记录交易的修改
+     * 分组不变时只调整金额差值；分组变化时从旧分组移出并加入新分组
+     *
+     * @author 薛鹏
+     * @param before 被替换的旧版本由{@link Entry#of(Transaction)}记录的状态
+     * @param after 修改后的交易
+     */
+    public void replace(Entry before, Transaction after) {
+        Entry current = Entry.of(after);
+        if (before.key.equals(current.key)) {
+            Group group = group(current.key);
+            group.minorUnits.add(group.toMinorUnits(current.amount) - group.toMinorUnits(before.amount));
+        } else {
+            apply(before, -1);
+            apply(current, 1);
+        }
+
+        if (Objects.equals(before.key.currency, current.key.currency)
+                && Objects.equals(before.timestamp, current.timestamp)) {
+            rollups.changeAmount(current.key.currency, current.timestamp, before.amount, current.amount);
+        } else {
+            rollups.remove(before.key.currency, before.timestamp, before.amount);
+            rollups.add(current.key.currency, current.timestamp, current.amount);
+        }
+    }
+
+    /**
+     * 获取按货币划分的时间序列
+     *
+     * @author 薛鹏
+     * @return 返回时间序列
+     */
+    public TransactionRollups getRollups() {
+        return rollups;
+    }
+
+    /**
+     * 获取当前的统计
+     * 笔数为0的分组不出现在结果中
+     *
+     * @author 薛鹏
+     * @return 返回按货币、类型、状态排序的分组统计
+     */
+    public TransactionStatsResponse snapshot() {
+        List<TransactionStatsGroup> result = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> {
+            long count = group.count.sum();
+            if (count != 0) {
+                result.add(new TransactionStatsGroup(key.currency, key.type, key.status, count,
+                        CurrencyUnits.fromMinorUnits(group.minorUnits.sum(), group.fractionDigits)));
+            }
+        });
+        result.sort(Comparator.comparing(TransactionStatsGroup::getCurrency, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(TransactionStatsGroup::getType, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(TransactionStatsGroup::getStatus, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return new TransactionStatsResponse(result);
+    }
+
+    private void apply(Entry entry, int sign) {
+        Group group = group(entry.key);
+        group.count.add(sign);
+        group.minorUnits.add(sign * group.toMinorUnits(entry.amount));
+    }
+
+    private Group group(GroupKey key) {
+        Group group = groups.get(key);
+        return group != null ? group : groups.computeIfAbsent(key, k -> new Group(CurrencyUnits.fractionDigits(k.currency)));
+    }
+
+    /**
+     * 交易在统计中的状态
+     * 记录一个交易版本计入的分组、金额和时间桶；已存储的版本不会被修改，更新时由被替换的旧版本得到原先计入的状态
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    public static final class Entry {
+        private final GroupKey key;
+        private final BigDecimal amount;
+        private final LocalDateTime timestamp;
+
+        private Entry(GroupKey key, BigDecimal amount, LocalDateTime timestamp) {
+            this.key = key;
+            this.amount = amount;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * 记录交易当前的分组、金额和时间戳
+         *
+         * @author 薛鹏
+         * @param transaction 交易
+         * @return 返回交易在统计中的状态
+         */
+        public static Entry of(Transaction transaction) {
+            return new Entry(new GroupKey(transaction.getCurrency(), transaction.getType(), transaction.getStatus()),
+                    transaction.getAmount(), transaction.getTimestamp());
+        }
+    }
+
+    /**
+     * 分组键，各字段都可以为null
+     */
+    private static final class GroupKey {
+        private final String currency;
+        private final String type;
+        private final String status;
+
+        GroupKey(String currency, String type, String status) {
+            this.currency = currency;
+            this.type = type;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GroupKey)) return false;
+            GroupKey that = (GroupKey) o;
+            return Objects.equals(currency, that.currency) && Objects.equals(type, that.type)
+                    && Objects.equals(status, that.status);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(currency, type, status);
+        }
+    }
+
+    /**
+     * 一个分组的计数器
+     */
+    private static final class Group {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder minorUnits = new LongAdder();
+        private final int fractionDigits;
+
+        Group(int fractionDigits) {
+            this.fractionDigits = fractionDigits;
+        }
+
+        long toMinorUnits(BigDecimal amount) {
+            return CurrencyUnits.toMinorUnits(amount, fractionDigits);
+        }
+    }
+}
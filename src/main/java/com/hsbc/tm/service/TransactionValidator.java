@@ -0,0 +1,47 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.CurrencyUnits;
+
+/**
+ * 交易请求的验证规则
+ * 单条创建、批量创建、更新和导入共用同一套规则
+ * 
+ * @author 薛鹏
+ * @version 1.0
+ */
+final class TransactionValidator {
+
+    private TransactionValidator() {
+    }
+
+    /**
+     * 验证交易请求数据的有效性
+     * 检查金额、类型和货币是否有效；金额的小数位数（忽略末尾的0）不能超过货币最小单位的位数，
+     * 统计和时间序列以最小单位累加金额，拒绝更精确的金额可保证合计与存储的金额一致
+     * 
+     * @author 薛鹏
+     * @param request 要验证的交易请求
+     * @throws TransactionException.InvalidTransactionException 当验证失败时抛出异常
+     */
+    static void validate(TransactionRequest request) {
+        if (request.getAmount() == null || request.getAmount().doubleValue() <= 0) {
+            throw new TransactionException.InvalidTransactionException("Transaction amount must be positive");
+        }
+        
+        if (request.getType() == null || request.getType().trim().isEmpty()) {
+            throw new TransactionException.InvalidTransactionException("Transaction type is required");
+        }
+        
+        if (request.getCurrency() == null || request.getCurrency().trim().isEmpty()) {
+            throw new TransactionException.InvalidTransactionException("Transaction currency is required");
+        }
+
+        int fractionDigits = CurrencyUnits.fractionDigits(request.getCurrency());
+        if (request.getAmount().stripTrailingZeros().scale() > fractionDigits) {
+            throw new TransactionException.InvalidTransactionException("Transaction amount must have at most "
+                    + fractionDigits + " decimal places for " + request.getCurrency());
+        }
+    }
+}
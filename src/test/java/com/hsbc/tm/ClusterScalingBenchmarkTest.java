@@ -0,0 +1,160 @@
+package com.hsbc.tm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 集群模式随节点数增加的吞吐量测试
+ * 依次在本机启动1、2、3个以集群模式组成集群的子进程（见{@link ServerProcess}），
+ * 固定数量的闭环客户端轮流向各节点发送请求：80%为按ID查询随机的已有交易（归属其他节点时被转发），
+ * 20%为创建交易（总在接收节点本地完成），另外每秒向任一节点发送一次需要分发到所有节点的计数查询，
+ * 预热后报告吞吐量、错误数和延迟分位数，并验证计数等于所有节点创建的交易数之和
+ * 所有节点共享本机的CPU，节点数超过CPU核数后吞吐量不会增加
+ * 客户端数通过系统属性tm.benchmark.clients指定，默认为64；最大节点数通过tm.benchmark.nodes指定，默认为3
+ * 运行方式：mvn test -Pbenchmark -Dtest=ClusterScalingBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class ClusterScalingBenchmarkTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(20);
+    private static final int SEED_TRANSACTIONS = 300;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 测试不同节点数下的吞吐量
+     *
+     * @author 薛鹏
+     * @throws Exception 当子进程启动或请求失败时抛出异常
+     */
+    @Test
+    @DisplayName("Measure cluster throughput as nodes are added")
+    void cluster_ThroughputByNodeCount() throws Exception {
+        int clients = Integer.getInteger("tm.benchmark.clients", 64);
+        int maxNodes = Integer.getInteger("tm.benchmark.nodes", 3);
+        List<String> rows = new ArrayList<>();
+        for (int nodes = 1; nodes <= maxNodes; nodes++) {
+            rows.add(run(nodes, clients));
+        }
+
+        System.out.println("-------- Cluster Scaling Results --------");
+        System.out.printf("%6s %8s %10s %8s %10s %10s %10s %10s%n", "nodes", "clients", "req/s", "errors",
+                "p50(ms)", "p99(ms)", "p99.9(ms)", "count(ms)");
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * 启动指定节点数的集群并施加负载
+     *
+     * @author 薛鹏
+     * @param nodes 节点数
+     * @param clients 并发客户端数
+     * @return 返回结果行
+     */
+    private String run(int nodes, int clients) throws Exception {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            ports.add(ServerProcess.freePort());
+        }
+        String members = String.join(",", ports.stream().map(port -> "http://localhost:" + port).toList());
+        List<ServerProcess> servers = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int port : ports) {
+                servers.add(new ServerProcess(port,
+                        "--tm.cluster.enabled=true",
+                        "--tm.cluster.nodes=" + members,
+                        "--tm.cluster.self=http://localhost:" + port,
+                        "--tm.cluster.secret=benchmark"));
+            }
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            for (ServerProcess server : servers) {
+                server.awaitStartup(client);
+            }
+            URI[] transactions = ports.stream()
+                    .map(port -> URI.create("http://localhost:" + port + "/api/transactions"))
+                    .toArray(URI[]::new);
+            String[] ids = ServerProcess.seed(client, SEED_TRANSACTIONS, transactions);
+
+            Histogram counts = new ConcurrentHistogram(3);
+            AtomicLong created = new AtomicLong(ids.length);
+            AtomicInteger probe = new AtomicInteger();
+            ServerProcess.LoadResult result = ServerProcess.closedLoop(executor, clients, i -> {
+                URI[] order = rotate(transactions, i);
+                AtomicInteger next = new AtomicInteger();
+                return () -> {
+                    URI target = order[next.getAndIncrement() % order.length];
+                    boolean create = ThreadLocalRandom.current().nextInt(5) == 0;
+                    boolean ok = ServerProcess.send(client, create
+                            ? ServerProcess.createRequest(target)
+                            : ServerProcess.getRequest(URI.create(target + "/"
+                                    + ids[ThreadLocalRandom.current().nextInt(ids.length)])));
+                    if (ok && create) {
+                        created.incrementAndGet();
+                    }
+                    return ok;
+                };
+            }, WARMUP, MEASUREMENT, Duration.ofSeconds(1), () -> {
+                long countStart = System.nanoTime();
+                assertTrue(ServerProcess.send(client, ServerProcess.getRequest(
+                        URI.create(transactions[probe.getAndIncrement() % nodes] + "/count"))));
+                counts.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - countStart));
+            });
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+            assertEquals(created.get(), count(client, transactions[nodes - 1]));
+            assertTrue(result.getLatencies().getTotalCount() > 0, "Some requests should complete");
+            return String.format("%6d %8d %10.0f %8d %10.2f %10.2f %10.2f %10.2f", nodes, clients,
+                    result.getThroughput(), result.getErrors(), result.millis(50), result.millis(99),
+                    result.millis(99.9), counts.getValueAtPercentile(50) / 1000.0);
+        } finally {
+            executor.shutdownNow();
+            for (ServerProcess server : servers) {
+                server.close();
+            }
+        }
+    }
+
+    private long count(HttpClient client, URI transactions) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(ServerProcess.getRequest(URI.create(transactions + "/count")),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("count").asLong();
+    }
+
+    private static URI[] rotate(URI[] transactions, int offset) {
+        URI[] rotated = new URI[transactions.length];
+        for (int i = 0; i < transactions.length; i++) {
+            rotated[i] = transactions[(i + offset) % transactions.length];
+        }
+        return rotated;
+    }
+}
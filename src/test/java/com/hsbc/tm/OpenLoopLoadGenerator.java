@@ -0,0 +1,329 @@
+package com.hsbc.tm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.model.CurrencyUnits;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环HTTP负载生成器
+ * 按固定的到达速率向REST接口发送请求，不等待前一个请求完成：第i个请求的计划发送时间为start + i / rate，
+ * 延迟从计划发送时间开始计算，发送方落后（如GC停顿）时排队的等待同样计入延迟，避免协调遗漏（coordinated omission）
+ * 请求按读、写、列表的比例随机选择：读为按ID查询预先创建的交易，写为创建交易（金额的小数位数与货币一致），列表为查询第一页
+ * 每类请求的延迟以微秒记录在HDR直方图中
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class OpenLoopLoadGenerator {
+
+    /**
+     * 请求类型
+     */
+    public enum Operation {
+        READ, WRITE, LIST
+    }
+
+    private static final String[] TRANSACTION_TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CNY"};
+    private static final int SEED_TRANSACTIONS = 100;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final URI transactionsUri;
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> seededIds = new ArrayList<>();
+
+    /**
+     * 构造函数
+     *
+     * @author 薛鹏
+     * @param baseUri 服务的根地址，如http://localhost:8080
+     * @param virtualThreads 是否在虚拟线程上处理响应，否则使用按需创建的平台线程池
+     */
+    public OpenLoopLoadGenerator(URI baseUri, boolean virtualThreads) {
+        this.transactionsUri = baseUri.resolve("/api/transactions");
+        this.executor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newCachedThreadPool();
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 以固定速率运行一段时间的负载
+     * 首次运行前同步创建读请求使用的交易
+     *
+     * @author 薛鹏
+     * @param ratePerSecond 每秒发送的请求数
+     * @param duration 发送请求的持续时间
+     * @param mix 读、写、列表请求的比例
+     * @return 返回各类请求的延迟直方图和错误数
+     */
+    public Result run(int ratePerSecond, Duration duration, Mix mix) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        if (seededIds.isEmpty()) {
+            seed();
+        }
+        Result result = new Result();
+        long requests = duration.toNanos() * ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>((int) requests);
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = mix.next();
+            inFlight.add(client.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, failure) -> {
+                        result.record(operation, System.nanoTime() - intended,
+                                failure == null && response.statusCode() / 100 == 2);
+                        return null;
+                    }));
+        }
+        try {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for responses", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Requests did not complete within a minute", e);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * 关闭HTTP客户端使用的线程池
+     *
+     * @author 薛鹏
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void seed() {
+        for (int i = 0; i < SEED_TRANSACTIONS; i++) {
+            try {
+                HttpResponse<String> response = client.send(request(Operation.WRITE), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 201) {
+                    throw new IllegalStateException("Seeding failed with status " + response.statusCode());
+                }
+                seededIds.add(objectMapper.readTree(response.body()).get("id").asText());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while seeding", e);
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case READ -> HttpRequest.newBuilder(transactionsUri.resolve("/api/transactions/"
+                    + seededIds.get(random.nextInt(seededIds.size())))).GET().build();
+            case LIST -> HttpRequest.newBuilder(URI.create(transactionsUri + "?page=0&size=20")).GET().build();
+            case WRITE -> {
+                String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+                BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(100_000), 2)
+                        .setScale(CurrencyUnits.fractionDigits(currency), RoundingMode.DOWN);
+                yield HttpRequest.newBuilder(transactionsUri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                                "{\"amount\":%s,\"description\":\"load test\",\"type\":\"%s\",\"currency\":\"%s\"}",
+                                amount.toPlainString(), TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)],
+                                currency)))
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * 读、写、列表请求的比例
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    public static class Mix {
+
+        private final int read;
+        private final int write;
+        private final int list;
+
+        /**
+         * 构造函数
+         *
+         * @author 薛鹏
+         * @param read 读请求的权重
+         * @param write 写请求的权重
+         * @param list 列表请求的权重
+         */
+        public Mix(int read, int write, int list) {
+            if (read < 0 || write < 0 || list < 0 || read + write + list == 0) {
+                throw new IllegalArgumentException("Mix weights must be non-negative and not all zero");
+            }
+            this.read = read;
+            this.write = write;
+            this.list = list;
+        }
+
+        /**
+         * 解析"读,写,列表"格式的权重，如"70,20,10"
+         *
+         * @author 薛鹏
+         * @param text 权重文本
+         * @return 返回请求比例
+         */
+        public static Mix parse(String text) {
+            String[] parts = text.split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Mix must be read,write,list weights: " + text);
+            }
+            return new Mix(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()));
+        }
+
+        Operation next() {
+            int value = ThreadLocalRandom.current().nextInt(read + write + list);
+            if (value < read) {
+                return Operation.READ;
+            }
+            return value < read + write ? Operation.WRITE : Operation.LIST;
+        }
+
+        @Override
+        public String toString() {
+            return read + "/" + write + "/" + list;
+        }
+    }
+
+    /**
+     * 一次运行的结果
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    public static class Result {
+
+        private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        private final Histogram all = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong writes = new AtomicLong();
+        private long elapsedNanos;
+
+        Result() {
+            for (Operation operation : Operation.values()) {
+                histograms.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            }
+        }
+
+        void record(Operation operation, long latencyNanos, boolean success) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+            histograms.get(operation).recordValue(micros);
+            all.recordValue(micros);
+            if (!success) {
+                errors.incrementAndGet();
+            } else if (operation == Operation.WRITE) {
+                writes.incrementAndGet();
+            }
+        }
+
+        /**
+         * 获取某类请求的延迟直方图，单位为微秒
+         *
+         * @author 薛鹏
+         * @param operation 请求类型
+         * @return 返回延迟直方图
+         */
+        public Histogram getHistogram(Operation operation) {
+            return histograms.get(operation);
+        }
+
+        /**
+         * 获取全部请求的延迟直方图，单位为微秒
+         *
+         * @author 薛鹏
+         * @return 返回延迟直方图
+         */
+        public Histogram getHistogram() {
+            return all;
+        }
+
+        /**
+         * 获取失败或返回非2xx状态码的请求数
+         *
+         * @author 薛鹏
+         * @return 返回错误数
+         */
+        public long getErrors() {
+            return errors.get();
+        }
+
+        /**
+         * 获取成功创建的交易数
+         *
+         * @author 薛鹏
+         * @return 返回成功的写请求数
+         */
+        public long getWrites() {
+            return writes.get();
+        }
+
+        /**
+         * 输出各类请求的请求数和p50、p99、p99.9、最大延迟，单位为毫秒
+         *
+         * @author 薛鹏
+         */
+        public void print() {
+            System.out.printf("%8s %10s %10s %10s %10s %10s%n", "op", "count", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+            for (Operation operation : Operation.values()) {
+                print(operation.name(), histograms.get(operation));
+            }
+            print("ALL", all);
+            System.out.printf("Achieved rate: %.1f req/s, errors: %d%n",
+                    all.getTotalCount() * 1e9 / elapsedNanos, errors.get());
+        }
+
+        private static void print(String name, Histogram histogram) {
+            System.out.printf("%8s %10d %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                    millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.hsbc.tm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Servlet接口与响应式接口在大量长连接下的延迟对比测试
+ * 在子进程中同时启用两套接口（见{@link ServerProcess}），依次对Tomcat端口和Reactor Netty端口施加相同的闭环负载：
+ * 固定数量的保持连接的客户端（每个客户端一个虚拟线程，顺序发送请求），读写比例为4:1，
+ * 预热后将每个请求的延迟记录在HDR直方图中，并报告吞吐量、p50、p99、p99.9、最大延迟和子进程的线程数
+ * 连接数通过系统属性tm.benchmark.connections指定，默认为5000
+ * 运行方式：mvn test -Pbenchmark -Dtest=ReactiveApiBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class ReactiveApiBenchmarkTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(20);
+    private static final int SEED_TRANSACTIONS = 100;
+
+    /**
+     * 测试两套接口在相同连接数下的延迟分布
+     *
+     * @author 薛鹏
+     * @throws Exception 当子进程启动或请求失败时抛出异常
+     */
+    @Test
+    @DisplayName("Compare servlet and reactive API latency under many keep-alive clients")
+    void servletVersusReactive_LatencyUnderKeepAliveClients() throws Exception {
+        int connections = Integer.getInteger("tm.benchmark.connections", 5000);
+        int reactivePort = ServerProcess.freePort();
+        List<String> rows = new ArrayList<>();
+        try (ServerProcess server = new ServerProcess(
+                "--tm.reactive.enabled=true",
+                "--tm.reactive.port=" + reactivePort,
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000")) {
+            HttpClient probe = HttpClient.newHttpClient();
+            server.awaitStartup(probe);
+            rows.add(run("servlet", URI.create("http://localhost:" + server.getPort() + "/api/transactions"),
+                    connections, server));
+            rows.add(run("reactive", URI.create("http://localhost:" + reactivePort + "/api/transactions"),
+                    connections, server));
+        }
+
+        System.out.println("-------- Servlet vs Reactive API Results --------");
+        System.out.printf("%10s %12s %10s %10s %10s %10s %10s %10s %12s%n", "api", "connections", "req/s", "errors",
+                "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "jvm-threads");
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * 对一套接口施加负载
+     *
+     * @author 薛鹏
+     * @param api 接口名称
+     * @param transactions 交易接口的地址
+     * @param connections 并发连接数
+     * @param server 应用进程
+     * @return 返回结果行
+     */
+    private String run(String api, URI transactions, int connections, ServerProcess server) throws Exception {
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clients)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            String[] ids = ServerProcess.seed(client, SEED_TRANSACTIONS, transactions);
+            AtomicLong threadsMax = new AtomicLong();
+            ServerProcess.LoadResult result = ServerProcess.closedLoop(clients, connections,
+                    i -> () -> ServerProcess.sendMixed(client, transactions, ids), WARMUP, MEASUREMENT,
+                    Duration.ofMillis(500), () -> threadsMax.accumulateAndGet(server.status("Threads"), Math::max));
+
+            assertTrue(result.getLatencies().getTotalCount() > 0, "Some requests should complete");
+            return String.format("%10s %12d %10.0f %10d %10.2f %10.2f %10.2f %10.2f %12d", api, connections,
+                    result.getThroughput(), result.getErrors(), result.millis(50), result.millis(99),
+                    result.millis(99.9), result.getLatencies().getMaxValue() / 1000.0, threadsMax.get());
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+}
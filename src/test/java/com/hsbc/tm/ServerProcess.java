@@ -0,0 +1,376 @@
+package com.hsbc.tm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+/**
+ * 在子进程中运行的应用，供需要单独测量服务端进程的基准测试和多进程的集群测试使用
+ * 子进程使用当前测试的类路径，以-Xmx384m启动并关闭devtools重启；
+ * 预写日志写入临时目录，关闭时删除
+ * 另外提供各基准测试共用的闭环客户端：创建和查询交易的请求、预先创建交易，以及预热后测量的负载循环
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ServerProcess implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String CREATE_BODY =
+            "{\"amount\":10.00,\"description\":\"benchmark\",\"type\":\"DEPOSIT\",\"currency\":\"USD\"}";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Process process;
+    private final Path dataDirectory;
+    private final int port;
+
+    /**
+     * 启动应用
+     *
+     * @author 薛鹏
+     * @param arguments 额外的应用参数，如--spring.threads.virtual.enabled=true
+     * @throws IOException 当临时目录或进程无法创建时抛出异常
+     */
+    public ServerProcess(String... arguments) throws IOException {
+        this(freePort(), arguments);
+    }
+
+    /**
+     * 在指定端口启动应用
+     * 用于启动前就需要知道各自地址的多个进程，例如集群的各个节点
+     *
+     * @author 薛鹏
+     * @param port Servlet接口的端口
+     * @param arguments 额外的应用参数
+     * @throws IOException 当临时目录或进程无法创建时抛出异常
+     */
+    public ServerProcess(int port, String... arguments) throws IOException {
+        this.dataDirectory = Files.createTempDirectory("tm-benchmark");
+        this.port = port;
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx384m", "-Dspring.devtools.restart.enabled=false",
+                "-cp", System.getProperty("java.class.path"), TmApplication.class.getName(),
+                "--server.port=" + port,
+                "--tm.wal.directory=" + dataDirectory,
+                "--logging.level.com.hsbc.tm=WARN",
+                "--logging.level.root=WARN"));
+        command.addAll(List.of(arguments));
+        this.process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    /**
+     * 等待应用的健康检查通过
+     *
+     * @author 薛鹏
+     * @param client HTTP客户端
+     * @throws InterruptedException 当等待被中断时抛出异常
+     */
+    public void awaitStartup(HttpClient client) throws InterruptedException {
+        URI health = URI.create("http://localhost:" + port + "/actuator/health");
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with " + process.exitValue());
+            }
+            try {
+                if (client.send(HttpRequest.newBuilder(health).GET().build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 尚未开始监听
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Server did not start within 2 minutes");
+    }
+
+    /**
+     * 获取Servlet接口的端口
+     *
+     * @author 薛鹏
+     * @return 返回端口
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 读取子进程状态中的数值字段
+     *
+     * @author 薛鹏
+     * @param field 字段名，如VmRSS（单位为KB）或Threads
+     * @return 返回字段的数值
+     */
+    public long status(String field) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(process.pid()), "status"))) {
+                if (line.startsWith(field + ":")) {
+                    return Long.parseLong(line.substring(field.length() + 1).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalStateException("Missing " + field + " in /proc/" + process.pid() + "/status");
+    }
+
+    /**
+     * 停止应用并删除临时目录
+     *
+     * @author 薛鹏
+     * @throws InterruptedException 当等待进程退出被中断时抛出异常
+     */
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+        deleteRecursively(dataDirectory.toFile());
+    }
+
+    /**
+     * 获取一个当前空闲的端口
+     *
+     * @author 薛鹏
+     * @return 返回端口
+     * @throws IOException 当无法绑定端口时抛出异常
+     */
+    public static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 以闭环方式施加负载
+     * 每个客户端在执行器上顺序发送请求，前一个请求完成后才发送下一个；预热后只在测量期间记录成功请求的延迟和失败数，
+     * 测量期间每隔采样间隔调用一次采样器（例如读取子进程状态）；返回时已通知所有客户端停止，但可能仍有请求在途
+     *
+     * @author 薛鹏
+     * @param executor 运行客户端的执行器
+     * @param clients 客户端数
+     * @param client 按客户端序号创建发送一个请求的函数，请求成功时返回true
+     * @param warmup 预热时间
+     * @param measurement 测量时间
+     * @param sampleInterval 采样间隔
+     * @param sampler 采样器
+     * @return 返回测量结果
+     * @throws InterruptedException 当等待被中断时抛出异常
+     */
+    public static LoadResult closedLoop(ExecutorService executor, int clients, IntFunction<BooleanSupplier> client,
+                                        Duration warmup, Duration measurement, Duration sampleInterval,
+                                        Runnable sampler) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        Histogram latencies = new ConcurrentHistogram(3);
+        AtomicLong errors = new AtomicLong();
+        for (int i = 0; i < clients; i++) {
+            BooleanSupplier request = client.apply(i);
+            executor.submit(() -> {
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    boolean ok = request.getAsBoolean();
+                    if (measuring.get()) {
+                        if (ok) {
+                            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+
+        Thread.sleep(warmup.toMillis());
+        measuring.set(true);
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < measurement.toNanos()) {
+            Thread.sleep(sampleInterval.toMillis());
+            sampler.run();
+        }
+        measuring.set(false);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        return new LoadResult(latencies, errors.get(), seconds);
+    }
+
+    /**
+     * 预先创建交易，轮流发送到各个交易接口
+     *
+     * @author 薛鹏
+     * @param client HTTP客户端
+     * @param count 创建的交易数
+     * @param transactions 交易接口的地址
+     * @return 返回创建的交易ID
+     * @throws IOException 当请求失败时抛出异常
+     * @throws InterruptedException 当等待响应被中断时抛出异常
+     */
+    public static String[] seed(HttpClient client, int count, URI... transactions)
+            throws IOException, InterruptedException {
+        String[] ids = new String[count];
+        for (int i = 0; i < ids.length; i++) {
+            HttpResponse<String> response = client.send(createRequest(transactions[i % transactions.length]),
+                    HttpResponse.BodyHandlers.ofString());
+            ids[i] = OBJECT_MAPPER.readTree(response.body()).get("id").asText();
+        }
+        return ids;
+    }
+
+    /**
+     * 按4:1的读写比例发送一个请求：查询随机的已有交易，或创建交易
+     *
+     * @author 薛鹏
+     * @param client HTTP客户端
+     * @param transactions 交易接口的地址
+     * @param ids 已有交易的ID
+     * @return 返回码为2xx时返回true
+     */
+    public static boolean sendMixed(HttpClient client, URI transactions, String[] ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return send(client, random.nextInt(5) == 0
+                ? createRequest(transactions)
+                : getRequest(URI.create(transactions + "/" + ids[random.nextInt(ids.length)])));
+    }
+
+    /**
+     * 发送请求并丢弃响应体
+     *
+     * @author 薛鹏
+     * @param client HTTP客户端
+     * @param request 请求
+     * @return 返回码为2xx时返回true，请求失败时返回false
+     */
+    public static boolean send(HttpClient client, HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 创建GET请求
+     *
+     * @author 薛鹏
+     * @param uri 请求地址
+     * @return 返回请求
+     */
+    public static HttpRequest getRequest(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    /**
+     * 创建金额固定的交易创建请求
+     *
+     * @author 薛鹏
+     * @param transactions 交易接口的地址
+     * @return 返回请求
+     */
+    public static HttpRequest createRequest(URI transactions) {
+        return HttpRequest.newBuilder(transactions)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CREATE_BODY))
+                .build();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 闭环负载的测量结果
+     *
+     * @author 薛鹏
+     * @version 1.0
+     */
+    public static class LoadResult {
+
+        private final Histogram latencies;
+        private final long errors;
+        private final double seconds;
+
+        LoadResult(Histogram latencies, long errors, double seconds) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        /**
+         * 获取成功请求的延迟直方图，单位为微秒
+         *
+         * @author 薛鹏
+         * @return 返回延迟直方图
+         */
+        public Histogram getLatencies() {
+            return latencies;
+        }
+
+        /**
+         * 获取测量期间失败或返回非2xx状态码的请求数
+         *
+         * @author 薛鹏
+         * @return 返回错误数
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * 获取测量期间每秒完成的成功请求数
+         *
+         * @author 薛鹏
+         * @return 返回吞吐量
+         */
+        public double getThroughput() {
+            return latencies.getTotalCount() / seconds;
+        }
+
+        /**
+         * 获取指定分位的延迟，单位为毫秒
+         *
+         * @author 薛鹏
+         * @param percentile 分位，如99.9
+         * @return 返回延迟
+         */
+        public double millis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.hsbc.tm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 平台线程与虚拟线程请求处理模式的吞吐量和内存对比测试
+ * 每种模式在独立的子进程中启动应用（见{@link ServerProcess}，启用PER_WRITE预写日志，使创建请求阻塞等待落盘），
+ * 由本进程以固定数量的连接（每个连接一个虚拟线程，顺序发送请求）施加闭环负载，读写比例为4:1，
+ * 预热后统计每秒完成的请求数，并采样子进程的常驻内存（/proc/pid/status的VmRSS）和线程数
+ * 连接数通过系统属性tm.benchmark.connections指定，默认为1000和10000
+ * 运行方式：mvn test -Pbenchmark -Dtest=VirtualThreadBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class VirtualThreadBenchmarkTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(20);
+    private static final int SEED_TRANSACTIONS = 100;
+
+    /**
+     * 测试不同连接数下两种模式的吞吐量和常驻内存
+     *
+     * @author 薛鹏
+     * @throws Exception 当子进程启动或请求失败时抛出异常
+     */
+    @Test
+    @DisplayName("Compare throughput and RSS of platform and virtual thread request handling")
+    void platformVersusVirtualThreads_ThroughputAndRss() throws Exception {
+        int[] connectionCounts = Arrays.stream(System.getProperty("tm.benchmark.connections", "1000,10000").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim()))
+                .toArray();
+
+        List<String> rows = new ArrayList<>();
+        for (int connections : connectionCounts) {
+            for (boolean virtualThreads : new boolean[]{false, true}) {
+                rows.add(run(connections, virtualThreads));
+            }
+        }
+
+        System.out.println("-------- Platform vs Virtual Thread Results --------");
+        System.out.printf("%12s %10s %12s %10s %14s %14s %10s%n", "connections", "threads", "req/s", "errors",
+                "rss-avg(MB)", "rss-max(MB)", "jvm-threads");
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * 以指定模式启动应用并施加负载
+     *
+     * @author 薛鹏
+     * @param connections 并发连接数
+     * @param virtualThreads 是否启用虚拟线程
+     * @return 返回结果行
+     */
+    private String run(int connections, boolean virtualThreads) throws Exception {
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clients)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        try (ServerProcess server = new ServerProcess(
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000",
+                "--tm.wal.enabled=true",
+                "--tm.wal.flush-policy=PER_WRITE")) {
+            URI transactions = URI.create("http://localhost:" + server.getPort() + "/api/transactions");
+            server.awaitStartup(client);
+            String[] ids = ServerProcess.seed(client, SEED_TRANSACTIONS, transactions);
+
+            AtomicLong rssTotal = new AtomicLong();
+            AtomicLong rssMax = new AtomicLong();
+            AtomicLong threadsMax = new AtomicLong();
+            AtomicLong samples = new AtomicLong();
+            ServerProcess.LoadResult result = ServerProcess.closedLoop(clients, connections,
+                    i -> () -> ServerProcess.sendMixed(client, transactions, ids), WARMUP, MEASUREMENT,
+                    Duration.ofMillis(500), () -> {
+                        long rss = server.status("VmRSS");
+                        rssTotal.addAndGet(rss);
+                        rssMax.accumulateAndGet(rss, Math::max);
+                        threadsMax.accumulateAndGet(server.status("Threads"), Math::max);
+                        samples.incrementAndGet();
+                    });
+
+            assertTrue(result.getLatencies().getTotalCount() > 0, "Some requests should complete");
+            return String.format("%12d %10s %12.0f %10d %14.1f %14.1f %10d", connections,
+                    virtualThreads ? "virtual" : "platform", result.getThroughput(), result.getErrors(),
+                    rssTotal.get() / (double) samples.get() / 1024, rssMax.get() / 1024.0, threadsMax.get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
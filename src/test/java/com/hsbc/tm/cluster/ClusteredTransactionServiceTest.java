@@ -0,0 +1,274 @@
+package com.hsbc.tm.cluster;
+
+import com.hsbc.tm.ServerProcess;
+import com.hsbc.tm.TmApplication;
+import com.hsbc.tm.dto.TransactionPageResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionStatsGroup;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionId;
+import com.hsbc.tm.repository.TransactionRepository;
+import com.hsbc.tm.service.TransactionIdGenerator;
+import com.hsbc.tm.service.TransactionService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 集群交易服务的集成测试类
+ * 在同一JVM的两个端口上启动两个以集群模式组成集群的应用上下文，
+ * 验证不带幂等键的创建总在本地完成、带幂等键的创建在负责该键的节点上去重、按ID的读写删除被路由到负责的节点、
+ * 列表和游标分页跨节点按时间倒序归并、计数和统计在各节点之间求和，以及内部接口要求集群密钥
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ClusteredTransactionServiceTest {
+
+    private static final int PER_NODE = 15;
+    private static final String SECRET = "cluster-test-secret";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static String addressA;
+    private static String addressB;
+
+    @BeforeAll
+    static void startCluster() throws Exception {
+        int portA = ServerProcess.freePort();
+        int portB = ServerProcess.freePort();
+        addressA = "http://localhost:" + portA;
+        addressB = "http://localhost:" + portB;
+        nodeA = start(portA, addressA);
+        nodeB = start(portB, addressB);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    private static ConfigurableApplicationContext start(int port, String self) {
+        return new SpringApplicationBuilder(TmApplication.class).run(
+                "--server.port=" + port,
+                "--tm.cluster.enabled=true",
+                "--tm.cluster.nodes=" + addressA + "," + addressB,
+                "--tm.cluster.self=" + self,
+                "--tm.cluster.secret=" + SECRET);
+    }
+
+    /**
+     * 测试两个节点各自创建的交易归属本节点，且任一节点都能按ID读取、更新和删除另一节点的交易
+     *
+     * @author 薛鹏
+     * @throws Exception 当HTTP请求失败时抛出异常
+     */
+    @Test
+    @DisplayName("Requests by id should be routed to the owning node")
+    void byId_RoutedToOwner() throws Exception {
+        TransactionService serviceA = nodeA.getBean(TransactionService.class);
+        TransactionService serviceB = nodeB.getBean(TransactionService.class);
+        ConsistentHashRing ring = nodeA.getBean(ConsistentHashRing.class);
+
+        TransactionResponse created = serviceB.createTransaction(request("routed", "DEPOSIT", "GBP", "12.50"));
+        assertEquals(addressB, ring.owner(TransactionId.parse(created.getId())));
+        assertEquals("routed", serviceA.getTransaction(created.getId()).getDescription());
+        assertTrue(new String(serviceA.getTransactionJson(created.getId()).getJson()).contains("\"routed\""));
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(addressA + "/api/transactions/" + created.getId())).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"routed\""));
+
+        TransactionResponse updated = serviceA.updateTransaction(created.getId(),
+                request("updated", "DEPOSIT", "GBP", "13.00"), created.getVersion());
+        assertEquals("updated", serviceB.getTransaction(created.getId()).getDescription());
+        TransactionException.RemoteTransactionException stale = assertThrows(
+                TransactionException.RemoteTransactionException.class,
+                () -> serviceA.updateTransaction(created.getId(), request("stale", "DEPOSIT", "GBP", "1.00"),
+                        created.getVersion()));
+        assertEquals(412, stale.getStatus());
+        assertEquals("TRX_PRECONDITION_FAILED", stale.getCode());
+        assertEquals("updated", serviceB.getTransaction(updated.getId()).getDescription());
+
+        serviceA.deleteTransaction(created.getId());
+        TransactionException.RemoteTransactionException missing = assertThrows(
+                TransactionException.RemoteTransactionException.class,
+                () -> serviceA.getTransaction(created.getId()));
+        assertEquals(404, missing.getStatus());
+        assertThrows(TransactionException.TransactionNotFoundException.class,
+                () -> serviceA.getTransaction("not-a-transaction-id"));
+    }
+
+    /**
+     * 测试内部接口拒绝没有携带集群密钥或密钥错误的请求
+     *
+     * @author 薛鹏
+     * @throws Exception 当HTTP请求失败时抛出异常
+     */
+    @Test
+    @DisplayName("Internal endpoints should require the cluster secret")
+    void internalEndpoints_RequireSecret() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        URI count = URI.create(addressA + ClusterClient.INTERNAL_PATH + "/count");
+
+        HttpResponse<String> anonymous = client.send(HttpRequest.newBuilder(count).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, anonymous.statusCode());
+        assertTrue(anonymous.body().contains("TRX_FORBIDDEN"), anonymous.body());
+        HttpResponse<String> wrong = client.send(HttpRequest.newBuilder(count)
+                .header(ClusterClient.SECRET_HEADER, "wrong").GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, wrong.statusCode());
+        HttpResponse<String> authorized = client.send(HttpRequest.newBuilder(count)
+                .header(ClusterClient.SECRET_HEADER, SECRET).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, authorized.statusCode());
+    }
+
+    /**
+     * 测试同一幂等键的重试发到不同节点时只创建一次，交易归属负责该幂等键的节点
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Idempotent creates should be deduplicated on the node owning the key")
+    void idempotentCreate_RoutedToKeyOwner() {
+        TransactionService serviceA = nodeA.getBean(TransactionService.class);
+        TransactionService serviceB = nodeB.getBean(TransactionService.class);
+        ConsistentHashRing ring = nodeA.getBean(ConsistentHashRing.class);
+
+        for (int i = 0; i < 8; i++) {
+            String key = "retry-" + System.nanoTime() + "-" + i;
+            TransactionResponse first = serviceA.createTransaction(request("idempotent", "DEPOSIT", "USD", "5.00"), key);
+            TransactionResponse retried = serviceB.createTransaction(request("idempotent", "DEPOSIT", "USD", "5.00"), key);
+            assertEquals(first.getId(), retried.getId());
+            assertEquals(ring.owner(key), ring.owner(TransactionId.parse(first.getId())));
+        }
+    }
+
+    /**
+     * 测试同一微秒内分布在两个节点上的交易
+     * ID较小的交易纳秒部分较小，按纳秒排序时排在后面；验证归并与游标都按微秒和ID排序，游标分页不遗漏任何一条
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Cursor paging should not skip rows sharing a microsecond across nodes")
+    void cursorPaging_SameMicrosecondAcrossNodes_NoSkips() {
+        TransactionService serviceA = nodeA.getBean(TransactionService.class);
+        TransactionIdGenerator generatorA = nodeA.getBean(TransactionIdGenerator.class);
+        TransactionIdGenerator generatorB = nodeB.getBean(TransactionIdGenerator.class);
+        TransactionId lower;
+        TransactionId higher;
+        do {
+            lower = generatorA.next();
+            higher = generatorB.next();
+        } while (lower.compareTo(higher) >= 0);
+        LocalDateTime micro = LocalDateTime.of(2999, 1, 1, 0, 0).plusNanos(System.nanoTime() % 1_000_000 * 1_000);
+        nodeA.getBean(TransactionRepository.class).save(new Transaction(lower.toString(), new BigDecimal("1.00"),
+                "same micro low", "DEPOSIT", micro.plusNanos(100), "USD", "COMPLETED"));
+        nodeB.getBean(TransactionRepository.class).save(new Transaction(higher.toString(), new BigDecimal("1.00"),
+                "same micro high", "DEPOSIT", micro.plusNanos(900), "USD", "COMPLETED"));
+
+        TransactionPageResponse first = serviceA.getTransactionsAfter("", 1);
+        TransactionPageResponse second = serviceA.getTransactionsAfter(first.getNextCursor(), 1);
+
+        assertEquals(lower.toString(), first.getTransactions().get(0).getId());
+        assertEquals(higher.toString(), second.getTransactions().get(0).getId());
+        assertEquals(List.of(lower.toString(), higher.toString()), ids(serviceA.getAllTransactions(0, 2)));
+    }
+
+    /**
+     * 测试列表、游标分页、计数和统计覆盖两个节点的全部交易
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("List and aggregate queries should scatter to every node and gather the results")
+    void queries_ScatterAndGather() {
+        TransactionService serviceA = nodeA.getBean(TransactionService.class);
+        TransactionService serviceB = nodeB.getBean(TransactionService.class);
+        String currency = "SG" + (char) ('A' + (System.nanoTime() % 26));
+        Set<String> created = new HashSet<>();
+        for (int i = 0; i < PER_NODE; i++) {
+            created.add(serviceA.createTransaction(request("scatter a" + i, "DEPOSIT", currency, "10.00")).getId());
+            created.add(serviceB.createTransaction(request("scatter b" + i, "WITHDRAWAL", currency, "1.00")).getId());
+        }
+        TransactionFilter filter = new TransactionFilter().currencies(List.of(currency));
+
+        assertEquals(2 * PER_NODE, serviceA.countTransactions(filter));
+        assertEquals(PER_NODE, serviceB.countTransactions(
+                new TransactionFilter().currencies(List.of(currency)).types(List.of("WITHDRAWAL"))));
+        assertEquals(serviceA.countTransactions(), serviceB.countTransactions());
+        assertEquals(serviceA.countTransactions(), serviceA.getAllTransactions().size());
+
+        List<TransactionResponse> all = serviceB.getTransactions(filter, 0, 2 * PER_NODE);
+        assertEquals(created, new HashSet<>(ids(all)));
+        List<TransactionResponse> sorted = new ArrayList<>(all);
+        sorted.sort(Comparator.comparing(TransactionResponse::getTimestamp, Comparator.reverseOrder())
+                .thenComparing(response -> TransactionId.parse(response.getId())));
+        assertEquals(ids(sorted), ids(all));
+        List<TransactionResponse> paged = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            paged.addAll(serviceA.getTransactions(filter, page, 8));
+        }
+        assertEquals(ids(all), ids(paged));
+
+        List<TransactionResponse> walked = new ArrayList<>();
+        String cursor = "";
+        do {
+            TransactionPageResponse page = serviceA.getTransactionsAfter(cursor, 7);
+            walked.addAll(page.getTransactions());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(ids(serviceA.getAllTransactions(0, Integer.MAX_VALUE)), ids(walked));
+
+        List<TransactionResponse> exported = new ArrayList<>();
+        assertEquals(walked.size(), serviceB.exportTransactions(exported::add));
+        assertEquals(ids(walked), ids(exported));
+
+        List<TransactionStatsGroup> groups = serviceA.getStatistics().getGroups().stream()
+                .filter(group -> currency.equals(group.getCurrency()))
+                .toList();
+        assertEquals(2, groups.size());
+        assertEquals(PER_NODE, groups.get(0).getCount());
+        assertEquals(0, new BigDecimal("150.00").compareTo(groups.get(0).getTotal()));
+        assertEquals(0, new BigDecimal("15.00").compareTo(groups.get(1).getTotal()));
+
+        assertThrows(IllegalArgumentException.class, () -> serviceA.getAllTransactions(-1, 10));
+    }
+
+    private static TransactionRequest request(String description, String type, String currency, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setDescription(description);
+        request.setType(type);
+        request.setCurrency(currency);
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+
+    private static List<String> ids(List<TransactionResponse> responses) {
+        return responses.stream().map(TransactionResponse::getId).toList();
+    }
+}
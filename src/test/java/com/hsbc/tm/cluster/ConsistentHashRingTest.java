@@ -0,0 +1,110 @@
+package com.hsbc.tm.cluster;
+
+import com.hsbc.tm.model.TransactionId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性哈希环的单元测试类
+ * 测试归属与节点顺序无关、各节点分到的ID大致均匀、加入节点时只有约1/N的ID改变归属，
+ * 以及只生成本节点所负责ID的生成器
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080");
+    private static final int KEYS = 100_000;
+
+    /**
+     * 测试以不同顺序的节点列表构造的环对ID和字符串键给出相同的归属
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Ownership should not depend on node order")
+    void owner_IndependentOfNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing reversed = new ConsistentHashRing(NODES.reversed(), 128);
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long high = random.nextLong();
+            long low = random.nextLong();
+            assertEquals(ring.owner(high, low), reversed.owner(high, low));
+            String key = "key-" + high;
+            assertEquals(ring.owner(key), reversed.owner(key));
+        }
+        assertEquals(NODES, new ConsistentHashRing(List.of(NODES.get(0), NODES.get(1), NODES.get(2), NODES.get(0)),
+                128).getNodes());
+    }
+
+    /**
+     * 测试每个节点分到的ID与平均值的偏差在20%以内
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Ids should be spread evenly across nodes")
+    void owner_SpreadsIdsEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner(TransactionId.random()), 1, Integer::sum);
+        }
+        assertEquals(NODES.size(), counts.size());
+        double expected = (double) KEYS / NODES.size();
+        counts.forEach((node, count) ->
+                assertTrue(Math.abs(count - expected) < expected * 0.2, node + " owns " + count + " ids"));
+    }
+
+    /**
+     * 测试加入第四个节点时，只有约1/4的ID改变归属，且都改为归属新节点
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Adding a node should only move ids to the new node")
+    void owner_AddingNodeMovesOnlyItsShare() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+        String added = "http://node-d:8080";
+        ConsistentHashRing after = new ConsistentHashRing(List.of(NODES.get(0), NODES.get(1), NODES.get(2), added), 128);
+        Random random = new Random(7);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            long high = random.nextLong();
+            long low = random.nextLong();
+            String owner = after.owner(high, low);
+            if (!owner.equals(before.owner(high, low))) {
+                assertEquals(added, owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS * 0.2 && moved < KEYS * 0.3, moved + " of " + KEYS + " ids moved");
+    }
+
+    /**
+     * 测试生成器只生成由本节点负责的ID，并拒绝不在环中的节点
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Owned id generator should only mint ids owned by its node")
+    void ownedIdGenerator_MintsOnlyOwnedIds() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        OwnedTransactionIdGenerator generator = new OwnedTransactionIdGenerator(ring, NODES.get(1));
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(NODES.get(1), ring.owner(generator.next()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new OwnedTransactionIdGenerator(ring, "http://other:8080"));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(NODES, 0));
+    }
+}
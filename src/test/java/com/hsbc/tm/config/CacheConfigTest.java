@@ -0,0 +1,190 @@
+package com.hsbc.tm.config;
+
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.TransactionRepository;
+import com.hsbc.tm.service.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 缓存配置的集成测试类
+ * 启动完整的应用上下文，验证交易缓存受配置限制、更新时写穿刷新并使JSON字节缓存失效、不存在的ID被负缓存、幂等重试命中幂等存储，且指标已导出
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@SpringBootTest
+public class CacheConfigTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private TransactionRepository transactionRepository;
+
+    /**
+     * 测试缓存管理器使用配置文件中的Caffeine规格
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Transaction cache should be a bounded Caffeine cache built from the configured spec")
+    void transactionCache_IsBoundedCaffeineCache() {
+        assertInstanceOf(CaffeineCacheManager.class, cacheManager);
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+        assertNotNull(cache);
+        assertEquals(500, cache.getNativeCache().policy().eviction().orElseThrow().getMaximum());
+        assertNotNull(cacheManager.getCache(CacheConfig.MISSING_TRANSACTION_CACHE));
+    }
+
+    /**
+     * 测试更新后的写穿刷新
+     * 验证更新后的读取直接命中缓存并返回新值
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Update should refresh the cached transaction so the next read hits")
+    void updateTransaction_RefreshesCacheEntry() {
+        TransactionResponse created = transactionService.createTransaction(request("100.00"));
+        transactionService.getTransaction(created.getId());
+        transactionService.updateTransaction(created.getId(), request("250.00"));
+        clearInvocations(transactionRepository);
+
+        TransactionResponse read = transactionService.getTransaction(created.getId());
+
+        assertEquals(new BigDecimal("250.00"), read.getAmount());
+        assertEquals(created.getVersion() + 1, read.getVersion());
+        verify(transactionRepository, never()).findById(created.getId());
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", CacheConfig.TRANSACTION_CACHE)
+                .tag("result", "hit").functionCounter().count() >= 1);
+    }
+
+    /**
+     * 测试与更新交错的读取
+     * 模拟在更新之前从仓库读到旧版本、在更新之后才写入缓存的读取，验证旧版本被撤回，之后的读取返回新版本
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("A read that loaded a version superseded by an update should not stay cached")
+    void getTransaction_LoadRacingUpdate_DoesNotCacheOldVersion() {
+        TransactionResponse created = transactionService.createTransaction(request("100.00"));
+        Transaction loaded = transactionRepository.findById(created.getId()).orElseThrow();
+        transactionService.updateTransaction(created.getId(), request("250.00"));
+        cacheManager.getCache(CacheConfig.TRANSACTION_CACHE).evict(created.getId());
+        doReturn(Optional.of(loaded)).doCallRealMethod().when(transactionRepository).findById(created.getId());
+
+        assertEquals(new BigDecimal("100.00"), transactionService.getTransaction(created.getId()).getAmount());
+        TransactionResponse read = transactionService.getTransaction(created.getId());
+
+        assertEquals(new BigDecimal("250.00"), read.getAmount());
+        assertEquals(created.getVersion() + 1, read.getVersion());
+    }
+
+    /**
+     * 测试更新后JSON字节缓存失效
+     * 验证更新后的JSON编码反映新值
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Update should evict the cached JSON bytes")
+    void updateTransaction_EvictsJsonCacheEntry() {
+        TransactionResponse created = transactionService.createTransaction(request("100.00"));
+        TransactionJson before = transactionService.getTransactionJson(created.getId());
+        assertSame(before, transactionService.getTransactionJson(created.getId()));
+
+        transactionService.updateTransaction(created.getId(), request("250.00"));
+
+        TransactionJson after = transactionService.getTransactionJson(created.getId());
+        String json = new String(after.getJson(), StandardCharsets.UTF_8);
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertTrue(json.contains("250.00"), json);
+    }
+
+    /**
+     * 测试不存在的ID的负缓存
+     * 验证重复查询只访问一次仓库，且负缓存的命中次数被导出
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Unknown IDs should be cached negatively")
+    void getTransaction_UnknownId_IsCachedNegatively() {
+        String id = UUID.randomUUID().toString();
+
+        assertThrows(TransactionException.TransactionNotFoundException.class, () -> transactionService.getTransaction(id));
+        assertThrows(TransactionException.TransactionNotFoundException.class, () -> transactionService.getTransaction(id));
+
+        verify(transactionRepository, times(1)).findById(id);
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", CacheConfig.MISSING_TRANSACTION_CACHE)
+                .tag("result", "hit").functionCounter().count() >= 1);
+    }
+
+    /**
+     * 测试幂等存储及其指标
+     * 验证相同幂等键的重试只保存一次，并导出命中率和估计内存
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Idempotent retries should hit the store and be reflected in its metrics")
+    void createTransaction_IdempotentRetry_HitsStore() {
+        String key = UUID.randomUUID().toString();
+
+        TransactionResponse first = transactionService.createTransaction(request("100.00"), key);
+        TransactionResponse retry = transactionService.createTransaction(request("100.00"), key);
+
+        assertEquals(first.getId(), retry.getId());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        assertTrue(meterRegistry.get("tm.idempotency.hit.ratio").gauge().value() > 0);
+        assertTrue(meterRegistry.get("tm.idempotency.size").gauge().value() > 0);
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", CacheConfig.IDEMPOTENCY_CACHE)
+                .tag("result", "hit").functionCounter().count() >= 1);
+    }
+
+    private static TransactionRequest request(String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("cache test");
+        request.setType("DEPOSIT");
+        request.setCurrency("USD");
+        return request;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hsbc.tm.config;
+
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.service.TransactionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.DisposableServer;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 响应式接口配置的集成测试类
+ * 启动完整的应用上下文和随机端口上的Reactor Netty服务器，验证通过响应式接口创建的交易与Servlet接口共享同一服务，
+ * 且JSON日期格式与Servlet接口一致
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@SpringBootTest(properties = {"tm.reactive.enabled=true", "tm.reactive.port=0"})
+public class ReactiveServerConfigTest {
+
+    @Autowired
+    private DisposableServer reactiveTransactionServer;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    /**
+     * 测试经由Netty服务器创建和查询交易
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Reactive server should serve the transaction API over the shared service")
+    void reactiveServer_CreatesAndReadsThroughSharedService() {
+        WebTestClient client = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + reactiveTransactionServer.port())
+                .build();
+        TransactionRequest request = new TransactionRequest();
+        request.setAmount(new BigDecimal("42.00"));
+        request.setDescription("reactive");
+        request.setType("DEPOSIT");
+        request.setCurrency("USD");
+
+        TransactionResponse created = client.post().uri("/api/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TransactionResponse.class).returnResult().getResponseBody();
+
+        assertEquals("reactive", transactionService.getTransaction(created.getId()).getDescription());
+        client.get().uri("/api/transactions/" + created.getId()).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("reactive")
+                .jsonPath("$.timestamp").value(timestamp -> assertEquals(String.class, timestamp.getClass()));
+    }
+}
@@ -0,0 +1,287 @@
+package com.hsbc.tm.controller;
+
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 响应式处理函数的单元测试类
+ * 以WebTestClient直接绑定路由函数，不启动服务器，验证各端点与Servlet接口的行为一致：
+ * 状态码、ETag与条件请求、过滤参数、流式列表和按游标分页的导出，以及错误响应
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class ReactiveTransactionHandlerTest {
+
+    private TransactionService transactionService;
+    private WebTestClient client;
+    private TransactionRequest validRequest;
+    private TransactionResponse sampleResponse;
+
+    /**
+     * 测试前的准备工作
+     * 创建模拟的交易服务并绑定路由
+     *
+     * @author 薛鹏
+     */
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        client = WebTestClient.bindToRouterFunction(
+                new ReactiveTransactionHandler(transactionService, false).routes()).build();
+
+        validRequest = new TransactionRequest();
+        validRequest.setAmount(new BigDecimal("100.00"));
+        validRequest.setDescription("Test Transaction");
+        validRequest.setType("DEPOSIT");
+        validRequest.setCurrency("USD");
+
+        sampleResponse = response("test-id-123");
+    }
+
+    /**
+     * 测试创建交易
+     * 验证返回201和ETag，幂等键传递给服务层
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should create transaction and return 201 with an ETag")
+    void createTransaction_ValidRequest_Returns201() {
+        when(transactionService.createTransaction(any(TransactionRequest.class), eq("retry-1"))).thenReturn(sampleResponse);
+
+        client.post().uri("/api/transactions")
+                .header(TransactionController.IDEMPOTENCY_KEY, "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validRequest)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("$.id").isEqualTo("test-id-123");
+    }
+
+    /**
+     * 测试按ID查询及条件请求
+     * 验证If-None-Match与当前版本相同时返回304
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should return the transaction and 304 when the ETag still matches")
+    void getTransaction_WithMatchingETag_Returns304() {
+        when(transactionService.getTransaction("test-id-123")).thenReturn(sampleResponse);
+
+        client.get().uri("/api/transactions/test-id-123").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody().jsonPath("$.amount").isEqualTo(100.00);
+        client.get().uri("/api/transactions/test-id-123").header(HttpHeaders.IF_NONE_MATCH, "\"1\"").exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    /**
+     * 测试查询可能访问其他节点时不在调用线程上执行
+     * 验证按ID查询和统计在有界弹性线程池上调用服务
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should move reads off the calling thread when they may reach other nodes")
+    void remoteReads_RunOnBoundedElastic() {
+        WebTestClient remote = WebTestClient.bindToRouterFunction(
+                new ReactiveTransactionHandler(transactionService, false, true).routes()).build();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(transactionService.getTransaction("test-id-123")).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return sampleResponse;
+        });
+        when(transactionService.countTransactions()).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return 1L;
+        });
+
+        remote.get().uri("/api/transactions/test-id-123").exchange().expectStatus().isOk();
+        remote.get().uri("/api/transactions/count").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.count").isEqualTo(1);
+
+        assertEquals(2, threads.size());
+        threads.forEach(thread -> assertTrue(thread.startsWith("boundedElastic"), thread));
+    }
+
+    /**
+     * 测试启用JSON字节缓存时按ID查询
+     * 验证直接写出缓存的字节
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should write cached JSON bytes when the JSON cache is enabled")
+    void getTransaction_JsonCacheEnabled_WritesCachedBytes() {
+        byte[] json = "{\"id\":\"test-id-123\"}".getBytes(StandardCharsets.UTF_8);
+        when(transactionService.getTransactionJson("test-id-123")).thenReturn(new TransactionJson(3, json));
+        WebTestClient cached = WebTestClient.bindToRouterFunction(
+                new ReactiveTransactionHandler(transactionService, true).routes()).build();
+
+        cached.get().uri("/api/transactions/test-id-123").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().json("{\"id\":\"test-id-123\"}");
+        verify(transactionService, never()).getTransaction(any());
+    }
+
+    /**
+     * 测试交易不存在时的错误响应
+     * 验证状态码和错误代码与Servlet接口一致
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should map transaction exceptions to the same status and error body as the servlet API")
+    void getTransaction_NotFound_Returns404() {
+        when(transactionService.getTransaction("missing"))
+                .thenThrow(new TransactionException.TransactionNotFoundException("missing"));
+
+        client.get().uri("/api/transactions/missing").exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.code").isEqualTo("TRX_NOT_FOUND");
+    }
+
+    /**
+     * 测试带过滤参数的列表查询
+     * 验证逗号分隔和重复出现的参数都被解析为OR关系的取值
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should parse list filters like the servlet API and stream the page")
+    void getAllTransactions_WithFilters_UsesFilteredQuery() {
+        when(transactionService.getTransactions(any(TransactionFilter.class), eq(1), eq(5)))
+                .thenReturn(List.of(sampleResponse, response("test-id-456")));
+
+        client.get().uri("/api/transactions?page=1&size=5&type=DEPOSIT,TRANSFER&currency=USD&currency=EUR&minAmount=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].id").isEqualTo("test-id-456");
+
+        verify(transactionService).getTransactions(argThat(filter ->
+                filter.getTypes().equals(Set.of("DEPOSIT", "TRANSFER"))
+                        && filter.getCurrencies().equals(Set.of("USD", "EUR"))
+                        && filter.getMinAmount().compareTo(BigDecimal.TEN) == 0), eq(1), eq(5));
+    }
+
+    /**
+     * 测试导出
+     * 验证按游标逐页拉取，直到没有下一页
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should export all pages as NDJSON by following cursors")
+    void exportTransactions_FollowsCursors() {
+        when(transactionService.getTransactionsAfter("", ReactiveTransactionHandler.EXPORT_PAGE_SIZE))
+                .thenReturn(new TransactionPageResponse(List.of(sampleResponse), "next"));
+        when(transactionService.getTransactionsAfter("next", ReactiveTransactionHandler.EXPORT_PAGE_SIZE))
+                .thenReturn(new TransactionPageResponse(List.of(response("test-id-456")), null));
+
+        String body = client.get().uri("/api/transactions/export").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(TransactionController.NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        String[] lines = body.trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(true, lines[1].contains("test-id-456"));
+    }
+
+    /**
+     * 测试条件更新
+     * 验证If-Match的版本传递给服务层，无法解析的If-Match返回412
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should pass the If-Match version to the service and reject malformed values with 412")
+    void updateTransaction_WithIfMatch_UsesExpectedVersion() {
+        TransactionResponse updated = response("test-id-123");
+        updated.setVersion(2);
+        when(transactionService.updateTransaction(eq("test-id-123"), any(TransactionRequest.class), eq(1L)))
+                .thenReturn(updated);
+
+        client.put().uri("/api/transactions/test-id-123")
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"");
+        client.put().uri("/api/transactions/test-id-123")
+                .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validRequest)
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.code").isEqualTo("TRX_PRECONDITION_FAILED");
+    }
+
+    /**
+     * 测试删除和计数
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should delete transactions and report counts")
+    void deleteAndCount() {
+        when(transactionService.countTransactions()).thenReturn(42L);
+
+        client.delete().uri("/api/transactions/test-id-123").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.message").isEqualTo("Transaction deleted successfully");
+        client.get().uri("/api/transactions/count").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.count").isEqualTo(42);
+
+        verify(transactionService).deleteTransaction("test-id-123");
+    }
+
+    private static TransactionResponse response(String id) {
+        TransactionResponse response = new TransactionResponse();
+        response.setId(id);
+        response.setAmount(new BigDecimal("100.00"));
+        response.setDescription("Test Transaction");
+        response.setType("DEPOSIT");
+        response.setCurrency("USD");
+        response.setTimestamp(LocalDateTime.now());
+        response.setStatus("COMPLETED");
+        response.setVersion(1);
+        return response;
+    }
+}
@@ -1,9 +1,21 @@
 package com.hsbc.tm.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.dto.TransactionBatchItemResponse;
+import com.hsbc.tm.dto.TransactionBatchResponse;
+import com.hsbc.tm.dto.TransactionImportError;
+import com.hsbc.tm.dto.TransactionImportResponse;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
 import com.hsbc.tm.dto.TransactionRequest;
 import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionRollupPoint;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.dto.TransactionStatsGroup;
+import com.hsbc.tm.dto.TransactionStatsResponse;
 import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.service.TransactionImportService;
 import com.hsbc.tm.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,14 +25,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -29,11 +51,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 /**
  * 交易控制器的单元测试类
  * 测试控制器层处理HTTP请求和响应的功能
+ * 默认关闭JSON字节缓存，按ID查询经过Jackson序列化；启用时的行为由单独构建的控制器验证
  * 
  * @author 薛鹏
  * @version 1.0
  */
-@WebMvcTest(TransactionController.class)
+@WebMvcTest(controllers = TransactionController.class, properties = "tm.cache.json.enabled=false")
 public class TransactionControllerTest {
 
     @Autowired
@@ -45,6 +68,9 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionImportService transactionImportService;
+
     private TransactionRequest validRequest;
     private TransactionResponse sampleResponse;
     private String transactionId;
@@ -99,6 +125,119 @@ public class TransactionControllerTest {
         verify(transactionService, times(1)).createTransaction(any(TransactionRequest.class));
     }
 
+    /**
+     * 测试携带幂等键的创建交易接口
+     * 验证请求头中的幂等键传递给服务层
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should pass the Idempotency-Key header to the service")
+    void createTransaction_WithIdempotencyKey_UsesIdempotentCreate() throws Exception {
+        when(transactionService.createTransaction(any(TransactionRequest.class), eq("retry-1"))).thenReturn(sampleResponse);
+
+        mockMvc.perform(post("/api/transactions")
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(transactionId)));
+
+        verify(transactionService, times(1)).createTransaction(any(TransactionRequest.class), eq("retry-1"));
+        verify(transactionService, never()).createTransaction(any(TransactionRequest.class));
+    }
+
+    /**
+     * 测试批量创建交易接口
+     * 验证存在失败条目时返回207状态码以及逐条结果
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should create a batch and return 207 with per-item results")
+    void createTransactions_PartialFailure_Returns207() throws Exception {
+        TransactionBatchResponse batchResponse = new TransactionBatchResponse(Arrays.asList(
+                TransactionBatchItemResponse.created(0, sampleResponse),
+                TransactionBatchItemResponse.failed(1, "TRX_INVALID", "Transaction amount must be positive")));
+        when(transactionService.createTransactions(anyList())).thenReturn(batchResponse);
+
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(validRequest, new TransactionRequest()))))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[0].transaction.id", is(transactionId)))
+                .andExpect(jsonPath("$.results[1].code", is("TRX_INVALID")));
+
+        verify(transactionService, times(1)).createTransactions(anyList());
+    }
+
+    /**
+     * 测试流式导出接口
+     * 验证以换行分隔的JSON逐行输出每条交易
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should stream all transactions as newline-delimited JSON")
+    @SuppressWarnings("unchecked")
+    void exportTransactions_StreamsNdjson() throws Exception {
+        TransactionResponse anotherResponse = new TransactionResponse();
+        anotherResponse.setId("test-id-456");
+        when(transactionService.exportTransactions(any())).thenAnswer(invocation -> {
+            Consumer<TransactionResponse> consumer = invocation.getArgument(0);
+            consumer.accept(sampleResponse);
+            consumer.accept(anotherResponse);
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(transactionId, objectMapper.readTree(lines[0]).get("id").asText());
+        assertEquals("test-id-456", objectMapper.readTree(lines[1]).get("id").asText());
+        assertTrue(body.endsWith("\n"));
+    }
+
+    /**
+     * 测试导入接口
+     * 验证按请求的内容类型选择导入格式，并返回导入结果汇总
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should import CSV body and return the summary")
+    void importTransactions_Csv_ReturnsSummary() throws Exception {
+        TransactionImportResponse summary = new TransactionImportResponse(2, 1, 1, 5,
+                List.of(new TransactionImportError(3, "TRX_INVALID", "Amount must be positive")));
+        when(transactionImportService.importTransactions(any(), eq(TransactionImportService.Format.CSV)))
+                .thenReturn(summary);
+
+        mockMvc.perform(post("/api/transactions/import")
+                .contentType("text/csv")
+                .content("amount,type,currency\n100,DEPOSIT,USD\n-1,DEPOSIT,USD\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.processed", is(2)))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(3)))
+                .andExpect(jsonPath("$.errors[0].code", is("TRX_INVALID")));
+
+        verify(transactionImportService, times(1)).importTransactions(any(), eq(TransactionImportService.Format.CSV));
+    }
+
     /**
      * 测试获取单个交易接口
      * 验证控制器能够正确获取已存在交易的详情，并返回200状态码
@@ -120,6 +259,56 @@ public class TransactionControllerTest {
         verify(transactionService, times(1)).getTransaction(transactionId);
     }
 
+    /**
+     * 测试启用JSON字节缓存时的单个交易接口
+     * 验证控制器原样写出服务返回的JSON字节，不再调用返回对象的查询方法
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should write cached JSON bytes directly when the byte cache is enabled")
+    void getTransaction_JsonCacheEnabled_WritesCachedBytes() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(sampleResponse);
+        when(transactionService.getTransactionJson(transactionId)).thenReturn(new TransactionJson(4, json));
+        MockMvc cachedMockMvc = MockMvcBuilders.standaloneSetup(
+                new TransactionController(transactionService, transactionImportService, objectMapper, true)).build();
+
+        cachedMockMvc.perform(get("/api/transactions/{id}", transactionId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().bytes(json))
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.id", is(transactionId)));
+
+        verify(transactionService, never()).getTransaction(anyString());
+    }
+
+    /**
+     * 测试单个交易的条件请求
+     * 验证If-None-Match与当前版本的ETag相同时返回304且没有响应体，不同时返回完整响应
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should return 304 when If-None-Match matches the current version")
+    void getTransaction_IfNoneMatch_Returns304() throws Exception {
+        sampleResponse.setVersion(3);
+        when(transactionService.getTransaction(transactionId)).thenReturn(sampleResponse);
+
+        mockMvc.perform(get("/api/transactions/{id}", transactionId)
+                .header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/transactions/{id}", transactionId)
+                .header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(3)));
+    }
+
     /**
      * 测试获取所有交易接口
      * 验证控制器能够正确获取交易列表，并返回200状态码
@@ -153,6 +342,31 @@ public class TransactionControllerTest {
         verify(transactionService, times(1)).getAllTransactions(0, 10);
     }
 
+    /**
+     * 测试按游标获取交易接口
+     * 验证带cursor参数的请求返回当前页和下一页游标
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should get transactions by cursor and return next cursor")
+    void getTransactionsByCursor_Returns200WithNextCursor() throws Exception {
+        TransactionPageResponse pageResponse = new TransactionPageResponse(List.of(sampleResponse), "next-cursor");
+        when(transactionService.getTransactionsAfter("", 1)).thenReturn(pageResponse);
+
+        mockMvc.perform(get("/api/transactions")
+                .param("cursor", "")
+                .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions", hasSize(1)))
+                .andExpect(jsonPath("$.transactions[0].id", is(transactionId)))
+                .andExpect(jsonPath("$.nextCursor", is("next-cursor")));
+
+        verify(transactionService, times(1)).getTransactionsAfter("", 1);
+        verify(transactionService, never()).getAllTransactions(anyInt(), anyInt());
+    }
+
     /**
      * 测试更新交易接口
      * 验证控制器能够正确处理有效的更新交易请求，并返回200状态码
@@ -192,6 +406,50 @@ public class TransactionControllerTest {
         verify(transactionService, times(1)).updateTransaction(eq(transactionId), any(TransactionRequest.class));
     }
 
+    /**
+     * 测试带If-Match的更新交易接口
+     * 验证ETag中的版本号传递给服务层，版本已变化时返回412，无法识别的ETag直接返回412，请求体版本冲突时返回409
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should apply If-Match and map stale versions to 412 and 409")
+    void updateTransaction_IfMatch_MapsVersionFailures() throws Exception {
+        sampleResponse.setVersion(6);
+        when(transactionService.updateTransaction(eq(transactionId), any(TransactionRequest.class), eq(5L)))
+                .thenReturn(sampleResponse);
+        when(transactionService.updateTransaction(eq(transactionId), any(TransactionRequest.class), eq(4L)))
+                .thenThrow(new TransactionException.PreconditionFailedException(transactionId, "\"4\""));
+        String body = objectMapper.writeValueAsString(validRequest);
+
+        mockMvc.perform(put("/api/transactions/{id}", transactionId)
+                .header("If-Match", "\"5\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"6\""));
+        mockMvc.perform(put("/api/transactions/{id}", transactionId)
+                .header("If-Match", "\"4\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.code", is("TRX_PRECONDITION_FAILED")));
+        mockMvc.perform(put("/api/transactions/{id}", transactionId)
+                .header("If-Match", "W/\"5\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isPreconditionFailed());
+
+        when(transactionService.updateTransaction(eq(transactionId), any(TransactionRequest.class)))
+                .thenThrow(new TransactionException.VersionConflictException(transactionId, 4, 6));
+        mockMvc.perform(put("/api/transactions/{id}", transactionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code", is("TRX_VERSION_CONFLICT")));
+    }
+
     /**
      * 测试删除交易接口
      * 验证控制器能够正确处理删除交易请求，并返回200状态码
@@ -230,4 +488,91 @@ public class TransactionControllerTest {
 
         verify(transactionService, times(1)).getTransaction(nonExistentId);
     }
+
+    /**
+     * 测试统计接口
+     * 验证返回总笔数和各分组的统计
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should return grouped statistics")
+    void getStatistics_ReturnsGroups() throws Exception {
+        when(transactionService.getStatistics()).thenReturn(new TransactionStatsResponse(List.of(
+                new TransactionStatsGroup("EUR", "DEPOSIT", "COMPLETED", 2, new BigDecimal("30.00")),
+                new TransactionStatsGroup("USD", "DEPOSIT", "COMPLETED", 1, new BigDecimal("100.00")))));
+
+        mockMvc.perform(get("/api/transactions/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(3)))
+                .andExpect(jsonPath("$.groups", hasSize(2)))
+                .andExpect(jsonPath("$.groups[0].currency", is("EUR")))
+                .andExpect(jsonPath("$.groups[0].total", is(30.00)));
+    }
+
+    /**
+     * 测试时间序列接口
+     * 验证查询参数传递给服务层，并返回各时间桶的数据点
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should return rollup points for the requested range")
+    void getRollups_ReturnsPoints() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        when(transactionService.getRollups("day", "USD", "2025-01-01T00:00", "2025-01-03T00:00"))
+                .thenReturn(new TransactionRollupResponse("DAY", start, start.plusDays(2), null, List.of(
+                        new TransactionRollupPoint(start, "USD", 4, new BigDecimal("40.00")))));
+
+        mockMvc.perform(get("/api/transactions/rollups")
+                .param("granularity", "day")
+                .param("currency", "USD")
+                .param("from", "2025-01-01T00:00")
+                .param("to", "2025-01-03T00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", is("DAY")))
+                .andExpect(jsonPath("$.points", hasSize(1)))
+                .andExpect(jsonPath("$.points[0].count", is(4)));
+    }
+
+    /**
+     * 测试带过滤条件的列表和计数接口
+     * 验证逗号分隔的取值被拆分为OR条件，金额范围和描述检索参数被解析，并调用带过滤条件的服务方法
+     * 
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Should pass type, currency, status, amount and description filters to the service")
+    void getAllTransactions_WithFilters_UsesFilteredQuery() throws Exception {
+        when(transactionService.getTransactions(any(TransactionFilter.class), eq(0), eq(10)))
+                .thenReturn(List.of(sampleResponse));
+        when(transactionService.countTransactions(any(TransactionFilter.class))).thenReturn(7L);
+
+        mockMvc.perform(get("/api/transactions")
+                .param("type", "DEPOSIT,TRANSFER")
+                .param("currency", "USD")
+                .param("q", " starbucks "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/transactions/count")
+                .param("status", "PENDING")
+                .param("minAmount", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(7)));
+
+        verify(transactionService).getTransactions(argThat(filter ->
+                filter.getTypes().equals(Set.of("DEPOSIT", "TRANSFER"))
+                        && filter.getCurrencies().equals(Set.of("USD"))
+                        && filter.getStatuses().isEmpty()
+                        && !filter.hasAmountRange()
+                        && "starbucks".equals(filter.getQuery())), eq(0), eq(10));
+        verify(transactionService).countTransactions(argThat(filter -> filter.getStatuses().equals(Set.of("PENDING"))
+                && new BigDecimal("10000").compareTo(filter.getMinAmount()) == 0
+                && filter.getMaxAmount() == null));
+        verify(transactionService, never()).getAllTransactions(anyInt(), anyInt());
+        verify(transactionService, never()).countTransactions();
+    }
 } 
\ No newline at end of file
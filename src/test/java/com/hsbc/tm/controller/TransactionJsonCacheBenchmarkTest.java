@@ -0,0 +1,127 @@
+package com.hsbc.tm.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.service.TransactionImportService;
+import com.hsbc.tm.service.TransactionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * JSON字节缓存的性能测试
+ * 在同一应用上下文中构建关闭和启用JSON字节缓存的两个控制器，反复按ID查询一组热点交易，
+ * 对比每秒请求数和每个请求在当前线程上分配的字节数
+ * 请求经MockMvc在进程内分发，不包含网络和Servlet容器的开销，只反映序列化路径的差别
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionJsonCacheBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class TransactionJsonCacheBenchmarkTest {
+
+    private static final int HOT_SET = 1_000;
+    private static final int WARMUP_REQUESTS = 100_000;
+    private static final int REQUESTS = 300_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionImportService transactionImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 测试热点交易按ID查询的吞吐量和内存分配
+     * 两种方式的响应体必须一致，输出各轮的中位值
+     *
+     * @author 薛鹏
+     * @throws Exception 当请求处理过程中发生异常时抛出
+     */
+    @Test
+    @DisplayName("Cached JSON bytes should serve hot reads with less allocation")
+    void getTransaction_SerializedVersusCachedBytes() throws Exception {
+        String[] ids = new String[HOT_SET];
+        for (int i = 0; i < HOT_SET; i++) {
+            TransactionRequest request = new TransactionRequest();
+            request.setAmount(BigDecimal.valueOf(10_000 + i, 2));
+            request.setDescription("Hot transaction " + i + " for ACME Corporation, Hong Kong branch");
+            request.setType("PAYMENT");
+            request.setCurrency("HKD");
+            ids[i] = transactionService.createTransaction(request).getId();
+        }
+        MockMvc serialized = mockMvc(false);
+        MockMvc cached = mockMvc(true);
+        for (String id : ids) {
+            assertArrayEquals(body(serialized, id), body(cached, id));
+        }
+
+        run(serialized, ids, WARMUP_REQUESTS);
+        run(cached, ids, WARMUP_REQUESTS);
+        double[][] serializedRounds = new double[2][ROUNDS];
+        double[][] cachedRounds = new double[2][ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            measure(serialized, ids, serializedRounds, round);
+            measure(cached, ids, cachedRounds, round);
+        }
+
+        System.out.println("-------- JSON Byte Cache Results --------");
+        System.out.printf("Hot set: %d transactions, %d requests per round, %d rounds%n", HOT_SET, REQUESTS, ROUNDS);
+        System.out.printf("%-12s %14s %16s%n", "Mode", "Requests/s", "Bytes/request");
+        System.out.printf("%-12s %14.0f %16.0f%n", "serialize", median(serializedRounds[0]), median(serializedRounds[1]));
+        System.out.printf("%-12s %14.0f %16.0f%n", "cached", median(cachedRounds[0]), median(cachedRounds[1]));
+    }
+
+    private MockMvc mockMvc(boolean jsonCacheEnabled) {
+        return MockMvcBuilders.standaloneSetup(
+                        new TransactionController(transactionService, transactionImportService, objectMapper, jsonCacheEnabled))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    private static byte[] body(MockMvc mockMvc, String id) throws Exception {
+        return mockMvc.perform(get("/api/transactions/{id}", id)).andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static void run(MockMvc mockMvc, String[] ids, int requests) throws Exception {
+        for (int i = 0; i < requests; i++) {
+            mockMvc.perform(get("/api/transactions/{id}", ids[i % ids.length]));
+        }
+    }
+
+    private static void measure(MockMvc mockMvc, String[] ids, double[][] results, int round) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        run(mockMvc, ids, REQUESTS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        results[0][round] = REQUESTS * 1e9 / elapsed;
+        results[1][round] = (double) allocated / REQUESTS;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
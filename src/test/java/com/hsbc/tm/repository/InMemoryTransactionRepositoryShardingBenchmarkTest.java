@@ -0,0 +1,121 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 内存交易仓库分片的写入扩展性测试
+ * 对每种分片数，1到32个线程持续保存新交易，统计每秒保存的交易数；
+ * 之后在写入的数据上测量过滤计数和全量扫描的耗时，这两类查询在各分片上并行执行
+ * 分片数通过系统属性tm.benchmark.shards指定，默认为1,4,16；写入在CPU核数以内才可能随线程数增长，结果中同时输出CPU核数
+ * 运行方式：mvn test -Pbenchmark -Dtest=InMemoryTransactionRepositoryShardingBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class InMemoryTransactionRepositoryShardingBenchmarkTest {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final long WARMUP_MILLIS = 1_000;
+    private static final long MEASURE_MILLIS = 3_000;
+    private static final int SCAN_ROUNDS = 20;
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "HKD"};
+
+    /**
+     * 测试不同分片数和线程数下的写入吞吐量以及并行扫描的耗时
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Report save throughput from 1 to 32 threads and parallel scan time by shard count")
+    void save_ThroughputByShardAndThreadCount() throws Exception {
+        int[] shardCounts = Arrays.stream(System.getProperty("tm.benchmark.shards", "1,4,16").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+
+        System.out.println("-------- Sharded Repository Save Throughput Results --------");
+        System.out.println("CPU cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %8s %14s %14s %16s %14s%n", "shards", "threads", "saves/s", "stored",
+                "count(filter)ms", "findAll()ms");
+        for (int shards : shardCounts) {
+            for (int threads : THREAD_COUNTS) {
+                InMemoryTransactionRepository repository = new InMemoryTransactionRepository(shards);
+                run(repository, threads, WARMUP_MILLIS);
+                long before = repository.count();
+                long saved = run(repository, threads, MEASURE_MILLIS);
+                assertEquals(before + saved, repository.count());
+
+                TransactionFilter filter = new TransactionFilter().currencies(List.of("EUR"));
+                long start = System.nanoTime();
+                for (int i = 0; i < SCAN_ROUNDS; i++) {
+                    repository.count(filter);
+                }
+                double countMillis = (System.nanoTime() - start) / 1e6 / SCAN_ROUNDS;
+                start = System.nanoTime();
+                for (int i = 0; i < SCAN_ROUNDS; i++) {
+                    assertEquals(repository.count(), repository.findAll().size());
+                }
+                double scanMillis = (System.nanoTime() - start) / 1e6 / SCAN_ROUNDS;
+
+                System.out.printf("%8d %8d %14.0f %14d %16.3f %14.3f%n", shards, threads,
+                        saved * 1000.0 / MEASURE_MILLIS, repository.count(), countMillis, scanMillis);
+            }
+        }
+    }
+
+    /**
+     * 以指定线程数持续保存新交易一段时间
+     *
+     * @author 薛鹏
+     * @return 返回保存的交易数
+     */
+    private long run(InMemoryTransactionRepository repository, int threads, long millis) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String currency = CURRENCIES[t % CURRENCIES.length];
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long saved = 0;
+                    while (running.get()) {
+                        repository.save(new Transaction(BigDecimal.valueOf(saved % 10_000, 2), "sharding benchmark",
+                                "DEPOSIT", currency));
+                        saved++;
+                    }
+                    return saved;
+                }));
+            }
+            start.countDown();
+            Thread.sleep(millis);
+            running.set(false);
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存交易仓库的单元测试类
+ * 测试仓库的存取操作以及时间索引分页的正确性
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class InMemoryTransactionRepositoryTest {
+
+    private InMemoryTransactionRepository repository;
+    private LocalDateTime baseTime;
+
+    /**
+     * 测试前的准备工作
+     * 创建一个全新的仓库实例
+     *
+     * @author 薛鹏
+     */
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTransactionRepository();
+        baseTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+    }
+
+    /**
+     * 创建指定时间偏移的交易
+     *
+     * @author 薛鹏
+     * @param secondsOffset 相对于基准时间的秒数
+     * @return 返回新建的交易
+     */
+    private Transaction transactionAt(long secondsOffset) {
+        Transaction transaction = new Transaction(new BigDecimal("10.00"), "test", "DEPOSIT", "USD");
+        transaction.setTimestamp(baseTime.plusSeconds(secondsOffset));
+        return transaction;
+    }
+
+    /**
+     * 测试分页结果按时间倒序排列
+     * 验证无论插入顺序如何，分页都返回最新的交易在前
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should return pages in newest-first order")
+    void findAll_Paged_ReturnsNewestFirst() {
+        List<Transaction> saved = new ArrayList<>();
+        for (int offset : new int[]{5, 1, 9, 3, 7, 0, 8, 2, 6, 4}) {
+            saved.add(repository.save(transactionAt(offset)));
+        }
+
+        List<Transaction> firstPage = repository.findAll(0, 4);
+        List<Transaction> secondPage = repository.findAll(1, 4);
+        List<Transaction> lastPage = repository.findAll(2, 4);
+
+        assertEquals(4, firstPage.size());
+        assertEquals(4, secondPage.size());
+        assertEquals(2, lastPage.size());
+        assertEquals(baseTime.plusSeconds(9), firstPage.get(0).getTimestamp());
+        assertEquals(baseTime.plusSeconds(6), firstPage.get(3).getTimestamp());
+        assertEquals(baseTime.plusSeconds(5), secondPage.get(0).getTimestamp());
+        assertEquals(baseTime.plusSeconds(0), lastPage.get(1).getTimestamp());
+        assertTrue(repository.findAll(3, 4).isEmpty());
+    }
+
+    /**
+     * 测试相同时间戳的交易顺序稳定
+     * 验证重复查询同一页返回完全相同的结果
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should return identical pages for repeated queries with equal timestamps")
+    void findAll_EqualTimestamps_StableOrder() {
+        for (int i = 0; i < 50; i++) {
+            repository.save(transactionAt(0));
+        }
+
+        List<Transaction> first = repository.findAll(2, 10);
+        List<Transaction> second = repository.findAll(2, 10);
+
+        assertEquals(first, second);
+    }
+
+    /**
+     * 测试删除和更新后的索引一致性
+     * 验证被删除的交易不再出现在分页结果中，更新后的交易保持在原位置
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should keep the time index consistent after delete and update")
+    void deleteAndUpdate_KeepIndexConsistent() {
+        Transaction oldest = repository.save(transactionAt(0));
+        Transaction middle = repository.save(transactionAt(1));
+        Transaction newest = repository.save(transactionAt(2));
+
+        repository.deleteById(middle.getId());
+        newest.setDescription("updated");
+        repository.update(newest);
+
+        List<Transaction> page = repository.findAll(0, 10);
+        assertEquals(2, page.size());
+        assertEquals(newest.getId(), page.get(0).getId());
+        assertEquals("updated", page.get(0).getDescription());
+        assertEquals(oldest.getId(), page.get(1).getId());
+        assertEquals(2, repository.count());
+    }
+
+    /**
+     * 测试并发的比较并交换更新
+     * 多个线程各自以读取、构造新版本、替换的方式对同一交易的金额累加，替换失败时重新读取，
+     * 验证没有丢失的更新，版本号与成功替换的次数一致，且旧的交易对象没有被修改
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Should not lose concurrent compare-and-swap updates")
+    void replace_ConcurrentIncrements_NoLostUpdates() throws Exception {
+        Transaction original = repository.save(transactionAt(0));
+        BigDecimal initial = original.getAmount();
+        int threads = 4;
+        int increments = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < increments; i++) {
+                        while (true) {
+                            Transaction current = repository.findById(original.getId()).orElseThrow();
+                            Transaction next = new Transaction(current.getId(), current.getAmount().add(BigDecimal.ONE),
+                                    current.getDescription(), current.getType(), current.getTimestamp(),
+                                    current.getCurrency(), current.getStatus());
+                            next.setVersion(current.getVersion() + 1);
+                            if (repository.replace(current, next)) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Transaction latest = repository.findById(original.getId()).orElseThrow();
+        assertEquals(initial.add(BigDecimal.valueOf((long) threads * increments)), latest.getAmount());
+        assertEquals(1 + (long) threads * increments, latest.getVersion());
+        assertEquals(initial, original.getAmount());
+        assertFalse(repository.replace(original, latest));
+        assertEquals(1, repository.findAll(0, 10).size());
+    }
+
+    /**
+     * 测试重复保存和删除不存在的交易
+     * 验证仓库抛出相应的业务异常
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should reject duplicate saves and unknown deletes")
+    void saveDuplicate_And_DeleteMissing_Throw() {
+        Transaction transaction = repository.save(transactionAt(0));
+
+        assertThrows(TransactionException.DuplicateTransactionException.class,
+                () -> repository.save(transaction));
+        assertThrows(TransactionException.TransactionNotFoundException.class,
+                () -> repository.deleteById("missing-id"));
+        assertThrows(IllegalArgumentException.class, () -> repository.findAll(-1, 10));
+    }
+
+    /**
+     * 测试批量保存
+     * 验证已存在的交易被跳过，其余交易全部保存并进入时间索引
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should save a batch and skip transactions that already exist")
+    void saveAll_SkipsExisting_IndexesTheRest() {
+        Transaction existing = repository.save(transactionAt(0));
+        List<Transaction> batch = new ArrayList<>();
+        batch.add(transactionAt(2));
+        batch.add(existing);
+        batch.add(transactionAt(1));
+
+        List<Transaction> saved = repository.saveAll(batch);
+
+        assertEquals(List.of(batch.get(0), batch.get(2)), saved);
+        assertEquals(3, repository.count());
+        List<Transaction> page = repository.findAll(0, 10);
+        assertEquals(batch.get(0).getId(), page.get(0).getId());
+        assertEquals(batch.get(2).getId(), page.get(1).getId());
+        assertEquals(existing.getId(), page.get(2).getId());
+        assertEquals(3, repository.getColumnStore().size());
+    }
+
+    /**
+     * 测试批量保存的交易按ID可见时已进入二级索引
+     * 读取线程在批量保存期间反复检查最后一条交易，一旦能按ID读到，整批交易都必须已能通过列式存储的过滤查询找到
+     *
+     * @author 薛鹏
+     * @throws Exception 当读取线程失败时抛出异常
+     */
+    @Test
+    @DisplayName("A transaction saved in a batch should be indexed once it is visible by id")
+    void saveAll_VisibleById_AlreadyIndexed() throws Exception {
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < 20; round++) {
+                String currency = "B" + (char) ('A' + round) + "X";
+                List<Transaction> batch = new ArrayList<>();
+                for (int i = 0; i < 2_000; i++) {
+                    Transaction transaction = transactionAt(i);
+                    transaction.setCurrency(currency);
+                    batch.add(transaction);
+                }
+                String last = batch.get(batch.size() - 1).getId();
+                TransactionFilter filter = new TransactionFilter().currencies(List.of(currency));
+                Future<?> check = reader.submit(() -> {
+                    while (repository.findById(last).isEmpty()) {
+                        Thread.onSpinWait();
+                    }
+                    assertEquals(batch.size(), repository.count(filter));
+                });
+                repository.saveAll(batch);
+                check.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试游标分页在并发插入下不重复也不遗漏
+     * 遍历过程中不断插入更新的交易，验证遍历结果恰好覆盖遍历开始时已存在的全部交易
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should walk all rows by cursor without skips or duplicates under inserts")
+    void findAfter_WithConcurrentInserts_NoSkipsOrDuplicates() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 95; i++) {
+            expected.add(repository.save(transactionAt(i % 40)).getId());
+        }
+
+        Set<String> seen = new HashSet<>();
+        TransactionCursor cursor = null;
+        long newer = 1_000;
+        while (true) {
+            List<Transaction> page = repository.findAfter(cursor, 10);
+            for (Transaction transaction : page) {
+                assertTrue(seen.add(transaction.getId()), "Duplicate row " + transaction.getId());
+            }
+            if (page.size() < 10) {
+                break;
+            }
+            cursor = TransactionCursor.of(page.get(page.size() - 1));
+            repository.save(transactionAt(newer++));
+        }
+
+        assertEquals(expected, seen);
+    }
+
+    /**
+     * 测试分片仓库与单分片仓库的查询结果一致
+     * 两个仓库保存相同的交易（含相同时间戳）并删除其中一部分，验证按页码分页、游标遍历、过滤查询和计数的结果完全相同
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Sharded repository should return the same pages, cursor walks and counts as a single shard")
+    void shardedRepository_MatchesSingleShard() {
+        InMemoryTransactionRepository sharded = new InMemoryTransactionRepository(8);
+        String[] currencies = {"USD", "EUR", "GBP"};
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Transaction transaction = transactionAt(i % 70);
+            transaction.setCurrency(currencies[i % currencies.length]);
+            if (i < 200) {
+                repository.save(transaction);
+                sharded.save(transaction);
+            } else {
+                batch.add(transaction);
+            }
+        }
+        repository.saveAll(batch);
+        sharded.saveAll(batch);
+        for (Transaction transaction : repository.findAll(3, 20)) {
+            repository.deleteById(transaction.getId());
+            sharded.deleteById(transaction.getId());
+        }
+
+        assertEquals(8, sharded.getShardCount());
+        assertEquals(280, sharded.count());
+        assertEquals(280, sharded.findAll().size());
+        for (int page = 0; page < 15; page++) {
+            assertEquals(repository.findAll(page, 20), sharded.findAll(page, 20));
+        }
+        TransactionFilter filter = new TransactionFilter().currencies(List.of("EUR"));
+        assertEquals(repository.count(filter), sharded.count(filter));
+        assertEquals(repository.findAll(filter, 2, 15), sharded.findAll(filter, 2, 15));
+        TransactionCursor cursor = null;
+        List<Transaction> expected;
+        do {
+            expected = repository.findAfter(cursor, 25);
+            assertEquals(expected, sharded.findAfter(cursor, 25));
+            cursor = expected.isEmpty() ? null : TransactionCursor.of(expected.get(expected.size() - 1));
+        } while (expected.size() == 25);
+        assertThrows(IllegalStateException.class, sharded::getColumnStore);
+        assertEquals(280, sharded.getColumnStores().stream().mapToInt(columnStore -> columnStore.size()).sum());
+    }
+
+    /**
+     * 测试多分片的深分页
+     * 每个分片的交易多于一批，验证归并在分批读取各分片时与单分片仓库的每一页都相同
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Deep pages of a sharded repository should match a single shard across batch boundaries")
+    void shardedRepository_DeepPages_MatchSingleShard() {
+        InMemoryTransactionRepository sharded = new InMemoryTransactionRepository(2);
+        for (int i = 0; i < 1500; i++) {
+            Transaction transaction = transactionAt(i % 400);
+            repository.save(transaction);
+            sharded.save(transaction);
+        }
+
+        for (int page = 0; page * 7 < 1500; page += 13) {
+            assertEquals(repository.findAll(page, 7), sharded.findAll(page, 7));
+        }
+        assertEquals(repository.findAll(2, 600), sharded.findAll(2, 600));
+        assertEquals(repository.findAll(0, Integer.MAX_VALUE), sharded.findAll(0, Integer.MAX_VALUE));
+        assertEquals(1500, sharded.count());
+    }
+}
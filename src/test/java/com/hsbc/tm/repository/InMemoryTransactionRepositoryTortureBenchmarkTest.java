@@ -0,0 +1,159 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 内存交易仓库并发修改的吞吐量测试
+ * 1到64个线程在固定的交易集合上随机执行保存、比较并交换更新、删除和按ID查询，
+ * 各占四分之一，统计每秒完成的操作数；每轮结束后校验count()与各线程成功保存和删除的净增量一致
+ * 交易集合大小通过系统属性tm.benchmark.torture.keys指定，默认为4096
+ * 运行方式：mvn test -Pbenchmark -Dtest=InMemoryTransactionRepositoryTortureBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class InMemoryTransactionRepositoryTortureBenchmarkTest {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 5_000;
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "HKD"};
+
+    /**
+     * 测试不同线程数下混合修改的吞吐量
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Report mixed save/update/delete/get throughput from 1 to 64 threads")
+    void mixedMutations_ThroughputByThreadCount() throws Exception {
+        int keys = Integer.getInteger("tm.benchmark.torture.keys", 4096);
+        Transaction[] templates = new Transaction[keys];
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < keys; i++) {
+            templates[i] = new Transaction(BigDecimal.valueOf(i + 1), "benchmark " + i, "DEPOSIT", CURRENCIES[i % 4]);
+            templates[i].setTimestamp(base.plusSeconds(i));
+        }
+
+        System.out.println("-------- Repository Mixed Mutation Throughput Results --------");
+        System.out.printf("%8s %14s %14s %10s%n", "threads", "ops/s", "mutations/s", "count");
+        for (int threads : THREAD_COUNTS) {
+            InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+            long initial = 0;
+            for (int i = 0; i < keys; i += 2) {
+                repository.save(copy(templates[i], 1));
+                initial++;
+            }
+            run(repository, templates, threads, WARMUP_MILLIS);
+            long before = repository.count();
+            long[] result = run(repository, templates, threads, MEASURE_MILLIS);
+
+            System.out.printf("%8d %14.0f %14.0f %10d%n", threads, result[0] * 1000.0 / MEASURE_MILLIS,
+                    result[1] * 1000.0 / MEASURE_MILLIS, repository.count());
+            assertEquals(before + result[2], repository.count());
+            assertEquals(repository.count(), repository.getColumnStore().size());
+            assertEquals(repository.count(), repository.findAll().size());
+        }
+    }
+
+    /**
+     * 以指定线程数运行一段时间的混合操作
+     *
+     * @author 薛鹏
+     * @return 返回总操作数、成功的修改数和净增量
+     */
+    private long[] run(InMemoryTransactionRepository repository, Transaction[] templates, int threads, long millis)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return mutate(repository, templates, running);
+                }));
+            }
+            start.countDown();
+            Thread.sleep(millis);
+            running.set(false);
+            long[] total = new long[3];
+            for (Future<long[]> future : futures) {
+                long[] result = future.get(30, TimeUnit.SECONDS);
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += result[i];
+                }
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] mutate(InMemoryTransactionRepository repository, Transaction[] templates, AtomicBoolean running) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long operations = 0;
+        long mutations = 0;
+        long net = 0;
+        while (running.get()) {
+            Transaction template = templates[random.nextInt(templates.length)];
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    try {
+                        repository.save(copy(template, 1));
+                        mutations++;
+                        net++;
+                    } catch (TransactionException.DuplicateTransactionException e) {
+                        // 已存在
+                    }
+                }
+                case 1 -> {
+                    try {
+                        repository.deleteById(template.getId());
+                        mutations++;
+                        net--;
+                    } catch (TransactionException.TransactionNotFoundException e) {
+                        // 不存在
+                    }
+                }
+                case 2 -> {
+                    Transaction current = repository.findById(template.getId()).orElse(null);
+                    if (current != null && repository.replace(current, copy(current, current.getVersion() + 1))) {
+                        mutations++;
+                    }
+                }
+                default -> repository.findById(template.getId());
+            }
+            operations++;
+        }
+        return new long[]{operations, mutations, net};
+    }
+
+    private static Transaction copy(Transaction transaction, long version) {
+        Transaction copy = new Transaction(transaction.getId(), transaction.getAmount(), transaction.getDescription(),
+                transaction.getType(), transaction.getTimestamp(), transaction.getCurrency(), transaction.getStatus());
+        copy.setVersion(version);
+        return copy;
+    }
+}
@@ -0,0 +1,377 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.repository.persistence.WriteAheadLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存交易仓库的并发压力测试类
+ * 多个线程在少量交易上交错执行保存、更新和删除，验证每个操作都是原子的：
+ * 同一交易的重复保存和重复删除恰好有一个成功，删除后的更新不会使交易复活，
+ * count()始终与主存储、时间索引和列式存储中的条目数一致，预写日志关闭后失败的写操作也不会破坏这一点
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class InMemoryTransactionRepositoryTortureTest {
+
+    private static final int THREADS = 8;
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "HKD"};
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 测试并发保存同一批交易
+     * 验证每笔交易恰好被保存一次，其余保存得到重复异常
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Concurrent saves of the same transaction should succeed exactly once")
+    void concurrentSaves_ExactlyOneWinsPerTransaction() throws Exception {
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+        List<Transaction> transactions = transactions(500);
+        AtomicInteger duplicates = new AtomicInteger();
+
+        List<Integer> wins = runConcurrently(thread -> {
+            List<Transaction> order = new ArrayList<>(transactions);
+            Collections.shuffle(order, new Random(thread));
+            int saved = 0;
+            for (Transaction transaction : order) {
+                try {
+                    repository.save(transaction);
+                    saved++;
+                } catch (TransactionException.DuplicateTransactionException e) {
+                    duplicates.incrementAndGet();
+                }
+            }
+            return saved;
+        });
+
+        assertEquals(transactions.size(), wins.stream().mapToInt(Integer::intValue).sum());
+        assertEquals((THREADS - 1) * transactions.size(), duplicates.get());
+        assertConsistent(repository, transactions.size());
+    }
+
+    /**
+     * 测试并发删除同一批交易
+     * 验证每笔交易恰好被删除一次，计数不会减为负数
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Concurrent deletes of the same transaction should succeed exactly once")
+    void concurrentDeletes_ExactlyOneWinsPerTransaction() throws Exception {
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+        List<Transaction> transactions = transactions(500);
+        repository.saveAll(transactions);
+
+        List<Integer> wins = runConcurrently(thread -> {
+            List<Transaction> order = new ArrayList<>(transactions);
+            Collections.shuffle(order, new Random(thread));
+            int deleted = 0;
+            for (Transaction transaction : order) {
+                try {
+                    repository.deleteById(transaction.getId());
+                    deleted++;
+                } catch (TransactionException.TransactionNotFoundException e) {
+                    // 已被其他线程删除
+                }
+            }
+            return deleted;
+        });
+
+        assertEquals(transactions.size(), wins.stream().mapToInt(Integer::intValue).sum());
+        assertConsistent(repository, 0);
+    }
+
+    /**
+     * 测试更新与删除的竞争
+     * 更新线程以无条件的update反复写入，删除线程删除同一交易，
+     * 验证删除之后的更新失败而不是重新写入交易
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Updates racing a delete should never resurrect the transaction")
+    void updateRacingDelete_NeverResurrects() throws Exception {
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                Transaction original = repository.save(transaction(round, "USD"));
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> updater = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; ; i++) {
+                        Transaction next = copy(original, CURRENCIES[i % CURRENCIES.length], i + 2);
+                        try {
+                            repository.update(next);
+                        } catch (TransactionException.TransactionNotFoundException e) {
+                            return null;
+                        }
+                    }
+                });
+                Future<?> deleter = executor.submit(() -> {
+                    start.await();
+                    repository.deleteById(original.getId());
+                    return null;
+                });
+                start.countDown();
+                deleter.get(10, TimeUnit.SECONDS);
+                updater.get(10, TimeUnit.SECONDS);
+
+                assertFalse(repository.existsById(original.getId()));
+                assertConsistent(repository, 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试随机交错的保存、比较并交换更新和删除
+     * 各线程统计自己成功的保存和删除次数，结束后净增量必须等于count()，
+     * 运行期间另一个线程持续读取count()，不能超出交易总数的范围；
+     * 最后逐笔核对时间索引和列式存储中记录的都是主存储中的最新版本
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Random save/update/delete interleavings should keep count and indexes exact")
+    void randomInterleavings_KeepCountAndIndexesExact() throws Exception {
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+        List<Transaction> templates = transactions(64);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger countViolations = new AtomicInteger();
+        Thread observer = new Thread(() -> {
+            while (running.get()) {
+                long count = repository.count();
+                if (count < 0 || count > templates.size()) {
+                    countViolations.incrementAndGet();
+                }
+            }
+        });
+        observer.start();
+
+        List<Integer> netChanges;
+        try {
+            netChanges = runConcurrently(thread -> {
+                Random random = new Random(thread);
+                int net = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    Transaction template = templates.get(random.nextInt(templates.size()));
+                    int operation = random.nextInt(3);
+                    if (operation == 0) {
+                        try {
+                            repository.save(copy(template, template.getCurrency(), 1));
+                            net++;
+                        } catch (TransactionException.DuplicateTransactionException e) {
+                            // 已存在
+                        }
+                    } else if (operation == 1) {
+                        try {
+                            repository.deleteById(template.getId());
+                            net--;
+                        } catch (TransactionException.TransactionNotFoundException e) {
+                            // 不存在
+                        }
+                    } else {
+                        Transaction current = repository.findById(template.getId()).orElse(null);
+                        if (current != null) {
+                            String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+                            repository.replace(current, copy(current, currency, current.getVersion() + 1));
+                        }
+                    }
+                }
+                return net;
+            });
+        } finally {
+            running.set(false);
+            observer.join();
+        }
+
+        assertEquals(0, countViolations.get());
+        assertConsistent(repository, netChanges.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * 测试写入过程中关闭预写日志
+     * 日志关闭后的保存、更新和删除抛出异常，验证失败的写操作没有在时间索引、列式存储或计数中留下痕迹
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Writes failing on a closed write-ahead log should leave count and indexes exact")
+    void closedWriteAheadLog_LeavesCountAndIndexesExact() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(directory, WriteAheadLog.FlushPolicy.INTERVAL, 5, 4096);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+        List<Transaction> templates = transactions(64);
+        AtomicInteger operations = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch halfway = new CountDownLatch(1);
+        Thread closer = new Thread(() -> {
+            try {
+                halfway.await();
+                wal.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        closer.start();
+
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+            for (int i = 0; i < 5_000; i++) {
+                if (operations.incrementAndGet() == THREADS * 2_500) {
+                    halfway.countDown();
+                }
+                Transaction template = templates.get(random.nextInt(templates.size()));
+                try {
+                    switch (random.nextInt(3)) {
+                        case 0 -> repository.save(copy(template, template.getCurrency(), 1));
+                        case 1 -> repository.deleteById(template.getId());
+                        default -> {
+                            Transaction current = repository.findById(template.getId()).orElse(null);
+                            if (current != null) {
+                                String currency = CURRENCIES[random.nextInt(CURRENCIES.length)];
+                                repository.replace(current, copy(current, currency, current.getVersion() + 1));
+                            }
+                        }
+                    }
+                } catch (TransactionException e) {
+                    // 已存在或不存在
+                } catch (IllegalStateException | UncheckedIOException e) {
+                    failures.incrementAndGet();
+                }
+            }
+            return 0;
+        });
+        closer.join();
+
+        assertTrue(failures.get() > 0, "Writes after closing the log should fail");
+        assertConsistent(repository, repository.findAll().size());
+    }
+
+    /**
+     * 在多个线程中同时执行任务并收集结果
+     *
+     * @author 薛鹏
+     * @param task 接收线程序号的任务
+     * @return 返回各线程的结果
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    private static List<Integer> runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                Callable<Integer> callable = () -> {
+                    start.await();
+                    return task.run(thread);
+                };
+                futures.add(executor.submit(callable));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 校验计数、主存储、时间索引和列式存储相互一致
+     * 时间索引和列式存储中的每笔交易都必须是主存储中的当前对象，各货币的位图计数与主存储一致
+     *
+     * @author 薛鹏
+     * @param repository 仓库
+     * @param expected 期望的交易数
+     */
+    private static void assertConsistent(InMemoryTransactionRepository repository, long expected) {
+        assertEquals(expected, repository.count());
+        assertEquals(expected, repository.findAll().size());
+        assertEquals(expected, repository.getColumnStore().size());
+        List<Transaction> indexed = repository.findAll(0, (int) expected + 1);
+        assertEquals(expected, indexed.size());
+
+        Map<String, Long> byCurrency = new HashMap<>();
+        for (Transaction transaction : indexed) {
+            assertSame(repository.findById(transaction.getId()).orElseThrow(), transaction);
+            byCurrency.merge(transaction.getCurrency(), 1L, Long::sum);
+        }
+        for (String currency : CURRENCIES) {
+            TransactionFilter filter = new TransactionFilter().currencies(List.of(currency));
+            assertEquals(byCurrency.getOrDefault(currency, 0L), repository.count(filter), currency);
+            for (Transaction transaction : repository.findAll(filter, 0, (int) expected + 1)) {
+                assertSame(repository.findById(transaction.getId()).orElseThrow(), transaction);
+            }
+        }
+    }
+
+    private static List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(transaction(i, CURRENCIES[i % CURRENCIES.length]));
+        }
+        return transactions;
+    }
+
+    private static Transaction transaction(int index, String currency) {
+        Transaction transaction = new Transaction(BigDecimal.valueOf(index + 1), "torture " + index, "DEPOSIT", currency);
+        transaction.setTimestamp(BASE_TIME.plusSeconds(index));
+        return transaction;
+    }
+
+    private static Transaction copy(Transaction transaction, String currency, long version) {
+        Transaction copy = new Transaction(transaction.getId(), transaction.getAmount(), transaction.getDescription(),
+                transaction.getType(), transaction.getTimestamp(), currency, transaction.getStatus());
+        copy.setVersion(version);
+        return copy;
+    }
+
+    /**
+     * 按线程序号执行的任务
+     */
+    @FunctionalInterface
+    private interface ThreadTask {
+        int run(int thread) throws Exception;
+    }
+}
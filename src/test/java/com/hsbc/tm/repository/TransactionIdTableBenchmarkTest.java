@@ -0,0 +1,153 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * 主存储的内存占用和查找延迟测试
+ * 对比以36字符字符串为键的ConcurrentHashMap和以128位ID为键的开放寻址表：
+ * 内存占用为存储结构本身（含字符串键）每条交易的字节数，交易对象本身不计入
+ * 查找延迟从API收到的字符串ID开始计算，字符串键需要计算哈希，128位键需要解析
+ * 数据规模通过系统属性tm.benchmark.id.sizes指定，默认为100万和500万
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionIdTableBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionIdTableBenchmarkTest {
+
+    private static final int LOOKUPS = 1_000_000;
+
+    /**
+     * 测试不同数据规模下两种存储的内存占用和查找延迟
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Compare bytes per transaction and lookup latency of string and 128-bit keyed stores")
+    void footprintAndLookup_StringKeysVersusCompactIds() {
+        int[] sizes = Arrays.stream(System.getProperty("tm.benchmark.id.sizes", "1000000,5000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        BigDecimal amount = new BigDecimal("100.00");
+
+        System.out.println("-------- Transaction Store Footprint and Lookup Results --------");
+        System.out.printf("%12s %18s %18s %16s %16s %16s%n", "transactions", "string(B/txn)", "compact(B/txn)",
+                "string(ns/get)", "compact(ns/get)", "compact(ns/raw)");
+        for (int size : sizes) {
+            Transaction[] transactions = new Transaction[size];
+            for (int i = 0; i < size; i++) {
+                transactions[i] = new Transaction(amount, "benchmark", "DEPOSIT", "USD");
+            }
+
+            long before = usedHeap();
+            Map<String, Transaction> stringStore = new ConcurrentHashMap<>();
+            for (Transaction transaction : transactions) {
+                stringStore.put(transaction.getId(), transaction);
+            }
+            long stringBytes = usedHeap() - before;
+
+            before = usedHeap();
+            TransactionIdTable<Transaction> compactStore = new TransactionIdTable<>();
+            for (Transaction transaction : transactions) {
+                compactStore.put(transaction.getIdHigh(), transaction.getIdLow(), transaction);
+            }
+            long compactBytes = usedHeap() - before;
+
+            Random random = new Random(size);
+            String[] warmup = queries(transactions, random);
+            lookupString(stringStore, warmup);
+            lookupCompact(compactStore, warmup);
+            lookupRaw(compactStore, transactions, random);
+
+            String[] stringQueries = queries(transactions, random);
+            long start = System.nanoTime();
+            lookupString(stringStore, stringQueries);
+            double stringNanos = (System.nanoTime() - start) / (double) LOOKUPS;
+
+            String[] compactQueries = queries(transactions, random);
+            start = System.nanoTime();
+            lookupCompact(compactStore, compactQueries);
+            double compactNanos = (System.nanoTime() - start) / (double) LOOKUPS;
+
+            start = System.nanoTime();
+            lookupRaw(compactStore, transactions, random);
+            double rawNanos = (System.nanoTime() - start) / (double) LOOKUPS;
+
+            System.out.printf("%12d %18.1f %18.1f %16.1f %16.1f %16.1f%n", size,
+                    stringBytes / (double) size, compactBytes / (double) size, stringNanos, compactNanos, rawNanos);
+
+            stringStore.clear();
+            assertNotNull(compactStore.get(transactions[0].getIdHigh(), transactions[0].getIdLow()));
+        }
+    }
+
+    /**
+     * 生成随机的查询ID
+     * 每个字符串都是新建的副本，与API从请求中解析出的ID一样尚未缓存哈希值
+     *
+     * @author 薛鹏
+     * @param transactions 已存储的交易
+     * @param random 随机数生成器
+     * @return 返回查询ID数组
+     */
+    private String[] queries(Transaction[] transactions, Random random) {
+        String[] queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            queries[i] = transactions[random.nextInt(transactions.length)].getId();
+        }
+        return queries;
+    }
+
+    private void lookupString(Map<String, Transaction> store, String[] queries) {
+        for (String id : queries) {
+            if (store.get(id) == null) {
+                throw new AssertionError("Missing " + id);
+            }
+        }
+    }
+
+    private void lookupCompact(TransactionIdTable<Transaction> store, String[] queries) {
+        for (String id : queries) {
+            TransactionId key = TransactionId.parse(id);
+            if (store.get(key.getHigh(), key.getLow()) == null) {
+                throw new AssertionError("Missing " + id);
+            }
+        }
+    }
+
+    private void lookupRaw(TransactionIdTable<Transaction> store, Transaction[] transactions, Random random) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            Transaction transaction = transactions[random.nextInt(transactions.length)];
+            if (store.get(transaction.getIdHigh(), transaction.getIdLow()) == null) {
+                throw new AssertionError("Missing " + transaction.getId());
+            }
+        }
+    }
+
+    /**
+     * 在多次GC后测量已用堆内存
+     *
+     * @author 薛鹏
+     * @return 返回已用堆内存字节数
+     */
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,157 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.model.TransactionId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交易ID哈希表的单元测试类
+ * 测试ID的字符串转换以及哈希表在随机操作和并发访问下的正确性
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionIdTableTest {
+
+    /**
+     * 测试交易ID与标准UUID字符串的相互转换
+     * 验证格式化结果与UUID一致，比较顺序与字符串顺序一致，非UUID字符串、大写和非ASCII数字被拒绝
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should round-trip ids through the UUID string form")
+    void transactionId_RoundTripsUuidStrings() {
+        Random random = new Random(42);
+        TransactionId previous = null;
+        for (int i = 0; i < 1_000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            TransactionId id = TransactionId.parse(uuid.toString());
+            assertEquals(uuid.toString(), id.toString());
+            if (previous != null) {
+                assertEquals(Integer.signum(previous.toString().compareTo(id.toString())),
+                        Integer.signum(previous.compareTo(id)));
+            }
+            previous = id;
+        }
+
+        assertNull(TransactionId.tryParse("missing-id"));
+        assertNull(TransactionId.tryParse("0123456789abcdef0123456789abcdef0123"));
+        assertNull(TransactionId.tryParse("g0000000-0000-0000-0000-000000000000"));
+        assertNull(TransactionId.tryParse("A0000000-0000-0000-0000-000000000000"));
+        assertNull(TransactionId.tryParse("\u0661\u0662000000-0000-0000-0000-000000000000"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionId.parse(null));
+    }
+
+    /**
+     * 测试随机的写入、覆盖、计算和删除
+     * 以HashMap为参照，验证删除时的条目前移不会使其他键无法找到
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should match a reference map under random puts, computes and removes")
+    void randomOperations_MatchReferenceMap() {
+        TransactionIdTable<Integer> table = new TransactionIdTable<>();
+        Map<TransactionId, Integer> reference = new HashMap<>();
+        List<TransactionId> keys = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            keys.add(new TransactionId(random.nextLong(), random.nextLong()));
+        }
+
+        for (int i = 0; i < 200_000; i++) {
+            TransactionId key = keys.get(random.nextInt(keys.size()));
+            int operation = random.nextInt(5);
+            if (operation == 0) {
+                assertEquals(reference.remove(key), table.remove(key.getHigh(), key.getLow()));
+            } else if (operation == 4) {
+                // 偶数值加1，奇数值删除，不存在时写入
+                Integer value = i;
+                UnaryOperator<Integer> remapping = current -> current == null ? value
+                        : current % 2 == 0 ? Integer.valueOf(current + 1) : null;
+                assertEquals(reference.compute(key, (k, current) -> remapping.apply(current)),
+                        table.compute(key.getHigh(), key.getLow(), remapping));
+            } else if (operation == 1) {
+                assertEquals(reference.putIfAbsent(key, i), table.putIfAbsent(key.getHigh(), key.getLow(), i));
+            } else {
+                assertEquals(reference.put(key, i), table.put(key.getHigh(), key.getLow(), i));
+            }
+        }
+
+        assertEquals(reference.size(), table.size());
+        for (TransactionId key : keys) {
+            assertEquals(reference.get(key), table.get(key.getHigh(), key.getLow()));
+        }
+        Set<Integer> values = new HashSet<>();
+        table.forEach(values::add);
+        assertEquals(new HashSet<>(reference.values()), values);
+    }
+
+    /**
+     * 测试并发写入和读取
+     * 多个线程各自写入并删除互不相交的键，同时读取其他线程已写入的键，
+     * 验证读取不会因并发扩容和前移而漏掉稳定存在的条目
+     *
+     * @author 薛鹏
+     * @throws Exception 当线程执行失败时抛出异常
+     */
+    @Test
+    @DisplayName("Should never lose stable entries under concurrent writes")
+    void concurrentWrites_StableEntriesAlwaysVisible() throws Exception {
+        TransactionIdTable<String> table = new TransactionIdTable<>();
+        List<TransactionId> stable = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            TransactionId id = TransactionId.random();
+            stable.add(id);
+            table.put(id.getHigh(), id.getLow(), "stable");
+        }
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                List<TransactionId> own = new ArrayList<>();
+                for (int i = 0; i < 50_000; i++) {
+                    TransactionId id = TransactionId.random();
+                    own.add(id);
+                    table.put(id.getHigh(), id.getLow(), "churn");
+                    if (i % 2 == 1) {
+                        TransactionId removed = own.remove(own.size() - 2);
+                        assertEquals("churn", table.remove(removed.getHigh(), removed.getLow()));
+                    }
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (TransactionId id : stable) {
+                        assertEquals("stable", table.get(id.getHigh(), id.getLow()));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(stable.size() + threads * 25_000, table.size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.hsbc.tm.repository;
+
+import com.hsbc.tm.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分页查询的规模扩展测试
+ * 在1万到500万条交易的数据规模下测量深分页的延迟，验证分页代价不随数据量线性增长
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionPagingScalingTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionPagingScalingTest {
+
+    private static final int[] STORE_SIZES = {10_000, 100_000, 1_000_000, 5_000_000};
+    private static final int PAGE_SIZE = 50;
+    private static final int SAMPLES = 500;
+
+    /**
+     * 测试不同数据规模下的分页延迟
+     * 分别测量首页、中间页和末页的中位延迟，并要求最大规模下的延迟不超过最小规模的10倍
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Page latency should stay flat from 10k to 5M transactions")
+    void pageLatency_StaysFlat_AsStoreGrows() {
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+        BigDecimal amount = new BigDecimal("100.00");
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        long[] deepPageNanos = new long[STORE_SIZES.length];
+        int stored = 0;
+
+        System.out.println("-------- Paging Scaling Results --------");
+        System.out.printf("%12s %14s %14s %14s%n", "transactions", "first(us)", "middle(us)", "last(us)");
+        for (int s = 0; s < STORE_SIZES.length; s++) {
+            int target = STORE_SIZES[s];
+            for (; stored < target; stored++) {
+                Transaction transaction = new Transaction(amount, "scaling", "DEPOSIT", "USD");
+                transaction.setTimestamp(base.plusNanos(stored * 1_000L));
+                repository.save(transaction);
+            }
+            assertEquals(target, repository.count());
+
+            int lastPage = (target - 1) / PAGE_SIZE;
+            long first = medianPageNanos(repository, 0);
+            long middle = medianPageNanos(repository, lastPage / 2);
+            long last = medianPageNanos(repository, lastPage);
+            deepPageNanos[s] = Math.max(middle, last);
+
+            System.out.printf("%12d %14.1f %14.1f %14.1f%n", target, first / 1e3, middle / 1e3, last / 1e3);
+        }
+
+        long smallest = Math.max(deepPageNanos[0], 1);
+        long largest = deepPageNanos[STORE_SIZES.length - 1];
+        assertTrue(largest <= smallest * 10,
+                "Deep page latency grew from " + smallest + "ns to " + largest + "ns");
+    }
+
+    /**
+     * 多次查询同一页并取中位延迟
+     *
+     * @author 薛鹏
+     * @param repository 要测试的仓库
+     * @param page 页码
+     * @return 返回中位延迟（纳秒）
+     */
+    private long medianPageNanos(InMemoryTransactionRepository repository, int page) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            int size = repository.findAll(page, PAGE_SIZE).size();
+            samples[i] = System.nanoTime() - start;
+            assertTrue(size > 0, "Page " + page + " should not be empty");
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
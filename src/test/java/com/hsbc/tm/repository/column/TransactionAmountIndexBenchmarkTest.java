@@ -0,0 +1,189 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.model.TransactionId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 金额范围索引的性能测试
+ * 对比通过金额索引和逐个比较交易对象的BigDecimal金额回答范围计数和首页查询的耗时
+ * 数据规模通过系统属性tm.benchmark.amount.sizes指定，默认为100万和1000万
+ * 为在4GB堆中容纳1000万笔交易，金额和时间戳对象在交易之间共享
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionAmountIndexBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionAmountIndexBenchmarkTest {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "CNY", "HKD"};
+    private static final int DISTINCT_AMOUNTS = 2_000_000;
+    private static final int DISTINCT_TIMESTAMPS = 86_400;
+    private static final int ROUNDS = 11;
+    private static final int PAGE_SIZE = 20;
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTimestamp).reversed()
+            .thenComparing((a, b) -> TransactionId.compare(a.getIdHigh(), a.getIdLow(), b.getIdHigh(), b.getIdLow()));
+
+    /**
+     * 测试不同数据规模下金额范围查询的耗时
+     * 两种方式的结果必须一致，输出中位耗时
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Amount index should answer range queries without scanning")
+    void amountRangeQueries_IndexVersusScan() {
+        int[] sizes = Arrays.stream(System.getProperty("tm.benchmark.amount.sizes", "1000000,10000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        BigDecimal[] amounts = new BigDecimal[DISTINCT_AMOUNTS];
+        for (int i = 0; i < DISTINCT_AMOUNTS; i++) {
+            amounts[i] = BigDecimal.valueOf(i, 2);
+        }
+        LocalDateTime[] timestamps = new LocalDateTime[DISTINCT_TIMESTAMPS];
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < DISTINCT_TIMESTAMPS; i++) {
+            timestamps[i] = base.plusSeconds(i);
+        }
+
+        TransactionFilter above = new TransactionFilter().minAmount(new BigDecimal("19000"));
+        TransactionFilter euroBand = new TransactionFilter()
+                .currencies(List.of("EUR"))
+                .minAmount(new BigDecimal("500"))
+                .maxAmount(new BigDecimal("510"));
+        TransactionFilter top = new TransactionFilter().minAmount(new BigDecimal("19990"));
+        TransactionFilter euroDepositBand = new TransactionFilter()
+                .types(List.of("DEPOSIT"))
+                .currencies(List.of("EUR"))
+                .minAmount(new BigDecimal("500"))
+                .maxAmount(new BigDecimal("510"));
+
+        System.out.println("-------- Amount Range Index Results --------");
+        System.out.printf("%12s %-36s %10s %12s %12s %10s%n", "transactions", "query", "matches", "scan(ms)",
+                "index(ms)", "speedup");
+        for (int size : sizes) {
+            TransactionColumnStore columnStore = new TransactionColumnStore();
+            List<Transaction> transactions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                // 7919与2000000互素，每200万笔交易恰好覆盖每个金额一次
+                Transaction transaction = new Transaction(amounts[(int) (i * 7919L % DISTINCT_AMOUNTS)], "benchmark",
+                        TYPES[i % TYPES.length], CURRENCIES[i % CURRENCIES.length]);
+                transaction.setTimestamp(timestamps[i % DISTINCT_TIMESTAMPS]);
+                transactions.add(transaction);
+            }
+            long start = System.nanoTime();
+            for (int from = 0; from < size; from += 10_000) {
+                columnStore.upsertAll(transactions.subList(from, Math.min(size, from + 10_000)));
+            }
+            System.out.printf("%12d loaded column store and indexes in %.0f ms%n", size,
+                    (System.nanoTime() - start) / 1e6);
+
+            compare(size, "count amount >= 19000", () -> scanCount(transactions, above),
+                    () -> columnStore.count(above));
+            compare(size, "count EUR 500..510", () -> scanCount(transactions, euroBand),
+                    () -> columnStore.count(euroBand));
+
+            assertEquals(scanPage(transactions, top), columnStore.find(top, 0, PAGE_SIZE));
+            assertEquals(scanPage(transactions, euroDepositBand), columnStore.find(euroDepositBand, 0, PAGE_SIZE));
+            compare(size, "first page amount >= 19990", () -> scanPage(transactions, top).size(),
+                    () -> columnStore.find(top, 0, PAGE_SIZE).size());
+            compare(size, "first page DEPOSIT & EUR 500..510", () -> scanPage(transactions, euroDepositBand).size(),
+                    () -> columnStore.find(euroDepositBand, 0, PAGE_SIZE).size());
+        }
+    }
+
+    private void compare(int size, String name, LongSupplier scan, LongSupplier index) {
+        long[] scanNanos = new long[ROUNDS];
+        long[] indexNanos = new long[ROUNDS];
+        long scanResult = 0;
+        long indexResult = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            scanResult = scan.getAsLong();
+            scanNanos[round] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            indexResult = index.getAsLong();
+            indexNanos[round] = System.nanoTime() - start;
+        }
+        assertEquals(scanResult, indexResult);
+        Arrays.sort(scanNanos);
+        Arrays.sort(indexNanos);
+        long scanMedian = scanNanos[ROUNDS / 2];
+        long indexMedian = indexNanos[ROUNDS / 2];
+        System.out.printf("%12d %-36s %10d %12.2f %12.3f %9.1fx%n", size, name, scanResult, scanMedian / 1e6,
+                indexMedian / 1e6, (double) scanMedian / indexMedian);
+    }
+
+    /**
+     * 逐个比较交易对象统计满足条件的交易数
+     *
+     * @author 薛鹏
+     * @param transactions 交易列表
+     * @param filter 过滤条件
+     * @return 返回交易数
+     */
+    private static long scanCount(List<Transaction> transactions, TransactionFilter filter) {
+        long count = 0;
+        for (Transaction transaction : transactions) {
+            if (matches(transaction, filter)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 逐个比较交易对象，保留时间最新的一页
+     *
+     * @author 薛鹏
+     * @param transactions 交易列表
+     * @param filter 过滤条件
+     * @return 返回按时间倒序排列的一页交易
+     */
+    private static List<Transaction> scanPage(List<Transaction> transactions, TransactionFilter filter) {
+        PriorityQueue<Transaction> page = new PriorityQueue<>(PAGE_SIZE + 1, NEWEST_FIRST.reversed());
+        for (Transaction transaction : transactions) {
+            if (matches(transaction, filter)) {
+                page.add(transaction);
+                if (page.size() > PAGE_SIZE) {
+                    page.poll();
+                }
+            }
+        }
+        List<Transaction> result = new ArrayList<>(page);
+        result.sort(NEWEST_FIRST);
+        return result;
+    }
+
+    private static boolean matches(Transaction transaction, TransactionFilter filter) {
+        BigDecimal amount = transaction.getAmount();
+        return contains(filter.getTypes(), transaction.getType())
+                && contains(filter.getCurrencies(), transaction.getCurrency())
+                && (filter.getMinAmount() == null || amount.compareTo(filter.getMinAmount()) >= 0)
+                && (filter.getMaxAmount() == null || amount.compareTo(filter.getMaxAmount()) <= 0);
+    }
+
+    private static boolean contains(Set<String> values, String value) {
+        return values.isEmpty() || values.contains(value);
+    }
+}
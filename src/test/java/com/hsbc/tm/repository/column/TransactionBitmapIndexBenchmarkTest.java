@@ -0,0 +1,147 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 位图索引过滤查询的性能测试
+ * 对比通过位图索引和逐个检查交易对象回答过滤计数和首页查询的耗时
+ * 数据规模通过系统属性tm.benchmark.bitmap.sizes指定，默认为100万和500万
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionBitmapIndexBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionBitmapIndexBenchmarkTest {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "CNY", "HKD"};
+    private static final int ROUNDS = 11;
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * 测试不同数据规模下过滤查询的耗时
+     * 两种方式的结果必须一致，输出中位耗时
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Bitmap indexes should answer filtered counts and pages without scanning")
+    void filteredQueries_BitmapsVersusScan() {
+        int[] sizes = Arrays.stream(System.getProperty("tm.benchmark.bitmap.sizes", "1000000,5000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        TransactionFilter narrow = new TransactionFilter()
+                .types(List.of("PAYMENT"))
+                .currencies(List.of("EUR"));
+        TransactionFilter combined = new TransactionFilter()
+                .types(List.of("DEPOSIT", "TRANSFER"))
+                .currencies(List.of("USD", "GBP"))
+                .statuses(List.of("PENDING"));
+
+        System.out.println("-------- Bitmap Index Filter Results --------");
+        System.out.printf("%12s %-34s %10s %12s %12s %10s%n", "transactions", "query", "matches", "scan(ms)",
+                "bitmap(ms)", "speedup");
+        for (int size : sizes) {
+            TransactionColumnStore columnStore = new TransactionColumnStore();
+            List<Transaction> transactions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Transaction transaction = new Transaction(BigDecimal.valueOf(i % 100_000, 2), "benchmark",
+                        TYPES[i % TYPES.length], CURRENCIES[i % CURRENCIES.length]);
+                transaction.setTimestamp(base.plusSeconds(i));
+                transaction.setStatus(i % 10 == 0 ? "PENDING" : "COMPLETED");
+                transactions.add(transaction);
+            }
+            for (int from = 0; from < size; from += 10_000) {
+                columnStore.upsertAll(transactions.subList(from, Math.min(size, from + 10_000)));
+            }
+
+            compare(size, "count type=PAYMENT & currency=EUR",
+                    () -> scanCount(transactions, narrow), () -> columnStore.count(narrow));
+            compare(size, "count (DEP|TRF) & (USD|GBP) & PENDING",
+                    () -> scanCount(transactions, combined), () -> columnStore.count(combined));
+
+            List<Transaction> expected = scanPage(transactions, narrow);
+            assertEquals(expected, columnStore.find(narrow, 0, PAGE_SIZE));
+            compare(size, "first page type=PAYMENT & currency=EUR",
+                    () -> scanPage(transactions, narrow).size(), () -> columnStore.find(narrow, 0, PAGE_SIZE).size());
+        }
+    }
+
+    private void compare(int size, String name, LongSupplier scan, LongSupplier bitmap) {
+        long[] scanNanos = new long[ROUNDS];
+        long[] bitmapNanos = new long[ROUNDS];
+        long scanResult = 0;
+        long bitmapResult = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            scanResult = scan.getAsLong();
+            scanNanos[round] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            bitmapResult = bitmap.getAsLong();
+            bitmapNanos[round] = System.nanoTime() - start;
+        }
+        assertEquals(scanResult, bitmapResult);
+        Arrays.sort(scanNanos);
+        Arrays.sort(bitmapNanos);
+        long scanMedian = scanNanos[ROUNDS / 2];
+        long bitmapMedian = bitmapNanos[ROUNDS / 2];
+        System.out.printf("%12d %-34s %10d %12.2f %12.2f %9.1fx%n", size, name, scanResult, scanMedian / 1e6,
+                bitmapMedian / 1e6, (double) scanMedian / bitmapMedian);
+    }
+
+    /**
+     * 逐个检查交易对象统计满足条件的交易数
+     *
+     * @author 薛鹏
+     * @param transactions 交易列表
+     * @param filter 过滤条件
+     * @return 返回交易数
+     */
+    private static long scanCount(List<Transaction> transactions, TransactionFilter filter) {
+        long count = 0;
+        for (Transaction transaction : transactions) {
+            if (matches(transaction, filter)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Transaction> scanPage(List<Transaction> transactions, TransactionFilter filter) {
+        return transactions.stream()
+                .filter(transaction -> matches(transaction, filter))
+                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
+                .limit(PAGE_SIZE)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean matches(Transaction transaction, TransactionFilter filter) {
+        return contains(filter.getTypes(), transaction.getType())
+                && contains(filter.getCurrencies(), transaction.getCurrency())
+                && contains(filter.getStatuses(), transaction.getStatus());
+    }
+
+    private static boolean contains(Set<String> values, String value) {
+        return values.isEmpty() || values.contains(value);
+    }
+}
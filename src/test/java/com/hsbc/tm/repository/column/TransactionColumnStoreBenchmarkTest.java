@@ -0,0 +1,103 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 列式存储的扫描性能测试
+ * 对比按货币汇总金额时，遍历交易对象与扫描列式存储的耗时
+ * 数据规模通过系统属性tm.benchmark.column.sizes指定，默认为100万和500万
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionColumnStoreBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionColumnStoreBenchmarkTest {
+
+    private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER", "PAYMENT"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "CNY", "HKD"};
+    private static final int ROUNDS = 7;
+
+    /**
+     * 测试不同数据规模下的聚合耗时
+     * 两种方式的结果必须一致，分别输出中位耗时和扫描吞吐
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Column scan should aggregate far faster than iterating transaction objects")
+    void aggregateByCurrency_ColumnsVersusObjects() {
+        int[] sizes = Arrays.stream(System.getProperty("tm.benchmark.column.sizes", "1000000,5000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+        System.out.println("-------- Column Store Aggregation Results --------");
+        System.out.printf("%12s %14s %14s %14s %10s%n", "transactions", "objects(ms)", "columns(ms)", "rows/s", "speedup");
+        for (int size : sizes) {
+            TransactionColumnStore columnStore = new TransactionColumnStore();
+            List<Transaction> transactions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Transaction transaction = new Transaction(BigDecimal.valueOf(i % 100_000, 2), "benchmark",
+                        TYPES[i % TYPES.length], CURRENCIES[i % CURRENCIES.length]);
+                transaction.setTimestamp(base.plusSeconds(i));
+                transactions.add(transaction);
+                columnStore.upsert(transaction);
+            }
+
+            long[] objectNanos = new long[ROUNDS];
+            long[] columnNanos = new long[ROUNDS];
+            Map<String, BigDecimal> objectTotals = null;
+            List<ColumnAggregate> columnTotals = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                objectTotals = sumByCurrency(transactions);
+                objectNanos[round] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                columnTotals = columnStore.aggregate(TransactionColumnStore.Dimension.CURRENCY, new ColumnFilter());
+                columnNanos[round] = System.nanoTime() - start;
+            }
+
+            assertEquals(objectTotals.size(), columnTotals.size());
+            for (ColumnAggregate aggregate : columnTotals) {
+                assertEquals(0, objectTotals.get(aggregate.getCurrency()).compareTo(aggregate.getTotal()));
+            }
+
+            Arrays.sort(objectNanos);
+            Arrays.sort(columnNanos);
+            long objects = objectNanos[ROUNDS / 2];
+            long columns = columnNanos[ROUNDS / 2];
+            System.out.printf("%12d %14.1f %14.1f %14.0f %9.1fx%n", size, objects / 1e6, columns / 1e6,
+                    size / (columns / 1e9), (double) objects / columns);
+        }
+    }
+
+    /**
+     * 通过遍历交易对象按货币汇总金额
+     *
+     * @author 薛鹏
+     * @param transactions 交易列表
+     * @return 返回各货币的金额合计
+     */
+    private Map<String, BigDecimal> sumByCurrency(List<Transaction> transactions) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            totals.merge(transaction.getCurrency(), transaction.getAmount(), BigDecimal::add);
+        }
+        return totals;
+    }
+}
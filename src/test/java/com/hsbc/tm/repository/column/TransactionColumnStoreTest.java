@@ -0,0 +1,418 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Currency;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 列式分析存储的单元测试类
+ * 通过内存仓库写入交易，验证列式存储与主存储保持同步，且过滤和聚合结果正确
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionColumnStoreTest {
+
+    private InMemoryTransactionRepository repository;
+    private TransactionColumnStore columnStore;
+    private LocalDateTime baseTime;
+
+    /**
+     * 测试前的准备工作
+     * 创建一个全新的仓库实例
+     *
+     * @author 薛鹏
+     */
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTransactionRepository();
+        columnStore = repository.getColumnStore();
+        baseTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+    }
+
+    /**
+     * 保存指定属性的交易
+     *
+     * @author 薛鹏
+     * @param amount 金额
+     * @param type 交易类型
+     * @param currency 货币
+     * @param secondsOffset 相对于基准时间的秒数
+     * @return 返回保存的交易
+     */
+    private Transaction save(String amount, String type, String currency, long secondsOffset) {
+        Transaction transaction = new Transaction(new BigDecimal(amount), "test", type, currency);
+        transaction.setTimestamp(baseTime.plusSeconds(secondsOffset));
+        return repository.save(transaction);
+    }
+
+    /**
+     * 测试按货币聚合
+     * 验证金额按各货币的最小单位换算，合计结果与逐笔相加一致
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should sum amounts per currency in minor units")
+    void aggregate_ByCurrency_SumsPerCurrency() {
+        save("10.25", "DEPOSIT", "USD", 0);
+        save("5.10", "WITHDRAWAL", "USD", 1);
+        save("1500", "DEPOSIT", "JPY", 2);
+        save("0.125", "DEPOSIT", "BHD", 3);
+
+        List<ColumnAggregate> result = columnStore.aggregate(TransactionColumnStore.Dimension.CURRENCY, new ColumnFilter());
+
+        assertEquals(3, result.size());
+        assertEquals("USD", result.get(0).getCurrency());
+        assertEquals(2, result.get(0).getCount());
+        assertEquals(new BigDecimal("15.35"), result.get(0).getTotal());
+        assertEquals(new BigDecimal("1500"), result.get(1).getTotal());
+        assertEquals(new BigDecimal("0.125"), result.get(2).getTotal());
+    }
+
+    /**
+     * 测试写入新货币的同时并发聚合
+     * 读取方只持有读锁，验证各货币的合计始终按该货币的小数位数换算
+     *
+     * @author 薛鹏
+     * @throws Exception 当读取线程失败时抛出异常
+     */
+    @Test
+    @DisplayName("Concurrent aggregates should use each currency's fraction digits while new currencies arrive")
+    void aggregate_ConcurrentWithNewCurrencies_UsesFractionDigits() throws Exception {
+        String[] codes = Currency.getAvailableCurrencies().stream()
+                .filter(currency -> currency.getDefaultFractionDigits() >= 0)
+                .map(Currency::getCurrencyCode)
+                .sorted()
+                .limit(200)
+                .toArray(String[]::new);
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(readers.submit(() -> {
+                while (running.get()) {
+                    for (ColumnAggregate aggregate : columnStore.aggregate(TransactionColumnStore.Dimension.CURRENCY,
+                            new ColumnFilter())) {
+                        int digits = Currency.getInstance(aggregate.getCurrency()).getDefaultFractionDigits();
+                        assertEquals(digits, aggregate.getTotal().scale(), aggregate.getCurrency());
+                    }
+                }
+            }));
+        }
+        try {
+            for (int i = 0; i < codes.length; i++) {
+                save("1", "DEPOSIT", codes[i], i);
+            }
+        } finally {
+            running.set(false);
+            readers.shutdown();
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(codes.length, columnStore.aggregate(TransactionColumnStore.Dimension.CURRENCY,
+                new ColumnFilter()).size());
+    }
+
+    /**
+     * 测试按类型聚合并过滤时间范围
+     * 验证分组同时区分类型和货币，且时间范围为左闭右开
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should group by type and currency within a time range")
+    void aggregate_ByTypeWithinRange_GroupsByTypeAndCurrency() {
+        save("1.00", "DEPOSIT", "USD", 0);
+        save("2.00", "DEPOSIT", "USD", 10);
+        save("3.00", "DEPOSIT", "EUR", 20);
+        save("4.00", "WITHDRAWAL", "USD", 30);
+        save("5.00", "DEPOSIT", "USD", 40);
+
+        ColumnFilter filter = new ColumnFilter().between(baseTime.plusSeconds(10), baseTime.plusSeconds(40));
+        List<ColumnAggregate> result = columnStore.aggregate(TransactionColumnStore.Dimension.TYPE, filter);
+
+        assertEquals(3, result.size());
+        assertEquals("DEPOSIT", result.get(0).getKey());
+        assertEquals("USD", result.get(0).getCurrency());
+        assertEquals(new BigDecimal("2.00"), result.get(0).getTotal());
+        assertEquals("DEPOSIT", result.get(1).getKey());
+        assertEquals("EUR", result.get(1).getCurrency());
+        assertEquals("WITHDRAWAL", result.get(2).getKey());
+        assertEquals(new BigDecimal("4.00"), result.get(2).getTotal());
+    }
+
+    /**
+     * 测试更新和删除后的同步
+     * 验证更新替换原有行，删除的行不再参与统计，空出的行被后续新增复用
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should stay in sync with the repository after update and delete")
+    void updateAndDelete_KeepColumnsInSync() {
+        Transaction first = save("10.00", "DEPOSIT", "USD", 0);
+        Transaction second = save("20.00", "DEPOSIT", "USD", 1);
+
+        first.setStatus("REVERSED");
+        first.setAmount(new BigDecimal("11.00"));
+        repository.update(first);
+        repository.deleteById(second.getId());
+        save("30.00", "DEPOSIT", "USD", 2);
+
+        assertEquals(2, columnStore.size());
+        assertEquals(1, columnStore.count(new ColumnFilter().status("REVERSED")));
+        assertEquals(0, columnStore.count(new ColumnFilter().status("UNKNOWN")));
+        List<ColumnAggregate> result = columnStore.aggregate(TransactionColumnStore.Dimension.STATUS, new ColumnFilter());
+        assertEquals(2, result.size());
+        assertEquals("COMPLETED", result.get(0).getKey());
+        assertEquals(new BigDecimal("30.00"), result.get(0).getTotal());
+        assertEquals("REVERSED", result.get(1).getKey());
+        assertEquals(new BigDecimal("11.00"), result.get(1).getTotal());
+    }
+
+    /**
+     * 测试null字段的编码
+     * 验证null类型作为单独的分组参与聚合
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should group null values separately")
+    void aggregate_NullType_GroupedSeparately() {
+        save("1.00", null, "USD", 0);
+        save("2.00", "DEPOSIT", "USD", 1);
+
+        List<ColumnAggregate> result = columnStore.aggregate(TransactionColumnStore.Dimension.TYPE, new ColumnFilter());
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0).getKey());
+        assertEquals(new BigDecimal("1.00"), result.get(0).getTotal());
+        assertEquals("DEPOSIT", result.get(1).getKey());
+    }
+
+    /**
+     * 测试位图索引的过滤查询
+     * 验证同一字段内为OR、字段之间为AND，结果按时间倒序分页，
+     * 且更新分组、删除交易后位图同步变化
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should answer AND/OR filters from bitmap indexes and keep them in sync")
+    void findAllFiltered_UsesBitmapIndexes() {
+        Transaction oldDeposit = save("1.00", "DEPOSIT", "USD", 10);
+        Transaction transfer = save("2.00", "TRANSFER", "USD", 20);
+        Transaction euroDeposit = save("3.00", "DEPOSIT", "EUR", 30);
+        Transaction withdrawal = save("4.00", "WITHDRAWAL", "USD", 40);
+        Transaction newDeposit = save("5.00", "DEPOSIT", "USD", 50);
+
+        TransactionFilter usdInflow = new TransactionFilter()
+                .types(List.of("DEPOSIT", "TRANSFER"))
+                .currencies(List.of("USD"));
+        assertEquals(3, repository.count(usdInflow));
+        assertEquals(List.of(newDeposit, transfer, oldDeposit), repository.findAll(usdInflow, 0, 10));
+        assertEquals(List.of(transfer), repository.findAll(usdInflow, 1, 1));
+        assertEquals(List.of(), repository.findAll(usdInflow, 3, 1));
+        assertEquals(0, repository.count(new TransactionFilter().currencies(List.of("JPY"))));
+        assertEquals(2, repository.count(new TransactionFilter().types(List.of("DEPOSIT", "UNKNOWN"))
+                .currencies(List.of("USD"))));
+
+        withdrawal.setType("DEPOSIT");
+        repository.update(withdrawal);
+        repository.deleteById(oldDeposit.getId());
+        euroDeposit.setStatus("REVERSED");
+        repository.update(euroDeposit);
+
+        assertEquals(List.of(newDeposit, withdrawal, transfer), repository.findAll(usdInflow, 0, 10));
+        assertEquals(List.of(euroDeposit), repository.findAll(
+                new TransactionFilter().types(List.of("DEPOSIT")).statuses(List.of("REVERSED")), 0, 10));
+        assertEquals(4, repository.count(new TransactionFilter()));
+    }
+
+    /**
+     * 测试金额范围过滤
+     * 验证上下限都包含在内、按各货币的最小单位比较，可与其他条件组合，
+     * 且更新金额或货币、删除交易后索引同步变化
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should answer inclusive amount ranges per currency from the amount index")
+    void findAllFiltered_ByAmountRange() {
+        Transaction small = save("99.99", "DEPOSIT", "USD", 10);
+        Transaction lower = save("100.00", "DEPOSIT", "USD", 20);
+        Transaction upper = save("250.00", "TRANSFER", "USD", 30);
+        Transaction yen = save("150", "DEPOSIT", "JPY", 40);
+        Transaction large = save("10000.01", "DEPOSIT", "EUR", 50);
+
+        TransactionFilter range = new TransactionFilter()
+                .minAmount(new BigDecimal("100"))
+                .maxAmount(new BigDecimal("250"));
+        assertEquals(List.of(yen, upper, lower), repository.findAll(range, 0, 10));
+        assertEquals(2, repository.count(new TransactionFilter().minAmount(new BigDecimal("99.995"))
+                .maxAmount(new BigDecimal("150.4")).currencies(List.of("USD", "JPY"))));
+        assertEquals(List.of(large), repository.findAll(new TransactionFilter().minAmount(new BigDecimal("10000")), 0, 10));
+        assertEquals(List.of(small), repository.findAll(new TransactionFilter().maxAmount(new BigDecimal("100"))
+                .types(List.of("DEPOSIT")).currencies(List.of("USD")).minAmount(new BigDecimal("0.01"))
+                .maxAmount(new BigDecimal("99.99")), 0, 10));
+        assertEquals(0, repository.count(new TransactionFilter().minAmount(BigDecimal.ONE).currencies(List.of("GBP"))));
+
+        small.setAmount(new BigDecimal("120.00"));
+        repository.update(small);
+        upper.setCurrency("EUR");
+        repository.update(upper);
+        repository.deleteById(yen.getId());
+
+        assertEquals(List.of(lower, small), repository.findAll(range.currencies(List.of("USD")), 0, 10));
+        assertEquals(List.of(upper), repository.findAll(new TransactionFilter().currencies(List.of("EUR"))
+                .maxAmount(new BigDecimal("9999")), 0, 10));
+    }
+
+    /**
+     * 测试超出货币最小单位精度的金额
+     * 这些金额在列中被舍入到最小单位，落在范围边界单位上的行须按实际金额判断，不能因舍入被错误地包含或排除
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Amount ranges should compare the exact amount on the boundary minor unit")
+    void findAllFiltered_ByAmountRange_ExcessScale() {
+        Transaction over = save("10.004", "DEPOSIT", "USD", 10);
+        Transaction under = save("9.996", "DEPOSIT", "USD", 20);
+        Transaction exact = save("10.00", "DEPOSIT", "USD", 30);
+        Transaction yen = save("149.6", "DEPOSIT", "JPY", 40);
+
+        assertEquals(List.of(exact, under), repository.findAll(new TransactionFilter()
+                .maxAmount(new BigDecimal("10.00")).currencies(List.of("USD")), 0, 10));
+        assertEquals(List.of(exact, over), repository.findAll(new TransactionFilter()
+                .minAmount(new BigDecimal("10.00")).currencies(List.of("USD")), 0, 10));
+        assertEquals(List.of(over), repository.findAll(new TransactionFilter()
+                .minAmount(new BigDecimal("10.001")).maxAmount(new BigDecimal("10.004")), 0, 10));
+        assertEquals(List.of(under), repository.findAll(new TransactionFilter()
+                .minAmount(new BigDecimal("9.996")).maxAmount(new BigDecimal("9.999")), 0, 10));
+        assertEquals(0, repository.count(new TransactionFilter().maxAmount(new BigDecimal("149"))
+                .currencies(List.of("JPY"))));
+        assertEquals(List.of(yen), repository.findAll(new TransactionFilter().minAmount(new BigDecimal("149.5"))
+                .maxAmount(new BigDecimal("149.6")), 0, 10));
+    }
+
+    /**
+     * 测试金额索引在大量随机写入、更新和删除后的正确性
+     * 条目数超过单个块的容量，覆盖块的分裂和移除，结果与逐条比较一致
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Amount index should match a linear scan after many random changes")
+    void amountRange_MatchesLinearScanAfterRandomChanges() {
+        Random random = new Random(42);
+        String[] currencies = {"USD", "EUR", "GBP"};
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            saved.add(save(BigDecimal.valueOf(random.nextInt(100_000), 2).toPlainString(), "DEPOSIT",
+                    currencies[random.nextInt(currencies.length)], i));
+        }
+        for (int i = 0; i < 2000; i++) {
+            Transaction transaction = saved.get(random.nextInt(saved.size()));
+            if (random.nextBoolean()) {
+                transaction.setAmount(BigDecimal.valueOf(random.nextInt(100_000), 2));
+                repository.update(transaction);
+            } else {
+                repository.deleteById(transaction.getId());
+                saved.remove(transaction);
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            BigDecimal min = BigDecimal.valueOf(random.nextInt(100_000), 2);
+            BigDecimal max = min.add(BigDecimal.valueOf(random.nextInt(20_000), 2));
+            long expected = saved.stream()
+                    .filter(t -> t.getAmount().compareTo(min) >= 0 && t.getAmount().compareTo(max) <= 0)
+                    .count();
+            assertEquals(expected, repository.count(new TransactionFilter().minAmount(min).maxAmount(max)));
+        }
+    }
+
+    /**
+     * 测试描述检索
+     * 验证完整词元和片段都能匹配、不区分大小写、多个词之间为AND关系并可与其他条件组合，
+     * 且修改描述、删除交易后倒排索引同步变化
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should search descriptions by tokens and fragments and keep the index in sync")
+    void findAllFiltered_ByDescription() {
+        Transaction coffee = saveDescribed("Starbucks Coffee #1042", "PAYMENT", 10);
+        Transaction rent = saveDescribed("Rent payment REF-77812", "TRANSFER", 20);
+        Transaction salary = saveDescribed("ACME Corp salary", "DEPOSIT", 30);
+        Transaction refund = saveDescribed("Starbucks refund", "DEPOSIT", 40);
+        saveDescribed("Bank banana", "PAYMENT", 50);
+
+        assertEquals(List.of(refund, coffee), repository.findAll(new TransactionFilter().query("starbucks"), 0, 10));
+        assertEquals(List.of(refund, coffee), repository.findAll(new TransactionFilter().query("BUCK"), 0, 10));
+        assertEquals(List.of(rent), repository.findAll(new TransactionFilter().query("778"), 0, 10));
+        assertEquals(List.of(coffee), repository.findAll(new TransactionFilter().query("starbucks cof"), 0, 10));
+        assertEquals(List.of(refund), repository.findAll(new TransactionFilter().query("starbucks")
+                .types(List.of("DEPOSIT")), 0, 10));
+        assertEquals(0, repository.count(new TransactionFilter().query("starbucks rent")));
+        // 三元组都出现在描述中，但片段本身没有出现
+        assertEquals(0, repository.count(new TransactionFilter().query("bananank")));
+        assertEquals(1, repository.count(new TransactionFilter().query("banan")));
+
+        salary.setDescription("Globex payroll");
+        repository.update(salary);
+        repository.deleteById(coffee.getId());
+
+        assertEquals(0, repository.count(new TransactionFilter().query("acme")));
+        assertEquals(List.of(salary), repository.findAll(new TransactionFilter().query("payroll"), 0, 10));
+        assertEquals(List.of(refund), repository.findAll(new TransactionFilter().query("starbucks"), 0, 10));
+        assertTrue(columnStore.getDescriptionIndexBytes() > 0);
+    }
+
+    /**
+     * 测试关闭三元组索引时的描述检索
+     * 验证只匹配完整的词元，且索引词条更少
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Without n-grams description search should match whole tokens only")
+    void findFiltered_WithoutNgrams_MatchesWholeTokens() {
+        TransactionColumnStore tokensOnly = new TransactionColumnStore(false);
+        Transaction coffee = saveDescribed("Starbucks Coffee", "PAYMENT", 10);
+        tokensOnly.upsert(coffee);
+
+        assertEquals(List.of(coffee), tokensOnly.find(new TransactionFilter().query("starbucks"), 0, 10));
+        assertEquals(0, tokensOnly.count(new TransactionFilter().query("buck")));
+        assertEquals(2, tokensOnly.getDescriptionTermCount());
+        assertTrue(columnStore.getDescriptionTermCount() > tokensOnly.getDescriptionTermCount());
+    }
+
+    private Transaction saveDescribed(String description, String type, long secondsOffset) {
+        Transaction transaction = new Transaction(new BigDecimal("10.00"), description, type, "USD");
+        transaction.setTimestamp(baseTime.plusSeconds(secondsOffset));
+        return repository.save(transaction);
+    }
+}
@@ -0,0 +1,185 @@
+package com.hsbc.tm.repository.column;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionFilter;
+import com.hsbc.tm.model.TransactionId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 交易描述倒排索引的性能测试
+ * 对比通过倒排索引和逐条对描述做contains检查回答检索的耗时，并输出开启和关闭三元组索引时每笔交易的索引内存
+ * 描述由商户名、城市和8位数字的参考号组成，数据规模通过系统属性tm.benchmark.search.size指定，默认为100万
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionDescriptionSearchBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionDescriptionSearchBenchmarkTest {
+
+    private static final String[] SYLLABLES = {"ac", "me", "glo", "bex", "ini", "tech", "ra", "zon", "star", "buck",
+            "sun", "via", "net", "pay", "mart", "lux", "co", "dyn", "ex", "ori"};
+    private static final String[] CITIES = {"London", "Hong Kong", "Shanghai", "New York", "Paris", "Dubai"};
+    private static final int MERCHANTS = 500;
+    private static final int ROUNDS = 11;
+    private static final int PAGE_SIZE = 20;
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTimestamp).reversed()
+            .thenComparing((a, b) -> TransactionId.compare(a.getIdHigh(), a.getIdLow(), b.getIdHigh(), b.getIdLow()));
+
+    /**
+     * 测试描述检索的耗时和索引内存
+     * 两种方式的结果必须一致，输出中位耗时
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Description index should answer searches without scanning descriptions")
+    void descriptionSearch_IndexVersusScan() {
+        int size = Integer.getInteger("tm.benchmark.search.size", 1_000_000);
+        Random random = new Random(7);
+        String[] merchants = new String[MERCHANTS];
+        for (int i = 0; i < MERCHANTS; i++) {
+            merchants[i] = capitalize(SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + SYLLABLES[random.nextInt(SYLLABLES.length)]
+                    + SYLLABLES[random.nextInt(SYLLABLES.length)]) + " Ltd";
+        }
+        merchants[0] = "Globex Corporation";
+
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(size);
+        long descriptionBytes = 0;
+        for (int i = 0; i < size; i++) {
+            String description = String.format("%s %s REF-%08d", merchants[random.nextInt(MERCHANTS)],
+                    CITIES[random.nextInt(CITIES.length)], random.nextInt(100_000_000));
+            // String对象头、字段以及Latin-1字节数组
+            descriptionBytes += 24 + 16 + description.length();
+            Transaction transaction = new Transaction(BigDecimal.TEN, description, "PAYMENT", "USD");
+            transaction.setTimestamp(base.plusSeconds(i));
+            transactions.add(transaction);
+        }
+        String reference = transactions.get(size / 2).getDescription();
+        String referenceNumber = reference.substring(reference.length() - 8);
+
+        System.out.println("-------- Description Search Results --------");
+        System.out.printf("%d transactions, descriptions %.1f bytes/transaction%n", size,
+                (double) descriptionBytes / size);
+        for (boolean ngrams : new boolean[]{false, true}) {
+            TransactionColumnStore columnStore = new TransactionColumnStore(ngrams);
+            long start = System.nanoTime();
+            for (int from = 0; from < size; from += 10_000) {
+                columnStore.upsertAll(transactions.subList(from, Math.min(size, from + 10_000)));
+            }
+            System.out.printf("ngrams=%s: loaded in %.0f ms, %d terms, index %.1f MB, %.1f bytes/transaction%n", ngrams,
+                    (System.nanoTime() - start) / 1e6, columnStore.getDescriptionTermCount(),
+                    columnStore.getDescriptionIndexBytes() / 1e6,
+                    (double) columnStore.getDescriptionIndexBytes() / size);
+            System.out.printf("%-28s %10s %12s %12s %10s%n", "query", "matches", "scan(ms)", "index(ms)", "speedup");
+
+            compareCount(columnStore, transactions, "corporation");
+            compareCount(columnStore, transactions, "hong kong");
+            compareCount(columnStore, transactions, "ref " + referenceNumber);
+            comparePage(columnStore, transactions, "corporation london");
+            if (ngrams) {
+                compareCount(columnStore, transactions, "lobe");
+                compareCount(columnStore, transactions, referenceNumber.substring(0, 6));
+                comparePage(columnStore, transactions, "orporat");
+            }
+        }
+    }
+
+    private void compareCount(TransactionColumnStore columnStore, List<Transaction> transactions, String query) {
+        TransactionFilter filter = new TransactionFilter().query(query);
+        compare("count '" + query + "'", () -> scan(transactions, query).size(), () -> columnStore.count(filter));
+    }
+
+    private void comparePage(TransactionColumnStore columnStore, List<Transaction> transactions, String query) {
+        TransactionFilter filter = new TransactionFilter().query(query);
+        assertEquals(scanPage(transactions, query), columnStore.find(filter, 0, PAGE_SIZE));
+        compare("first page '" + query + "'", () -> scanPage(transactions, query).size(),
+                () -> columnStore.find(filter, 0, PAGE_SIZE).size());
+    }
+
+    private void compare(String name, LongSupplier scan, LongSupplier index) {
+        long[] scanNanos = new long[ROUNDS];
+        long[] indexNanos = new long[ROUNDS];
+        long scanResult = 0;
+        long indexResult = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            scanResult = scan.getAsLong();
+            scanNanos[round] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            indexResult = index.getAsLong();
+            indexNanos[round] = System.nanoTime() - start;
+        }
+        assertEquals(scanResult, indexResult);
+        Arrays.sort(scanNanos);
+        Arrays.sort(indexNanos);
+        long scanMedian = scanNanos[ROUNDS / 2];
+        long indexMedian = indexNanos[ROUNDS / 2];
+        System.out.printf("%-28s %10d %12.2f %12.3f %9.1fx%n", name, scanResult, scanMedian / 1e6,
+                indexMedian / 1e6, (double) scanMedian / indexMedian);
+    }
+
+    /**
+     * 逐条检查描述是否包含查询中的每个词，与客户端的线性检索方式相同
+     *
+     * @author 薛鹏
+     * @param transactions 交易列表
+     * @param query 查询文本
+     * @return 返回匹配的交易
+     */
+    private static List<Transaction> scan(List<Transaction> transactions, String query) {
+        String[] words = query.toLowerCase(Locale.ROOT).split(" ");
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            String description = transaction.getDescription().toLowerCase(Locale.ROOT);
+            boolean matches = true;
+            for (String word : words) {
+                if (!description.contains(word)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    private static List<Transaction> scanPage(List<Transaction> transactions, String query) {
+        PriorityQueue<Transaction> page = new PriorityQueue<>(PAGE_SIZE + 1, NEWEST_FIRST.reversed());
+        for (Transaction transaction : scan(transactions, query)) {
+            page.add(transaction);
+            if (page.size() > PAGE_SIZE) {
+                page.poll();
+            }
+        }
+        List<Transaction> result = new ArrayList<>(page);
+        result.sort(NEWEST_FIRST);
+        return result;
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+}
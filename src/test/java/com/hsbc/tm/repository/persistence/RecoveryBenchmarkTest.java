@@ -0,0 +1,113 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 启动恢复基准测试
+ * 对比完整回放日志与加载快照加回放日志尾部两种方式的启动耗时
+ * 每笔交易在创建后都会被更新一次，因此完整日志的记录数是存活交易数的两倍
+ * 数据规模通过系统属性tm.benchmark.recovery.sizes指定，默认为100万和1000万
+ * 运行方式：mvn test -Pbenchmark -Dtest=RecoveryBenchmarkTest
+ * 1000万条交易需要约6GB堆，可通过-Dsurefire.argLine=-Xmx8g调整
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class RecoveryBenchmarkTest {
+
+    private static final double TAIL_RATIO = 0.01;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 测试不同数据规模下的启动恢复耗时
+     *
+     * @author 薛鹏
+     * @throws IOException 当读写失败时抛出
+     */
+    @Test
+    @DisplayName("Report startup time for full log replay versus snapshot plus log tail")
+    void startupTime_SnapshotVersusFullReplay() throws IOException {
+        long[] sizes = Arrays.stream(System.getProperty("tm.benchmark.recovery.sizes", "1000000,10000000").split(","))
+                .mapToLong(value -> Long.parseLong(value.trim()))
+                .toArray();
+
+        System.out.println("-------- Recovery Benchmark --------");
+        System.out.printf("%12s %16s %16s %16s%n", "transactions", "full replay(ms)", "snapshot(ms)", "log tail(ms)");
+        for (long size : sizes) {
+            Path logOnly = directory.resolve("log-only-" + size);
+            Path withSnapshot = directory.resolve("snapshot-" + size);
+            populate(logOnly, null, size);
+            populate(withSnapshot, withSnapshot.resolve("transactions.snapshot"), size);
+
+            long fullReplay = recover(logOnly, null, size).getTotalMillis();
+            RecoveryStats stats = recover(withSnapshot, withSnapshot.resolve("transactions.snapshot"), size);
+
+            System.out.printf("%12d %16d %16d %16d%n", size, fullReplay, stats.getSnapshotMillis(), stats.getLogMillis());
+        }
+    }
+
+    /**
+     * 写入指定数量的交易并各更新一次；如果指定了快照文件，则在写入99%后生成快照
+     *
+     * @author 薛鹏
+     * @param dataDirectory 数据目录
+     * @param snapshotFile 快照文件，为null时不生成快照
+     * @param size 交易数量
+     * @throws IOException 当读写失败时抛出
+     */
+    private void populate(Path dataDirectory, Path snapshotFile, long size) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(dataDirectory.resolve("wal"), WriteAheadLog.FlushPolicy.BYTES, 100, 1 << 20);
+        TransactionSnapshot snapshot = snapshotFile == null ? null : new TransactionSnapshot(snapshotFile);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, snapshot);
+        BigDecimal amount = new BigDecimal("100.00");
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        long snapshotAt = snapshot == null ? -1 : (long) (size * (1 - TAIL_RATIO));
+        for (long i = 0; i < size; i++) {
+            if (i == snapshotAt) {
+                repository.writeSnapshot();
+            }
+            Transaction transaction = new Transaction(amount, "recovery benchmark", "DEPOSIT", "USD");
+            transaction.setTimestamp(base.plusNanos(i * 1_000L));
+            repository.save(transaction);
+            transaction.setStatus("SETTLED");
+            repository.update(transaction);
+        }
+        wal.close();
+    }
+
+    /**
+     * 恢复仓库并返回恢复统计
+     *
+     * @author 薛鹏
+     * @param dataDirectory 数据目录
+     * @param snapshotFile 快照文件，为null时完整回放日志
+     * @param expected 期望恢复的交易数
+     * @return 返回恢复统计
+     * @throws IOException 当读写失败时抛出
+     */
+    private RecoveryStats recover(Path dataDirectory, Path snapshotFile, long expected) throws IOException {
+        System.gc();
+        WriteAheadLog wal = new WriteAheadLog(dataDirectory.resolve("wal"), WriteAheadLog.FlushPolicy.BYTES, 100, 1 << 20);
+        TransactionSnapshot snapshot = snapshotFile == null ? null : new TransactionSnapshot(snapshotFile);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, snapshot);
+        assertEquals(expected, repository.count());
+        wal.close();
+        return repository.getRecoveryStats();
+    }
+}
@@ -0,0 +1,158 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 快照的单元测试类
+ * 测试快照加日志尾部的恢复、旧日志段的清理以及快照的完整性校验
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 打开基于快照和日志的仓库
+     *
+     * @author 薛鹏
+     * @param logs 收集已打开的日志，便于测试结束时关闭
+     * @return 返回恢复后的仓库
+     * @throws IOException 当日志无法打开时抛出
+     */
+    private InMemoryTransactionRepository open(List<WriteAheadLog> logs) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory.resolve("wal"), WriteAheadLog.FlushPolicy.PER_WRITE, 5, 4096);
+        logs.add(wal);
+        return new InMemoryTransactionRepository(wal, new TransactionSnapshot(directory.resolve("transactions.snapshot")));
+    }
+
+    /**
+     * 统计日志段文件数
+     *
+     * @author 薛鹏
+     * @return 返回段文件数
+     * @throws IOException 当目录读取失败时抛出
+     */
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("wal"))) {
+            return files.count();
+        }
+    }
+
+    /**
+     * 测试快照加日志尾部的恢复
+     * 验证快照之前的数据从快照加载，快照之后的修改从日志回放，且旧日志段被删除
+     *
+     * @author 薛鹏
+     * @throws IOException 当读写失败时抛出
+     */
+    @Test
+    @DisplayName("Should recover from snapshot plus log tail and prune old segments")
+    void recover_FromSnapshotAndLogTail() throws IOException {
+        List<WriteAheadLog> logs = new ArrayList<>();
+        InMemoryTransactionRepository repository = open(logs);
+        List<Transaction> before = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            before.add(repository.save(new Transaction(new BigDecimal(i + 1), "before", "DEPOSIT", "USD")));
+        }
+        assertEquals(100, repository.writeSnapshot());
+        assertEquals(1, segmentCount());
+
+        Transaction after = repository.save(new Transaction(new BigDecimal("7.77"), "after", "PAYMENT", "EUR"));
+        repository.deleteById(before.get(0).getId());
+        before.get(1).setDescription("changed after snapshot");
+        repository.update(before.get(1));
+        logs.get(0).close();
+
+        InMemoryTransactionRepository restored = open(logs);
+
+        assertEquals(100, restored.count());
+        assertFalse(restored.existsById(before.get(0).getId()));
+        assertTrue(restored.existsById(after.getId()));
+        assertEquals("changed after snapshot", restored.findById(before.get(1).getId()).orElseThrow().getDescription());
+        assertEquals(before.get(99).getTimestamp(), restored.findById(before.get(99).getId()).orElseThrow().getTimestamp());
+        assertEquals(100, restored.getRecoveryStats().getSnapshotRecords());
+        assertEquals(3, restored.getRecoveryStats().getLogRecords());
+        logs.get(1).close();
+    }
+
+    /**
+     * 测试分片仓库的快照和日志恢复
+     * 快照和日志不记录分片，恢复时按ID重新分配，验证以不同的分片数重新打开后数据完整
+     *
+     * @author 薛鹏
+     * @throws IOException 当读写失败时抛出
+     */
+    @Test
+    @DisplayName("Should recover a sharded repository with a different shard count")
+    void recover_ShardedRepository_WithDifferentShardCount() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory.resolve("wal"), WriteAheadLog.FlushPolicy.PER_WRITE, 5, 4096);
+        TransactionSnapshot snapshot = new TransactionSnapshot(directory.resolve("transactions.snapshot"));
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, snapshot, true, 4);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            saved.add(repository.save(new Transaction(new BigDecimal(i + 1), "sharded", "DEPOSIT", "USD")));
+        }
+        assertEquals(100, repository.writeSnapshot());
+        repository.deleteById(saved.get(0).getId());
+        repository.save(new Transaction(new BigDecimal("7.77"), "after", "PAYMENT", "EUR"));
+        wal.close();
+
+        WriteAheadLog reopenedLog = new WriteAheadLog(directory.resolve("wal"), WriteAheadLog.FlushPolicy.PER_WRITE, 5, 4096);
+        InMemoryTransactionRepository restored = new InMemoryTransactionRepository(reopenedLog, snapshot, true, 3);
+
+        assertEquals(100, restored.count());
+        assertEquals(100, restored.findAll().size());
+        assertEquals(repository.findAll(0, 200), restored.findAll(0, 200));
+        assertFalse(restored.existsById(saved.get(0).getId()));
+        assertTrue(restored.existsById(saved.get(99).getId()));
+        reopenedLog.close();
+    }
+
+    /**
+     * 测试损坏的快照
+     * 验证校验失败时拒绝加载，而不是静默丢失数据
+     *
+     * @author 薛鹏
+     * @throws IOException 当读写失败时抛出
+     */
+    @Test
+    @DisplayName("Should refuse to load a corrupted snapshot")
+    void load_CorruptedSnapshot_Throws() throws IOException {
+        Path file = directory.resolve("transactions.snapshot");
+        TransactionSnapshot snapshot = new TransactionSnapshot(file);
+        List<Transaction> transactions = List.of(
+                new Transaction(new BigDecimal("1.00"), "one", "DEPOSIT", "USD"),
+                new Transaction(new BigDecimal("2.00"), "two", "DEPOSIT", "USD"));
+        snapshot.write(42, transactions.iterator());
+
+        List<Transaction> loaded = new ArrayList<>();
+        assertEquals(42, snapshot.load(loaded::add));
+        assertEquals(2, loaded.size());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 30);
+        }
+        assertThrows(IOException.class, () -> snapshot.load(transaction -> { }));
+        assertEquals(-1, new TransactionSnapshot(directory.resolve("missing.snapshot")).load(transaction -> { }));
+    }
+}
@@ -0,0 +1,111 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 预写日志的提交延迟与吞吐量基准测试
+ * 在1、16、128个写线程下对比纯内存模式与三种刷盘策略
+ * 运行方式：mvn test -Pbenchmark -Dtest=WriteAheadLogBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class WriteAheadLogBenchmarkTest {
+
+    private static final int[] WRITER_THREADS = {1, 16, 128};
+    private static final int WRITES_PER_RUN = 20_000;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 测试不同模式和线程数下的提交性能
+     * 输出每种组合的吞吐量以及提交延迟的p50和p99
+     *
+     * @author 薛鹏
+     * @throws Exception 当执行失败时抛出
+     */
+    @Test
+    @DisplayName("Report commit latency and throughput for in-memory and WAL modes")
+    void commitLatencyAndThroughput() throws Exception {
+        System.out.println("-------- Write-Ahead Log Benchmark --------");
+        System.out.printf("%-12s %8s %14s %12s %12s%n", "mode", "threads", "writes/sec", "p50(us)", "p99(us)");
+        for (int threads : WRITER_THREADS) {
+            run("in-memory", threads, null);
+            for (WriteAheadLog.FlushPolicy policy : WriteAheadLog.FlushPolicy.values()) {
+                Path file = directory.resolve(policy.name() + "-" + threads);
+                WriteAheadLog wal = new WriteAheadLog(file, policy, 5, 64 * 1024);
+                run(policy.name(), threads, wal);
+                wal.close();
+            }
+        }
+    }
+
+    /**
+     * 执行一轮写入并输出结果
+     *
+     * @author 薛鹏
+     * @param mode 模式名称
+     * @param threads 写线程数
+     * @param wal 预写日志，为null时为纯内存模式
+     * @throws InterruptedException 当等待被中断时抛出
+     */
+    private void run(String mode, int threads, WriteAheadLog wal) throws InterruptedException {
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+        BigDecimal amount = new BigDecimal("100.00");
+        int perThread = WRITES_PER_RUN / threads;
+        long[] latencies = new long[perThread * threads];
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * perThread;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        Transaction transaction = new Transaction(amount, "benchmark", "DEPOSIT", "USD");
+                        long begin = System.nanoTime();
+                        repository.save(transaction);
+                        latencies[offset + i] = System.nanoTime() - begin;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.MINUTES), "Benchmark run timed out");
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        assertEquals(latencies.length, repository.count());
+        Arrays.sort(latencies);
+        System.out.printf("%-12s %8d %14.0f %12.1f %12.1f%n", mode, threads,
+                latencies.length * 1e9 / elapsed,
+                latencies[latencies.length / 2] / 1e3,
+                latencies[(int) (latencies.length * 0.99)] / 1e3);
+    }
+}
@@ -0,0 +1,189 @@
+package com.hsbc.tm.repository.persistence;
+
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预写日志的单元测试类
+ * 测试日志回放、尾部截断以及并发写入的组提交
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 打开日志并创建基于该日志的仓库
+     *
+     * @author 薛鹏
+     * @param policy 刷盘策略
+     * @param logs 收集已打开的日志，便于测试结束时关闭
+     * @return 返回回放后的仓库
+     * @throws IOException 当日志无法打开时抛出
+     */
+    private InMemoryTransactionRepository open(WriteAheadLog.FlushPolicy policy, List<WriteAheadLog> logs) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory.resolve("wal"), policy, 5, 4096);
+        logs.add(wal);
+        return new InMemoryTransactionRepository(wal);
+    }
+
+    /**
+     * 测试重启后回放日志恢复数据
+     * 验证保存、更新和删除在重新打开日志后都得到正确恢复
+     *
+     * @author 薛鹏
+     * @throws IOException 当日志读写失败时抛出
+     */
+    @Test
+    @DisplayName("Should restore saves, updates and deletes after reopening the log")
+    void replay_AfterRestart_RestoresState() throws IOException {
+        List<WriteAheadLog> logs = new ArrayList<>();
+        InMemoryTransactionRepository repository = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+        Transaction kept = repository.save(new Transaction(new BigDecimal("12.50"), "kept", "DEPOSIT", "USD"));
+        Transaction deleted = repository.save(new Transaction(new BigDecimal("1.00"), "deleted", "PAYMENT", "EUR"));
+        kept.setAmount(new BigDecimal("99.99"));
+        kept.setDescription(null);
+        repository.update(kept);
+        Transaction replacement = new Transaction(kept.getId(), new BigDecimal("99.99"), null, "DEPOSIT",
+                kept.getTimestamp(), "USD", "COMPLETED");
+        replacement.setVersion(2);
+        assertTrue(repository.replace(kept, replacement));
+        repository.deleteById(deleted.getId());
+        logs.get(0).close();
+
+        InMemoryTransactionRepository restored = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+
+        assertEquals(1, restored.count());
+        assertFalse(restored.existsById(deleted.getId()));
+        Transaction recovered = restored.findById(kept.getId()).orElseThrow();
+        assertEquals(new BigDecimal("99.99"), recovered.getAmount());
+        assertNull(recovered.getDescription());
+        assertEquals(kept.getTimestamp(), recovered.getTimestamp());
+        assertEquals("USD", recovered.getCurrency());
+        assertEquals("COMPLETED", recovered.getStatus());
+        assertEquals(2, recovered.getVersion());
+        assertEquals(1, restored.findAll(0, 10).size());
+        logs.get(1).close();
+    }
+
+    /**
+     * 测试批量保存后重启回放
+     * 验证一次追加的整批记录全部恢复，已存在的交易被跳过且不重复记录
+     *
+     * @author 薛鹏
+     * @throws IOException 当日志读写失败时抛出
+     */
+    @Test
+    @DisplayName("Should restore a batch saved with a single log append")
+    void replay_AfterSaveAll_RestoresBatch() throws IOException {
+        List<WriteAheadLog> logs = new ArrayList<>();
+        InMemoryTransactionRepository repository = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+        Transaction existing = repository.save(new Transaction(new BigDecimal("1.00"), "existing", "DEPOSIT", "USD"));
+        List<Transaction> batch = new ArrayList<>();
+        batch.add(existing);
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Transaction(new BigDecimal(i + 1), "batch " + i, "PAYMENT", "EUR"));
+        }
+
+        assertEquals(100, repository.saveAll(batch).size());
+        logs.get(0).close();
+
+        InMemoryTransactionRepository restored = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+
+        assertEquals(101, restored.count());
+        assertEquals("existing", restored.findById(existing.getId()).orElseThrow().getDescription());
+        assertEquals("batch 99", restored.findById(batch.get(100).getId()).orElseThrow().getDescription());
+        logs.get(1).close();
+    }
+
+    /**
+     * 测试崩溃后残留的不完整尾部记录
+     * 验证回放时截断损坏的尾部，之前的记录不受影响且可以继续追加
+     *
+     * @author 薛鹏
+     * @throws IOException 当日志读写失败时抛出
+     */
+    @Test
+    @DisplayName("Should truncate a torn tail record and keep appending")
+    void replay_TornTail_IsTruncated() throws IOException {
+        List<WriteAheadLog> logs = new ArrayList<>();
+        InMemoryTransactionRepository repository = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+        Transaction first = repository.save(new Transaction(new BigDecimal("5.00"), "first", "DEPOSIT", "USD"));
+        long validLength = logs.get(0).getDurablePosition();
+        logs.get(0).close();
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("wal").resolve(String.format("wal-%020d.log", 0)), StandardOpenOption.WRITE)) {
+            channel.position(validLength);
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 50, 1, 2, 3}));
+        }
+
+        InMemoryTransactionRepository restored = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+        assertEquals(1, restored.count());
+        assertEquals(validLength, logs.get(1).getDurablePosition());
+
+        Transaction second = restored.save(new Transaction(new BigDecimal("6.00"), "second", "DEPOSIT", "USD"));
+        logs.get(1).close();
+
+        InMemoryTransactionRepository reopened = open(WriteAheadLog.FlushPolicy.PER_WRITE, logs);
+        assertTrue(reopened.existsById(first.getId()));
+        assertTrue(reopened.existsById(second.getId()));
+        logs.get(2).close();
+    }
+
+    /**
+     * 测试并发写入在各种刷盘策略下都能完整落盘
+     * 验证关闭日志后重新回放得到全部并发写入的记录
+     *
+     * @author 薛鹏
+     * @throws Exception 当并发执行失败时抛出
+     */
+    @Test
+    @DisplayName("Should persist every concurrent write under each flush policy")
+    void concurrentWrites_AllPoliciesDurableAfterClose() throws Exception {
+        for (WriteAheadLog.FlushPolicy policy : WriteAheadLog.FlushPolicy.values()) {
+            Path file = directory.resolve(policy.name());
+            WriteAheadLog wal = new WriteAheadLog(file, policy, 5, 4096);
+            InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        repository.save(new Transaction(new BigDecimal("1.00"), "concurrent", "DEPOSIT", "USD"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            wal.close();
+
+            WriteAheadLog reopenedLog = new WriteAheadLog(file, policy, 5, 4096);
+            InMemoryTransactionRepository reopened = new InMemoryTransactionRepository(reopenedLog);
+            assertEquals(1600, reopened.count(), "Policy " + policy);
+            reopenedLog.close();
+        }
+    }
+}
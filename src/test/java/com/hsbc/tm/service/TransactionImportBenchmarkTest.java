@@ -0,0 +1,213 @@
+package com.hsbc.tm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hsbc.tm.dto.TransactionImportResponse;
+import com.hsbc.tm.dto.TransactionRequest;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import com.hsbc.tm.repository.TransactionRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 流式导入的吞吐量和内存占用测试
+ * 输入由生成器按需产生，不预先占用内存，每行是一条NDJSON交易
+ * 内存占用以老年代的峰值表示，只有在导入过程中存活下来的对象才会晋升到老年代：
+ * 1. 仅导入管道：仓库不保存交易，峰值反映导入本身保留的数据，应与行数无关
+ * 2. 整体缓冲：先将全部记录解析为请求对象再处理，相当于以@RequestBody接收整个数组
+ * 3. 写入内存仓库：测量吞吐量，以及导入完成并GC后每条交易保留的字节数
+ * 行数通过系统属性tm.benchmark.import.rows指定，默认为100万和500万
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionImportBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionImportBenchmarkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    /**
+     * 测试不同行数下导入的吞吐量和内存占用
+     *
+     * @author 薛鹏
+     * @throws IOException 当读取生成的输入失败时抛出异常
+     */
+    @Test
+    @DisplayName("Measure streaming import throughput and heap against a buffered baseline")
+    void importTransactions_ThroughputAndHeap() throws IOException {
+        int[] sizes = Arrays.stream(System.getProperty("tm.benchmark.import.rows", "1000000,5000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+
+        TransactionRepository discarding = mock(TransactionRepository.class, withSettings().stubOnly());
+        when(discarding.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionImportService pipeline = new TransactionImportServiceImpl(discarding, new TransactionStatistics(),
+                objectMapper, 0, 1000);
+        // 预热
+        pipeline.importTransactions(new GeneratedNdjson(200_000), TransactionImportService.Format.NDJSON);
+
+        System.out.println("-------- Transaction Import Results --------");
+        System.out.printf("%10s %18s %20s %20s %14s %16s%n", "rows", "pipeline(rows/s)", "pipeline old peak(MB)",
+                "buffered old peak(MB)", "store(rows/s)", "store(B/txn)");
+        for (int rows : sizes) {
+            long baseline = resetOldGenPeak();
+            long start = System.nanoTime();
+            TransactionImportResponse response = pipeline.importTransactions(new GeneratedNdjson(rows),
+                    TransactionImportService.Format.NDJSON);
+            double pipelineRate = rows / ((System.nanoTime() - start) / 1e9);
+            long pipelinePeak = oldGenPeak() - baseline;
+            assertEquals(rows, response.getImported());
+
+            baseline = resetOldGenPeak();
+            List<TransactionRequest> buffered = bufferAll(new GeneratedNdjson(rows));
+            long bufferedPeak = oldGenPeak() - baseline;
+            assertEquals(rows, buffered.size());
+            buffered = null;
+
+            long before = usedHeap();
+            InMemoryTransactionRepository repository = new InMemoryTransactionRepository();
+            TransactionImportService store = new TransactionImportServiceImpl(repository, new TransactionStatistics(),
+                    objectMapper, 0, 1000);
+            start = System.nanoTime();
+            response = store.importTransactions(new GeneratedNdjson(rows), TransactionImportService.Format.NDJSON);
+            double storeRate = rows / ((System.nanoTime() - start) / 1e9);
+            long retained = usedHeap() - before;
+            assertEquals(rows, response.getImported());
+            assertEquals(rows, repository.count());
+
+            System.out.printf("%10d %18.0f %20.1f %20.1f %14.0f %16.1f%n", rows, pipelineRate,
+                    pipelinePeak / 1048576.0, bufferedPeak / 1048576.0, storeRate, retained / (double) rows);
+        }
+    }
+
+    /**
+     * 整体缓冲的对照实现：先将全部记录解析为请求对象
+     *
+     * @author 薛鹏
+     * @param in 输入流
+     * @return 返回全部请求对象
+     * @throws IOException 当读取失败时抛出异常
+     */
+    private List<TransactionRequest> bufferAll(InputStream in) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(TransactionRequest.class);
+        List<TransactionRequest> requests = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                requests.add(reader.readValue(line));
+            }
+        }
+        return requests;
+    }
+
+    private static MemoryPoolMXBean oldGen() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * GC后重置老年代的峰值
+     *
+     * @author 薛鹏
+     * @return 返回重置时的老年代占用字节数
+     */
+    private long resetOldGenPeak() {
+        usedHeap();
+        MemoryPoolMXBean pool = oldGen();
+        pool.resetPeakUsage();
+        return pool.getUsage().getUsed();
+    }
+
+    private long oldGenPeak() {
+        return oldGen().getPeakUsage().getUsed();
+    }
+
+    /**
+     * 在多次GC后测量已用堆内存
+     *
+     * @author 薛鹏
+     * @return 返回已用堆内存字节数
+     */
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 按需生成NDJSON交易的输入流
+     * 每次只在内存中保留当前一行
+     */
+    private static final class GeneratedNdjson extends InputStream {
+        private static final String[] TYPES = {"DEPOSIT", "WITHDRAWAL", "TRANSFER"};
+        private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "CNY", "HKD"};
+
+        private final int rows;
+        private int row;
+        private byte[] line = new byte[0];
+        private int position;
+
+        GeneratedNdjson(int rows) {
+            this.rows = rows;
+        }
+
+        private boolean fill() {
+            if (position < line.length) {
+                return true;
+            }
+            if (row == rows) {
+                return false;
+            }
+            line = ("{\"amount\":" + (row % 100_000 + 1) + "." + (row % 100) / 10 + row % 10
+                    + ",\"description\":\"import " + row + "\",\"type\":\"" + TYPES[row % TYPES.length]
+                    + "\",\"currency\":\"" + CURRENCIES[row % CURRENCIES.length] + "\"}\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            row++;
+            return true;
+        }
+
+        @Override
+        public int read() {
+            return fill() ? line[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < length && fill()) {
+                int count = Math.min(length - read, line.length - position);
+                System.arraycopy(line, position, buffer, offset + read, count);
+                position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+    }
+}
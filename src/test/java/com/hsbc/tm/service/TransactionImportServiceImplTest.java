@@ -0,0 +1,132 @@
+package com.hsbc.tm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.tm.dto.TransactionImportResponse;
+import com.hsbc.tm.exception.TransactionException;
+import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交易批量导入服务的单元测试类
+ * 使用真实的内存仓库，测试两种格式的解析、逐条拒绝和批次划分
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionImportServiceImplTest {
+
+    private InMemoryTransactionRepository repository;
+    private TransactionImportService importService;
+
+    /**
+     * 测试前的准备工作
+     * 使用较小的批次，使测试数据跨越多个批次
+     *
+     * @author 薛鹏
+     */
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTransactionRepository();
+        importService = new TransactionImportServiceImpl(repository, new TransactionStatistics(),
+                new ObjectMapper().findAndRegisterModules(), 2, 3);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 测试NDJSON导入
+     * 验证有效记录全部写入，无效和格式错误的记录带行号被拒绝，空行被跳过
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should import valid NDJSON records and report rejected lines")
+    void importTransactions_Ndjson_RejectsInvalidLines() {
+        String content = String.join("\n",
+                "{\"amount\": 100.00, \"description\": \"a\", \"type\": \"DEPOSIT\", \"currency\": \"USD\"}",
+                "{\"amount\": -5, \"type\": \"DEPOSIT\", \"currency\": \"USD\"}",
+                "",
+                "{\"amount\": 20, \"type\": \"WITHDRAWAL\", \"currency\": \"EUR\", "
+                        + "\"timestamp\": \"2024-03-01T10:15:30\", \"status\": \"PENDING\"}",
+                "not json",
+                "{\"amount\": 1, \"type\": \"DEPOSIT\", \"currency\": \"GBP\"}",
+                "{\"amount\": 2, \"type\": \"DEPOSIT\"}",
+                "{\"amount\": 3, \"type\": \"DEPOSIT\", \"currency\": \"CNY\"}");
+
+        TransactionImportResponse response = importService.importTransactions(stream(content),
+                TransactionImportService.Format.NDJSON);
+
+        assertEquals(7, response.getProcessed());
+        assertEquals(4, response.getImported());
+        assertEquals(3, response.getFailed());
+        assertEquals(4, repository.count());
+        assertEquals(List.of(2L, 5L, 7L), response.getErrors().stream().map(e -> e.getLine()).toList());
+        assertTrue(response.getErrors().stream().allMatch(e -> "TRX_INVALID".equals(e.getCode())));
+        assertTrue(response.getErrors().get(1).getMessage().startsWith("Malformed record"));
+
+        Transaction historical = repository.findAll().stream()
+                .filter(t -> "EUR".equals(t.getCurrency()))
+                .findFirst().orElseThrow();
+        assertEquals(LocalDateTime.of(2024, 3, 1, 10, 15, 30), historical.getTimestamp());
+        assertEquals("PENDING", historical.getStatus());
+    }
+
+    /**
+     * 测试CSV导入
+     * 验证列名不区分大小写、列顺序任意，并支持带引号的字段
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should import CSV with quoted fields and any column order")
+    void importTransactions_Csv_ParsesQuotedFields() {
+        String content = String.join("\n",
+                "Currency,Type,Amount,Description",
+                "USD,DEPOSIT,10.50,\"rent, \"\"March\"\"\"",
+                "USD,DEPOSIT,abc,bad amount",
+                "HKD,WITHDRAWAL,7,");
+
+        TransactionImportResponse response = importService.importTransactions(stream(content),
+                TransactionImportService.Format.CSV);
+
+        assertEquals(3, response.getProcessed());
+        assertEquals(2, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertEquals(3L, response.getErrors().get(0).getLine());
+        Transaction rent = repository.findAll().stream()
+                .filter(t -> "USD".equals(t.getCurrency()))
+                .findFirst().orElseThrow();
+        assertEquals(new BigDecimal("10.50"), rent.getAmount());
+        assertEquals("rent, \"March\"", rent.getDescription());
+    }
+
+    /**
+     * 测试缺少必需列的CSV表头
+     * 验证整个导入被拒绝且不写入任何交易
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should reject CSV whose header lacks a required column")
+    void importTransactions_CsvMissingColumn_ThrowsException() {
+        String content = "amount,type\n10,DEPOSIT\n";
+
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> importService.importTransactions(stream(content), TransactionImportService.Format.CSV));
+        assertEquals(0, repository.count());
+    }
+}
@@ -0,0 +1,139 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import com.hsbc.tm.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 时间序列查询的响应时间测试
+ * 生成均匀分布在过去一年中的交易，对比从增量维护的时间桶查询和全量扫描交易按时间分组
+ * 小时桶的保留期设为一年，使小时粒度可以覆盖全年；分钟桶使用默认的保留期
+ * 交易数通过系统属性tm.benchmark.rollup.rows指定，默认为500万
+ * 运行方式：mvn test -Pbenchmark -Dtest=TransactionRollupsBenchmarkTest
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+@Tag("benchmark")
+public class TransactionRollupsBenchmarkTest {
+
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "CNY", "HKD"};
+    private static final int RUNS = 21;
+
+    /**
+     * 测试一年数据上各粒度查询的响应时间
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Serve a year of volume charts from rollup buckets versus scanning every transaction")
+    void query_YearOfData_RollupsVersusFullScan() {
+        int rows = Integer.getInteger("tm.benchmark.rollup.rows", 5_000_000);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime yearAgo = now.minusDays(365);
+        long span = Duration.between(yearAgo, now).getSeconds();
+
+        Transaction[] transactions = new Transaction[rows];
+        for (int i = 0; i < rows; i++) {
+            Transaction transaction = new Transaction(BigDecimal.valueOf(i % 100_000 + 1, 2), "rollup",
+                    "DEPOSIT", CURRENCIES[i % CURRENCIES.length]);
+            transaction.setTimestamp(yearAgo.plusSeconds(span * i / rows));
+            transactions[i] = transaction;
+        }
+
+        TransactionRollups rollups = new TransactionRollups(TransactionRollups.DEFAULT_MINUTE_RETENTION,
+                Duration.ofDays(366), Clock.systemUTC());
+        long start = System.nanoTime();
+        for (Transaction transaction : transactions) {
+            rollups.add(transaction.getCurrency(), transaction.getTimestamp(), transaction.getAmount());
+        }
+        double addNanos = (System.nanoTime() - start) / (double) rows;
+
+        System.out.println("-------- Rollup Query Results (" + rows + " transactions over 365 days) --------");
+        System.out.printf("write cost: %.0f ns/transaction; buckets minute=%d hour=%d day=%d%n", addNanos,
+                rollups.bucketCount(TransactionRollups.Granularity.MINUTE),
+                rollups.bucketCount(TransactionRollups.Granularity.HOUR),
+                rollups.bucketCount(TransactionRollups.Granularity.DAY));
+        System.out.printf("%-34s %8s %14s%n", "query", "points", "median(ms)");
+
+        report("DAY, all currencies, 365 days", () ->
+                rollups.query(TransactionRollups.Granularity.DAY, null, yearAgo, now.plusMinutes(1)));
+        report("HOUR, all currencies, 365 days", () ->
+                rollups.query(TransactionRollups.Granularity.HOUR, null, yearAgo, now.plusMinutes(1)));
+        report("HOUR, USD, last 7 days", () ->
+                rollups.query(TransactionRollups.Granularity.HOUR, "USD", now.minusDays(7), now.plusMinutes(1)));
+        report("MINUTE, all currencies, last 24h", () ->
+                rollups.query(TransactionRollups.Granularity.MINUTE, null, now.minusDays(1), now.plusMinutes(1)));
+
+        TransactionRollupResponse days = rollups.query(TransactionRollups.Granularity.DAY, null, yearAgo,
+                now.plusMinutes(1));
+        long[] scanPoints = new long[1];
+        double scanMillis = median(3, () -> {
+            scanPoints[0] = scanByDay(transactions, yearAgo, now.plusMinutes(1)).size();
+            return null;
+        });
+        assertEquals(days.getPoints().size(), scanPoints[0]);
+        System.out.printf("%-34s %8d %14.2f%n", "full scan, DAY, 365 days", scanPoints[0], scanMillis);
+    }
+
+    private void report(String name, Supplier<TransactionRollupResponse> query) {
+        int[] points = new int[1];
+        double millis = median(RUNS, () -> {
+            points[0] = query.get().getPoints().size();
+            return null;
+        });
+        System.out.printf("%-34s %8d %14.2f%n", name, points[0], millis);
+    }
+
+    private static double median(int runs, Supplier<Void> task) {
+        // 预热，使查询路径完成JIT编译
+        for (int i = 0; i < runs; i++) {
+            task.get();
+        }
+        double[] samples = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.get();
+            samples[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(samples);
+        return samples[runs / 2];
+    }
+
+    /**
+     * 全量扫描的对照实现：逐条读取交易的时间戳和金额，按(货币, 天)分组累加
+     *
+     * @author 薛鹏
+     * @param transactions 全部交易
+     * @param from 起始时间，包含
+     * @param to 结束时间，不包含
+     * @return 返回各分组的金额合计
+     */
+    private static Map<String, BigDecimal> scanByDay(Transaction[] transactions, LocalDateTime from, LocalDateTime to) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            LocalDateTime timestamp = transaction.getTimestamp();
+            if (timestamp.isBefore(from) || !timestamp.isBefore(to)) {
+                continue;
+            }
+            String key = transaction.getCurrency() + '|' + timestamp.toLocalDate();
+            totals.merge(key, transaction.getAmount(), BigDecimal::add);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,169 @@
+package com.hsbc.tm.service;
+
+import com.hsbc.tm.dto.TransactionRollupPoint;
+import com.hsbc.tm.dto.TransactionRollupResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 交易时间序列的单元测试类
+ * 测试各粒度的分桶、金额调整、范围查询和过期压缩
+ *
+ * @author 薛鹏
+ * @version 1.0
+ */
+public class TransactionRollupsTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 6, 15, 12, 30, 0);
+    private MutableClock clock;
+    private TransactionRollups rollups;
+
+    /**
+     * 测试前的准备工作
+     * 使用固定时钟，分钟桶保留1小时，小时桶保留2天
+     *
+     * @author 薛鹏
+     */
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(now.toInstant(ZoneOffset.UTC));
+        rollups = new TransactionRollups(Duration.ofHours(1), Duration.ofDays(2), clock);
+    }
+
+    /**
+     * 测试同一笔交易计入三个粒度的桶
+     * 验证桶的起始时间按粒度取整，删除和修改金额后合计正确
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should roll every write into minute, hour and day buckets")
+    void add_UpdatesAllGranularities() {
+        LocalDateTime t1 = now.minusMinutes(10).withSecond(5);
+        LocalDateTime t2 = now.minusMinutes(10).withSecond(50);
+        LocalDateTime t3 = now.minusMinutes(40);
+        rollups.add("USD", t1, new BigDecimal("10.00"));
+        rollups.add("USD", t2, new BigDecimal("2.50"));
+        rollups.add("USD", t3, new BigDecimal("1.00"));
+        rollups.add("EUR", t1, new BigDecimal("7.00"));
+        rollups.changeAmount("USD", t2, new BigDecimal("2.50"), new BigDecimal("3.75"));
+        rollups.remove("USD", t3, new BigDecimal("1.00"));
+
+        List<TransactionRollupPoint> minutes = rollups.query(TransactionRollups.Granularity.MINUTE, "USD",
+                now.minusHours(1), now).getPoints();
+        assertEquals(1, minutes.size());
+        assertEquals(now.minusMinutes(10), minutes.get(0).getStart());
+        assertEquals(2, minutes.get(0).getCount());
+        assertEquals(new BigDecimal("13.75"), minutes.get(0).getTotal());
+
+        List<TransactionRollupPoint> days = rollups.query(TransactionRollups.Granularity.DAY, null,
+                now.minusDays(1), now.plusDays(1)).getPoints();
+        assertEquals(2, days.size());
+        assertEquals("EUR", days.get(0).getCurrency());
+        assertEquals(LocalDateTime.of(2025, 6, 15, 0, 0), days.get(1).getStart());
+        assertEquals(new BigDecimal("13.75"), days.get(1).getTotal());
+    }
+
+    /**
+     * 测试保留期和压缩
+     * 验证早于保留期的写入只计入较粗的粒度，时间推移后压缩删除过期的桶，天桶始终保留
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should only keep coarse buckets beyond the fine-grained retention")
+    void compact_RemovesExpiredFineBuckets() {
+        rollups.add("USD", now.minusMinutes(10), new BigDecimal("1.00"));
+        rollups.add("USD", now.minusDays(10), new BigDecimal("5.00"));
+        assertEquals(1, rollups.bucketCount(TransactionRollups.Granularity.MINUTE));
+        assertEquals(1, rollups.bucketCount(TransactionRollups.Granularity.HOUR));
+        assertEquals(2, rollups.bucketCount(TransactionRollups.Granularity.DAY));
+        assertEquals(0, rollups.compact());
+
+        clock.advance(Duration.ofHours(3));
+        assertEquals(1, rollups.compact());
+        TransactionRollupResponse minutes = rollups.query(TransactionRollups.Granularity.MINUTE, "USD",
+                now.minusDays(1), now.plusDays(1));
+        assertTrue(minutes.getPoints().isEmpty());
+        assertEquals(now.plusHours(2), minutes.getRetainedFrom());
+        assertEquals(1, rollups.query(TransactionRollups.Granularity.HOUR, "USD",
+                now.minusDays(1), now.plusDays(1)).getPoints().size());
+
+        clock.advance(Duration.ofDays(3));
+        assertEquals(1, rollups.compact());
+        TransactionRollupResponse days = rollups.query(TransactionRollups.Granularity.DAY, "USD",
+                now.minusDays(30), now.plusDays(30));
+        assertNull(days.getRetainedFrom());
+        assertEquals(2, days.getPoints().size());
+        assertEquals(new BigDecimal("5.00"), days.getPoints().get(0).getTotal());
+    }
+
+    /**
+     * 测试非UTC时区生成的交易时间戳
+     * 验证时间戳按时钟的时区换算为时刻后再分桶和判断保留期，刚创建的交易不会被当作已过期
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should convert local timestamps with the clock's zone before bucketing")
+    void add_LocalTimestampInClockZone_BucketedByInstant() {
+        ZoneId zone = ZoneId.of("America/Los_Angeles");
+        MutableClock local = new MutableClock(now.toInstant(ZoneOffset.UTC), zone);
+        TransactionRollups zoned = new TransactionRollups(Duration.ofHours(1), Duration.ofDays(2), local);
+        zoned.add("USD", LocalDateTime.now(local), new BigDecimal("4.00"));
+
+        List<TransactionRollupPoint> minutes = zoned.query(TransactionRollups.Granularity.MINUTE, "USD",
+                now.minusHours(1), now.plusHours(1)).getPoints();
+        assertEquals(1, minutes.size());
+        assertEquals(now, minutes.get(0).getStart());
+        assertEquals(new BigDecimal("4.00"), minutes.get(0).getTotal());
+    }
+
+    /**
+     * 可以手动推进的测试时钟
+     */
+    private static final class MutableClock extends Clock {
+        private final ZoneId zone;
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this(instant, ZoneOffset.UTC);
+        }
+
+        MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.hsbc.tm.service;
 
+import com.hsbc.tm.dto.TransactionBatchItemResponse;
+import com.hsbc.tm.dto.TransactionBatchResponse;
+import com.hsbc.tm.dto.TransactionJson;
+import com.hsbc.tm.dto.TransactionPageResponse;
 import com.hsbc.tm.dto.TransactionRequest;
 import com.hsbc.tm.dto.TransactionResponse;
+import com.hsbc.tm.dto.TransactionStatsGroup;
+import com.hsbc.tm.dto.TransactionStatsResponse;
 import com.hsbc.tm.exception.TransactionException;
 import com.hsbc.tm.model.Transaction;
+import com.hsbc.tm.model.TransactionCursor;
+import com.hsbc.tm.model.TransactionFilter;
 import com.hsbc.tm.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,15 +19,33 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,6 +61,18 @@ public class TransactionServiceImplTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Spy
+    private TransactionStatistics transactionStatistics = new TransactionStatistics();
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Spy
+    private TransactionIdGenerator idGenerator = new TransactionIdGenerator();
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -108,6 +146,191 @@ public class TransactionServiceImplTest {
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
+    /**
+     * 测试创建小数位数超过货币最小单位的交易
+     * 验证服务拒绝无法精确计入统计的金额，末尾的0不计入小数位数
+     *
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should reject amounts more precise than the currency's minor unit")
+    void createTransaction_OverPreciseAmount_ThrowsException() {
+        TransactionRequest cents = new TransactionRequest();
+        cents.setAmount(new BigDecimal("10.005"));
+        cents.setType("DEPOSIT");
+        cents.setCurrency("USD");
+        TransactionRequest yen = new TransactionRequest();
+        yen.setAmount(new BigDecimal("150.5"));
+        yen.setType("DEPOSIT");
+        yen.setCurrency("JPY");
+
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.createTransaction(cents));
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.createTransaction(yen));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        cents.setAmount(new BigDecimal("10.500"));
+        yen.setAmount(new BigDecimal("150.00"));
+        transactionService.createTransaction(cents);
+        transactionService.createTransaction(yen);
+        verify(transactionRepository, times(2)).save(any(Transaction.class));
+    }
+
+    /**
+     * 测试携带相同幂等键的重复创建
+     * 验证重试返回首次创建的交易，且只保存一次
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should return the original response for a repeated idempotency key")
+    void createTransaction_RepeatedIdempotencyKey_SavesOnce() {
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+
+        TransactionResponse first = transactionService.createTransaction(validRequest, "key-1");
+        TransactionResponse retry = transactionService.createTransaction(validRequest, "key-1");
+
+        assertSame(first, retry);
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+    }
+
+    /**
+     * 测试相同幂等键的并发创建
+     * 验证并发请求只执行一次创建，并全部得到同一响应
+     * 
+     * @author 薛鹏
+     * @throws Exception 当等待线程结束时被中断或线程执行失败时抛出
+     */
+    @Test
+    @DisplayName("Should collapse concurrent creates with the same idempotency key into one")
+    void createTransaction_ConcurrentIdempotencyKey_ExecutesOnce() throws Exception {
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return invocation.getArgument(0);
+        });
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<TransactionResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return transactionService.createTransaction(validRequest, "key-1");
+                }));
+            }
+            start.countDown();
+            Set<String> ids = new HashSet<>();
+            for (Future<TransactionResponse> future : futures) {
+                ids.add(future.get(10, TimeUnit.SECONDS).getId());
+            }
+
+            assertEquals(1, ids.size());
+            verify(transactionRepository, times(1)).save(any(Transaction.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试创建失败时的幂等键
+     * 验证验证失败的请求不保留幂等键，修正后使用同一幂等键可以创建
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should not remember an idempotency key whose create failed")
+    void createTransaction_FailedIdempotentCreate_IsNotRemembered() {
+        TransactionRequest invalidRequest = new TransactionRequest();
+        invalidRequest.setAmount(new BigDecimal("-100.00"));
+        invalidRequest.setType("DEPOSIT");
+        invalidRequest.setCurrency("USD");
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
+
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.createTransaction(invalidRequest, "key-1"));
+        TransactionResponse response = transactionService.createTransaction(validRequest, "key-1");
+
+        assertEquals(transactionId, response.getId());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.createTransaction(validRequest, " "));
+    }
+
+    /**
+     * 测试批量创建包含无效条目的交易
+     * 验证无效条目单独返回错误代码，有效条目通过一次批量保存创建
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should create valid batch items and report invalid ones individually")
+    void createTransactions_MixedBatch_ReturnsPerItemResults() {
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionRequest invalidRequest = new TransactionRequest();
+        invalidRequest.setAmount(new BigDecimal("-1.00"));
+        invalidRequest.setType("DEPOSIT");
+        invalidRequest.setCurrency("USD");
+
+        TransactionBatchResponse response = transactionService.createTransactions(
+                Arrays.asList(validRequest, invalidRequest, null, validRequest));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(2, response.getFailed());
+        List<TransactionBatchItemResponse> results = response.getResults();
+        assertEquals(TransactionBatchItemResponse.CREATED, results.get(0).getStatus());
+        assertEquals("DEPOSIT", results.get(0).getTransaction().getType());
+        assertEquals("TRX_INVALID", results.get(1).getCode());
+        assertEquals(2, results.get(2).getIndex());
+        assertEquals(TransactionBatchItemResponse.FAILED, results.get(2).getStatus());
+        assertEquals(TransactionBatchItemResponse.CREATED, results.get(3).getStatus());
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    /**
+     * 测试批量创建空批次
+     * 验证空批次被拒绝且不访问仓库
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should reject an empty batch")
+    void createTransactions_EmptyBatch_ThrowsException() {
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.createTransactions(List.of()));
+
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    /**
+     * 测试导出全部交易
+     * 验证导出按游标逐页读取，直到返回不满一页为止
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should export every transaction page by page")
+    void exportTransactions_WalksAllPages() {
+        List<Transaction> fullPage = new ArrayList<>();
+        for (int i = 0; i < TransactionServiceImpl.EXPORT_PAGE_SIZE; i++) {
+            fullPage.add(new Transaction(new BigDecimal("1.00"), "page", "DEPOSIT", "USD"));
+        }
+        when(transactionRepository.findAfter(isNull(), eq(TransactionServiceImpl.EXPORT_PAGE_SIZE))).thenReturn(fullPage);
+        when(transactionRepository.findAfter(any(TransactionCursor.class), eq(TransactionServiceImpl.EXPORT_PAGE_SIZE)))
+                .thenReturn(List.of(transaction));
+
+        List<TransactionResponse> exported = new ArrayList<>();
+        long count = transactionService.exportTransactions(exported::add);
+
+        assertEquals(TransactionServiceImpl.EXPORT_PAGE_SIZE + 1, count);
+        assertEquals(count, exported.size());
+        assertEquals(transactionId, exported.get(exported.size() - 1).getId());
+        verify(transactionRepository, times(2)).findAfter(any(), anyInt());
+    }
+
     /**
      * 测试获取已存在的交易
      * 验证服务能够正确获取已存在交易的详情
@@ -125,21 +348,45 @@ public class TransactionServiceImplTest {
         assertEquals(transaction.getId(), response.getId());
         assertEquals(transaction.getAmount(), response.getAmount());
 
-        verify(transactionRepository, times(1)).findById(transactionId);
+        // 未命中时读取一次，写入缓存后再确认一次版本；之后的读取命中缓存，不再访问仓库
+        assertSame(response, transactionService.getTransaction(transactionId));
+        verify(transactionRepository, times(2)).findById(transactionId);
+    }
+
+    /**
+     * 测试获取交易的JSON编码
+     * 验证编码结果与序列化交易响应的结果一致
+     * 
+     * @author 薛鹏
+     * @throws Exception 当JSON解析失败时抛出
+     */
+    @Test
+    @DisplayName("Should return the transaction encoded as JSON")
+    void getTransactionJson_ExistingId_ReturnsEncodedResponse() throws Exception {
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
+
+        TransactionJson json = transactionService.getTransactionJson(transactionId);
+
+        assertEquals(transaction.getVersion(), json.getVersion());
+        assertEquals(transactionId, objectMapper.readTree(json.getJson()).get("id").asText());
+        assertArrayEquals(objectMapper.writeValueAsBytes(new TransactionResponse(transaction)), json.getJson());
+        assertSame(json, transactionService.getTransactionJson(transactionId));
     }
 
     /**
      * 测试获取不存在的交易
-     * 验证服务能够正确处理交易不存在的情况
+     * 验证服务能够正确处理交易不存在的情况，且重复查询由负缓存回答，不再访问仓库
      * 
      * @author 薛鹏
      */
     @Test
-    @DisplayName("Should throw exception when transaction ID does not exist")
+    @DisplayName("Should throw exception when transaction ID does not exist and cache the miss")
     void getTransaction_NonexistentId_ThrowsException() {
         String nonExistentId = "non-existent-id";
         when(transactionRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
+        assertThrows(TransactionException.TransactionNotFoundException.class,
+                () -> transactionService.getTransaction(nonExistentId));
         assertThrows(TransactionException.TransactionNotFoundException.class,
                 () -> transactionService.getTransaction(nonExistentId));
 
@@ -187,7 +434,7 @@ public class TransactionServiceImplTest {
     @DisplayName("Should update transaction when ID exists")
     void updateTransaction_ExistingId_ReturnsUpdatedTransaction() {
         when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
-        doNothing().when(transactionRepository).update(any(Transaction.class));
+        when(transactionRepository.replace(same(transaction), any(Transaction.class))).thenReturn(true);
 
         TransactionRequest updateRequest = new TransactionRequest();
         updateRequest.setAmount(new BigDecimal("150.00"));
@@ -203,9 +450,55 @@ public class TransactionServiceImplTest {
         assertEquals(updateRequest.getDescription(), response.getDescription());
         assertEquals(updateRequest.getType(), response.getType());
         assertEquals(updateRequest.getCurrency(), response.getCurrency());
+        assertEquals(2, response.getVersion());
+        assertEquals(new BigDecimal("100.00"), transaction.getAmount());
 
         verify(transactionRepository, times(1)).findById(transactionId);
-        verify(transactionRepository, times(1)).update(any(Transaction.class));
+        verify(transactionRepository, times(1)).replace(same(transaction), any(Transaction.class));
+    }
+
+    /**
+     * 测试与并发更新竞争的无条件更新
+     * 验证比较并交换失败后重新读取并在新版本上重试
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should retry an unconditional update after losing a compare-and-swap")
+    void updateTransaction_LostCompareAndSwap_RetriesOnLatestVersion() {
+        Transaction concurrent = new Transaction(transactionId, new BigDecimal("120.00"), "Concurrent",
+                "DEPOSIT", transaction.getTimestamp(), "USD", "COMPLETED");
+        concurrent.setVersion(2);
+        when(transactionRepository.findById(transactionId))
+                .thenReturn(Optional.of(transaction), Optional.of(concurrent));
+        when(transactionRepository.replace(same(transaction), any(Transaction.class))).thenReturn(false);
+        when(transactionRepository.replace(same(concurrent), any(Transaction.class))).thenReturn(true);
+
+        TransactionResponse response = transactionService.updateTransaction(transactionId, validRequest);
+
+        assertEquals(3, response.getVersion());
+        verify(transactionRepository, times(2)).findById(transactionId);
+    }
+
+    /**
+     * 测试带版本条件的更新
+     * 验证If-Match的版本不匹配时返回前置条件失败，请求体中的版本不匹配时返回版本冲突，均不写入仓库
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should reject updates whose expected version is stale")
+    void updateTransaction_StaleVersion_ThrowsException() {
+        transaction.setVersion(3);
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
+
+        assertThrows(TransactionException.PreconditionFailedException.class,
+                () -> transactionService.updateTransaction(transactionId, validRequest, 2));
+        validRequest.setVersion(2L);
+        assertThrows(TransactionException.VersionConflictException.class,
+                () -> transactionService.updateTransaction(transactionId, validRequest));
+
+        verify(transactionRepository, never()).replace(any(Transaction.class), any(Transaction.class));
     }
 
     /**
@@ -217,10 +510,147 @@ public class TransactionServiceImplTest {
     @Test
     @DisplayName("Should delete transaction when ID exists")
     void deleteTransaction_ExistingId_DeletesTransaction() {
-        doNothing().when(transactionRepository).deleteById(transactionId);
+        when(transactionRepository.deleteById(transactionId)).thenReturn(transaction);
 
         transactionService.deleteTransaction(transactionId);
 
         verify(transactionRepository, times(1)).deleteById(transactionId);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 测试删除时统计扣除的是仓库删除的版本
+     * 模拟读取之后、删除之前交易被并发更新：统计必须扣除删除时存储中的新版本，而不是之前读取的旧版本
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should remove the deleted version from statistics, not an earlier read")
+    void deleteTransaction_ConcurrentUpdate_RemovesDeletedVersion() {
+        Transaction updated = new Transaction(transactionId, new BigDecimal("55.00"), transaction.getDescription(),
+                transaction.getType(), transaction.getTimestamp(), "EUR", transaction.getStatus());
+        updated.setVersion(transaction.getVersion() + 1);
+        transactionStatistics.add(updated);
+        when(transactionRepository.deleteById(transactionId)).thenReturn(updated);
+
+        transactionService.deleteTransaction(transactionId);
+
+        TransactionStatsResponse stats = transactionService.getStatistics();
+        assertEquals(0, stats.getCount());
+        assertTrue(stats.getGroups().isEmpty());
+    }
+
+    /**
+     * 测试按游标获取交易
+     * 验证整页结果会返回指向最后一条交易的游标，且游标能被正确解码后传给仓库
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should return next cursor pointing at the last row of a full page")
+    void getTransactionsAfter_FullPage_ReturnsNextCursor() {
+        when(transactionRepository.findAfter(null, 1)).thenReturn(List.of(transaction));
+
+        TransactionPageResponse firstPage = transactionService.getTransactionsAfter("", 1);
+
+        assertEquals(1, firstPage.getTransactions().size());
+        assertNotNull(firstPage.getNextCursor());
+        TransactionCursor cursor = TransactionCursor.decode(firstPage.getNextCursor());
+        assertEquals(transactionId, cursor.getId());
+
+        when(transactionRepository.findAfter(any(TransactionCursor.class), eq(1))).thenReturn(List.of());
+
+        TransactionPageResponse lastPage = transactionService.getTransactionsAfter(firstPage.getNextCursor(), 1);
+
+        assertTrue(lastPage.getTransactions().isEmpty());
+        assertNull(lastPage.getNextCursor());
+    }
+
+    /**
+     * 测试无效游标
+     * 验证服务在游标无法解码时抛出无效交易异常
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should throw exception when cursor is malformed")
+    void getTransactionsAfter_MalformedCursor_ThrowsException() {
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.getTransactionsAfter("%%%", 10));
+
+        verify(transactionRepository, never()).findAfter(any(), anyInt());
+    }
+
+    /**
+     * 测试金额下限大于上限的过滤条件
+     * 验证服务抛出无效交易异常且不查询仓库
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should reject an amount range whose minimum exceeds its maximum")
+    void getTransactions_InvertedAmountRange_ThrowsException() {
+        TransactionFilter filter = new TransactionFilter()
+                .minAmount(new BigDecimal("500"))
+                .maxAmount(new BigDecimal("100"));
+
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.getTransactions(filter, 0, 10));
+        assertThrows(TransactionException.InvalidTransactionException.class,
+                () -> transactionService.countTransactions(filter));
+
+        verify(transactionRepository, never()).findAll(any(TransactionFilter.class), anyInt(), anyInt());
+        verify(transactionRepository, never()).count(any(TransactionFilter.class));
+    }
+
+    /**
+     * 测试交易统计的增量维护
+     * 验证创建、修改金额、修改分组和删除后各分组的笔数和金额合计
+     * 
+     * @author 薛鹏
+     */
+    @Test
+    @DisplayName("Should keep statistics in step with create, update and delete")
+    void getStatistics_TracksCreateUpdateAndDelete() {
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        transactionService.createTransaction(validRequest);
+        transactionService.createTransaction(validRequest);
+        TransactionStatsResponse stats = transactionService.getStatistics();
+        assertEquals(2, stats.getCount());
+        assertEquals(new BigDecimal("200.00"), stats.getGroups().get(0).getTotal());
+
+        AtomicReference<Transaction> stored = new AtomicReference<>(transaction);
+        when(transactionRepository.findById(transactionId)).thenAnswer(invocation -> Optional.of(stored.get()));
+        when(transactionRepository.replace(any(Transaction.class), any(Transaction.class)))
+                .thenAnswer(invocation -> stored.compareAndSet(invocation.getArgument(0), invocation.getArgument(1)));
+        transactionStatistics.add(transaction);
+        TransactionRequest amountOnly = new TransactionRequest();
+        amountOnly.setAmount(new BigDecimal("40.50"));
+        amountOnly.setType("DEPOSIT");
+        amountOnly.setCurrency("USD");
+        transactionService.updateTransaction(transactionId, amountOnly);
+        stats = transactionService.getStatistics();
+        assertEquals(1, stats.getGroups().size());
+        assertEquals(3, stats.getGroups().get(0).getCount());
+        assertEquals(new BigDecimal("240.50"), stats.getGroups().get(0).getTotal());
+
+        TransactionRequest regroup = new TransactionRequest();
+        regroup.setAmount(new BigDecimal("7"));
+        regroup.setType("TRANSFER");
+        regroup.setCurrency("JPY");
+        transactionService.updateTransaction(transactionId, regroup);
+        stats = transactionService.getStatistics();
+        assertEquals(3, stats.getCount());
+        TransactionStatsGroup yen = stats.getGroups().get(0);
+        assertEquals("JPY", yen.getCurrency());
+        assertEquals("TRANSFER", yen.getType());
+        assertEquals(new BigDecimal("7"), yen.getTotal());
+        assertEquals(new BigDecimal("200.00"), stats.getGroups().get(1).getTotal());
+
+        when(transactionRepository.deleteById(transactionId)).thenAnswer(invocation -> stored.get());
+        transactionService.deleteTransaction(transactionId);
+        stats = transactionService.getStatistics();
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getGroups().size());
+        assertEquals("USD", stats.getGroups().get(0).getCurrency());
+    }
+}